@@ -2,7 +2,10 @@ package com.peaksolution.openatfx;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 
 /**
@@ -33,4 +36,20 @@ public interface IFileHandler {
      */
     public InputStream getFileStream(Path path) throws IOException;
 
+    /**
+     * Returns a channel for positional reads of given full path, used to read the values and flags of external
+     * components. If the returned channel is a <code>java.nio.channels.FileChannel</code>, the file may also be memory
+     * mapped.
+     * <p>
+     * The default implementation opens the path through the file system provider of the path. Handlers of other
+     * storages should override this method to provide range reads instead of streaming whole files.
+     * 
+     * @param path The full path to the file to read.
+     * @return The channel, to be closed by the caller.
+     * @throws IOException Error opening file channel.
+     */
+    public default SeekableByteChannel getFileChannel(Path path) throws IOException {
+        return Files.newByteChannel(path, StandardOpenOption.READ);
+    }
+
 }
@@ -5,7 +5,10 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 
 /**
@@ -32,6 +35,16 @@ public class LocalFileHandler implements IFileHandler {
         return new BufferedInputStream(new FileInputStream(file));
     }
 
+    /**
+     * {@inheritDoc}
+     * 
+     * @see com.peaksolution.openatfx.IFileHandler#getFileChannel(java.nio.file.Path)
+     */
+    @Override
+    public SeekableByteChannel getFileChannel(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.READ);
+    }
+
     /**
      * {@inheritDoc}
      * 
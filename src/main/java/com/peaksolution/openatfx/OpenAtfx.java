@@ -8,6 +8,8 @@ import java.util.Properties;
 import org.asam.ods.ErrorCode;
 
 import com.peaksolution.openatfx.api.ApiFactory;
+import com.peaksolution.openatfx.api.AtfxVisitor;
+import com.peaksolution.openatfx.api.InstanceFilter;
 import com.peaksolution.openatfx.api.OpenAtfxAPI;
 import com.peaksolution.openatfx.api.OpenAtfxException;
 
@@ -20,6 +22,7 @@ import com.peaksolution.openatfx.api.OpenAtfxException;
 public class OpenAtfx {
 
     private final Properties properties;
+    private InstanceFilter instanceFilter;
 
     public OpenAtfx() {
         this(new Properties());
@@ -39,6 +42,17 @@ public class OpenAtfx {
         properties.put(key, value);
     }
 
+    /**
+     * Sets the filter deciding which instances are loaded when opening a file. Rejected instances are skipped while
+     * parsing and relations to them are dropped. To skip all instances of application elements, the property
+     * 'SKIP_ELEMENTS' may be used instead.
+     * 
+     * @param instanceFilter the filter, null to load all instances.
+     */
+    public void setInstanceFilter(InstanceFilter instanceFilter) {
+        this.instanceFilter = instanceFilter;
+    }
+
     /**
      * Loads the given atfx file and parses its data. Returns the OpenAtfxAPI to access this file.
      * 
@@ -70,7 +84,33 @@ public class OpenAtfx {
      */
     public OpenAtfxAPI openFile(IFileHandler fileHandler, Path path) {
         ApiFactory apiFactory = new ApiFactory();
-        return apiFactory.getApiForExistingFile(fileHandler, path, properties);
+        return apiFactory.getApiForExistingFile(fileHandler, path, properties, instanceFilter);
+    }
+
+    /**
+     * Streams the instances of the given atfx file to the given visitor, without keeping them in memory. Use this
+     * instead of {@link #openFile(Path)} to read files too large to be held in memory at once, e.g. for exporting
+     * them to another system. The configured instance filter is applied.
+     * 
+     * @param path the path to the atfx file to read, has to be a valid existing file path!
+     * @param visitor the visitor receiving the application model and the instances.
+     */
+    public void stream(Path path, AtfxVisitor visitor) {
+        stream(new LocalFileHandler(), path, visitor);
+    }
+
+    /**
+     * Accepts an external file handler (e.g. from openatfx mdf library) and streams the instances of the given atfx
+     * file to the given visitor, without keeping them in memory.
+     * 
+     * @param fileHandler the IFileHandler implementation, which may provide a filestream of a different
+     * file to read, than it actually specifies as root and filename.
+     * @param path the path to the file to read, has to be a valid existing file path!
+     * @param visitor the visitor receiving the application model and the instances.
+     */
+    public void stream(IFileHandler fileHandler, Path path, AtfxVisitor visitor) {
+        ApiFactory apiFactory = new ApiFactory();
+        apiFactory.streamExistingFile(fileHandler, path, properties, instanceFilter, visitor);
     }
 
     /**
@@ -83,23 +83,90 @@ public class ApiFactory {
      * @return
      */
     public OpenAtfxAPIImplementation getApiForExistingFile(IFileHandler fileHandler, Path path, Properties properties) {
+        return getApiForExistingFile(fileHandler, path, properties, null);
+    }
+
+    /**
+     * Reads an existing atfx file and provides OpenAtfxAPIImplementation to access it, only loading the instances
+     * accepted by given filter.
+     * 
+     * @param fileHandler the IFileHandler implementation for the atfx file
+     * @param path The atfx file path.
+     * @param properties The OpenAtfx properties to set.
+     * @param instanceFilter The filter deciding which instances to load, null to load all instances.
+     * @return
+     */
+    public OpenAtfxAPIImplementation getApiForExistingFile(IFileHandler fileHandler, Path path, Properties properties,
+            InstanceFilter instanceFilter) {
+        // identify the file state before reading it, so that changes while parsing invalidate the snapshot; skipped
+        // inline values are read from the atfx file on demand, so lazy sessions neither use nor write snapshots
+        AtfxSnapshot snapshot = null;
+        if (instanceFilter == null
+                && Boolean.parseBoolean(properties.getProperty(OpenAtfxConstants.CONTEXT_SNAPSHOT_CACHE))
+                && !Boolean.parseBoolean(properties.getProperty(OpenAtfxConstants.CONTEXT_LAZY_INLINE_VALUES))) {
+            snapshot = AtfxSnapshot.forFile(path, getSnapshotOptions(properties));
+        }
+
         try (InputStream in = fileHandler.getFileStream(path)) {
             String fileRoot = fileHandler.getFileRoot(path);
             String fileName = fileHandler.getFileName(path);
             String compatibilityModeString = properties.getProperty(OpenAtfxConstants.CONTEXT_EXTENDED_COMPATIBILITYMODE);
             boolean isExtendedCompatiblityMode = Boolean.parseBoolean(compatibilityModeString);
             String configuredExtCompFilenameStartRemoveString = properties.getProperty(OpenAtfxConstants.CONTEXT_EXTCOMP_FILENAME_STRIP_STRING);
+            Collection<NameValueUnit> context = prepareContext(properties, fileRoot, fileName);
 
-            // open XML file
-            XMLInputFactory inputFactory = XMLInputFactory.newInstance();
-            inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
-            XMLStreamReader rawReader = inputFactory.createXMLStreamReader(in);
-            XMLStreamReader reader = inputFactory.createFilteredReader(rawReader, new StartEndElementFilter());
+            if (snapshot != null) {
+                OpenAtfxAPIImplementation api = snapshot.read(fileHandler, context);
+                if (api != null) {
+                    return api;
+                }
+            }
 
             AtfxReader atfxReader = new AtfxReader(fileHandler, path, isExtendedCompatiblityMode,
                                                    configuredExtCompFilenameStartRemoveString);
+            atfxReader.setInstanceFilter(instanceFilter);
+            InputStream parsedIn = snapshot != null ? snapshot.checksumWhileParsing(in) : in;
+            OpenAtfxAPIImplementation api = atfxReader.readFile(createXmlReader(parsedIn), context);
+
+            // flags copied to the flags extract file are only available after parsing again
+            if (snapshot != null && !atfxReader.hasExtractedFlags()) {
+                snapshot.write(api);
+            }
+            return api;
+        } catch (IOException e) {
+            throw new OpenAtfxException(ErrorCode.AO_CONNECT_FAILED,
+                                        "Error reading data from atfx file: " + e.getMessage());
+        } catch (XMLStreamException e) {
+            throw new OpenAtfxException(ErrorCode.AO_CONNECT_FAILED,
+                                        "Error creating file reader for atfx file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads an existing atfx file and streams its instances to given visitor without keeping them in memory. The
+     * visitor receives the api with the application model before the first instance.
+     * 
+     * @param fileHandler the IFileHandler implementation for the atfx file
+     * @param path The atfx file path.
+     * @param properties The OpenAtfx properties to set.
+     * @param instanceFilter The filter deciding which instances to stream, null to stream all instances.
+     * @param visitor The visitor receiving the instances.
+     */
+    public void streamExistingFile(IFileHandler fileHandler, Path path, Properties properties,
+            InstanceFilter instanceFilter, AtfxVisitor visitor) {
+        try (InputStream in = fileHandler.getFileStream(path)) {
+            String fileRoot = fileHandler.getFileRoot(path);
+            String fileName = fileHandler.getFileName(path);
+            String compatibilityModeString = properties.getProperty(OpenAtfxConstants.CONTEXT_EXTENDED_COMPATIBILITYMODE);
+            boolean isExtendedCompatiblityMode = Boolean.parseBoolean(compatibilityModeString);
+            String configuredExtCompFilenameStartRemoveString = properties.getProperty(OpenAtfxConstants.CONTEXT_EXTCOMP_FILENAME_STRIP_STRING);
             Collection<NameValueUnit> context = prepareContext(properties, fileRoot, fileName);
-            return atfxReader.readFile(reader, context);
+
+            AtfxReader atfxReader = new AtfxReader(fileHandler, path, isExtendedCompatiblityMode,
+                                                   configuredExtCompFilenameStartRemoveString);
+            atfxReader.setInstanceFilter(instanceFilter);
+            atfxReader.setVisitor(visitor);
+            atfxReader.readFile(createXmlReader(in), context);
         } catch (IOException e) {
             throw new OpenAtfxException(ErrorCode.AO_CONNECT_FAILED,
                                         "Error reading data from atfx file: " + e.getMessage());
@@ -109,6 +176,20 @@ public class ApiFactory {
         }
     }
 
+    /**
+     * Creates the XML stream reader for an atfx file, only delivering start and end elements.
+     * 
+     * @param in The atfx file stream.
+     * @return The XML stream reader.
+     * @throws XMLStreamException Error creating the reader.
+     */
+    private XMLStreamReader createXmlReader(InputStream in) throws XMLStreamException {
+        XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        XMLStreamReader rawReader = inputFactory.createXMLStreamReader(in);
+        return inputFactory.createFilteredReader(rawReader, new StartEndElementFilter());
+    }
+
     /**
      * Creates the new atfx file with given path, initializes ODS base model with given version and provides the
      * connected {@link OpenAtfxAPIImplementation};
@@ -143,6 +224,24 @@ public class ApiFactory {
         return api;
     }
 
+    /**
+     * Returns the options influencing the result of parsing an atfx file, a snapshot is only valid for the same
+     * options.
+     * 
+     * @param properties The OpenAtfx properties.
+     * @return The options string.
+     */
+    private String getSnapshotOptions(Properties properties) {
+        return OpenAtfxConstants.CONTEXT_EXTENDED_COMPATIBILITYMODE + "="
+                + Boolean.parseBoolean(properties.getProperty(OpenAtfxConstants.CONTEXT_EXTENDED_COMPATIBILITYMODE))
+                + ";" + OpenAtfxConstants.CONTEXT_EXTCOMP_FILENAME_STRIP_STRING + "="
+                + properties.getProperty(OpenAtfxConstants.CONTEXT_EXTCOMP_FILENAME_STRIP_STRING, "") + ";"
+                + OpenAtfxConstants.CONTEXT_TRIM_STRING_VALUES + "="
+                + Boolean.parseBoolean(properties.getProperty(OpenAtfxConstants.CONTEXT_TRIM_STRING_VALUES)) + ";"
+                + OpenAtfxConstants.CONTEXT_SKIP_ELEMENTS + "="
+                + properties.getProperty(OpenAtfxConstants.CONTEXT_SKIP_ELEMENTS, "");
+    }
+
     private Collection<NameValueUnit> prepareContext(Properties properties, String fileRoot, String fileName) {
         Map<String, NameValueUnit> contextByName = new HashMap<>();
         
@@ -0,0 +1,199 @@
+package com.peaksolution.openatfx.api;
+
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import org.asam.ods.ErrorCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.peaksolution.openatfx.io.AtfxTagConstants;
+
+
+/**
+ * Loads the values of local columns asynchronously.
+ * <p>
+ * The values are read exactly like by a blocking read of the 'values' attribute, including the session's values cache,
+ * only on the configured executor. By default a virtual thread per task is used on runtimes supporting them, the common
+ * fork join pool otherwise. Loading is safe as long as the model and instances are not modified at the same time.
+ *
+ * @author Markus Renner
+ */
+class AsyncColumnLoader {
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncColumnLoader.class);
+
+    private final AtfxCache atfxCache;
+    /** the executor set from outside, null to use the default one */
+    private Executor executor;
+    /** the default executor, created on first use */
+    private Executor defaultExecutor;
+    /** the virtual thread executor owned by this loader, null if not created */
+    private ExecutorService ownExecutor;
+
+    AsyncColumnLoader(AtfxCache atfxCache) {
+        this.atfxCache = atfxCache;
+    }
+
+    /**
+     * Sets the executor the values are read on.
+     *
+     * @param executor The executor, null to use the default one.
+     */
+    synchronized void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Reads the values of given local column asynchronously.
+     *
+     * @param iidLc The instance id of the local column.
+     * @return The future values.
+     */
+    CompletableFuture<SingleValue> readValues(long iidLc) {
+        return CompletableFuture.supplyAsync(() -> readValuesBlocking(iidLc), getExecutor());
+    }
+
+    /**
+     * Reads the values of given local columns asynchronously. The local columns whose values are all stored in the
+     * same component file are read one after the other, ordered by the offset of their first value within the file.
+     * Each local column is still read on its own, the reads are not merged. The groups of different files are read in
+     * parallel.
+     *
+     * @param iidLcs The instance ids of the local columns.
+     * @return The future values by local column instance id, in the order of the given ids.
+     */
+    CompletableFuture<Map<Long, SingleValue>> readValues(Collection<Long> iidLcs) {
+        ExtCompReader extCompReader = atfxCache.getExtCompReader();
+        Map<Path, List<ColumnPosition>> columnsByFile = new LinkedHashMap<>();
+        List<List<ColumnPosition>> groups = new ArrayList<>();
+        Set<Long> requested = new HashSet<>();
+        for (long iidLc : iidLcs) {
+            if (!requested.add(iidLc)) {
+                continue;
+            }
+            ColumnPosition column = new ColumnPosition(iidLc, extCompReader.getDescriptors(iidLc));
+            if (column.file == null) {
+                groups.add(List.of(column));
+            } else {
+                columnsByFile.computeIfAbsent(column.file, f -> new ArrayList<>()).add(column);
+            }
+        }
+        for (List<ColumnPosition> columns : columnsByFile.values()) {
+            columns.sort(Comparator.comparingLong(c -> c.offset));
+            groups.add(columns);
+        }
+
+        Map<Long, SingleValue> results = new ConcurrentHashMap<>();
+        Executor taskExecutor = getExecutor();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[groups.size()];
+        for (int i = 0; i < futures.length; i++) {
+            List<ColumnPosition> group = groups.get(i);
+            futures[i] = CompletableFuture.runAsync(() -> {
+                for (ColumnPosition column : group) {
+                    results.put(column.iidLc, readValuesBlocking(column.iidLc));
+                }
+            }, taskExecutor);
+        }
+        LOG.debug("Reading {} local columns in {} groups", iidLcs.size(), groups.size());
+
+        return CompletableFuture.allOf(futures).thenApply(v -> {
+            Map<Long, SingleValue> ordered = new LinkedHashMap<>();
+            for (long iidLc : iidLcs) {
+                ordered.put(iidLc, results.get(iidLc));
+            }
+            return ordered;
+        });
+    }
+
+    /**
+     * Shuts the default executor down, it is created again when needed.
+     */
+    synchronized void close() {
+        if (ownExecutor != null) {
+            ownExecutor.shutdown();
+            ownExecutor = null;
+        }
+        defaultExecutor = null;
+    }
+
+    private SingleValue readValuesBlocking(long iidLc) {
+        try {
+            Element lcElement = atfxCache.getUniqueElementByBasetype(AtfxTagConstants.LC);
+            long aidLc = lcElement.getId();
+            int valuesAttrNo = atfxCache.getAttrNoByBaName(aidLc, AtfxTagConstants.LC_VALUES);
+            return atfxCache.getInstanceValue(aidLc, valuesAttrNo, iidLc).getValue();
+        } catch (OpenAtfxException e) {
+            throw new CompletionException(e);
+        } catch (RuntimeException e) {
+            throw new CompletionException(new OpenAtfxException(ErrorCode.AO_UNKNOWN_ERROR, "Error reading values of "
+                    + "local column with id " + iidLc + ": " + e.getMessage()));
+        }
+    }
+
+    /**
+     * @return The executor set from outside, the default one if none has been set.
+     */
+    synchronized Executor getExecutor() {
+        if (executor != null) {
+            return executor;
+        }
+        if (defaultExecutor == null) {
+            ownExecutor = createVirtualThreadExecutor();
+            defaultExecutor = ownExecutor != null ? ownExecutor : ForkJoinPool.commonPool();
+        }
+        return defaultExecutor;
+    }
+
+    /**
+     * @return An executor starting a virtual thread per task, null if the runtime does not support virtual threads.
+     */
+    private static ExecutorService createVirtualThreadExecutor() {
+        try {
+            // Java 21 API, looked up reflectively to stay compatible with older runtimes
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            LOG.debug("Virtual threads not available, using the common pool: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * The component file holding all values of a local column and the position of its first value.
+     */
+    private static class ColumnPosition {
+        private final long iidLc;
+        /** the file of all components, null if the values are not in exactly one file */
+        private final Path file;
+        private final long offset;
+
+        private ColumnPosition(long iidLc, List<ExtCompDescriptor> descriptors) {
+            this.iidLc = iidLc;
+            Path commonFile = descriptors.isEmpty() ? null : descriptors.get(0).getValuesFile();
+            for (ExtCompDescriptor descriptor : descriptors) {
+                if (!Objects.equals(commonFile, descriptor.getValuesFile())) {
+                    commonFile = null;
+                    break;
+                }
+            }
+            this.file = commonFile;
+            this.offset = descriptors.isEmpty() ? 0 : descriptors.get(0).getStartOffset();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.peaksolution.openatfx.api;
 
+import java.io.File;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -36,6 +37,10 @@ class AtfxCache {
     private final BaseModel baseModel;
     private final ExtCompReader extCompReader;
     private final ExtCompWriter extCompWriter;
+    /** the decoded values of local columns read from external component files */
+    private final ExtCompValuesCache valuesCache = new ExtCompValuesCache();
+    /** the inline values of local columns skipped while opening the file, null if none */
+    private InlineValuesIndex inlineValues;
     
     /** enumerations */
     private final Collection<AtfxEnumeration> enumerations = new ArrayList<>();
@@ -118,6 +123,21 @@ class AtfxCache {
         return nextIidsByAid.computeIfAbsent(aid, v -> new AtomicLong(1)).getAndIncrement();
     }
     
+    /**
+     * @return the next free instance element ids of the application elements an id has been generated for.
+     */
+    Map<Long, Long> getNextIids() {
+        Map<Long, Long> nextIids = new TreeMap<>();
+        for (Entry<Long, AtomicLong> entry : nextIidsByAid.entrySet()) {
+            nextIids.put(entry.getKey(), entry.getValue().get());
+        }
+        return nextIids;
+    }
+
+    void setNextIid(long aid, long nextIid) {
+        nextIidsByAid.computeIfAbsent(aid, v -> new AtomicLong()).set(nextIid);
+    }
+    
     /**
      * @return the instance of the {@link ExtCompReader}.
      */
@@ -125,6 +145,28 @@ class AtfxCache {
         return extCompReader;
     }
 
+    ExtCompWriter getExtCompWriter() {
+        return extCompWriter;
+    }
+    
+    /**
+     * @return the cache of the values read from external component files.
+     */
+    ExtCompValuesCache getValuesCache() {
+        return valuesCache;
+    }
+
+    /**
+     * @return the inline values of local columns skipped while opening the file, null if none.
+     */
+    InlineValuesIndex getInlineValuesIndex() {
+        return inlineValues;
+    }
+
+    void setInlineValuesIndex(InlineValuesIndex inlineValues) {
+        this.inlineValues = inlineValues;
+    }
+
     /***********************************************************************************
      * application elements
      ***********************************************************************************/
@@ -747,6 +789,11 @@ class AtfxCache {
      * @throws OpenAtfxException 
      */
     public void removeInstance(long aid, long iid) {
+        invalidateCachedValues(aid, iid);
+        if (inlineValues != null && AtfxTagConstants.LC.equalsIgnoreCase(getElementById(aid).getType())) {
+            inlineValues.remove(iid);
+        }
+
         // remove relations
         for (Relation applRel : getModelRelations(aid)) {
             removeInstanceRelations(aid, iid, applRel, getRelatedInstanceIds(aid, iid, applRel));
@@ -826,6 +873,14 @@ class AtfxCache {
      */
     public void setInstanceValue(long aid, long iid, int attrNo, NameValueUnit value) {
         Attribute attr = getAttribute(aid, attrNo);
+        if (attr.isLocalColumnValuesAttr() || attr.isLocalColumnFlagsAttr()) {
+            valuesCache.invalidate(iid);
+            if (attr.isLocalColumnValuesAttr() && inlineValues != null) {
+                inlineValues.remove(iid);
+            }
+        } else {
+            invalidateCachedValues(aid, iid);
+        }
         Element unitElement = null;
         Collection<AtfxElement> unitElements = getElementsByBasetype("aounit");
         if (!unitElements.isEmpty()) {
@@ -946,6 +1001,13 @@ class AtfxCache {
             }
         }
 
+        // read inline values skipped while opening the file
+        if (!isValid && isLcValuesAttr && inlineValues != null && inlineValues.contains(iid)) {
+            DataType inlineDt = inlineValues.getDataType(iid);
+            nvu = convertToNameValueUnit(attr, valuesCache.get(iid, inlineDt, () -> inlineValues.read(iid)));
+            isValid = true;
+        }
+
         // read values from external component file
         if (!isValid && isLcValuesAttr) {
             dt = getDataTypeForLocalColumnValues(iid);
@@ -953,7 +1015,9 @@ class AtfxCache {
             int seqRep = getInstanceValue(aid, seqRepAttrNo, iid).getValue().enumVal();
             // external_component=7,raw_linear_external=8,raw_polynomial_external=9,raw_linear_calibrated_external=11,raw_rational_external=13
             if (seqRep == 7 || seqRep == 8 || seqRep == 9 || seqRep == 11 || seqRep == 13) {
-                return convertToNameValueUnit(attr, extCompReader.readValues(iid, dt));
+                DataType rawDt = dt;
+                return convertToNameValueUnit(attr, valuesCache.get(iid, rawDt,
+                                                                    () -> extCompReader.readValues(iid, rawDt)));
             }
         }
         // read flags from external component file
@@ -1019,6 +1083,97 @@ class AtfxCache {
         return !isValid ? new NameValueUnit(attr.getName(), dt, null) : nvu;
     }
 
+    /**
+     * Reads the inline values skipped while opening the file into memory, if given file is the file they are read
+     * from.
+     * 
+     * @param file The file about to be written.
+     * @throws OpenAtfxException Error reading the values.
+     */
+    void loadInlineValues(File file) {
+        if (inlineValues == null || inlineValues.getIids().isEmpty() || !inlineValues.isSourceFile(file)) {
+            return;
+        }
+        long aid = getUniqueElementByBasetype(AtfxTagConstants.LC).getId();
+        int valuesAttrNo = getAttrNoByBaName(aid, AtfxTagConstants.LC_VALUES);
+        for (long iid : inlineValues.getIids()) {
+            AtfxInstance instance = getInstance(aid, iid);
+            NameValueUnit nvu = instance.getValueInternal(valuesAttrNo);
+            if (nvu == null || !nvu.hasValidValue()) {
+                instance.setAttributeValue(getInstanceValue(aid, valuesAttrNo, iid));
+            }
+            inlineValues.remove(iid);
+            valuesCache.invalidate(iid);
+        }
+    }
+
+    /**
+     * Returns a window of the 'values' of a local column. Values stored in external component files are read only for
+     * the requested range, values held in memory are copied.
+     * 
+     * @param aid The application element id of the local column.
+     * @param iid The instance id of the local column.
+     * @param startIndex The index of the first value.
+     * @param count The maximum number of values, fewer values are returned if the end of the column is reached.
+     * @return The values.
+     * @throws OpenAtfxException Error getting values.
+     */
+    NameValueUnit getLocalColumnValues(long aid, long iid, int startIndex, int count) {
+        int valuesAttrNo = getAttrNoByBaName(aid, AtfxTagConstants.LC_VALUES);
+        Attribute attr = getAttribute(aid, valuesAttrNo);
+        NameValueUnit nvu = getInstance(aid, iid).getValueInternal(valuesAttrNo);
+        if (nvu == null || !nvu.hasValidValue()) {
+            int seqRepAttrNo = getAttrNoByBaName(aid, AtfxTagConstants.LC_SEQ_REP);
+            int seqRep = getInstanceValue(aid, seqRepAttrNo, iid).getValue().enumVal();
+            // external_component=7,raw_linear_external=8,raw_polynomial_external=9,raw_linear_calibrated_external=11,raw_rational_external=13
+            if (seqRep == 7 || seqRep == 8 || seqRep == 9 || seqRep == 11 || seqRep == 13) {
+                DataType dt = getDataTypeForLocalColumnValues(iid);
+                SingleValue cached = valuesCache.getIfPresent(iid, dt, startIndex, count);
+                if (cached != null) {
+                    return convertToNameValueUnit(attr, cached);
+                }
+                return convertToNameValueUnit(attr, extCompReader.readValues(iid, dt, startIndex, count));
+            }
+        }
+
+        NameValueUnit values = getInstanceValue(aid, valuesAttrNo, iid);
+        if (!values.hasValidValue() || !values.getValue().discriminator().isSequenceType()) {
+            return values;
+        }
+        return values.getSubsetOfSequenceValue(Math.min(startIndex, values.getValueLength()), count);
+    }
+
+    /**
+     * Returns a window of the 'flags' of a local column. Flags stored in external component flags files are read only
+     * for the requested range, flags held in memory or derived from the global flag are copied.
+     * 
+     * @param aid The application element id of the local column.
+     * @param iid The instance id of the local column.
+     * @param startIndex The index of the first flag.
+     * @param count The maximum number of flags, fewer flags are returned if the end of the column is reached.
+     * @return The flags, null if the local column element has no flags attribute.
+     * @throws OpenAtfxException Error getting flags.
+     */
+    NameValueUnit getLocalColumnFlags(long aid, long iid, int startIndex, int count) {
+        Integer flagsAttrNo = getAttrNoByBaName(aid, AtfxTagConstants.LC_FLAGS);
+        if (flagsAttrNo == null) {
+            return null;
+        }
+        NameValueUnit nvu = getInstance(aid, iid).getValueInternal(flagsAttrNo);
+        if (nvu == null || !nvu.hasValidValue()) {
+            SingleValue flags = extCompReader.readFlags(iid, startIndex, count);
+            if (flags != null) {
+                return convertToNameValueUnit(getAttribute(aid, flagsAttrNo), flags);
+            }
+        }
+
+        NameValueUnit flags = getInstanceValue(aid, flagsAttrNo, iid);
+        if (!flags.hasValidValue() || !flags.getValue().discriminator().isSequenceType()) {
+            return flags;
+        }
+        return flags.getSubsetOfSequenceValue(Math.min(startIndex, flags.getValueLength()), count);
+    }
+
     /**
      * Returns all values of an instance attribute of a given list of instances.
      * 
@@ -1167,6 +1322,8 @@ class AtfxCache {
         if (otherIids.isEmpty()) {
             return;
         }
+        invalidateCachedValues(aid, iid);
+        invalidateCachedValues(applRel.getElement2().getId(), otherIids);
         
         // add relation
         AtfxInstance instance1 = getInstance(aid, iid);
@@ -1182,6 +1339,49 @@ class AtfxCache {
         }
     }
 
+    /**
+     * Creates the instance relations of a parsed file in bulk. The relation, its inverse relation and the instances of
+     * both application elements are resolved once and both directions are filled directly at the instances.
+     * 
+     * @param applRel The application relation.
+     * @param otherIidsByIid The target instance ids by the source instance ids.
+     * @throws OpenAtfxException Source or target instance not found.
+     */
+    public void connectInstances(Relation applRel, Map<Long, Collection<Long>> otherIidsByIid) {
+        long aid = applRel.getElement1().getId();
+        long otherAid = applRel.getElement2().getId();
+        Map<Long, AtfxInstance> instances = instanceElementCache.getOrDefault(aid, Collections.emptyMap());
+        Map<Long, AtfxInstance> otherInstances = instanceElementCache.getOrDefault(otherAid, Collections.emptyMap());
+        Relation inverseRel = applRel.getInverseRelation();
+
+        for (Entry<Long, Collection<Long>> entry : otherIidsByIid.entrySet()) {
+            long iid = entry.getKey();
+            AtfxInstance instance = instances.get(iid);
+            if (instance == null) {
+                throw new OpenAtfxException(ErrorCode.AO_NOT_FOUND,
+                                            "Instance not found ElemId aid=" + aid + ",iid=" + iid);
+            }
+            Collection<Long> otherIids = entry.getValue();
+            for (Long otherIid : otherIids) {
+                AtfxInstance otherInstance = otherInstances.get(otherIid);
+                if (otherInstance == null) {
+                    throw new OpenAtfxException(ErrorCode.AO_NOT_FOUND,
+                                                "Target InstanceElement not found: Source[aid=" + aid + ",aeName="
+                                                        + getElementNameById(aid) + ",iid=" + iid + "] -> Target[aid="
+                                                        + otherAid + ",aeName=" + getElementNameById(otherAid)
+                                                        + ",iid=" + otherIid + "]");
+                }
+                if (inverseRel != null) {
+                    otherInstance.addRelatedIid(inverseRel, iid);
+                }
+            }
+            if (!otherIids.isEmpty()) {
+                instance.addRelatedIids(applRel, otherIids);
+            }
+        }
+        // no values of a file being parsed can have been cached yet, so nothing has to be invalidated
+    }
+
     /**
      * Removes an instance relation
      * 
@@ -1195,6 +1395,8 @@ class AtfxCache {
         if (otherIids.isEmpty()) {
             return;
         }
+        invalidateCachedValues(aid, iid);
+        invalidateCachedValues(applRel.getElement2().getId(), otherIids);
 
         // remove relation
         AtfxInstance instance = getInstance(aid, iid);
@@ -1485,6 +1687,55 @@ class AtfxCache {
         return new NameValueUnit(source, value);
     }
     
+    /**
+     * Sets the memory budget of the cache for values read from external component files.
+     * 
+     * @param maxBytes The maximum estimated size of all cached values in bytes, 0 disables the cache.
+     */
+    public void setValuesCacheSize(long maxBytes) {
+        valuesCache.setMaxBytes(maxBytes);
+    }
+
+    /**
+     * Removes cached external component values and descriptors affected by a change of given instance. Changes of local
+     * columns only affect their own values, changes of external components affect the local columns they are related
+     * to. External components not related to any local column yet, like the ones created while parsing a file, do not
+     * invalidate anything.
+     * 
+     * @param aid The application element id.
+     * @param iid The instance id.
+     */
+    private void invalidateCachedValues(long aid, long iid) {
+        String type = getElementById(aid).getType();
+        if (AtfxTagConstants.LC.equalsIgnoreCase(type)) {
+            valuesCache.invalidate(iid);
+            extCompReader.invalidateDescriptors(iid);
+        } else if ("aoexternalcomponent".equalsIgnoreCase(type)) {
+            AtfxElement lcElement = getUniqueElementByBasetype(AtfxTagConstants.LC);
+            if (lcElement == null) {
+                return;
+            }
+            AtfxRelation relLcExtComp = getModelRelationByBaseName(lcElement.getId(), "external_component");
+            Relation relExtCompLc = relLcExtComp == null ? null : relLcExtComp.getInverseRelation();
+            if (relExtCompLc == null) {
+                // the local columns cannot be resolved
+                valuesCache.invalidateAll();
+                extCompReader.invalidateDescriptors();
+                return;
+            }
+            for (long iidLc : getRelatedInstanceIds(aid, iid, relExtCompLc)) {
+                valuesCache.invalidate(iidLc);
+                extCompReader.invalidateDescriptors(iidLc);
+            }
+        }
+    }
+
+    private void invalidateCachedValues(long aid, Collection<Long> iids) {
+        for (Long iid : iids) {
+            invalidateCachedValues(aid, iid);
+        }
+    }
+
     private NameValueUnit convertToNameValueUnit(Attribute attr, SingleValue value) {
         return new NameValueUnit(attr.getName(), value, getUnitString(attr.getUnitId()));
     }
@@ -0,0 +1,135 @@
+package com.peaksolution.openatfx.api;
+
+/**
+ * Describes the values or flags of a local column stored in a component file, as specified by a 'component' XML
+ * element of an ATFX file.
+ *
+ * @author Markus Renner
+ */
+public class AtfxComponent {
+
+    private String fileName = "";
+    private String description = "";
+    private String dataType;
+    private int length;
+    private long startOffset;
+    private int blockSize;
+    private int valuesPerBlock;
+    private int valueOffset;
+    private Short bitCount;
+    private Short bitOffset;
+
+    AtfxComponent() {
+        // filled while parsing
+    }
+
+    /**
+     * @return The name of the component file, relative to the ATFX file.
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * @return The description, empty if not specified.
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    void setDescription(String description) {
+        this.description = description;
+    }
+
+    /**
+     * @return The data type as specified in the file, e.g. 'ieeefloat4' or 'dt_short', null if not specified.
+     */
+    public String getDataType() {
+        return dataType;
+    }
+
+    void setDataType(String dataType) {
+        this.dataType = dataType;
+    }
+
+    /**
+     * @return The number of values.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    void setLength(int length) {
+        this.length = length;
+    }
+
+    /**
+     * @return The byte offset of the first block in the component file.
+     */
+    public long getStartOffset() {
+        return startOffset;
+    }
+
+    void setStartOffset(long startOffset) {
+        this.startOffset = startOffset;
+    }
+
+    /**
+     * @return The size of a block in bytes, 0 if not specified.
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    void setBlockSize(int blockSize) {
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * @return The number of values per block, 0 if not specified.
+     */
+    public int getValuesPerBlock() {
+        return valuesPerBlock;
+    }
+
+    void setValuesPerBlock(int valuesPerBlock) {
+        this.valuesPerBlock = valuesPerBlock;
+    }
+
+    /**
+     * @return The byte offset of the values within a block.
+     */
+    public int getValueOffset() {
+        return valueOffset;
+    }
+
+    void setValueOffset(int valueOffset) {
+        this.valueOffset = valueOffset;
+    }
+
+    /**
+     * @return The number of bits of a value, null if not specified.
+     */
+    public Short getBitCount() {
+        return bitCount;
+    }
+
+    void setBitCount(Short bitCount) {
+        this.bitCount = bitCount;
+    }
+
+    /**
+     * @return The bit offset of a value, null if not specified.
+     */
+    public Short getBitOffset() {
+        return bitOffset;
+    }
+
+    void setBitOffset(Short bitOffset) {
+        this.bitOffset = bitOffset;
+    }
+}
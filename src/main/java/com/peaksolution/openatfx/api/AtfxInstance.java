@@ -322,6 +322,42 @@ public class AtfxInstance implements Instance {
         relatedIids.addAll(otherIids);
     }
 
+    /**
+     * Adds related instance ids while building the relations of a parsed file. Other than
+     * {@link #addRelationValue(Relation, Collection)} the ids are always added, also for relations with a maximum of
+     * one.
+     * 
+     * @param applRel The application relation.
+     * @param otherIids The ids of the related instances.
+     */
+    void addRelatedIids(Relation applRel, Collection<Long> otherIids) {
+        Collection<Long> relatedIids = relationValues.get(applRel);
+        if (relatedIids == null) {
+            relationValues.put(applRel, new HashSet<>(otherIids));
+        } else {
+            relatedIids.addAll(otherIids);
+        }
+    }
+
+    /**
+     * Adds a related instance id while building the relations of a parsed file.
+     * 
+     * @param applRel The application relation.
+     * @param otherIid The id of the related instance.
+     * @see #addRelatedIids(Relation, Collection)
+     */
+    void addRelatedIid(Relation applRel, long otherIid) {
+        relationValues.computeIfAbsent(applRel, v -> new HashSet<>()).add(otherIid);
+    }
+
+    /**
+     * @param applRel The application relation.
+     * @return The ids of the related instances, null if the relation has never been set at this instance.
+     */
+    Collection<Long> getRelatedIids(Relation applRel) {
+        return relationValues.get(applRel);
+    }
+
     @Override
     public Collection<Instance> getRelatedInstancesByRelationship(Relationship child, String string) {
         throw new OpenAtfxException(ErrorCode.AO_NOT_IMPLEMENTED,
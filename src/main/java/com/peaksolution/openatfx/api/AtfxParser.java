@@ -9,18 +9,21 @@ import java.io.RandomAccessFile;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
+import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 
@@ -32,6 +35,7 @@ import org.slf4j.LoggerFactory;
 import com.peaksolution.openatfx.IFileHandler;
 import com.peaksolution.openatfx.io.AtfxParseUtil;
 import com.peaksolution.openatfx.io.AtfxTagConstants;
+import com.peaksolution.openatfx.io.NumberSeqParser;
 import com.peaksolution.openatfx.util.BufferedRandomAccessFile;
 import com.peaksolution.openatfx.util.FileUtil;
 import com.peaksolution.openatfx.util.ODSHelper;
@@ -41,6 +45,9 @@ import generated.AttrTypesEnum;
 class AtfxParser {
     private static final Logger LOG = LoggerFactory.getLogger(AtfxParser.class);
 
+    /** the size of the chunks the text of numeric sequence elements is parsed in */
+    private static final int TEXT_CHUNK_SIZE = 8192;
+
     private final IFileHandler fileHandler;
     private final Path atfxPath;
     private final boolean isExtendedCompatibilityMode;
@@ -50,6 +57,21 @@ class AtfxParser {
     private String lcValuesAttrName;
     private String lcFlagsAttrName;
     private boolean trimStringValues;
+    private char[] textChunk;
+    /** the skipped inline values of local columns, null if inline values are parsed on opening */
+    private InlineValuesIndex inlineValues;
+    /** the number of local column 'values' elements parsed */
+    private int lcValuesElementCount;
+    /** true if flags have been copied from component files to the flags extract file */
+    private boolean flagsExtracted;
+    /** the filter deciding which instances to load, null to load all */
+    private InstanceFilter instanceFilter;
+    /** the ids of the application elements whose instances are not loaded */
+    private final Set<Long> skippedAids = new HashSet<>();
+    /** the ids of the instances rejected by the instance filter by application element id */
+    private final Map<Long, Set<Long>> rejectedIidsByAid = new HashMap<>();
+    /** the number of instances not loaded */
+    private int skippedInstanceCount;
 
     public AtfxParser(IFileHandler fileHandler, Path atfxPath, boolean isExtendedCompatiblityMode,
             String configuredExtCompFilenameStartRemoveString) {
@@ -59,6 +81,22 @@ class AtfxParser {
         this.configuredExtCompFilenameStartRemoveString = configuredExtCompFilenameStartRemoveString;
     }
     
+    /**
+     * Sets the filter deciding which instances to load.
+     * 
+     * @param instanceFilter The filter, null to load all instances.
+     */
+    void setInstanceFilter(InstanceFilter instanceFilter) {
+        this.instanceFilter = instanceFilter;
+    }
+    
+    /**
+     * @return true if flags of component files have been copied to the flags extract file while parsing.
+     */
+    boolean hasExtractedFlags() {
+        return flagsExtracted;
+    }
+    
     /**
      * Read the instance elements from the instance data XML element.
      * <p>
@@ -75,10 +113,9 @@ class AtfxParser {
             throws XMLStreamException, OpenAtfxException {
         long start = System.currentTimeMillis();
         
-        NameValueUnit nvu = api.getContext(OpenAtfxConstants.CONTEXT_TRIM_STRING_VALUES);
-        if (nvu != null && nvu.hasValidValue()) {
-            trimStringValues = Boolean.parseBoolean(nvu.getValue().stringVal());
-        }
+        initTrimStringValues(api);
+        inlineValues = createInlineValuesIndex(api, reader);
+        collectSkippedElements(api);
 
         // delete 'old' flags file if existing (in case flags are stored as component file)
         File flagsFile = getFlagsTmpFile();
@@ -93,27 +130,165 @@ class AtfxParser {
 
         // parse instances
         reader.next();
-        Map<Long, Map<Long, Map<String, Collection<Long>>>> relMap = parseInstElements(api, files, reader);
+        Map<Relation, Map<Long, Collection<Long>>> relMap = parseInstElements(api, files, reader);
 
         LOG.info("Parsed instances in {} ms", System.currentTimeMillis() - start);
+        if (skippedInstanceCount > 0) {
+            LOG.info("Skipped {} instances", skippedInstanceCount);
+        }
+
+        if (inlineValues != null) {
+            inlineValues.setElementCount(lcValuesElementCount);
+            api.setInlineValuesIndex(inlineValues);
+        }
         
         // update unit names of instance attributes
         updateInstanceAttrUnits(api);
         
         // create relations
         start = System.currentTimeMillis();
-        for (Entry<Long, Map<Long, Map<String, Collection<Long>>>> aidEntry : relMap.entrySet()) {
-            for (Entry<Long, Map<String, Collection<Long>>> iidEntry : aidEntry.getValue().entrySet()) {
-                for (Entry<String, Collection<Long>> relInstEntry : iidEntry.getValue().entrySet()) {
-                    String relName = relInstEntry.getKey();
-                    api.setRelatedInstances(aidEntry.getKey(), iidEntry.getKey(), relName, relInstEntry.getValue(), SetType.APPEND);
-                }
+        for (Entry<Relation, Map<Long, Collection<Long>>> relEntry : relMap.entrySet()) {
+            // drop the relations to skipped instances
+            long otherAid = relEntry.getKey().getElement2().getId();
+            if (skippedAids.contains(otherAid)) {
+                continue;
+            }
+            Set<Long> rejectedIids = rejectedIidsByAid.get(otherAid);
+            if (rejectedIids != null) {
+                removeRejectedIids(relEntry.getValue(), rejectedIids);
             }
+            api.connectInstances(relEntry.getKey(), relEntry.getValue());
         }
 
         LOG.info("Set relations in {} ms", System.currentTimeMillis() - start);
     }
     
+    /**
+     * Streams the instance elements from the instance data XML element to given visitor without creating the
+     * instances, only the values of the current instance are kept in memory.
+     * <p>
+     * Other than when parsing the instances into the api, the values and relations are passed as written in the file:
+     * inverse relations are not completed, local column values and flags in component files are passed as component
+     * descriptors instead of external component instances and the unit ids of instance attributes are not resolved.
+     * 
+     * @param api The api containing the application model.
+     * @param files Map containing component files.
+     * @param reader The XML stream reader.
+     * @param visitor The visitor receiving the instances.
+     * @throws XMLStreamException Error parsing XML.
+     * @throws OpenAtfxException Error parsing values.
+     */
+    public void streamInstanceElements(OpenAtfxAPIImplementation api, Map<String, String> files,
+            XMLStreamReader reader, AtfxVisitor visitor) throws XMLStreamException {
+        long start = System.currentTimeMillis();
+        initTrimStringValues(api);
+        collectSkippedElements(api);
+
+        reader.next();
+        VisitorSink sink = new VisitorSink(api, files, visitor);
+        parseInstances(api, reader, sink);
+
+        LOG.info("Streamed {} instances in {} ms", sink.instanceCount, System.currentTimeMillis() - start);
+        if (skippedInstanceCount > 0) {
+            LOG.info("Skipped {} instances", skippedInstanceCount);
+        }
+    }
+
+    /**
+     * Reads the context 'TRIM_STRING_VALUES'.
+     * 
+     * @param api The api.
+     */
+    private void initTrimStringValues(OpenAtfxAPIImplementation api) {
+        NameValueUnit nvu = api.getContext(OpenAtfxConstants.CONTEXT_TRIM_STRING_VALUES);
+        if (nvu != null && nvu.hasValidValue()) {
+            trimStringValues = Boolean.parseBoolean(nvu.getValue().stringVal());
+        }
+    }
+    
+    /**
+     * Collects the application elements configured by the context 'SKIP_ELEMENTS', whose instances are not loaded.
+     * The context contains a comma separated list of application element names or base types.
+     * 
+     * @param api The api.
+     */
+    private void collectSkippedElements(OpenAtfxAPIImplementation api) {
+        NameValueUnit nvu = api.getContext(OpenAtfxConstants.CONTEXT_SKIP_ELEMENTS);
+        if (nvu == null || !nvu.hasValidValue()) {
+            return;
+        }
+        for (String name : nvu.getValue().stringVal().split(",")) {
+            name = name.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            Element element = api.getElementByName(name);
+            if (element != null) {
+                skippedAids.add(element.getId());
+                continue;
+            }
+            Collection<Element> elements = api.getElementsByBaseType(name);
+            if (elements.isEmpty()) {
+                LOG.warn("No application element found for '{}' configured in {}", name,
+                         OpenAtfxConstants.CONTEXT_SKIP_ELEMENTS);
+            }
+            for (Element current : elements) {
+                skippedAids.add(current.getId());
+            }
+        }
+    }
+
+    /**
+     * Removes the ids of instances rejected by the instance filter from the related instance ids.
+     * 
+     * @param otherIidsByIid The related instance ids by instance id.
+     * @param rejectedIids The ids of the rejected related instances.
+     */
+    private void removeRejectedIids(Map<Long, Collection<Long>> otherIidsByIid, Set<Long> rejectedIids) {
+        for (Entry<Long, Collection<Long>> entry : otherIidsByIid.entrySet()) {
+            Collection<Long> otherIids = entry.getValue();
+            for (Long otherIid : otherIids) {
+                if (rejectedIids.contains(otherIid)) {
+                    Collection<Long> acceptedIids = new ArrayList<>(otherIids.size());
+                    for (Long iid : otherIids) {
+                        if (!rejectedIids.contains(iid)) {
+                            acceptedIids.add(iid);
+                        }
+                    }
+                    entry.setValue(acceptedIids);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the index of the skipped inline values if the context 'LAZY_INLINE_VALUES' is 'TRUE'.
+     * 
+     * @param api The api.
+     * @param reader The XML stream reader, delivering the encoding of the file.
+     * @return The index, null if inline values are parsed on opening.
+     */
+    private InlineValuesIndex createInlineValuesIndex(OpenAtfxAPIImplementation api, XMLStreamReader reader) {
+        NameValueUnit nvu = api.getContext(OpenAtfxConstants.CONTEXT_LAZY_INLINE_VALUES);
+        if (nvu == null || !nvu.hasValidValue()) {
+            return null;
+        }
+        boolean lazy = nvu.getValue().discriminator() == DataType.DT_BOOLEAN ? nvu.getValue().booleanVal()
+                : Boolean.parseBoolean(nvu.getValue().stringVal());
+        if (!lazy) {
+            return null;
+        }
+        String encoding = reader.getEncoding() != null ? reader.getEncoding() : reader.getCharacterEncodingScheme();
+        Charset charset = InlineValuesIndex.getSupportedCharset(encoding);
+        if (charset == null) {
+            LOG.warn("Inline values are parsed on opening, encoding '{}' is not supported for lazy loading", encoding);
+            return null;
+        }
+        return new InlineValuesIndex(fileHandler, atfxPath, charset, getLcValuesAaName(api),
+                                     isExtendedCompatibilityMode);
+    }
+    
     /**
      * For instance attributes, if a unit is set, the value of its "unit" attribute has to be a String containing the
      * iid of the respective unit. Often atfx files incorrectly contain a unit name instead, though. To tolerate that
@@ -221,17 +396,31 @@ class AtfxParser {
      * 
      * @param reader The XML stream reader.
      * @param api 
-     * @return Map containing the information about the instance relations (the relations have to be set AFTER all
-     *         instances have been created!).
+     * @return Map containing the related instance ids by the instance ids per application relation (the relations
+     *         have to be set AFTER all instances have been created!).
      * @throws XMLStreamException Error parsing XML.
      * @throws OpenAtfxException Error writing to application model.
      */
-    private Map<Long, Map<Long, Map<String, Collection<Long>>>> parseInstElements (OpenAtfxAPI api,
+    private Map<Relation, Map<Long, Collection<Long>>> parseInstElements (OpenAtfxAPI api,
             Map<String, String> files, XMLStreamReader reader) throws XMLStreamException {
+        ApiSink sink = new ApiSink(api, files);
+        parseInstances(api, reader, sink);
+        return sink.relMap;
+    }
+
+    /**
+     * Parses the instance elements up to the end of the instance data XML element and passes each instance to given
+     * sink. Instances of skipped application elements are skipped.
+     * 
+     * @param api The api containing the application model.
+     * @param reader The XML stream reader.
+     * @param sink The sink receiving the instances.
+     * @throws XMLStreamException Error parsing XML.
+     * @throws OpenAtfxException Error parsing values.
+     */
+    private void parseInstances(OpenAtfxAPI api, XMLStreamReader reader, InstanceSink sink)
+            throws XMLStreamException {
         String lcValsAttrName = getLcValuesAaName(api);
-        String lcFlgsAttrName = getLcFlagsAaName(api);
-        
-        Map<Long, Map<Long, Map<String, Collection<Long>>>> relMap = new HashMap<>();
         while (!(reader.isEndElement() && reader.getLocalName().equals(AtfxTagConstants.INSTANCE_DATA))) {
             if (reader.isStartElement()) {
                 // application element name
@@ -241,189 +430,386 @@ class AtfxParser {
                     throw new OpenAtfxException(ErrorCode.AO_NOT_FOUND,
                                                 "ApplicationElement '" + aeName + "' not found");
                 }
-                Long aid = element.getId();
-                
-                // read attributes
-                List<NameValueUnit> applAttrValues = new ArrayList<>();
-                List<NameValueUnit> instAttrValues = new ArrayList<>();
-                Map<Relation, Collection<Long>> instApplRelMap = new HashMap<>();
-                Instance ieExternalComponent = null;
-
-                String currentTagName = null;
-                while (!(reader.isEndElement() && reader.getLocalName().equals(aeName) && (currentTagName == null))) {
-
-                    // need this 'trick' to indicate whether to parse an instance or application element to know when to end
-                    if (reader.isEndElement() && currentTagName != null) {
-                        currentTagName = null;
-                    }
+                if (skippedAids.contains(element.getId())) {
+                    skipInstance(reader, lcValsAttrName);
+                    skippedInstanceCount++;
                     reader.next();
-                    if (reader.isStartElement()) {
-                        currentTagName = reader.getLocalName();
-                    }
-
-                    // base attribute 'values' of 'LocalColumn'
-                    if (reader.isStartElement() && lcValsAttrName.equals(currentTagName)) {
-                        reader.nextTag();
-                        // external component
-                        if (reader.isStartElement() && reader.getLocalName().equals(AtfxTagConstants.COMPONENT)) {
-                            if (ieExternalComponent == null) {
-                                ieExternalComponent = createExtCompIe(api);
-                            }
-                            parseLocalColumnValuesComponent(api, ieExternalComponent, files, reader);
-                        }
-                        // explicit values inline XML
-                        else if (reader.isStartElement()) {
-                            applAttrValues.add(parseLocalColumnValues(reader, currentTagName));
-                        }
-                    }
-
-                    // base attribute 'flags' of 'LocalColumn'
-                    else if (lcFlgsAttrName != null && reader.isStartElement() && lcFlgsAttrName.equals(currentTagName)) {
-                        // try to read flags from inline XML
-                        // no other way than trying with exception could be found
-                        try {
-                            Attribute attribute = element.getAttributeByName(currentTagName);
-                            applAttrValues.add(parseAttributeContent(api, aid, currentTagName, attribute.getDataType(),
-                                                                     reader));
-                        }
-                        // flags in external component
-                        catch (XMLStreamException e) {
-                            if (ieExternalComponent == null) {
-                                ieExternalComponent = createExtCompIe(api);
-                            }
-                            parseLocalColumnFlagsComponent(api,ieExternalComponent, files, reader);
-                        }
-                    }
+                    continue;
+                }
 
-                    // application attribute value
-                    else if (reader.isStartElement() && (element.getAttributeByName(currentTagName) != null)) {
-                        Attribute attribute = element.getAttributeByName(currentTagName);
-                        applAttrValues.add(parseAttributeContent(api, aid, currentTagName, attribute.getDataType(),
-                                                                 reader));
+                sink.startInstance();
+                ParsedInstance instance = parseInstance(api, aeName, element, reader, sink);
+                if (instance.rejected) {
+                    sink.instanceRejected(instance);
+                } else {
+                    // fix external component file url if configured
+                    if (configuredExtCompFilenameStartRemoveString != null
+                            && element.getType().equalsIgnoreCase("AoExternalComponent")) {
+                        fixExtCompFileUrls(configuredExtCompFilenameStartRemoveString, element, "filename_url",
+                                           instance.applAttrValues);
+                        fixExtCompFileUrls(configuredExtCompFilenameStartRemoveString, element,
+                                           "flags_filename_url", instance.applAttrValues);
                     }
-
-                    // application relation
-                    else if (reader.isStartElement() && (element.getRelationByName(currentTagName) != null)) {
-                        // to tolerate incorrect atfx files (missing inverse relations is very common) the previous
-                        // reduction to reading inverse relations (for performance reasons) has been removed in favor of
-                        // tolerance to this common atfx generation mistake
-                        Relation applRel = element.getRelationByName(currentTagName);
-                        String textContent = reader.getElementText();
-                        if (textContent.length() > 0) {
-                            long[] relInstIids = AtfxParseUtil.parseLongLongSeq(textContent);
-                            instApplRelMap.put(applRel, Arrays.stream(relInstIids).boxed().toList());
-                        }
+                    if (!sink.instanceParsed(instance)) {
+                        return;
                     }
+                }
+            }
+            reader.next();
+        }
+    }
 
-                    // instance attribute
-                    else if (reader.isStartElement() && (reader.getLocalName().equals(AtfxTagConstants.INST_ATTR))) {
-                        instAttrValues = parseInstanceAttributes(reader);
-                    }
+    /**
+     * Reads the attribute values, relations and instance attributes of one instance element. Values and flags of
+     * local columns in component files are passed to given sink, security information is consumed but ignored. The
+     * reader has to be positioned at the start element of the instance and is positioned at its end element
+     * afterwards.
+     * 
+     * @param api The api containing the application model.
+     * @param aeName The name of the application element.
+     * @param element The application element.
+     * @param reader The XML stream reader.
+     * @param sink The sink receiving the components.
+     * @return The parsed instance, rejected if rejected by the instance filter.
+     * @throws XMLStreamException Error parsing XML.
+     * @throws OpenAtfxException Error parsing values.
+     */
+    private ParsedInstance parseInstance(OpenAtfxAPI api, String aeName, Element element, XMLStreamReader reader,
+            InstanceSink sink) throws XMLStreamException {
+        String lcValsAttrName = getLcValuesAaName(api);
+        String lcFlgsAttrName = getLcFlagsAaName(api);
+        long aid = element.getId();
+        boolean isLocalColumn = AtfxTagConstants.LC.equalsIgnoreCase(element.getType());
+        ParsedInstance instance = new ParsedInstance(element);
 
-                    // ACLA
-                    else if (reader.isStartElement() && (reader.getLocalName().equals(AtfxTagConstants.SECURITY_ACLA))) {
-                        // consume but ignore
-                    }
+        String currentTagName = null;
+        while (!(reader.isEndElement() && reader.getLocalName().equals(aeName) && (currentTagName == null))) {
 
-                    // ACLI
-                    else if (reader.isStartElement() && (reader.getLocalName().equals(AtfxTagConstants.SECURITY_ACLI))) {
-                        // consume but ignore
-                    }
+            // need this 'trick' to indicate whether to parse an instance or application element to know when to end
+            if (reader.isEndElement() && currentTagName != null) {
+                currentTagName = null;
+            }
+            reader.next();
+            if (reader.isStartElement()) {
+                currentTagName = reader.getLocalName();
+            }
 
-                    // unknown
-                    else if (reader.isStartElement()) {
-                        LOG.warn("Unsupported XML tag name: {}", reader.getLocalName());
-                    }
+            // base attribute 'values' of 'LocalColumn'
+            if (reader.isStartElement() && lcValsAttrName.equals(currentTagName)) {
+                int ordinal = lcValuesElementCount++;
+                reader.nextTag();
+                // external component
+                if (reader.isStartElement() && reader.getLocalName().equals(AtfxTagConstants.COMPONENT)) {
+                    sink.parseValuesComponent(currentTagName, reader);
                 }
-                
-                // fix external component file url if configured
-                if (configuredExtCompFilenameStartRemoveString != null && element.getType().equalsIgnoreCase("AoExternalComponent")) {
-                    Element extCompAE = api.getElementById(element.getId());
-                    fixExtCompFileUrls(configuredExtCompFilenameStartRemoveString, extCompAE, "filename_url", applAttrValues);
-                    fixExtCompFileUrls(configuredExtCompFilenameStartRemoveString, extCompAE, "flags_filename_url", applAttrValues);
+                // explicit numeric values inline XML, parsed on first access
+                else if (reader.isStartElement() && inlineValues != null && isLocalColumn
+                        && InlineValuesIndex.getDataType(reader.getLocalName()) != null) {
+                    instance.skippedValuesOrdinal = ordinal;
+                    instance.skippedValuesTag = reader.getLocalName();
+                    skipElement(reader);
+                    reader.nextTag();
                 }
+                // explicit values inline XML
+                else if (reader.isStartElement()) {
+                    instance.applAttrValues.add(parseLocalColumnValues(reader, currentTagName));
+                }
+            }
 
-                // create instance element
-                if (applAttrValues.isEmpty()) { // no values
-                    return Collections.emptyMap();
+            // base attribute 'flags' of 'LocalColumn'
+            else if (lcFlgsAttrName != null && reader.isStartElement() && lcFlgsAttrName.equals(currentTagName)) {
+                // try to read flags from inline XML
+                // no other way than trying with exception could be found
+                try {
+                    Attribute attribute = element.getAttributeByName(currentTagName);
+                    instance.applAttrValues.add(parseAttributeContent(api, aid, currentTagName,
+                                                                      attribute.getDataType(), reader));
                 }
-                Instance newInstance = api.createInstance(element.getId(), applAttrValues);
-                long insertedIid = newInstance.getIid();
-
-                // set instance attributes
-                if (!instAttrValues.isEmpty()) {
-                    Instance ie = api.getInstanceById(aid, insertedIid);
-                    for (NameValueUnit nvu : instAttrValues) {
-                        ie.setInstanceValue(nvu);
-                    }
-                    instanceAttributesByIidByAid.computeIfAbsent(aid, v -> new HashMap<>()).put(insertedIid, instAttrValues);
+                // flags in external component
+                catch (XMLStreamException e) {
+                    sink.parseFlagsComponent(currentTagName, reader);
                 }
+            }
 
-                // if an external component was created, connect it with local column and set sequence representation to external_component
-                if (ieExternalComponent != null) {
-                    Relation rel = api.getRelationByBaseName(aid, "external_component");
-                    if (rel != null) {
-                        api.setRelatedInstances(aid, insertedIid, rel.getRelationName(), Arrays.asList(ieExternalComponent.getIid()), SetType.INSERT);
+            // application attribute value
+            else if (reader.isStartElement() && (element.getAttributeByName(currentTagName) != null)) {
+                Attribute attribute = element.getAttributeByName(currentTagName);
+                NameValueUnit value = parseAttributeContent(api, aid, currentTagName, attribute.getDataType(),
+                                                            reader);
+                instance.applAttrValues.add(value);
+                if (isIdAttribute(attribute) && value.hasValidValue()) {
+                    instance.iid = value.getValue().getLongValue();
+                    // skip the rest of the instance if rejected by the filter
+                    if (instanceFilter != null && !instanceFilter.accept(aeName, instance.iid)) {
+                        instance.rejected = true;
+                        skipInstance(reader, lcValsAttrName);
+                        currentTagName = null;
                     }
-                    // alter sequence representation
-                    String attrSeqRep = element.getAttributeByBaseName("sequence_representation").getName();
-                    int seqRepOrig = newInstance.getValue(attrSeqRep).getValue().enumVal();
-                    int seqRep = ODSHelper.seqRepComp2seqRepExtComp(seqRepOrig);
-                    newInstance.setAttributeValue(new NameValueUnit(attrSeqRep, DataType.DT_ENUM, seqRep));
                 }
+            }
 
-                // create relation map
-                Map<String, Collection<Long>> instRelMap = relMap.computeIfAbsent(aid,
-                                                                                   v -> new HashMap<>())
-                                                                  .computeIfAbsent(insertedIid,
-                                                                                   v -> new HashMap<>());
-                for (Entry<Relation, Collection<Long>> entry : instApplRelMap.entrySet()) {
-                    // set/update the relation from this side
-                    if (!instRelMap.containsKey(entry.getKey().getRelationName())) {
-                        instRelMap.put(entry.getKey().getRelationName(), null);
-                    }
-                    instRelMap.putAll(handleRelationMapEntry(instRelMap.get(entry.getKey().getRelationName()),
-                                                             entry.getKey().getRelationName(), entry.getValue()));
-                    // set/update the inverse relation
-                    for (Long relIid : entry.getValue()) {
-                        Map<String, Collection<Long>> inverseRelMap = relMap.computeIfAbsent(entry.getKey()
-                                                                                                  .getElement2()
-                                                                                                  .getId(),
-                                                                                             v -> new HashMap<>())
-                                                                            .computeIfAbsent(relIid,
-                                                                                             v -> new HashMap<>());
-                        
-                        if (!inverseRelMap.containsKey(entry.getKey().getInverseRelationName())) {
-                            inverseRelMap.put(entry.getKey().getInverseRelationName(), null);
-                        }
-                        inverseRelMap.putAll(handleRelationMapEntry(inverseRelMap.get(entry.getKey().getInverseRelationName()),
-                                                                    entry.getKey().getInverseRelationName(),
-                                                                    Arrays.asList(insertedIid)));
-                    }
+            // application relation
+            else if (reader.isStartElement() && (element.getRelationByName(currentTagName) != null)) {
+                // to tolerate incorrect atfx files (missing inverse relations is very common) the previous
+                // reduction to reading inverse relations (for performance reasons) has been removed in favor of
+                // tolerance to this common atfx generation mistake
+                Relation applRel = element.getRelationByName(currentTagName);
+                String textContent = reader.getElementText();
+                if (textContent.length() > 0) {
+                    instance.relatedIids.put(applRel, AtfxParseUtil.parseLongLongSeq(textContent));
                 }
             }
-            reader.next();
+
+            // instance attribute
+            else if (reader.isStartElement() && (reader.getLocalName().equals(AtfxTagConstants.INST_ATTR))) {
+                instance.instAttrValues = parseInstanceAttributes(reader);
+            }
+
+            // ACLA
+            else if (reader.isStartElement() && (reader.getLocalName().equals(AtfxTagConstants.SECURITY_ACLA))) {
+                // consume but ignore
+            }
+
+            // ACLI
+            else if (reader.isStartElement() && (reader.getLocalName().equals(AtfxTagConstants.SECURITY_ACLI))) {
+                // consume but ignore
+            }
+
+            // unknown
+            else if (reader.isStartElement()) {
+                LOG.warn("Unsupported XML tag name: {}", reader.getLocalName());
+            }
         }
-        return relMap;
+        return instance;
     }
 
-    private Map<String, Collection<Long>> handleRelationMapEntry(Collection<Long> existingIids, String relationName, Collection<Long> newIids) {
-        Map<String, Collection<Long>> instRelMap = new HashMap<>();
-        if (existingIids != null) {
-            Collection<Long> mergedIids = new HashSet<>();
-            // add already existing iids
-            mergedIids.addAll(existingIids);
-            // add additional new iids
-            mergedIids.addAll(newIids);
-            // set merged iids
-            instRelMap.put(relationName, mergedIids);
-        } else {
-            // if no entry was yet created (by the inverse side) just add the iids for this relation
-            instRelMap.put(relationName, newIids);
+    /**
+     * The values of an instance element read by
+     * {@link AtfxParser#parseInstance(OpenAtfxAPI, String, Element, XMLStreamReader, InstanceSink)}.
+     */
+    private static class ParsedInstance {
+        private final Element element;
+        private final List<NameValueUnit> applAttrValues = new ArrayList<>();
+        private List<NameValueUnit> instAttrValues = new ArrayList<>();
+        /** the related instance ids by relation, in file order */
+        private final Map<Relation, long[]> relatedIids = new LinkedHashMap<>();
+        /** the instance id, null if the file contains none */
+        private Long iid;
+        /** true if rejected by the instance filter, the rest of the instance element has been skipped */
+        private boolean rejected;
+        /** the ordinal of the skipped inline 'values' element, -1 if none */
+        private int skippedValuesOrdinal = -1;
+        /** the tag name of the skipped inline values, null if none */
+        private String skippedValuesTag;
+
+        private ParsedInstance(Element element) {
+            this.element = element;
         }
-        return instRelMap;
     }
-    
+
+    /**
+     * Receives the instances read by {@link AtfxParser#parseInstances(OpenAtfxAPI, XMLStreamReader, InstanceSink)}.
+     */
+    private interface InstanceSink {
+
+        /**
+         * Called before an instance element is read.
+         */
+        void startInstance();
+
+        /**
+         * Parses the 'component' XML element holding the values of the current local column.
+         * 
+         * @param tagName The name of the 'values' attribute.
+         * @param reader The XML stream reader, positioned at the start element of the component.
+         * @throws XMLStreamException Error reading XML.
+         */
+        void parseValuesComponent(String tagName, XMLStreamReader reader) throws XMLStreamException;
+
+        /**
+         * Parses the 'component' XML element holding the flags of the current local column.
+         * 
+         * @param tagName The name of the 'flags' attribute.
+         * @param reader The XML stream reader, positioned within the flags element.
+         * @throws XMLStreamException Error reading XML.
+         */
+        void parseFlagsComponent(String tagName, XMLStreamReader reader) throws XMLStreamException;
+
+        /**
+         * Called for an instance rejected by the instance filter.
+         * 
+         * @param instance The instance.
+         */
+        void instanceRejected(ParsedInstance instance);
+
+        /**
+         * Called for a completely read instance.
+         * 
+         * @param instance The instance.
+         * @return False to stop parsing the instances.
+         */
+        boolean instanceParsed(ParsedInstance instance);
+    }
+
+    /**
+     * Creates the parsed instances in the api and collects their relations.
+     */
+    private class ApiSink implements InstanceSink {
+        private final OpenAtfxAPI api;
+        private final Map<String, String> files;
+        /** keep the file order, so that the order of the related instances does not change between sessions */
+        private final Map<Relation, Map<Long, Collection<Long>>> relMap = new LinkedHashMap<>();
+        /** the external component created for the current instance, null if none */
+        private Instance ieExternalComponent;
+
+        private ApiSink(OpenAtfxAPI api, Map<String, String> files) {
+            this.api = api;
+            this.files = files;
+        }
+
+        @Override
+        public void startInstance() {
+            ieExternalComponent = null;
+        }
+
+        @Override
+        public void parseValuesComponent(String tagName, XMLStreamReader reader) throws XMLStreamException {
+            parseLocalColumnValuesComponent(api, getExternalComponent(), files, reader);
+        }
+
+        @Override
+        public void parseFlagsComponent(String tagName, XMLStreamReader reader) throws XMLStreamException {
+            parseLocalColumnFlagsComponent(api, getExternalComponent(), files, reader);
+        }
+
+        private Instance getExternalComponent() {
+            if (ieExternalComponent == null) {
+                ieExternalComponent = createExtCompIe(api);
+            }
+            return ieExternalComponent;
+        }
+
+        @Override
+        public void instanceRejected(ParsedInstance instance) {
+            rejectInstance(api, instance.element.getId(), instance.iid, ieExternalComponent);
+        }
+
+        @Override
+        public boolean instanceParsed(ParsedInstance instance) {
+            Element element = instance.element;
+            long aid = element.getId();
+
+            // create instance element
+            if (instance.applAttrValues.isEmpty()) { // no values
+                relMap.clear();
+                return false;
+            }
+            Instance newInstance = api.createInstance(aid, instance.applAttrValues);
+            long insertedIid = newInstance.getIid();
+            // instances without id in the file get their id on creation
+            if (instanceFilter != null && !instanceFilter.accept(element.getName(), insertedIid)) {
+                api.removeInstance(aid, insertedIid);
+                rejectInstance(api, aid, insertedIid, ieExternalComponent);
+                return true;
+            }
+            if (instance.skippedValuesTag != null) {
+                inlineValues.add(insertedIid, instance.skippedValuesOrdinal, instance.skippedValuesTag);
+            }
+
+            // set instance attributes
+            List<NameValueUnit> instAttrValues = instance.instAttrValues;
+            if (!instAttrValues.isEmpty()) {
+                Instance ie = api.getInstanceById(aid, insertedIid);
+                for (NameValueUnit nvu : instAttrValues) {
+                    ie.setInstanceValue(nvu);
+                }
+                instanceAttributesByIidByAid.computeIfAbsent(aid, v -> new HashMap<>())
+                                            .put(insertedIid, instAttrValues);
+            }
+
+            // if an external component was created, connect it with local column and set sequence representation to
+            // external_component
+            if (ieExternalComponent != null) {
+                Relation rel = api.getRelationByBaseName(aid, "external_component");
+                if (rel != null) {
+                    api.setRelatedInstances(aid, insertedIid, rel.getRelationName(),
+                                            Arrays.asList(ieExternalComponent.getIid()), SetType.INSERT);
+                }
+                // alter sequence representation
+                String attrSeqRep = element.getAttributeByBaseName("sequence_representation").getName();
+                int seqRepOrig = newInstance.getValue(attrSeqRep).getValue().enumVal();
+                int seqRep = ODSHelper.seqRepComp2seqRepExtComp(seqRepOrig);
+                newInstance.setAttributeValue(new NameValueUnit(attrSeqRep, DataType.DT_ENUM, seqRep));
+            }
+
+            // create relation map, the inverse relations are set together with the relations
+            for (Entry<Relation, long[]> entry : instance.relatedIids.entrySet()) {
+                relMap.computeIfAbsent(entry.getKey(), v -> new LinkedHashMap<>())
+                      .put(insertedIid, Arrays.stream(entry.getValue()).boxed().toList());
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Passes the parsed instances to an {@link AtfxVisitor} as written in the file.
+     */
+    private class VisitorSink implements InstanceSink {
+        private final OpenAtfxAPIImplementation api;
+        private final Map<String, String> files;
+        private final AtfxVisitor visitor;
+        /** the components of the current instance by attribute name */
+        private Map<String, AtfxComponent> components;
+        private int instanceCount;
+
+        private VisitorSink(OpenAtfxAPIImplementation api, Map<String, String> files, AtfxVisitor visitor) {
+            this.api = api;
+            this.files = files;
+            this.visitor = visitor;
+        }
+
+        @Override
+        public void startInstance() {
+            components = new LinkedHashMap<>();
+        }
+
+        @Override
+        public void parseValuesComponent(String tagName, XMLStreamReader reader) throws XMLStreamException {
+            components.put(tagName, parseComponent(files, reader));
+        }
+
+        @Override
+        public void parseFlagsComponent(String tagName, XMLStreamReader reader) throws XMLStreamException {
+            components.put(tagName, parseComponent(files, reader));
+        }
+
+        @Override
+        public void instanceRejected(ParsedInstance instance) {
+            skippedInstanceCount++;
+        }
+
+        @Override
+        public boolean instanceParsed(ParsedInstance instance) {
+            Element element = instance.element;
+            // instances without id in the file get their id like on creation
+            Long iid = instance.iid;
+            if (iid == null) {
+                iid = api.nextIid(element.getId());
+                Attribute idAttribute = element.getAttributeByBaseName("id");
+                instance.applAttrValues.add(new NameValueUnit(idAttribute.getName(), idAttribute.getDataType(), iid));
+                if (instanceFilter != null && !instanceFilter.accept(element.getName(), iid)) {
+                    skippedInstanceCount++;
+                    return true;
+                }
+            }
+
+            visitor.visitInstance(element, iid, instance.applAttrValues, instance.instAttrValues,
+                                  instance.relatedIids, components);
+            instanceCount++;
+            return true;
+        }
+    }
+
     /**
      * @param api
      * @return
@@ -496,80 +882,99 @@ class AtfxParser {
     }
 
     /**
-     * Parse the 'component' XML element and fill an external component instance.
+     * Parse the 'component' XML element.
      * 
-     * @param api
-     * @param ieExtComp The external component file instance.
      * @param files Map with component files.
      * @param reader The XML stream reader.
+     * @return The parsed component.
      * @throws XMLStreamException Error reading XML.
-     * @throws OpenAtfxException Error creating instance element.
+     * @throws OpenAtfxException Component file not found or invalid component values.
      */
-    private void parseLocalColumnValuesComponent(OpenAtfxAPI api, Instance ieExtComp, Map<String, String> files,
-            XMLStreamReader reader) throws XMLStreamException {
-        Element aeExtComp = ieExtComp.getElement();
-        String description = "";
-        String fileName = "";
-        long valueType = 0;
-        int length = 0;
-        long inioffset = 0;
-        int blockSize = 0;
-        int valPerBlock = 0;
-        int valOffsets = 0;
-        Short bitCount = null;
-        Short bitOffset = null;
-
+    private AtfxComponent parseComponent(Map<String, String> files, XMLStreamReader reader) throws XMLStreamException {
+        AtfxComponent component = new AtfxComponent();
         while (!(reader.isEndElement() && reader.getLocalName().equals(AtfxTagConstants.COMPONENT))) {
             // 'description'
             if (reader.isStartElement() && (reader.getLocalName().equals(AtfxTagConstants.COMPONENT_DESCRIPTION))) {
-                description = reader.getElementText();
+                component.setDescription(reader.getElementText());
             }
             // 'identifier'
             else if (reader.isStartElement() && (reader.getLocalName().equals(AtfxTagConstants.COMPONENT_IDENTIFIER))) {
                 String identifier = reader.getElementText();
-                fileName = files.get(identifier);
+                String fileName = files.get(identifier);
                 if (fileName == null) {
                     throw new OpenAtfxException(ErrorCode.AO_NOT_FOUND,
                                                 "External component file not found for identifier '" + identifier + "'");
                 }
+                component.setFileName(fileName);
             }
             // 'datatype'
             else if (reader.isStartElement() && (reader.getLocalName().equals(AtfxTagConstants.COMPONENT_DATATYPE))) {
-                EnumerationDefinition typespecEnumeration = api.getEnumerationDefinition("typespec_enum");
-                valueType = typespecEnumeration.getItem(reader.getElementText());
+                component.setDataType(reader.getElementText());
             }
             // 'length'
             else if (reader.isStartElement() && (reader.getLocalName().equals(AtfxTagConstants.COMPONENT_LENGTH))) {
-                length = parseFileLength(reader.getElementText(), AtfxTagConstants.COMPONENT_LENGTH);
+                component.setLength(parseFileLength(reader.getElementText(), AtfxTagConstants.COMPONENT_LENGTH));
             }
             // 'inioffset'
             else if (reader.isStartElement() && (reader.getLocalName().equals(AtfxTagConstants.COMPONENT_INIOFFSET))) {
-                inioffset = parseStartOffset(reader.getElementText(), AtfxTagConstants.COMPONENT_INIOFFSET);
+                component.setStartOffset(parseStartOffset(reader.getElementText(), AtfxTagConstants.COMPONENT_INIOFFSET));
             }
             // 'blocksize'
             else if (reader.isStartElement() && (reader.getLocalName().equals(AtfxTagConstants.COMPONENT_BLOCKSIZE))) {
-                blockSize = parseFileLength(reader.getElementText(), AtfxTagConstants.COMPONENT_BLOCKSIZE);
+                component.setBlockSize(parseFileLength(reader.getElementText(), AtfxTagConstants.COMPONENT_BLOCKSIZE));
             }
             // 'valperblock'
             else if (reader.isStartElement()
                     && (reader.getLocalName().equals(AtfxTagConstants.COMPONENT_VALPERBLOCK))) {
-                valPerBlock = parseFileLength(reader.getElementText(), AtfxTagConstants.COMPONENT_VALPERBLOCK);
+                component.setValuesPerBlock(parseFileLength(reader.getElementText(),
+                                                            AtfxTagConstants.COMPONENT_VALPERBLOCK));
             }
             // 'valoffsets'
             else if (reader.isStartElement() && (reader.getLocalName().equals(AtfxTagConstants.COMPONENT_VALOFFSETS))) {
-                valOffsets = parseFileLength(reader.getElementText(), AtfxTagConstants.COMPONENT_VALOFFSETS);
+                component.setValueOffset(parseFileLength(reader.getElementText(), AtfxTagConstants.COMPONENT_VALOFFSETS));
             }
             // 'bitcount'
             else if (reader.isStartElement() && (reader.getLocalName().equals(AtfxTagConstants.COMPONENT_BITCOUNT))) {
-                bitCount = AtfxParseUtil.parseShort(reader.getElementText());
+                component.setBitCount(AtfxParseUtil.parseShort(reader.getElementText()));
             }
             // 'bitoffset'
             else if (reader.isStartElement() && (reader.getLocalName().equals(AtfxTagConstants.COMPONENT_BITOFFSET))) {
-                bitOffset = AtfxParseUtil.parseShort(reader.getElementText());
+                component.setBitOffset(AtfxParseUtil.parseShort(reader.getElementText()));
             }
 
             reader.next();
         }
+        return component;
+    }
+
+    /**
+     * Parse the 'component' XML element and fill an external component instance.
+     * 
+     * @param api
+     * @param ieExtComp The external component file instance.
+     * @param files Map with component files.
+     * @param reader The XML stream reader.
+     * @throws XMLStreamException Error reading XML.
+     * @throws OpenAtfxException Error creating instance element.
+     */
+    private void parseLocalColumnValuesComponent(OpenAtfxAPI api, Instance ieExtComp, Map<String, String> files,
+            XMLStreamReader reader) throws XMLStreamException {
+        Element aeExtComp = ieExtComp.getElement();
+        AtfxComponent component = parseComponent(files, reader);
+        String description = component.getDescription();
+        String fileName = component.getFileName();
+        long valueType = 0;
+        if (component.getDataType() != null) {
+            EnumerationDefinition typespecEnumeration = api.getEnumerationDefinition("typespec_enum");
+            valueType = typespecEnumeration.getItem(component.getDataType());
+        }
+        int length = component.getLength();
+        long inioffset = component.getStartOffset();
+        int blockSize = component.getBlockSize();
+        int valPerBlock = component.getValuesPerBlock();
+        int valOffsets = component.getValueOffset();
+        Short bitCount = component.getBitCount();
+        Short bitOffset = component.getBitOffset();
 
         // create external component instance
         List<NameValueUnit> attrsList = new ArrayList<>();
@@ -657,57 +1062,21 @@ class AtfxParser {
     private void parseLocalColumnFlagsComponent(OpenAtfxAPI api, Instance ieExtComp, Map<String, String> files, XMLStreamReader reader)
             throws XMLStreamException {
         Element aeExtComp = ieExtComp.getElement();
-        String fileName = "";
-        AttrTypesEnum dataType = AttrTypesEnum.DT_UNKNOWN;
-        int length = 0;
-        long inioffset = 0;
-        int blockSize = 0;
-        int valPerBlock = 0;
-        int valOffsets = 0;
-
-        while (!(reader.isEndElement() && reader.getLocalName().equals(AtfxTagConstants.COMPONENT))) {
-            // 'identifier'
-            if (reader.isStartElement() && (reader.getLocalName().equals(AtfxTagConstants.COMPONENT_IDENTIFIER))) {
-                String identifier = reader.getElementText();
-                fileName = files.get(identifier);
-                if (fileName == null) {
-                    throw new OpenAtfxException(ErrorCode.AO_NOT_FOUND,
-                                                "External component file not found for identifier '" + identifier + "'");
-                }
-            }
-            // 'datatype'
-            else if (reader.isStartElement() && (reader.getLocalName().equals(AtfxTagConstants.COMPONENT_DATATYPE))) {
-                dataType = AttrTypesEnum.fromValue(reader.getElementText().toUpperCase());
-                // only 'dt_short' is currently supported
-                if (dataType != AttrTypesEnum.DT_SHORT) {
-                    throw new OpenAtfxException(ErrorCode.AO_NOT_IMPLEMENTED,
-                                                "Unsupported 'dataType' for flags component file: " + dataType);
-                }
-            }
-            // 'length'
-            else if (reader.isStartElement() && (reader.getLocalName().equals(AtfxTagConstants.COMPONENT_LENGTH))) {
-                length = parseFileLength(reader.getElementText(), AtfxTagConstants.COMPONENT_LENGTH);
-            }
-            // 'inioffset'
-            else if (reader.isStartElement() && (reader.getLocalName().equals(AtfxTagConstants.COMPONENT_INIOFFSET))) {
-                inioffset = parseStartOffset(reader.getElementText(), AtfxTagConstants.COMPONENT_INIOFFSET);
-            }
-            // 'blocksize'
-            else if (reader.isStartElement() && (reader.getLocalName().equals(AtfxTagConstants.COMPONENT_BLOCKSIZE))) {
-                blockSize = parseFileLength(reader.getElementText(), AtfxTagConstants.COMPONENT_BLOCKSIZE);
-            }
-            // 'valperblock'
-            else if (reader.isStartElement()
-                    && (reader.getLocalName().equals(AtfxTagConstants.COMPONENT_VALPERBLOCK))) {
-                valPerBlock = parseFileLength(reader.getElementText(), AtfxTagConstants.COMPONENT_VALPERBLOCK);
-            }
-            // 'valoffsets'
-            else if (reader.isStartElement() && (reader.getLocalName().equals(AtfxTagConstants.COMPONENT_VALOFFSETS))) {
-                valOffsets = parseFileLength(reader.getElementText(), AtfxTagConstants.COMPONENT_VALOFFSETS);
-            }
-
-            reader.next();
-        }
+        AtfxComponent component = parseComponent(files, reader);
+        if (component.getDataType() != null) {
+            AttrTypesEnum dataType = AttrTypesEnum.fromValue(component.getDataType().toUpperCase());
+            // only 'dt_short' is currently supported
+            if (dataType != AttrTypesEnum.DT_SHORT) {
+                throw new OpenAtfxException(ErrorCode.AO_NOT_IMPLEMENTED,
+                                            "Unsupported 'dataType' for flags component file: " + dataType);
+            }
+        }
+        String fileName = component.getFileName();
+        int length = component.getLength();
+        long inioffset = component.getStartOffset();
+        int blockSize = component.getBlockSize();
+        int valPerBlock = component.getValuesPerBlock();
+        int valOffsets = component.getValueOffset();
 
         // case 'valperblock' and 'blockSize' has not been found
         if (valPerBlock == 0) {
@@ -766,6 +1135,7 @@ class AtfxParser {
                 ieExtComp.setAttributeValue(new NameValueUnit(applAttr.getName(), DataType.DT_LONGLONG, startOffset));
             }
 
+            flagsExtracted = true;
             LOG.info("Copied {} flags from component file '{}' to external component '{}' in {}ms", length, fileName,
                      flagsFile.getName(), System.currentTimeMillis() - start);
         } catch (IOException e) {
@@ -792,7 +1162,7 @@ class AtfxParser {
      * @throws XMLStreamException Error reading XML.
      * @throws OpenAtfxException Error parsing values.
      */
-    private NameValueUnit parseLocalColumnValues(XMLStreamReader reader, String lcValsAttrName) throws XMLStreamException {
+    NameValueUnit parseLocalColumnValues(XMLStreamReader reader, String lcValsAttrName) throws XMLStreamException {
         NameValueUnit nvu = new NameValueUnit();
         nvu.setValName(lcValsAttrName);
         SingleValue value = new SingleValue();
@@ -811,12 +1181,14 @@ class AtfxParser {
             // DS_COMPLEX
             else if (reader.isStartElement() && reader.getLocalName().equals(AtfxTagConstants.VALUES_ATTR_COMPLEX32)) {
                 value.setDiscriminator(DataType.DS_COMPLEX);
-                value.setValue(AtfxParseUtil.parseComplexSeq(reader.getElementText()));
+                float[] numbers = parseNumberSeq(reader, new NumberSeqParser.FloatSeq()).toArray();
+                value.setValue(AtfxParseUtil.toComplexSeq(numbers));
             }
             // DS_DCOMPLEX
             else if (reader.isStartElement() && reader.getLocalName().equals(AtfxTagConstants.VALUES_ATTR_COMPLEX64)) {
                 value.setDiscriminator(DataType.DS_DCOMPLEX);
-                value.setValue(AtfxParseUtil.parseDComplexSeq(reader.getElementText()));
+                double[] numbers = parseNumberSeq(reader, new NumberSeqParser.DoubleSeq()).toArray();
+                value.setValue(AtfxParseUtil.toDComplexSeq(numbers));
             }
             // DS_EXTERNALREFERENCE
             else if (reader.isStartElement()
@@ -836,32 +1208,32 @@ class AtfxParser {
             // DS_BYTE
             else if (reader.isStartElement() && reader.getLocalName().equals(AtfxTagConstants.VALUES_ATTR_INT8)) {
                 value.setDiscriminator(DataType.DS_BYTE);
-                value.setValue(AtfxParseUtil.parseByteSeq(reader.getElementText()));
+                value.setValue(parseNumberSeq(reader, new NumberSeqParser.ByteSeq()).toArray());
             }
             // DS_SHORT
             else if (reader.isStartElement() && reader.getLocalName().equals(AtfxTagConstants.VALUES_ATTR_INT16)) {
                 value.setDiscriminator(DataType.DS_SHORT);
-                value.setValue(AtfxParseUtil.parseShortSeq(reader.getElementText()));
+                value.setValue(parseNumberSeq(reader, new NumberSeqParser.ShortSeq()).toArray());
             }
             // DS_LONG
             else if (reader.isStartElement() && reader.getLocalName().equals(AtfxTagConstants.VALUES_ATTR_INT32)) {
                 value.setDiscriminator(DataType.DS_LONG);
-                value.setValue(AtfxParseUtil.parseLongSeq(reader.getElementText()));
+                value.setValue(parseNumberSeq(reader, new NumberSeqParser.LongSeq()).toArray());
             }
             // DS_LONGLONG
             else if (reader.isStartElement() && reader.getLocalName().equals(AtfxTagConstants.VALUES_ATTR_INT64)) {
                 value.setDiscriminator(DataType.DS_LONGLONG);
-                value.setValue(AtfxParseUtil.parseLongLongSeq(reader.getElementText()));
+                value.setValue(parseNumberSeq(reader, new NumberSeqParser.LongLongSeq()).toArray());
             }
             // DS_FLOAT
             else if (reader.isStartElement() && reader.getLocalName().equals(AtfxTagConstants.VALUES_ATTR_FLOAT32)) {
                 value.setDiscriminator(DataType.DS_FLOAT);
-                value.setValue(AtfxParseUtil.parseFloatSeq(reader.getElementText()));
+                value.setValue(parseNumberSeq(reader, new NumberSeqParser.FloatSeq()).toArray());
             }
             // DS_DOUBLE
             else if (reader.isStartElement() && reader.getLocalName().equals(AtfxTagConstants.VALUES_ATTR_FLOAT64)) {
                 value.setDiscriminator(DataType.DS_DOUBLE);
-                value.setValue(AtfxParseUtil.parseDoubleSeq(reader.getElementText()));
+                value.setValue(parseNumberSeq(reader, new NumberSeqParser.DoubleSeq()).toArray());
             }
             // DS_DATE
             else if (reader.isStartElement() && reader.getLocalName().equals(AtfxTagConstants.VALUES_ATTR_TIMESTRING)) {
@@ -890,6 +1262,122 @@ class AtfxParser {
         return nvu;
     }
 
+    /**
+     * Skips the rest of an instance element. The reader has to be positioned within the instance element and is
+     * positioned at its end element afterwards. The skipped local column 'values' elements are counted, so that the
+     * ordinals of the inline values of following instances stay valid.
+     * 
+     * @param reader The XML stream reader.
+     * @param lcValsAttrName The name of the 'values' attribute of the local column.
+     * @throws XMLStreamException Error parsing XML.
+     */
+    private void skipInstance(XMLStreamReader reader, String lcValsAttrName) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                if (lcValsAttrName.equals(reader.getLocalName())) {
+                    lcValuesElementCount++;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Records an instance rejected by the instance filter and removes the external component created for it.
+     * 
+     * @param api The api.
+     * @param aid The application element id.
+     * @param iid The instance id.
+     * @param ieExternalComponent The external component created while parsing the instance, may be null.
+     */
+    private void rejectInstance(OpenAtfxAPI api, long aid, long iid, Instance ieExternalComponent) {
+        rejectedIidsByAid.computeIfAbsent(aid, v -> new HashSet<>()).add(iid);
+        if (ieExternalComponent != null) {
+            api.removeInstance(ieExternalComponent.getAid(), ieExternalComponent.getIid());
+        }
+        skippedInstanceCount++;
+    }
+
+    private static boolean isIdAttribute(Attribute attribute) {
+        return attribute.isBaseAttrDerived() && "id".equalsIgnoreCase(attribute.getBaseName());
+    }
+
+    /**
+     * Skips the current element including its content. The reader has to be positioned at the start element and is
+     * positioned at the end element afterwards.
+     * 
+     * @param reader The XML stream reader.
+     * @throws XMLStreamException Error reading XML.
+     */
+    private void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Parse the text of a numeric sequence element chunk by chunk, so the text is never held as a whole. The reader has
+     * to be positioned at the start element and is positioned at the end element afterwards, like after
+     * <code>getElementText()</code>.
+     * 
+     * @param <T> The type of the number sequence parser.
+     * @param reader The XML stream reader, delivering the text events of the element.
+     * @param parser The parser the text is appended to.
+     * @return The given parser.
+     * @throws XMLStreamException Error reading XML.
+     * @throws OpenAtfxException Error parsing values.
+     */
+    private <T extends NumberSeqParser> T parseNumberSeq(XMLStreamReader reader, T parser) throws XMLStreamException {
+        String elementName = reader.getLocalName();
+        int event = reader.next();
+        while (event != XMLStreamConstants.END_ELEMENT) {
+            if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+                    || event == XMLStreamConstants.SPACE) {
+                appendText(reader, parser);
+            } else if (event == XMLStreamConstants.START_ELEMENT) {
+                throw new OpenAtfxException(ErrorCode.AO_INVALID_DATATYPE, "Unexpected element '"
+                        + reader.getLocalName() + "' in '" + elementName + "'");
+            }
+            event = reader.next();
+        }
+        return parser;
+    }
+
+    /**
+     * Append the text of the current text event to given parser. The text is copied in chunks, if the StAX
+     * implementation supports it.
+     * 
+     * @param reader The XML stream reader positioned at a text event.
+     * @param parser The parser.
+     * @throws XMLStreamException Error reading XML.
+     */
+    private void appendText(XMLStreamReader reader, NumberSeqParser parser) throws XMLStreamException {
+        if (textChunk == null) {
+            textChunk = new char[TEXT_CHUNK_SIZE];
+        }
+        try {
+            int sourceStart = 0;
+            int copied;
+            do {
+                copied = reader.getTextCharacters(sourceStart, textChunk, 0, textChunk.length);
+                parser.append(textChunk, 0, copied);
+                sourceStart += copied;
+            } while (copied == textChunk.length);
+        } catch (UnsupportedOperationException e) {
+            parser.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+        }
+    }
+
     /**
      * Parse the instance attributes from the XML stream reader.
      * 
@@ -30,8 +30,11 @@ class AtfxReader {
     private final Map<String, String> documentation;
     private final Map<String, String> files;
     
+    private final IFileHandler fileHandler;
     private OpenAtfxAPIImplementation api;
     private AtfxParser atfxInstanceReader;
+    /** the visitor the instances are streamed to, null to read the instances into the api */
+    private AtfxVisitor visitor;
     
     /**
      * aeName -> arName -> TempRelation
@@ -42,6 +45,7 @@ class AtfxReader {
         this.documentation = new HashMap<>();
         this.files = new HashMap<>();
         this.relationCache = new HashMap<>();
+        this.fileHandler = fileHandler;
         this.atfxInstanceReader = new AtfxParser(fileHandler, atfxPath, isExtendedCompatiblityMode, configuredExtCompFilenameStartRemoveString);
     }
     
@@ -54,6 +58,7 @@ class AtfxReader {
         long start = System.currentTimeMillis();
         try {
             String baseModelVersion = null;
+            boolean modelVisited = false;
             while (!(reader.isEndElement() && reader.getLocalName().equals(AtfxTagConstants.ATFX_FILE))) {
 
                 // parse 'documentation'
@@ -74,7 +79,14 @@ class AtfxReader {
                 }
                 // parse 'instance_data'
                 else if (reader.isStartElement() && reader.getLocalName().equals(AtfxTagConstants.INSTANCE_DATA)) {
-                    atfxInstanceReader.parseInstanceElements(api, files, reader);
+                    if (visitor != null) {
+                        setDocumentationContext();
+                        visitor.visitModel(api);
+                        modelVisited = true;
+                        atfxInstanceReader.streamInstanceElements(api, files, reader, visitor);
+                    } else {
+                        atfxInstanceReader.parseInstanceElements(api, files, reader);
+                    }
                 }
 
                 // create openATFX API
@@ -82,16 +94,21 @@ class AtfxReader {
                     AtfxBaseModel baseModel = BaseModelFactory.getInstance().getBaseModel(baseModelVersion);
                     api = new OpenAtfxAPIImplementation(baseModel);
                     api.init(context);
+                    api.setFileHandler(fileHandler);
                 }
 
                 reader.nextTag();
             }
 
             // set context
-            for (Entry<String, String> entry : documentation.entrySet()) {
-                String docKey = entry.getKey();
-                NameValueUnit nvu = new NameValueUnit("documentation_" + docKey, DataType.DT_STRING, documentation.get(docKey));
-                api.setContext(nvu);
+            setDocumentationContext();
+
+            // files without instance data
+            if (visitor != null) {
+                if (!modelVisited) {
+                    visitor.visitModel(api);
+                }
+                visitor.visitEnd();
             }
 
             LOG.info("Read ATFX in {}ms", System.currentTimeMillis() - start);
@@ -104,6 +121,42 @@ class AtfxReader {
         }
     }
     
+    /**
+     * Sets the visitor the instances are streamed to instead of reading them into the api.
+     * 
+     * @param visitor The visitor, null to read the instances into the api.
+     */
+    void setVisitor(AtfxVisitor visitor) {
+        this.visitor = visitor;
+    }
+    
+    /**
+     * Sets the documentation entries as context.
+     */
+    private void setDocumentationContext() {
+        for (Entry<String, String> entry : documentation.entrySet()) {
+            String docKey = entry.getKey();
+            NameValueUnit nvu = new NameValueUnit("documentation_" + docKey, DataType.DT_STRING, documentation.get(docKey));
+            api.setContext(nvu);
+        }
+    }
+    
+    /**
+     * Sets the filter deciding which instances to load.
+     * 
+     * @param instanceFilter The filter, null to load all instances.
+     */
+    void setInstanceFilter(InstanceFilter instanceFilter) {
+        atfxInstanceReader.setInstanceFilter(instanceFilter);
+    }
+    
+    /**
+     * @return true if flags of component files have been copied to the flags extract file while reading.
+     */
+    boolean hasExtractedFlags() {
+        return atfxInstanceReader.hasExtractedFlags();
+    }
+    
     /**
      * Parse the 'documentation' part of the ATFX file.
      * 
@@ -0,0 +1,928 @@
+package com.peaksolution.openatfx.api;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.peaksolution.openatfx.IFileHandler;
+
+
+/**
+ * Binary sidecar snapshot of the application model and instance data parsed from an atfx file.
+ * <p>
+ * The snapshot is stored next to the atfx file with the suffix {@value #FILE_SUFFIX} and is keyed by the size, the
+ * modification time and a CRC32C checksum of the atfx file as well as the context options influencing the parse
+ * result. As long as this key still matches, the session is rebuilt from the snapshot instead of parsing the XML.
+ * The checksum of the written snapshot is calculated from the stream the file is parsed from, and the file is only
+ * read again to verify the checksum if a snapshot with matching size, modification time and options exists.
+ * Inline local column values are always contained in the snapshot, values in external component files are read
+ * lazily from their files, as after parsing the XML. Sessions skipping inline values with 'LAZY_INLINE_VALUES' do not
+ * use snapshots at all.
+ *
+ * @author Markus Renner
+ */
+class AtfxSnapshot {
+    private static final Logger LOG = LoggerFactory.getLogger(AtfxSnapshot.class);
+
+    static final String FILE_SUFFIX = ".snapshot";
+
+    private static final byte[] MAGIC = "OATFXSNP".getBytes(StandardCharsets.US_ASCII);
+    private static final int FORMAT_VERSION = 1;
+    private static final String DOCUMENTATION_CONTEXT_PREFIX = "documentation_";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final byte ITEM_ATTRIBUTE = 1;
+    private static final byte ITEM_RELATION = 2;
+
+    // value type markers
+    private static final byte V_NULL = 0;
+    private static final byte V_STRING = 1;
+    private static final byte V_SHORT = 2;
+    private static final byte V_FLOAT = 3;
+    private static final byte V_BOOLEAN = 4;
+    private static final byte V_BYTE = 5;
+    private static final byte V_INT = 6;
+    private static final byte V_DOUBLE = 7;
+    private static final byte V_LONG = 8;
+    private static final byte V_BYTES = 9;
+    private static final byte V_BLOB = 10;
+    private static final byte V_COMPLEX = 11;
+    private static final byte V_DCOMPLEX = 12;
+    private static final byte V_EXTREF = 13;
+    private static final byte V_STRINGS = 14;
+    private static final byte V_SHORTS = 15;
+    private static final byte V_FLOATS = 16;
+    private static final byte V_BOOLEANS = 17;
+    private static final byte V_INTS = 18;
+    private static final byte V_DOUBLES = 19;
+    private static final byte V_LONGS = 20;
+    private static final byte V_COMPLEXES = 21;
+    private static final byte V_DCOMPLEXES = 22;
+    private static final byte V_BYTESTRS = 23;
+    private static final byte V_EXTREFS = 24;
+
+    private final Path atfxPath;
+    private final Path snapshotPath;
+    private final String options;
+    private final long fileSize;
+    private final long lastModified;
+    /** the stream the atfx file is parsed from, calculating the checksum for the written snapshot */
+    private CheckedInputStream parsedStream;
+
+    private final ByteBuffer scratch = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private AtfxSnapshot(Path atfxPath, String options, long fileSize, long lastModified) {
+        this.atfxPath = atfxPath;
+        this.snapshotPath = atfxPath.resolveSibling(atfxPath.getFileName() + FILE_SUFFIX);
+        this.options = options;
+        this.fileSize = fileSize;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Creates the snapshot handle for given atfx file, identifying the current state of the file. This has to be
+     * called before parsing the file, so that changes while parsing invalidate the written snapshot.
+     *
+     * @param atfxPath The path of the atfx file.
+     * @param options The context options the parse result depends on.
+     * @return The snapshot, null if the atfx file is no local file.
+     */
+    static AtfxSnapshot forFile(Path atfxPath, String options) {
+        try {
+            long size = Files.size(atfxPath);
+            long lastModified = Files.getLastModifiedTime(atfxPath).toMillis();
+            return new AtfxSnapshot(atfxPath, options, size, lastModified);
+        } catch (IOException | UnsupportedOperationException e) {
+            LOG.warn("Snapshot cache not available for {}: {}", atfxPath, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Wraps the stream the atfx file is parsed from, so that the checksum of the written snapshot is calculated while
+     * parsing instead of reading the file once more.
+     *
+     * @param in The stream of the atfx file.
+     * @return The stream to parse the file from.
+     */
+    InputStream checksumWhileParsing(InputStream in) {
+        parsedStream = new CheckedInputStream(in, new CRC32C());
+        return parsedStream;
+    }
+
+    private static long checksum(Path path) throws IOException {
+        long start = System.currentTimeMillis();
+        CRC32C crc = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1024 * 1024);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+        LOG.debug("Calculated checksum of {} in {}ms", path, System.currentTimeMillis() - start);
+        return crc.getValue();
+    }
+
+    /**
+     * @return The path of the snapshot file.
+     */
+    Path getSnapshotPath() {
+        return snapshotPath;
+    }
+
+    /**
+     * Rebuilds the session from the snapshot file, if existing and still valid for the atfx file.
+     *
+     * @param fileHandler The file handler to set at the created api.
+     * @param context The context to initialize the api with.
+     * @return The api, null if no valid snapshot exists.
+     */
+    OpenAtfxAPIImplementation read(IFileHandler fileHandler, Collection<NameValueUnit> context) {
+        long start = System.currentTimeMillis();
+        try (InputStream fis = Files.newInputStream(snapshotPath);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(fis, BUFFER_SIZE))) {
+            if (!readHeader(in)) {
+                LOG.info("Snapshot {} is outdated, parsing atfx file", snapshotPath);
+                return null;
+            }
+            AtfxBaseModel baseModel = BaseModelFactory.getInstance().getBaseModel(readString(in));
+            OpenAtfxAPIImplementation api = new OpenAtfxAPIImplementation(baseModel);
+            api.init(context);
+            api.setFileHandler(fileHandler);
+
+            readModel(in, api);
+            readInstances(in, api);
+            int documentationCount = in.readInt();
+            for (int i = 0; i < documentationCount; i++) {
+                api.setContext(new NameValueUnit(readString(in), DataType.DT_STRING, readString(in)));
+            }
+
+            LOG.info("Read ATFX snapshot in {}ms", System.currentTimeMillis() - start);
+            return api;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | OpenAtfxException | IllegalArgumentException | ClassCastException e) {
+            LOG.warn("Ignoring unreadable snapshot {}: {}", snapshotPath, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes the snapshot file for the session parsed from the atfx file. Errors are logged, since a missing snapshot
+     * only means the file is parsed again next time.
+     *
+     * @param api The api the atfx file was parsed into.
+     */
+    void write(OpenAtfxAPIImplementation api) {
+        long start = System.currentTimeMillis();
+        if (parsedStream == null) {
+            LOG.warn("Could not write snapshot {}: the checksum of the parsed file is unknown", snapshotPath);
+            return;
+        }
+        Path tmpPath = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        try {
+            // the parser may stop before the end of the file, the rest belongs to the checksum, too
+            byte[] rest = new byte[BUFFER_SIZE];
+            while (parsedStream.read(rest) >= 0) {
+                // only calculating the checksum
+            }
+            long checksum = parsedStream.getChecksum().getValue();
+            try (OutputStream fos = Files.newOutputStream(tmpPath);
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, BUFFER_SIZE))) {
+                writeHeader(out, checksum);
+                writeString(out, api.getBaseModelVersion());
+                writeModel(out, api);
+                writeInstances(out, api);
+                List<NameValueUnit> documentation = new ArrayList<>();
+                for (Entry<String, NameValueUnit> entry : api.getContext().entrySet()) {
+                    if (entry.getKey().startsWith(DOCUMENTATION_CONTEXT_PREFIX)) {
+                        documentation.add(entry.getValue());
+                    }
+                }
+                out.writeInt(documentation.size());
+                for (NameValueUnit nvu : documentation) {
+                    writeString(out, nvu.getValName());
+                    writeString(out, nvu.getValue().stringVal());
+                }
+            }
+            try {
+                Files.move(tmpPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            LOG.info("Wrote ATFX snapshot {} in {}ms", snapshotPath, System.currentTimeMillis() - start);
+        } catch (IOException | OpenAtfxException e) {
+            LOG.warn("Could not write snapshot {}: {}", snapshotPath, e.getMessage());
+            try {
+                Files.deleteIfExists(tmpPath);
+            } catch (IOException ex) {
+                LOG.debug("Could not delete {}: {}", tmpPath, ex.getMessage());
+            }
+        }
+    }
+
+    /***************************************************************************************
+     * header
+     ***************************************************************************************/
+
+    private void writeHeader(DataOutputStream out, long checksum) throws IOException {
+        out.write(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(fileSize);
+        out.writeLong(lastModified);
+        out.writeLong(checksum);
+        writeString(out, options);
+    }
+
+    private boolean readHeader(DataInputStream in) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(MAGIC, magic)) {
+            throw new IOException("Not a snapshot file");
+        }
+        if (in.readInt() != FORMAT_VERSION || in.readLong() != fileSize || in.readLong() != lastModified) {
+            return false;
+        }
+        long checksum = in.readLong();
+        // only read the whole atfx file if everything else matches
+        return options.equals(readString(in)) && checksum == checksum(atfxPath);
+    }
+
+    /***************************************************************************************
+     * application model
+     ***************************************************************************************/
+
+    private void writeModel(DataOutputStream out, OpenAtfxAPIImplementation api) throws IOException {
+        // enumerations in order of creation
+        List<EnumerationDefinition> enums = new ArrayList<>();
+        for (String enumName : api.listEnumerationNames(false)) {
+            enums.add(api.getEnumerationDefinition(enumName));
+        }
+        enums.sort(Comparator.comparingInt(EnumerationDefinition::getIndex));
+        out.writeInt(enums.size());
+        for (EnumerationDefinition enumDef : enums) {
+            writeString(out, enumDef.getName());
+            String[] itemNames = enumDef.listItemNames();
+            out.writeInt(itemNames.length);
+            for (String itemName : itemNames) {
+                writeString(out, itemName);
+                out.writeLong(enumDef.getItem(itemName));
+            }
+        }
+
+        // elements
+        Collection<AtfxElement> elements = api.getAtfxElements();
+        out.writeInt(elements.size());
+        for (AtfxElement element : elements) {
+            out.writeLong(element.getId());
+            writeString(out, element.getType());
+            writeString(out, element.getName());
+        }
+
+        // attributes and relations in order of their numbers, which share one sequence per element
+        for (AtfxElement element : elements) {
+            Map<Integer, Object> items = new TreeMap<>();
+            for (Attribute attr : element.getAttributes()) {
+                items.put(attr.getAttrNo(), attr);
+            }
+            for (Relation rel : element.getRelations()) {
+                items.put(rel.getRelNo(), rel);
+            }
+            out.writeInt(items.size());
+            for (Object item : items.values()) {
+                if (item instanceof Attribute) {
+                    Attribute attr = (Attribute) item;
+                    out.writeByte(ITEM_ATTRIBUTE);
+                    writeString(out, attr.getName());
+                    writeString(out, attr.isBaseAttrDerived() ? attr.getBaseName() : null);
+                    out.writeInt(attr.getDataType().ordinal());
+                    out.writeInt(attr.getLength());
+                    out.writeLong(attr.getUnitId());
+                    writeString(out, attr.getEnumName());
+                    out.writeBoolean(attr.isObligatory());
+                    out.writeBoolean(attr.isUnique());
+                    out.writeBoolean(attr.isAutogenerated());
+                } else {
+                    Relation rel = (Relation) item;
+                    if (rel.getElement2() == null) {
+                        throw new IOException("Relation '" + rel.getRelationName() + "' at " + element
+                                + " has no target element");
+                    }
+                    out.writeByte(ITEM_RELATION);
+                    writeString(out, rel.getRelationName());
+                    out.writeLong(rel.getElement2().getId());
+                    writeString(out, rel.getInverseRelationName());
+                    writeString(out, rel.getBaseName());
+                    out.writeShort(rel.getRelationRangeMin());
+                    out.writeShort(rel.getRelationRangeMax());
+                    Relationship relationship = rel.getRelationship();
+                    out.writeInt(relationship == null ? -1 : relationship.ordinal());
+                }
+            }
+        }
+
+        // instance id sequences
+        Map<Long, Long> nextIids = api.getNextIids();
+        out.writeInt(nextIids.size());
+        for (Entry<Long, Long> entry : nextIids.entrySet()) {
+            out.writeLong(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+    }
+
+    private void readModel(DataInputStream in, OpenAtfxAPIImplementation api) throws IOException {
+        int enumCount = in.readInt();
+        for (int i = 0; i < enumCount; i++) {
+            String enumName = readString(in);
+            api.createEnumeration(enumName);
+            int itemCount = in.readInt();
+            for (int j = 0; j < itemCount; j++) {
+                String itemName = readString(in);
+                api.addEnumerationItem(enumName, in.readLong(), itemName);
+            }
+        }
+
+        // create all elements first, so that relations may reference any of them
+        int elementCount = in.readInt();
+        List<Element> elements = new ArrayList<>(elementCount);
+        for (int i = 0; i < elementCount; i++) {
+            long aid = in.readLong();
+            String basetype = readString(in);
+            Element element = api.createElement(basetype, readString(in));
+            if (element.getId() != aid) {
+                throw new IOException("Element '" + element.getName() + "' got aid " + element.getId()
+                        + " instead of " + aid);
+            }
+            elements.add(element);
+        }
+
+        // the relationship depends on the creation order of a relation and its inverse, so it is restored afterwards
+        Map<Relation, Relationship> relationships = new HashMap<>();
+        for (Element element : elements) {
+            long aid = element.getId();
+            int itemCount = in.readInt();
+            for (int i = 0; i < itemCount; i++) {
+                byte itemType = in.readByte();
+                if (itemType == ITEM_ATTRIBUTE) {
+                    String name = readString(in);
+                    String baseName = readString(in);
+                    DataType dataType = DataType.values()[in.readInt()];
+                    int length = in.readInt();
+                    long unitId = in.readLong();
+                    String enumName = readString(in);
+                    boolean obligatory = in.readBoolean();
+                    boolean unique = in.readBoolean();
+                    boolean autogenerated = in.readBoolean();
+                    if (baseName == null) {
+                        api.createAttribute(aid, name, null, dataType, length, unitId, enumName, obligatory, unique,
+                                            autogenerated);
+                        continue;
+                    }
+                    // obligatory base attributes were generated with the element
+                    Attribute existingAttribute = element.getAttributeByBaseName(baseName);
+                    if (existingAttribute == null) {
+                        existingAttribute = api.createAttributeFromBaseAttribute(aid, name, baseName);
+                    } else if (!existingAttribute.getName().equals(name)) {
+                        api.renameAttribute(aid, existingAttribute.getName(), name);
+                    }
+                    api.updateAttribute(aid, name, dataType, length, enumName, unitId, obligatory, unique);
+                } else if (itemType == ITEM_RELATION) {
+                    String relName = readString(in);
+                    Element element2 = api.getElementById(in.readLong());
+                    String inverseRelName = readString(in);
+                    String baseRelName = readString(in);
+                    short min = in.readShort();
+                    short max = in.readShort();
+                    int relationship = in.readInt();
+                    BaseRelation baseRelation = null;
+                    if (baseRelName != null) {
+                        baseRelation = api.getBaseElement(element.getType()).getRelationByName(baseRelName,
+                                                                                               element2.getType());
+                    }
+                    Relation relation = api.createRelation(element, element2, baseRelation, relName,
+                                                           inverseRelName, min, max);
+                    relationships.put(relation, relationship < 0 ? null : Relationship.values()[relationship]);
+                } else {
+                    throw new IOException("Unknown model item type " + itemType);
+                }
+            }
+        }
+
+        for (Entry<Relation, Relationship> entry : relationships.entrySet()) {
+            ((AtfxRelation) entry.getKey()).setRelationship(entry.getValue());
+        }
+
+        int nextIidCount = in.readInt();
+        for (int i = 0; i < nextIidCount; i++) {
+            api.setNextIid(in.readLong(), in.readLong());
+        }
+    }
+
+    /***************************************************************************************
+     * instance data
+     ***************************************************************************************/
+
+    private void writeInstances(DataOutputStream out, OpenAtfxAPIImplementation api) throws IOException {
+        Collection<AtfxElement> elements = api.getAtfxElements();
+        for (AtfxElement element : elements) {
+            Collection<Attribute> attributes = element.getAttributes();
+            Collection<Relation> relations = element.getRelations();
+            Collection<Instance> instances = api.getInstances(element.getId());
+            out.writeInt(instances.size());
+            List<NameValueUnit> values = new ArrayList<>(attributes.size());
+            for (Instance instance : instances) {
+                AtfxInstance atfxInstance = (AtfxInstance) instance;
+
+                // application attribute values
+                values.clear();
+                for (Attribute attr : attributes) {
+                    NameValueUnit nvu = atfxInstance.getValueInternal(attr.getAttrNo());
+                    if (nvu != null) {
+                        values.add(nvu);
+                    }
+                }
+                out.writeInt(values.size());
+                for (NameValueUnit nvu : values) {
+                    writeNameValueUnit(out, nvu);
+                }
+
+                // instance attributes
+                Collection<NameValueUnit> instAttrs = atfxInstance.getInstanceAttributes();
+                out.writeInt(instAttrs.size());
+                for (NameValueUnit nvu : instAttrs) {
+                    writeNameValueUnit(out, nvu);
+                }
+
+                // related instances, both directions are contained at the respective instances
+                int relCount = 0;
+                for (Relation rel : relations) {
+                    if (atfxInstance.getRelatedIids(rel) != null) {
+                        relCount++;
+                    }
+                }
+                out.writeInt(relCount);
+                for (Relation rel : relations) {
+                    Collection<Long> relatedIids = atfxInstance.getRelatedIids(rel);
+                    if (relatedIids != null) {
+                        writeString(out, rel.getRelationName());
+                        out.writeInt(relatedIids.size());
+                        for (long relatedIid : relatedIids) {
+                            out.writeLong(relatedIid);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void readInstances(DataInputStream in, OpenAtfxAPIImplementation api) throws IOException {
+        for (AtfxElement element : api.getAtfxElements()) {
+            long aid = element.getId();
+            int instanceCount = in.readInt();
+            for (int i = 0; i < instanceCount; i++) {
+                int valueCount = in.readInt();
+                List<NameValueUnit> values = new ArrayList<>(valueCount);
+                for (int j = 0; j < valueCount; j++) {
+                    values.add(readNameValueUnit(in));
+                }
+                AtfxInstance instance = (AtfxInstance) api.createInstance(aid, values);
+
+                int instAttrCount = in.readInt();
+                for (int j = 0; j < instAttrCount; j++) {
+                    instance.setInstanceValue(readNameValueUnit(in));
+                }
+
+                int relCount = in.readInt();
+                for (int j = 0; j < relCount; j++) {
+                    Relation rel = element.getRelationByName(readString(in));
+                    long[] relatedIids = new long[in.readInt()];
+                    for (int k = 0; k < relatedIids.length; k++) {
+                        relatedIids[k] = in.readLong();
+                    }
+                    instance.addRelationValue(rel, Arrays.stream(relatedIids).boxed().toList());
+                }
+            }
+        }
+    }
+
+    private void writeNameValueUnit(DataOutputStream out, NameValueUnit nvu) throws IOException {
+        writeString(out, nvu.getValName());
+        writeString(out, nvu.getUnit());
+        out.writeBoolean(nvu.isInstanceAttribute());
+        SingleValue value = nvu.getValue();
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(value.discriminator().ordinal());
+        out.writeShort(value.getFlag());
+        writeValue(out, value.getValue());
+    }
+
+    private NameValueUnit readNameValueUnit(DataInputStream in) throws IOException {
+        NameValueUnit nvu = new NameValueUnit();
+        nvu.setValName(readString(in));
+        nvu.setUnit(readString(in));
+        nvu.setInstanceAttribute(in.readBoolean());
+        int dt = in.readInt();
+        if (dt >= 0) {
+            SingleValue value = new SingleValue(DataType.values()[dt]);
+            short flag = in.readShort();
+            Object obj = readValue(in);
+            // restore the flag afterwards like the copy constructor, empty strings may be valid values
+            value.setValue(obj);
+            value.setFlag(flag);
+            nvu.setValue(value);
+        }
+        return nvu;
+    }
+
+    /***************************************************************************************
+     * values
+     ***************************************************************************************/
+
+    private void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(V_NULL);
+        } else if (value instanceof String) {
+            out.writeByte(V_STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Short) {
+            out.writeByte(V_SHORT);
+            out.writeShort((short) value);
+        } else if (value instanceof Float) {
+            out.writeByte(V_FLOAT);
+            out.writeFloat((float) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(V_BOOLEAN);
+            out.writeBoolean((boolean) value);
+        } else if (value instanceof Byte) {
+            out.writeByte(V_BYTE);
+            out.writeByte((byte) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(V_INT);
+            out.writeInt((int) value);
+        } else if (value instanceof Double) {
+            out.writeByte(V_DOUBLE);
+            out.writeDouble((double) value);
+        } else if (value instanceof Long) {
+            out.writeByte(V_LONG);
+            out.writeLong((long) value);
+        } else if (value instanceof byte[]) {
+            out.writeByte(V_BYTES);
+            writeBytes(out, (byte[]) value);
+        } else if (value instanceof Blob) {
+            Blob blob = (Blob) value;
+            out.writeByte(V_BLOB);
+            writeString(out, blob.getHeader());
+            writeBytes(out, blob.get(0, blob.getLength()));
+        } else if (value instanceof Complex) {
+            Complex complex = (Complex) value;
+            out.writeByte(V_COMPLEX);
+            out.writeFloat(complex.getR());
+            out.writeFloat(complex.getI());
+        } else if (value instanceof DoubleComplex) {
+            DoubleComplex dcomplex = (DoubleComplex) value;
+            out.writeByte(V_DCOMPLEX);
+            out.writeDouble(dcomplex.getR());
+            out.writeDouble(dcomplex.getI());
+        } else if (value instanceof ExternalReference) {
+            out.writeByte(V_EXTREF);
+            writeExtRef(out, (ExternalReference) value);
+        } else if (value instanceof String[]) {
+            out.writeByte(V_STRINGS);
+            out.writeInt(((String[]) value).length);
+            for (String s : (String[]) value) {
+                writeString(out, s);
+            }
+        } else if (value instanceof short[]) {
+            out.writeByte(V_SHORTS);
+            writeShorts(out, (short[]) value);
+        } else if (value instanceof float[]) {
+            out.writeByte(V_FLOATS);
+            writeFloats(out, (float[]) value);
+        } else if (value instanceof boolean[]) {
+            out.writeByte(V_BOOLEANS);
+            out.writeInt(((boolean[]) value).length);
+            for (boolean b : (boolean[]) value) {
+                out.writeBoolean(b);
+            }
+        } else if (value instanceof int[]) {
+            out.writeByte(V_INTS);
+            writeInts(out, (int[]) value);
+        } else if (value instanceof double[]) {
+            out.writeByte(V_DOUBLES);
+            writeDoubles(out, (double[]) value);
+        } else if (value instanceof long[]) {
+            out.writeByte(V_LONGS);
+            writeLongs(out, (long[]) value);
+        } else if (value instanceof Complex[]) {
+            out.writeByte(V_COMPLEXES);
+            out.writeInt(((Complex[]) value).length);
+            for (Complex c : (Complex[]) value) {
+                out.writeFloat(c.getR());
+                out.writeFloat(c.getI());
+            }
+        } else if (value instanceof DoubleComplex[]) {
+            out.writeByte(V_DCOMPLEXES);
+            out.writeInt(((DoubleComplex[]) value).length);
+            for (DoubleComplex c : (DoubleComplex[]) value) {
+                out.writeDouble(c.getR());
+                out.writeDouble(c.getI());
+            }
+        } else if (value instanceof byte[][]) {
+            out.writeByte(V_BYTESTRS);
+            out.writeInt(((byte[][]) value).length);
+            for (byte[] b : (byte[][]) value) {
+                writeBytes(out, b);
+            }
+        } else if (value instanceof ExternalReference[]) {
+            out.writeByte(V_EXTREFS);
+            out.writeInt(((ExternalReference[]) value).length);
+            for (ExternalReference extRef : (ExternalReference[]) value) {
+                writeExtRef(out, extRef);
+            }
+        } else {
+            throw new IOException("Unsupported value type " + value.getClass().getSimpleName());
+        }
+    }
+
+    private Object readValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case V_NULL:
+                return null;
+            case V_STRING:
+                return readString(in);
+            case V_SHORT:
+                return in.readShort();
+            case V_FLOAT:
+                return in.readFloat();
+            case V_BOOLEAN:
+                return in.readBoolean();
+            case V_BYTE:
+                return in.readByte();
+            case V_INT:
+                return in.readInt();
+            case V_DOUBLE:
+                return in.readDouble();
+            case V_LONG:
+                return in.readLong();
+            case V_BYTES:
+                return readBytes(in);
+            case V_BLOB:
+                Blob blob = new Blob();
+                blob.setHeader(readString(in));
+                blob.set(readBytes(in));
+                return blob;
+            case V_COMPLEX:
+                return new Complex(in.readFloat(), in.readFloat());
+            case V_DCOMPLEX:
+                return new DoubleComplex(in.readDouble(), in.readDouble());
+            case V_EXTREF:
+                return readExtRef(in);
+            case V_STRINGS:
+                String[] strings = new String[in.readInt()];
+                for (int i = 0; i < strings.length; i++) {
+                    strings[i] = readString(in);
+                }
+                return strings;
+            case V_SHORTS:
+                return readShorts(in);
+            case V_FLOATS:
+                return readFloats(in);
+            case V_BOOLEANS:
+                boolean[] booleans = new boolean[in.readInt()];
+                for (int i = 0; i < booleans.length; i++) {
+                    booleans[i] = in.readBoolean();
+                }
+                return booleans;
+            case V_INTS:
+                return readInts(in);
+            case V_DOUBLES:
+                return readDoubles(in);
+            case V_LONGS:
+                return readLongs(in);
+            case V_COMPLEXES:
+                Complex[] complexes = new Complex[in.readInt()];
+                for (int i = 0; i < complexes.length; i++) {
+                    complexes[i] = new Complex(in.readFloat(), in.readFloat());
+                }
+                return complexes;
+            case V_DCOMPLEXES:
+                DoubleComplex[] dcomplexes = new DoubleComplex[in.readInt()];
+                for (int i = 0; i < dcomplexes.length; i++) {
+                    dcomplexes[i] = new DoubleComplex(in.readDouble(), in.readDouble());
+                }
+                return dcomplexes;
+            case V_BYTESTRS:
+                byte[][] bytestrs = new byte[in.readInt()][];
+                for (int i = 0; i < bytestrs.length; i++) {
+                    bytestrs[i] = readBytes(in);
+                }
+                return bytestrs;
+            case V_EXTREFS:
+                ExternalReference[] extRefs = new ExternalReference[in.readInt()];
+                for (int i = 0; i < extRefs.length; i++) {
+                    extRefs[i] = readExtRef(in);
+                }
+                return extRefs;
+            default:
+                throw new IOException("Unknown value type " + type);
+        }
+    }
+
+    private static void writeExtRef(DataOutputStream out, ExternalReference extRef) throws IOException {
+        writeString(out, extRef.getDescription());
+        writeString(out, extRef.getMimeType());
+        writeString(out, extRef.getLocation());
+    }
+
+    private static ExternalReference readExtRef(DataInputStream in) throws IOException {
+        return new ExternalReference(readString(in), readString(in), readString(in));
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /*
+     * The numeric sequences are converted in chunks through the scratch buffer instead of value by value.
+     */
+
+    private void writeShorts(DataOutputStream out, short[] values) throws IOException {
+        out.writeInt(values.length);
+        int chunk = BUFFER_SIZE / Short.BYTES;
+        for (int i = 0; i < values.length; i += chunk) {
+            int n = Math.min(chunk, values.length - i);
+            scratch.clear();
+            scratch.asShortBuffer().put(values, i, n);
+            out.write(scratch.array(), 0, n * Short.BYTES);
+        }
+    }
+
+    private short[] readShorts(DataInputStream in) throws IOException {
+        short[] values = new short[in.readInt()];
+        int chunk = BUFFER_SIZE / Short.BYTES;
+        for (int i = 0; i < values.length; i += chunk) {
+            int n = Math.min(chunk, values.length - i);
+            in.readFully(scratch.array(), 0, n * Short.BYTES);
+            scratch.clear();
+            scratch.asShortBuffer().get(values, i, n);
+        }
+        return values;
+    }
+
+    private void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        int chunk = BUFFER_SIZE / Integer.BYTES;
+        for (int i = 0; i < values.length; i += chunk) {
+            int n = Math.min(chunk, values.length - i);
+            scratch.clear();
+            scratch.asIntBuffer().put(values, i, n);
+            out.write(scratch.array(), 0, n * Integer.BYTES);
+        }
+    }
+
+    private int[] readInts(DataInputStream in) throws IOException {
+        int[] values = new int[in.readInt()];
+        int chunk = BUFFER_SIZE / Integer.BYTES;
+        for (int i = 0; i < values.length; i += chunk) {
+            int n = Math.min(chunk, values.length - i);
+            in.readFully(scratch.array(), 0, n * Integer.BYTES);
+            scratch.clear();
+            scratch.asIntBuffer().get(values, i, n);
+        }
+        return values;
+    }
+
+    private void writeLongs(DataOutputStream out, long[] values) throws IOException {
+        out.writeInt(values.length);
+        int chunk = BUFFER_SIZE / Long.BYTES;
+        for (int i = 0; i < values.length; i += chunk) {
+            int n = Math.min(chunk, values.length - i);
+            scratch.clear();
+            scratch.asLongBuffer().put(values, i, n);
+            out.write(scratch.array(), 0, n * Long.BYTES);
+        }
+    }
+
+    private long[] readLongs(DataInputStream in) throws IOException {
+        long[] values = new long[in.readInt()];
+        int chunk = BUFFER_SIZE / Long.BYTES;
+        for (int i = 0; i < values.length; i += chunk) {
+            int n = Math.min(chunk, values.length - i);
+            in.readFully(scratch.array(), 0, n * Long.BYTES);
+            scratch.clear();
+            scratch.asLongBuffer().get(values, i, n);
+        }
+        return values;
+    }
+
+    private void writeFloats(DataOutputStream out, float[] values) throws IOException {
+        out.writeInt(values.length);
+        int chunk = BUFFER_SIZE / Float.BYTES;
+        for (int i = 0; i < values.length; i += chunk) {
+            int n = Math.min(chunk, values.length - i);
+            scratch.clear();
+            scratch.asFloatBuffer().put(values, i, n);
+            out.write(scratch.array(), 0, n * Float.BYTES);
+        }
+    }
+
+    private float[] readFloats(DataInputStream in) throws IOException {
+        float[] values = new float[in.readInt()];
+        int chunk = BUFFER_SIZE / Float.BYTES;
+        for (int i = 0; i < values.length; i += chunk) {
+            int n = Math.min(chunk, values.length - i);
+            in.readFully(scratch.array(), 0, n * Float.BYTES);
+            scratch.clear();
+            scratch.asFloatBuffer().get(values, i, n);
+        }
+        return values;
+    }
+
+    private void writeDoubles(DataOutputStream out, double[] values) throws IOException {
+        out.writeInt(values.length);
+        int chunk = BUFFER_SIZE / Double.BYTES;
+        for (int i = 0; i < values.length; i += chunk) {
+            int n = Math.min(chunk, values.length - i);
+            scratch.clear();
+            scratch.asDoubleBuffer().put(values, i, n);
+            out.write(scratch.array(), 0, n * Double.BYTES);
+        }
+    }
+
+    private double[] readDoubles(DataInputStream in) throws IOException {
+        double[] values = new double[in.readInt()];
+        int chunk = BUFFER_SIZE / Double.BYTES;
+        for (int i = 0; i < values.length; i += chunk) {
+            int n = Math.min(chunk, values.length - i);
+            in.readFully(scratch.array(), 0, n * Double.BYTES);
+            scratch.clear();
+            scratch.asDoubleBuffer().get(values, i, n);
+        }
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return "AtfxSnapshot [atfxPath=" + atfxPath + ", snapshotPath=" + snapshotPath + "]";
+    }
+}
@@ -0,0 +1,45 @@
+package com.peaksolution.openatfx.api;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Receives the instances of an ATFX file while it is streamed. The instances are passed in file order and are not kept
+ * after the callback, so the memory used does not depend on the file size.
+ *
+ * @author Markus Renner
+ */
+public interface AtfxVisitor {
+
+    /**
+     * Called once after the application model has been parsed, before the first instance.
+     *
+     * @param api The api providing the application model and the context, it contains no instances.
+     */
+    default void visitModel(OpenAtfxAPI api) {
+        // nothing to do by default
+    }
+
+    /**
+     * Called for each instance in the file.
+     *
+     * @param element The application element of the instance.
+     * @param iid The instance id, generated if the file contains none.
+     * @param values The application attribute values as written in the file.
+     * @param instanceAttributes The instance attribute values, the units contain the unit ids or names as written in
+     *            the file.
+     * @param relatedIids The related instance ids by relation as written in the file, inverse relations are not
+     *            completed.
+     * @param components The local column values and flags stored in component files by attribute name, empty for all
+     *            other instances.
+     */
+    void visitInstance(Element element, long iid, List<NameValueUnit> values, List<NameValueUnit> instanceAttributes,
+            Map<Relation, long[]> relatedIids, Map<String, AtfxComponent> components);
+
+    /**
+     * Called once after the last instance.
+     */
+    default void visitEnd() {
+        // nothing to do by default
+    }
+}
@@ -0,0 +1,145 @@
+package com.peaksolution.openatfx.api;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.asam.ods.ErrorCode;
+
+import com.peaksolution.openatfx.util.ODSHelper;
+
+
+/**
+ * Decoder for the bit packed value types dt_bit_int(27), dt_bit_int_beo(28), dt_bit_uint(29) and dt_bit_uint_beo(30).
+ * <p>
+ * Each value occupies <code>((ao_bit_count + ao_bit_offset - 1) / 8) + 1</code> bytes, the integer formed by these
+ * bytes in the byte order of the value type is shifted right by <code>ao_bit_offset</code> and truncated to
+ * <code>ao_bit_count</code> bits, which are sign extended for the signed types. This gives the same results as
+ * {@link ODSHelper#getBitShiftedIntegerValue(byte[], int, int, int)}, but the values are read as 64 bit words directly
+ * from the buffer without any allocation per value.
+ *
+ * @author Markus Renner
+ */
+final class BitFieldDecoder {
+
+    private final boolean bigEndian;
+    private final boolean signed;
+    private final int bitCount;
+    private final int bitOffset;
+    private final int nrOfBytes;
+    /** the right shift moving the first bit of a value read as big endian word to bit 0 */
+    private final int wordShift;
+    /** the left shift moving the highest bit of a value to bit 63, used for sign extension */
+    private final int signShift;
+    private final long mask;
+
+    /**
+     * Constructor.
+     *
+     * @param valueType The ODS value type, 27 to 30.
+     * @param bitCount The number of bits of each value, 1 to 64.
+     * @param bitOffset The offset of the first bit within the first byte of each value.
+     * @throws OpenAtfxException if the parameters are not supported.
+     */
+    BitFieldDecoder(int valueType, int bitCount, int bitOffset) {
+        if (valueType < 27 || valueType > 30) {
+            throw new OpenAtfxException(ErrorCode.AO_BAD_PARAMETER, "Not a bit value type: "
+                    + ODSHelper.valueType2String(valueType));
+        }
+        if (bitCount < 0 || bitCount > 64 || bitOffset < 0 || bitOffset > 63) {
+            throw new OpenAtfxException(ErrorCode.AO_NOT_IMPLEMENTED, "Unsupported bit value definition [bit_count="
+                    + bitCount + ", bit_offset=" + bitOffset + "]");
+        }
+        this.bigEndian = valueType == 28 || valueType == 30;
+        this.signed = (valueType == 27 || valueType == 28) && bitCount > 0;
+        this.bitCount = bitCount;
+        this.bitOffset = bitOffset;
+        this.nrOfBytes = ((bitCount + bitOffset - 1) / 8) + 1;
+        if (nrOfBytes > 9) {
+            throw new OpenAtfxException(ErrorCode.AO_UNKNOWN_ERROR, "Unsupported value data length (" + nrOfBytes
+                    + " bytes), data must not be longer than 9 bytes!");
+        }
+        this.wordShift = nrOfBytes > 8 ? 0 : 64 - nrOfBytes * 8;
+        this.signShift = 64 - bitCount;
+        this.mask = bitCount == 64 ? -1L : (1L << bitCount) - 1;
+    }
+
+    /**
+     * @return The number of bytes of one value.
+     */
+    int getValueSize() {
+        return nrOfBytes;
+    }
+
+    /**
+     * Decodes consecutive values into the target array.
+     *
+     * @param source The buffer, its byte order is irrelevant and left unchanged.
+     * @param position The position of the first byte of the first value.
+     * @param count The number of values.
+     * @param target The target array.
+     * @param targetIndex The index in the target array to write the first value to.
+     */
+    void decode(ByteBuffer source, int position, int count, NumberArray target, int targetIndex) {
+        boolean swap = (source.order() == ByteOrder.BIG_ENDIAN) != bigEndian;
+        int limit = source.limit();
+        int i = 0;
+
+        // fast path: a whole word can be read at each value position
+        if (nrOfBytes <= 8) {
+            int room = limit - 8 - position;
+            int fastCount = room < 0 ? 0 : Math.min(count, room / nrOfBytes + 1);
+            for (; i < fastCount; i++) {
+                long word = source.getLong(position + i * nrOfBytes);
+                if (swap) {
+                    word = Long.reverseBytes(word);
+                }
+                long raw = bigEndian ? word >>> wordShift : word;
+                target.setLong(targetIndex + i, extend(raw >>> bitOffset));
+            }
+        }
+
+        // values of 9 bytes and the values at the end of the buffer
+        for (; i < count; i++) {
+            target.setLong(targetIndex + i, decode(source, position + i * nrOfBytes));
+        }
+    }
+
+    /**
+     * Decodes a single value byte by byte.
+     *
+     * @param source The buffer.
+     * @param position The position of the first byte of the value.
+     * @return The value.
+     */
+    long decode(ByteBuffer source, int position) {
+        // assemble the little endian integer of the value bytes, bits 64 to 71 are in high
+        long low = 0;
+        long high = 0;
+        for (int k = 0; k < nrOfBytes; k++) {
+            long b = source.get(bigEndian ? position + nrOfBytes - 1 - k : position + k) & 0xffL;
+            if (k < 8) {
+                low |= b << (k * 8);
+            } else {
+                high = b;
+            }
+        }
+        long field = low >>> bitOffset;
+        if (bitOffset > 0) {
+            field |= high << (64 - bitOffset);
+        }
+        return extend(field);
+    }
+
+    private long extend(long field) {
+        if (signed) {
+            return (field << signShift) >> signShift;
+        }
+        return field & mask;
+    }
+
+    @Override
+    public String toString() {
+        return "BitFieldDecoder [bitCount=" + bitCount + ", bitOffset=" + bitOffset + ", bigEndian=" + bigEndian
+                + ", signed=" + signed + "]";
+    }
+}
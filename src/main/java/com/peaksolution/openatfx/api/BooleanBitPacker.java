@@ -0,0 +1,67 @@
+package com.peaksolution.openatfx.api;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import com.peaksolution.openatfx.util.ODSHelper;
+
+
+/**
+ * Packs boolean values into bits for the value type dt_boolean(0).
+ * <p>
+ * The bit of value <code>i</code> is bit <code>7 - (i % 8)</code> of byte <code>i / 8</code>, just like
+ * {@link ODSHelper#setBit(byte[], int, boolean)} sets it. The bits are collected in 64 bit words which are put into
+ * the target buffer as a whole, instead of reading and writing a byte for every single value.
+ *
+ * @author Markus Renner
+ */
+final class BooleanBitPacker {
+
+    private BooleanBitPacker() {
+        // static helper
+    }
+
+    /**
+     * Returns the number of bytes the given number of packed values occupy.
+     *
+     * @param count The number of values.
+     * @return The number of bytes.
+     */
+    static int getPackedLength(int count) {
+        return (count + 7) / 8;
+    }
+
+    /**
+     * Packs values and puts them at the current position of the target buffer.
+     *
+     * @param src The values.
+     * @param srcIndex The index of the first value to pack.
+     * @param count The number of values to pack.
+     * @param target The buffer, needs to have {@link #getPackedLength(int)} bytes remaining.
+     * @return The number of bytes put.
+     */
+    static int pack(boolean[] src, int srcIndex, int count, ByteBuffer target) {
+        int end = srcIndex + count;
+        int i = srcIndex;
+        for (; end - i >= 64; i += 64) {
+            long word = 0;
+            for (int j = 0; j < 64; j++) {
+                word = (word << 1) | (src[i + j] ? 1L : 0L);
+            }
+            // the first value is the highest bit, so the word is put in big endian order regardless of the buffer
+            target.putLong(target.order() == ByteOrder.BIG_ENDIAN ? word : Long.reverseBytes(word));
+        }
+        int rest = end - i;
+        if (rest > 0) {
+            long word = 0;
+            for (int j = 0; j < rest; j++) {
+                word = (word << 1) | (src[i + j] ? 1L : 0L);
+            }
+            word <<= 64 - rest;
+            for (int b = 0, shift = 56; b < getPackedLength(rest); b++, shift -= 8) {
+                target.put((byte) (word >>> shift));
+            }
+        }
+        return getPackedLength(count);
+    }
+}
@@ -0,0 +1,94 @@
+package com.peaksolution.openatfx.api;
+
+/**
+ * Appends the values of a local column to external component files chunk by chunk, so the complete values never have
+ * to be held in memory.
+ * <p>
+ * The values are appended to the component files of the session. Whenever the segment size given by the context
+ * 'EXT_COMP_SEGSIZE' is reached, writing continues in the next component file and an additional external component
+ * with the next ordinal number is created. The same applies when a component reaches the size given by the context
+ * 'EXT_COMP_COMPONENT_SIZE'. Without the attribute 'ordinal_number' in the application model all values are
+ * appended to one component, which holds at most {@link Integer#MAX_VALUE} values. The component lengths and the
+ * sequence representation of the local column are updated when the appender is closed, the values are not readable
+ * before.
+ * <p>
+ * Only the append method matching the data type of the local column may be called. An appender is not thread safe.
+ *
+ * @author Markus Renner
+ */
+public interface ColumnAppender extends AutoCloseable {
+
+    /**
+     * Appends values to a local column of data type DT_BYTE.
+     *
+     * @param chunk The values.
+     * @param off The index of the first value to append.
+     * @param len The number of values to append.
+     * @throws OpenAtfxException Error writing the values.
+     */
+    void append(byte[] chunk, int off, int len);
+
+    /**
+     * Appends values to a local column of data type DT_SHORT.
+     *
+     * @param chunk The values.
+     * @param off The index of the first value to append.
+     * @param len The number of values to append.
+     * @throws OpenAtfxException Error writing the values.
+     */
+    void append(short[] chunk, int off, int len);
+
+    /**
+     * Appends values to a local column of data type DT_LONG.
+     *
+     * @param chunk The values.
+     * @param off The index of the first value to append.
+     * @param len The number of values to append.
+     * @throws OpenAtfxException Error writing the values.
+     */
+    void append(int[] chunk, int off, int len);
+
+    /**
+     * Appends values to a local column of data type DT_LONGLONG.
+     *
+     * @param chunk The values.
+     * @param off The index of the first value to append.
+     * @param len The number of values to append.
+     * @throws OpenAtfxException Error writing the values.
+     */
+    void append(long[] chunk, int off, int len);
+
+    /**
+     * Appends values to a local column of data type DT_FLOAT.
+     *
+     * @param chunk The values.
+     * @param off The index of the first value to append.
+     * @param len The number of values to append.
+     * @throws OpenAtfxException Error writing the values.
+     */
+    void append(float[] chunk, int off, int len);
+
+    /**
+     * Appends values to a local column of data type DT_DOUBLE.
+     *
+     * @param chunk The values.
+     * @param off The index of the first value to append.
+     * @param len The number of values to append.
+     * @throws OpenAtfxException Error writing the values.
+     */
+    void append(double[] chunk, int off, int len);
+
+    /**
+     * @return The number of values appended so far.
+     */
+    long getValueCount();
+
+    /**
+     * Completes the external components of the local column. Further values cannot be appended afterwards, closing
+     * again has no effect.
+     *
+     * @throws OpenAtfxException Error completing the external components.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,70 @@
+package com.peaksolution.openatfx.api;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * The outcome of compacting the external component files of a session.
+ *
+ * @author Markus Renner
+ */
+public final class CompactionResult {
+
+    private final List<Path> obsoleteFiles;
+    private final List<Path> newFiles;
+    private final long bytesBefore;
+    private final long bytesAfter;
+
+    CompactionResult(List<Path> obsoleteFiles, List<Path> newFiles, long bytesBefore, long bytesAfter) {
+        this.obsoleteFiles = Collections.unmodifiableList(obsoleteFiles);
+        this.newFiles = Collections.unmodifiableList(newFiles);
+        this.bytesBefore = bytesBefore;
+        this.bytesAfter = bytesAfter;
+    }
+
+    /**
+     * Returns the compacted component files. They are no longer referenced by the session, but still by the ATFX file
+     * on disk until it is written again. They may be deleted afterwards.
+     *
+     * @return The obsolete files.
+     */
+    public List<Path> getObsoleteFiles() {
+        return obsoleteFiles;
+    }
+
+    /**
+     * @return The component files the live values have been copied to.
+     */
+    public List<Path> getNewFiles() {
+        return newFiles;
+    }
+
+    /**
+     * @return The total size in bytes of the compacted component files.
+     */
+    public long getBytesBefore() {
+        return bytesBefore;
+    }
+
+    /**
+     * @return The number of live bytes copied to the new component files.
+     */
+    public long getBytesAfter() {
+        return bytesAfter;
+    }
+
+    /**
+     * @return The number of bytes reclaimed once the obsolete files are deleted.
+     */
+    public long getReclaimedBytes() {
+        return bytesBefore - bytesAfter;
+    }
+
+    @Override
+    public String toString() {
+        return "CompactionResult [obsoleteFiles=" + obsoleteFiles.size() + ", newFiles=" + newFiles.size()
+                + ", bytesBefore=" + bytesBefore + ", bytesAfter=" + bytesAfter + "]";
+    }
+}
@@ -0,0 +1,282 @@
+package com.peaksolution.openatfx.api;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.asam.ods.ErrorCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Appends the values of a local column chunk by chunk to the pooled external component files.
+ * <p>
+ * Each chunk is encoded in slabs through one reusable direct buffer. A component is continued as long as its values
+ * are contiguous in one file; it is completed and a new component with the next ordinal number is started when the
+ * segment size would be exceeded, or when other values have been appended to the same file in between.
+ * <p>
+ * If the application model has no attribute 'ordinal_number' the order of several components cannot be stored. All
+ * values are then appended to one component regardless of the segment and component size, and appending fails if
+ * other values have been appended to the same file in between.
+ *
+ * @author Markus Renner
+ */
+class ExtCompColumnAppender implements ColumnAppender {
+    private static final Logger LOG = LoggerFactory.getLogger(ExtCompColumnAppender.class);
+
+    /** the size of the buffer the values are encoded in */
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private final OpenAtfxAPIImplementation api;
+    private final ExtCompWriter extCompWriter;
+    private final ExtCompFileWriters fileWriters;
+    private final long iidLc;
+    private final DataType dataType;
+    private final int valueType;
+    private final int blockSize;
+    private final int seqRep;
+    private final boolean split;
+    private final ByteBuffer buffer;
+
+    private long valueCount;
+    private int ordinalNumber;
+    private boolean closed;
+
+    /** the external component currently appended to, null if none */
+    private Instance component;
+    private Path componentFile;
+    private int componentLength;
+    /** the offset in the component file where the next values of the component continue */
+    private long componentEnd;
+
+    /**
+     * Constructor.
+     *
+     * @param api The API.
+     * @param extCompWriter The writer creating the external components.
+     * @param fileWriters The pooled component files.
+     * @param iidLc The instance id of the local column.
+     * @throws OpenAtfxException The values of the local column cannot be written to external component files.
+     */
+    ExtCompColumnAppender(OpenAtfxAPIImplementation api, ExtCompWriter extCompWriter, ExtCompFileWriters fileWriters,
+            long iidLc) {
+        this.api = api;
+        this.extCompWriter = extCompWriter;
+        this.fileWriters = fileWriters;
+        this.iidLc = iidLc;
+        this.dataType = api.getDataTypeForLocalColumnValues(iidLc);
+
+        if (dataType == DataType.DS_BYTE) {
+            this.valueType = 1; // dt_byte
+            this.blockSize = 1;
+        } else if (dataType == DataType.DS_SHORT) {
+            this.valueType = 2; // dt_short
+            this.blockSize = 2;
+        } else if (dataType == DataType.DS_LONG) {
+            this.valueType = 3; // dt_long
+            this.blockSize = 4;
+        } else if (dataType == DataType.DS_LONGLONG) {
+            this.valueType = 4; // dt_longlong
+            this.blockSize = 8;
+        } else if (dataType == DataType.DS_FLOAT) {
+            this.valueType = 5; // dt_float
+            this.blockSize = 4;
+        } else if (dataType == DataType.DS_DOUBLE) {
+            this.valueType = 6; // dt_double
+            this.blockSize = 8;
+        } else {
+            throw new OpenAtfxException(ErrorCode.AO_NOT_IMPLEMENTED, "DataType '" + dataType
+                    + "' not yet supported for appending to external component files");
+        }
+
+        // the values have to be stored in external components
+        this.seqRep = extCompWriter.getExtCompSeqRep(iidLc);
+        this.split = extCompWriter.canSplitComponents();
+
+        extCompWriter.removeExternalComponents(iidLc);
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public void append(byte[] chunk, int off, int len) {
+        append(DataType.DS_BYTE, chunk.length, off, len, (bb, i, n) -> {
+            bb.put(chunk, i, n);
+            return n;
+        });
+    }
+
+    @Override
+    public void append(short[] chunk, int off, int len) {
+        append(DataType.DS_SHORT, chunk.length, off, len, (bb, i, n) -> {
+            bb.asShortBuffer().put(chunk, i, n);
+            return n * 2;
+        });
+    }
+
+    @Override
+    public void append(int[] chunk, int off, int len) {
+        append(DataType.DS_LONG, chunk.length, off, len, (bb, i, n) -> {
+            bb.asIntBuffer().put(chunk, i, n);
+            return n * 4;
+        });
+    }
+
+    @Override
+    public void append(long[] chunk, int off, int len) {
+        append(DataType.DS_LONGLONG, chunk.length, off, len, (bb, i, n) -> {
+            bb.asLongBuffer().put(chunk, i, n);
+            return n * 8;
+        });
+    }
+
+    @Override
+    public void append(float[] chunk, int off, int len) {
+        append(DataType.DS_FLOAT, chunk.length, off, len, (bb, i, n) -> {
+            bb.asFloatBuffer().put(chunk, i, n);
+            return n * 4;
+        });
+    }
+
+    @Override
+    public void append(double[] chunk, int off, int len) {
+        append(DataType.DS_DOUBLE, chunk.length, off, len, (bb, i, n) -> {
+            bb.asDoubleBuffer().put(chunk, i, n);
+            return n * 8;
+        });
+    }
+
+    @Override
+    public long getValueCount() {
+        return valueCount;
+    }
+
+    private void append(DataType chunkDataType, int chunkLength, int off, int len,
+            ExtCompFileWriters.SlabEncoder encoder) {
+        if (closed) {
+            throw new OpenAtfxException(ErrorCode.AO_BAD_OPERATION, "The appender of local column with id " + iidLc
+                    + " has already been closed");
+        }
+        if (chunkDataType != dataType) {
+            throw new OpenAtfxException(ErrorCode.AO_INVALID_DATATYPE, "Cannot append values of type "
+                    + chunkDataType + " to local column with id " + iidLc + " of type " + dataType);
+        }
+        if (off < 0 || len < 0 || off > chunkLength - len) {
+            throw new OpenAtfxException(ErrorCode.AO_BAD_PARAMETER, "Invalid range [" + off + ", " + off + "+" + len
+                    + "] for chunk of length " + chunkLength);
+        }
+        // the values are not split, so all of them have to fit into the component length of type dt_long
+        if (!split && componentLength + (long) len > Integer.MAX_VALUE) {
+            throw new OpenAtfxException(ErrorCode.AO_BAD_OPERATION, "Cannot append " + len + " values to local "
+                    + "column with id " + iidLc + ", an external component holds at most " + Integer.MAX_VALUE
+                    + " values and the values cannot be split without the attribute 'ordinal_number'");
+        }
+
+        int done = 0;
+        try {
+            while (done < len) {
+                ExtCompFileWriters.SegmentWriter writer = prepareComponent();
+                int count = Math.min(len - done, getValuesFitting(writer));
+                writer.write(buffer, off + done, count, count, encoder);
+
+                componentLength += count;
+                componentEnd += (long) count * blockSize;
+                valueCount += count;
+                done += count;
+            }
+        } catch (IOException e) {
+            throw new OpenAtfxException(ErrorCode.AO_UNKNOWN_ERROR, "Error appending values of local column with id "
+                    + iidLc + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the number of values which may be appended to the current component in one slab.
+     */
+    private int getValuesFitting(ExtCompFileWriters.SegmentWriter writer) {
+        if (!split) {
+            return BUFFER_SIZE / blockSize;
+        }
+        long room = (fileWriters.getSegmentSize() - writer.getOffset()) / blockSize;
+        long componentRoom = Math.min(getMaxComponentLength() - componentLength, BUFFER_SIZE / blockSize);
+        long fitting = Math.min(room, componentRoom);
+        // at least one value is written to an empty file even if the segment size is smaller than a value
+        return (int) Math.max(1, fitting);
+    }
+
+    /**
+     * Returns the maximum number of values of a component, limited by the component size from the context.
+     */
+    private long getMaxComponentLength() {
+        return Math.max(1, Math.min(fileWriters.getComponentSize() / blockSize, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Returns the file writer, positioned where the values of the current component continue. The current component is
+     * completed and a new one is started if the values cannot be continued contiguously.
+     */
+    private ExtCompFileWriters.SegmentWriter prepareComponent() {
+        ExtCompFileWriters.SegmentWriter writer = fileWriters.get(ExtCompFileWriters.Category.VALUES);
+        long segmentSize = fileWriters.getSegmentSize();
+        if (component != null) {
+            boolean contiguous = writer.getFile().equals(componentFile) && writer.getOffset() == componentEnd;
+            boolean full = writer.getOffset() + blockSize > segmentSize || componentLength >= getMaxComponentLength();
+            if (!contiguous && !split) {
+                throw new OpenAtfxException(ErrorCode.AO_BAD_OPERATION, "Values of local column with id " + iidLc
+                        + " cannot be continued in one external component, other values have been appended in "
+                        + "between, and the values cannot be split without the attribute 'ordinal_number'");
+            }
+            if (!contiguous || (full && split)) {
+                completeComponent();
+            }
+        }
+        if (component == null) {
+            while (writer.getOffset() > 0 && writer.getOffset() + blockSize > segmentSize) {
+                writer.rollOver();
+            }
+            startComponent(writer.getFile(), writer.getOffset());
+        }
+        return writer;
+    }
+
+    private void startComponent(Path file, long startOffset) {
+        ordinalNumber++;
+        component = extCompWriter.createAoExternalComponent(iidLc, file.getFileName().toString(), valueType, 0,
+                                                            startOffset, blockSize, 1, ordinalNumber);
+        componentFile = file;
+        componentLength = 0;
+        componentEnd = startOffset;
+    }
+
+    private void completeComponent() {
+        Element extCompElement = component.getElement();
+        String lengthAttrName = extCompElement.getAttributeByBaseName("component_length").getName();
+        api.setAttributeValues(extCompElement.getId(), component.getIid(),
+                               List.of(new NameValueUnit(lengthAttrName, DataType.DT_LONG, componentLength)));
+        component = null;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        // a local column without values still gets an empty component
+        if (ordinalNumber == 0) {
+            ExtCompFileWriters.SegmentWriter writer = fileWriters.get(ExtCompFileWriters.Category.VALUES);
+            startComponent(writer.getFile(), writer.getOffset());
+        }
+        if (component != null) {
+            completeComponent();
+        }
+
+        // the values are now read from the external components
+        extCompWriter.setValuesExternal(iidLc, dataType, seqRep);
+        LOG.debug("Appended {} values of local column with id {} in {} external components", valueCount, iidLc,
+                  ordinalNumber);
+    }
+}
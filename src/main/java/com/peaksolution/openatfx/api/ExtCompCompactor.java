@@ -0,0 +1,313 @@
+package com.peaksolution.openatfx.api;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.asam.ods.ErrorCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Compacts the external component files by copying only the byte ranges still referenced by external components into
+ * new segment files.
+ * <p>
+ * The live ranges are computed from the values and flags of all external component instances. Overlapping ranges, like
+ * the records shared by interleaved components, are merged and copied as a whole, so the positions within a range are
+ * kept. The references are only rewritten after all ranges have been copied and forced to disk, so on any error the
+ * components still reference the unchanged old files. Files referenced in a way that cannot be rewritten, for example
+ * through an 'AoFile' instance instead of the 'filename_url' attribute, are left untouched.
+ *
+ * @author Markus Renner
+ */
+class ExtCompCompactor {
+    private static final Logger LOG = LoggerFactory.getLogger(ExtCompCompactor.class);
+
+    private static final String AOEXTERNALCOMPONENT = "aoexternalcomponent";
+
+    private final OpenAtfxAPIImplementation api;
+    private final ExtCompReader extCompReader;
+    private final ExtCompFileWriters fileWriters;
+
+    /**
+     * Constructor.
+     *
+     * @param api The API.
+     * @param extCompReader The reader resolving the component files.
+     * @param fileWriters The pooled component files the live ranges are copied to.
+     */
+    ExtCompCompactor(OpenAtfxAPIImplementation api, ExtCompReader extCompReader, ExtCompFileWriters fileWriters) {
+        this.api = api;
+        this.extCompReader = extCompReader;
+        this.fileWriters = fileWriters;
+    }
+
+    /**
+     * Copies the live ranges of all component files to new segment files and rewrites the references of the external
+     * components. The old files are excluded from being appended to.
+     *
+     * @return The result.
+     * @throws OpenAtfxException Error copying the ranges, the external components are unchanged.
+     */
+    CompactionResult compact() {
+        long start = System.currentTimeMillis();
+        Collection<Element> ecElements = api.getElementsByBaseType(AOEXTERNALCOMPONENT);
+        if (ecElements.isEmpty()) {
+            return new CompactionResult(new ArrayList<>(), new ArrayList<>(), 0, 0);
+        }
+        Element extCompElement = ecElements.iterator().next();
+
+        // all values written so far have to be in the files
+        fileWriters.close();
+        Map<Path, SourceFile> sources = collectSourceFiles(extCompElement);
+
+        Set<Path> newFiles = new LinkedHashSet<>();
+        long bytesBefore = 0;
+        long bytesAfter = 0;
+        try {
+            Map<ExtCompFileWriters.Category, ExtCompFileWriters.SegmentWriter> writers = new EnumMap<>(
+                    ExtCompFileWriters.Category.class);
+            for (SourceFile source : sources.values()) {
+                ExtCompFileWriters.SegmentWriter writer = writers.get(source.category);
+                if (writer == null) {
+                    writer = fileWriters.getFresh(source.category);
+                    writers.put(source.category, writer);
+                }
+                newFiles.add(writer.getFile());
+                bytesBefore += Files.size(source.file);
+                bytesAfter += source.copyTo(writer, newFiles);
+            }
+            fileWriters.close();
+        } catch (IOException | OpenAtfxException e) {
+            fileWriters.close();
+            deleteQuietly(newFiles);
+            throw new OpenAtfxException(ErrorCode.AO_UNKNOWN_ERROR, "Error compacting external component files: "
+                    + e.getMessage());
+        }
+
+        // rewrite the references of all components at once
+        Map<Long, List<NameValueUnit>> updates = new LinkedHashMap<>();
+        for (SourceFile source : sources.values()) {
+            for (Reference reference : source.references) {
+                reference.addValues(extCompElement, updates.computeIfAbsent(reference.iidExtComp,
+                                                                            k -> new ArrayList<>()));
+            }
+        }
+        for (Map.Entry<Long, List<NameValueUnit>> entry : updates.entrySet()) {
+            api.setAttributeValues(extCompElement.getId(), entry.getKey(), entry.getValue());
+        }
+        fileWriters.exclude(sources.keySet());
+
+        CompactionResult result = new CompactionResult(new ArrayList<>(sources.keySet()), new ArrayList<>(newFiles),
+                                                       bytesBefore, bytesAfter);
+        LOG.info("Compacted {} component files into {} in {}ms, reclaimed {} bytes", sources.size(), newFiles.size(),
+                 System.currentTimeMillis() - start, result.getReclaimedBytes());
+        return result;
+    }
+
+    /**
+     * Collects the live ranges of all external components, grouped by component file.
+     */
+    private Map<Path, SourceFile> collectSourceFiles(Element extCompElement) {
+        Map<Path, SourceFile> sources = new TreeMap<>();
+        Set<Path> excluded = new HashSet<>();
+        for (Instance extComp : api.getInstances(extCompElement.getId())) {
+            ExtCompDescriptor descriptor = extCompReader.describe(extComp);
+
+            // values
+            if (descriptor.getValuesFile() != null) {
+                Path file = descriptor.getValuesFile().toAbsolutePath().normalize();
+                long length = getValuesLength(descriptor);
+                if (length < 0 || !hasValidValue(extComp, "filename_url") || !hasValidValue(extComp, "start_offset")
+                        || !Files.isRegularFile(file)) {
+                    excluded.add(file);
+                } else {
+                    sources.computeIfAbsent(file, f -> new SourceFile(f, getCategory(descriptor.getValueType())))
+                           .add(new Reference(extComp.getIid(), false, descriptor.getStartOffset(), length));
+                }
+            }
+
+            // flags
+            if (descriptor.getFlagsFile() != null) {
+                Path file = descriptor.getFlagsFile().toAbsolutePath().normalize();
+                if (descriptor.getComponentLength() < 0 || descriptor.getFlagsStartOffset() == null
+                        || !hasValidValue(extComp, "flags_filename_url") || !Files.isRegularFile(file)) {
+                    excluded.add(file);
+                } else {
+                    sources.computeIfAbsent(file, f -> new SourceFile(f, ExtCompFileWriters.Category.FLAGS))
+                           .add(new Reference(extComp.getIid(), true, descriptor.getFlagsStartOffset(),
+                                              2L * descriptor.getComponentLength()));
+                }
+            }
+        }
+        for (Path file : excluded) {
+            if (sources.remove(file) != null) {
+                LOG.warn("Component file '{}' is not compacted, not all its references can be rewritten", file);
+            }
+        }
+        return sources;
+    }
+
+    private static boolean hasValidValue(Instance extComp, String baseAttrName) {
+        return extComp.doesAttributeExist(null, baseAttrName, false)
+                && extComp.getValueByBaseName(baseAttrName).hasValidValue();
+    }
+
+    /**
+     * Returns the number of bytes the values of given component occupy, -1 if unknown.
+     */
+    private static long getValuesLength(ExtCompDescriptor descriptor) {
+        int valueType = descriptor.getValueType();
+        int componentLength = descriptor.getComponentLength();
+        if (valueType < 0 || componentLength < 0) {
+            return -1;
+        }
+        // 12=dt_string, 25=dt_string_utf8, 32=dt_bytestr, 33=dt_bytestr_leo: the component length is given in bytes
+        if (valueType == 12 || valueType == 25 || valueType == 32 || valueType == 33) {
+            return componentLength;
+        }
+        int blockSize = descriptor.getBlockSize();
+        int valuesPerBlock = descriptor.getValuesPerBlock();
+        if (blockSize < 1 || valuesPerBlock < 1) {
+            return -1;
+        }
+        long blocks = ((long) componentLength + valuesPerBlock - 1) / valuesPerBlock;
+        return blocks * blockSize;
+    }
+
+    private static ExtCompFileWriters.Category getCategory(int valueType) {
+        switch (valueType) {
+            case 12: // dt_string
+                return ExtCompFileWriters.Category.STRING;
+            case 25: // dt_string_utf8
+                return ExtCompFileWriters.Category.UTF8STRING;
+            case 32: // dt_bytestr
+            case 33: // dt_bytestr_leo
+                return ExtCompFileWriters.Category.BYTESTREAM;
+            default:
+                return ExtCompFileWriters.Category.VALUES;
+        }
+    }
+
+    private static void deleteQuietly(Collection<Path> files) {
+        for (Path file : files) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                LOG.warn("Could not delete component file '{}': {}", file, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * A component file to compact and the references to its live ranges.
+     */
+    private class SourceFile {
+        private final Path file;
+        /** the category of the new files, given by the first reference */
+        private final ExtCompFileWriters.Category category;
+        private final List<Reference> references = new ArrayList<>();
+
+        private SourceFile(Path file, ExtCompFileWriters.Category category) {
+            this.file = file;
+            this.category = category;
+        }
+
+        private void add(Reference reference) {
+            references.add(reference);
+        }
+
+        /**
+         * Copies the merged live ranges in file order and sets the new positions of the references.
+         *
+         * @param writer The writer of the new files.
+         * @param newFiles The new files, the files rolled over to are added.
+         * @return The number of bytes copied.
+         * @throws IOException Error copying.
+         */
+        private long copyTo(ExtCompFileWriters.SegmentWriter writer, Set<Path> newFiles) throws IOException {
+            List<Reference> sorted = new ArrayList<>(references);
+            sorted.sort(Comparator.comparingLong(r -> r.start));
+
+            long copied = 0;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long size = channel.size();
+                int i = 0;
+                while (i < sorted.size()) {
+                    // merge overlapping and adjacent ranges
+                    long rangeStart = sorted.get(i).start;
+                    long rangeEnd = sorted.get(i).start + sorted.get(i).length;
+                    int j = i + 1;
+                    while (j < sorted.size() && sorted.get(j).start <= rangeEnd) {
+                        rangeEnd = Math.max(rangeEnd, sorted.get(j).start + sorted.get(j).length);
+                        j++;
+                    }
+                    long length = Math.max(0, Math.min(rangeEnd, size) - rangeStart);
+
+                    while (writer.getOffset() > 0 && writer.getOffset() + length > fileWriters.getSegmentSize()) {
+                        writer.rollOver();
+                        newFiles.add(writer.getFile());
+                    }
+                    long newStart = writer.getOffset();
+                    writer.transferFrom(channel, rangeStart, length);
+                    for (int k = i; k < j; k++) {
+                        Reference reference = sorted.get(k);
+                        reference.newFile = writer.getFile();
+                        reference.newStart = newStart + reference.start - rangeStart;
+                    }
+                    copied += length;
+                    i = j;
+                }
+            }
+            return copied;
+        }
+    }
+
+    /**
+     * The live range of the values or flags of an external component.
+     */
+    private static class Reference {
+        private final long iidExtComp;
+        private final boolean flags;
+        private final long start;
+        private final long length;
+        private Path newFile;
+        private long newStart;
+
+        private Reference(long iidExtComp, boolean flags, long start, long length) {
+            this.iidExtComp = iidExtComp;
+            this.flags = flags;
+            this.start = start;
+            this.length = length;
+        }
+
+        /**
+         * Adds the values referencing the new position.
+         */
+        private void addValues(Element extCompElement, List<NameValueUnit> values) {
+            Attribute fileAttr = extCompElement.getAttributeByBaseName(flags ? "flags_filename_url" : "filename_url");
+            values.add(new NameValueUnit(fileAttr.getName(), DataType.DT_STRING, newFile.getFileName().toString()));
+            Attribute offsetAttr = extCompElement.getAttributeByBaseName(flags ? "flags_start_offset"
+                    : "start_offset");
+            if (DataType.DT_LONG == offsetAttr.getDataType()) {
+                values.add(new NameValueUnit(offsetAttr.getName(), DataType.DT_LONG, Math.toIntExact(newStart)));
+            } else {
+                values.add(new NameValueUnit(offsetAttr.getName(), DataType.DT_LONGLONG, newStart));
+            }
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.peaksolution.openatfx.api;
+
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.Comparator;
+
+import org.asam.ods.ErrorCode;
+
+
+/**
+ * Immutable description of one external component, compiled once from the attributes of its instance.
+ * <p>
+ * All attributes needed to read the values and flags of the component are looked up and the component files are
+ * resolved when the descriptor is created, so reading only consists of arithmetic and I/O. Attributes which are only
+ * needed to read numeric values are checked by {@link #checkNumericLayout()}, so a component missing them may still be
+ * read as string values or for its flags.
+ *
+ * @author Markus Renner
+ */
+final class ExtCompDescriptor {
+
+    /**
+     * orders the descriptors by their ordinal number, components without ordinal number are sorted behind all others;
+     * as sorting a list is stable, they keep their relative position
+     */
+    static final Comparator<ExtCompDescriptor> BY_ORDINAL_NUMBER = Comparator
+        .comparing(d -> d.ordinalNumber, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final long iid;
+    private final Integer ordinalNumber;
+    private final int valueType;
+    private final int componentLength;
+    private final long startOffset;
+    private final int valueOffset;
+    private final int blockSize;
+    private final int valuesPerBlock;
+    private final short bitCount;
+    private final short bitOffset;
+    private final ByteOrder byteOrder;
+    private final Path valuesFile;
+    private final String fileNameUrl;
+    private final Path flagsFile;
+    private final Long flagsStartOffset;
+    /** the base name of the first attribute required to read numeric values which is missing, null if none */
+    private final String missingAttribute;
+
+    /**
+     * Constructor.
+     *
+     * @param extComp The external component instance.
+     * @param ordinalNumber The ordinal number, null if not available.
+     * @param valuesFile The resolved values file, null if not defined.
+     * @param flagsFile The resolved flags file, null if not defined.
+     * @param byteOrder The byte order of the values and flags.
+     */
+    ExtCompDescriptor(Instance extComp, Integer ordinalNumber, Path valuesFile, Path flagsFile, ByteOrder byteOrder) {
+        this.iid = extComp.getIid();
+        this.ordinalNumber = ordinalNumber;
+        this.valuesFile = valuesFile;
+        this.flagsFile = flagsFile;
+        this.byteOrder = byteOrder;
+
+        String missing = null;
+        NameValueUnit nvu = getValue(extComp, "value_type");
+        this.valueType = nvu == null ? -1 : nvu.getValue().enumVal();
+        missing = nvu == null ? "value_type" : missing;
+        nvu = getValue(extComp, "component_length");
+        this.componentLength = nvu == null ? -1 : nvu.getValue().longVal();
+        missing = nvu == null && missing == null ? "component_length" : missing;
+        nvu = getValue(extComp, "start_offset");
+        this.startOffset = nvu == null ? 0 : getLong(nvu);
+        missing = nvu == null && missing == null ? "start_offset" : missing;
+        nvu = getValue(extComp, "value_offset");
+        this.valueOffset = nvu == null ? 0 : nvu.getValue().longVal();
+        missing = nvu == null && missing == null ? "value_offset" : missing;
+        nvu = getValue(extComp, "block_size");
+        this.blockSize = nvu == null ? 0 : nvu.getValue().longVal();
+        missing = nvu == null && missing == null ? "block_size" : missing;
+        nvu = getValue(extComp, "valuesperblock");
+        this.valuesPerBlock = nvu == null ? 0 : nvu.getValue().longVal();
+        missing = nvu == null && missing == null ? "valuesperblock" : missing;
+        this.missingAttribute = missing;
+
+        nvu = getValue(extComp, "ao_bit_count");
+        this.bitCount = nvu == null ? 0 : nvu.getValue().shortVal();
+        nvu = getValue(extComp, "ao_bit_offset");
+        this.bitOffset = nvu == null ? 0 : nvu.getValue().shortVal();
+        nvu = getValue(extComp, "filename_url");
+        this.fileNameUrl = nvu != null ? nvu.getValue().stringVal()
+                : valuesFile == null ? null : valuesFile.getFileName().toString();
+        nvu = getValue(extComp, "flags_start_offset");
+        this.flagsStartOffset = nvu == null ? null : getLong(nvu);
+    }
+
+    /**
+     * Returns the valid value of the attribute derived from given base attribute.
+     *
+     * @return The value, null if the attribute does not exist or its value is not valid.
+     */
+    private static NameValueUnit getValue(Instance extComp, String baseAttrName) {
+        if (!extComp.doesAttributeExist(null, baseAttrName, false)) {
+            return null;
+        }
+        NameValueUnit nvu = extComp.getValueByBaseName(baseAttrName);
+        return nvu != null && nvu.hasValidValue() ? nvu : null;
+    }
+
+    private static long getLong(NameValueUnit nvu) {
+        // may be DT_LONG or DT_LONGLONG
+        if (nvu.getValue().discriminator() == DataType.DT_LONG) {
+            return nvu.getValue().longVal();
+        } else if (nvu.getValue().discriminator() == DataType.DT_LONGLONG) {
+            return nvu.getValue().longlongVal();
+        }
+        return 0;
+    }
+
+    /**
+     * Checks whether all attributes required to read numeric values are available.
+     *
+     * @throws OpenAtfxException if a required attribute is missing.
+     */
+    void checkNumericLayout() {
+        if (missingAttribute != null) {
+            throw new OpenAtfxException(ErrorCode.AO_NOT_FOUND, "Attribute with provided base name '"
+                    + missingAttribute + "' not found at external component with id " + iid);
+        }
+    }
+
+    /**
+     * Returns the number of values stored in the component, which is the number of blocks times the values per block.
+     *
+     * @return The number of values.
+     */
+    int getNumberOfValues() {
+        if (valuesPerBlock < 1 || componentLength < 1) {
+            return 0;
+        }
+        int nrOfBlocks = ((componentLength - 1) / valuesPerBlock) + 1;
+        return Math.multiplyExact(nrOfBlocks, valuesPerBlock);
+    }
+
+    long getIid() {
+        return iid;
+    }
+
+    int getValueType() {
+        return valueType;
+    }
+
+    /**
+     * @return The component length, -1 if not available.
+     */
+    int getComponentLength() {
+        return componentLength;
+    }
+
+    long getStartOffset() {
+        return startOffset;
+    }
+
+    int getValueOffset() {
+        return valueOffset;
+    }
+
+    int getBlockSize() {
+        return blockSize;
+    }
+
+    int getValuesPerBlock() {
+        return valuesPerBlock;
+    }
+
+    short getBitCount() {
+        return bitCount;
+    }
+
+    short getBitOffset() {
+        return bitOffset;
+    }
+
+    ByteOrder getByteOrder() {
+        return byteOrder;
+    }
+
+    /**
+     * @return The values file, null if not defined.
+     */
+    Path getValuesFile() {
+        return valuesFile;
+    }
+
+    /**
+     * @return The file name to log.
+     */
+    String getFileNameUrl() {
+        return fileNameUrl;
+    }
+
+    /**
+     * @return The flags file, null if not defined.
+     */
+    Path getFlagsFile() {
+        return flagsFile;
+    }
+
+    /**
+     * @return The start offset of the flags, null if the attribute is not available.
+     */
+    Long getFlagsStartOffset() {
+        return flagsStartOffset;
+    }
+
+    @Override
+    public String toString() {
+        return "ExtCompDescriptor [iid=" + iid + ", ordinalNumber=" + ordinalNumber + ", valueType=" + valueType
+                + ", componentLength=" + componentLength + ", valuesFile=" + valuesFile + "]";
+    }
+}
@@ -0,0 +1,133 @@
+package com.peaksolution.openatfx.api;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.asam.ods.ErrorCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.peaksolution.openatfx.IFileHandler;
+
+
+/**
+ * Session scoped cache of read only memory mappings of external component files.
+ * <p>
+ * Each file is mapped once in regions of {@link #REGION_SIZE} bytes, the readers get slices of these shared mappings
+ * instead of opening and copying the file for each component. If a file has grown since it was mapped, for example
+ * because values have been appended by the {@link ExtCompWriter}, it is mapped again.
+ *
+ * @author Markus Renner
+ */
+class ExtCompFileMappings {
+    private static final Logger LOG = LoggerFactory.getLogger(ExtCompFileMappings.class);
+
+    /** the maximum size of a single mapped region, MappedByteBuffers are limited to int indices */
+    static final int REGION_SIZE = 1 << 30;
+
+    private final Map<Path, FileMapping> mappings = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the bytes of given file range. The returned buffer is independent of other callers, has position 0, a
+     * limit of given length and big endian byte order. Bytes beyond the end of the file are returned as zero.
+     *
+     * @param file The file to read.
+     * @param position The file position of the first byte.
+     * @param length The number of bytes.
+     * @param fileHandler The file handler to open the file with, its channel has to be a file channel.
+     * @return The buffer.
+     * @throws OpenAtfxException Error mapping the file.
+     */
+    ByteBuffer slice(Path file, long position, int length, IFileHandler fileHandler) {
+        Path key = file.toAbsolutePath().normalize();
+        FileMapping mapping = mappings.computeIfAbsent(key, k -> map(k, fileHandler));
+        if (position + length > mapping.size) {
+            // file may have grown since it was mapped
+            mapping = mappings.compute(key, (k, existing) -> existing != null && existing.size >= position + length
+                    ? existing : map(k, fileHandler));
+        }
+        return mapping.slice(position, length);
+    }
+
+    /**
+     * @param file The file.
+     * @return True, if given file is currently mapped.
+     */
+    boolean contains(Path file) {
+        return mappings.containsKey(file.toAbsolutePath().normalize());
+    }
+
+    /**
+     * @return The number of currently mapped files.
+     */
+    int size() {
+        return mappings.size();
+    }
+
+    /**
+     * Releases all mappings. The memory is unmapped as soon as no previously returned slice is referenced any more.
+     */
+    void clear() {
+        mappings.clear();
+    }
+
+    private FileMapping map(Path file, IFileHandler fileHandler) {
+        try (SeekableByteChannel seekableChannel = fileHandler.getFileChannel(file)) {
+            if (!(seekableChannel instanceof FileChannel)) {
+                throw new OpenAtfxException(ErrorCode.AO_NOT_IMPLEMENTED, "Component file '" + file
+                        + "' cannot be memory mapped, the file handler does not provide a file channel");
+            }
+            FileChannel channel = (FileChannel) seekableChannel;
+            long size = channel.size();
+            int nrOfRegions = (int) ((size + REGION_SIZE - 1) / REGION_SIZE);
+            MappedByteBuffer[] regions = new MappedByteBuffer[nrOfRegions];
+            for (int i = 0; i < nrOfRegions; i++) {
+                long regionStart = (long) i * REGION_SIZE;
+                regions[i] = channel.map(MapMode.READ_ONLY, regionStart, Math.min(REGION_SIZE, size - regionStart));
+            }
+            LOG.debug("Mapped component file '{}' [size={}, regions={}]", file, size, nrOfRegions);
+            return new FileMapping(size, regions);
+        } catch (IOException e) {
+            throw new OpenAtfxException(ErrorCode.AO_NOT_FOUND, e.getMessage());
+        }
+    }
+
+    private static class FileMapping {
+        private final long size;
+        private final MappedByteBuffer[] regions;
+
+        private FileMapping(long size, MappedByteBuffer[] regions) {
+            this.size = size;
+            this.regions = regions;
+        }
+
+        private ByteBuffer slice(long position, int length) {
+            int regionNo = (int) (position / REGION_SIZE);
+            int regionPos = (int) (position % REGION_SIZE);
+            if (length == 0) {
+                return ByteBuffer.allocate(0);
+            } else if (position + length <= size && (long) regionPos + length <= REGION_SIZE) {
+                return regions[regionNo].slice(regionPos, length);
+            }
+
+            // range crosses a region border or the end of the file, copy it
+            ByteBuffer target = ByteBuffer.allocate(length);
+            long pos = position;
+            while (target.hasRemaining() && pos < size) {
+                int no = (int) (pos / REGION_SIZE);
+                int regPos = (int) (pos % REGION_SIZE);
+                int n = (int) Math.min(target.remaining(), Math.min(regions[no].capacity() - (long) regPos, size - pos));
+                target.put(regions[no].slice(regPos, n));
+                pos += n;
+            }
+            return target.clear();
+        }
+    }
+}
@@ -0,0 +1,456 @@
+package com.peaksolution.openatfx.api;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.asam.ods.ErrorCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.peaksolution.openatfx.util.FileUtil;
+
+
+/**
+ * Pool of the component files the {@link ExtCompWriter} appends to, one open file per category of component file.
+ * <p>
+ * The segment number and the current end offset of each file are tracked in memory, so the file system is only
+ * queried when a category is opened for the first time, not for every written value. A file is rolled over to the file
+ * of the next segment number once its size exceeds the segment size from the context. The files are forced to disk
+ * and closed when the transaction is committed, when the session is closed, and at the latest on JVM shutdown.
+ * <p>
+ * A single shutdown hook closes all pools with open files. The pools are registered weakly, so a session which is
+ * never closed can still be garbage collected. All writes hold the lock of the pool, so closing the pool never
+ * interrupts a write.
+ *
+ * @author Markus Renner
+ */
+class ExtCompFileWriters {
+    private static final Logger LOG = LoggerFactory.getLogger(ExtCompFileWriters.class);
+
+    /**
+     * The categories of component files, each category is written to its own file.
+     */
+    enum Category {
+        VALUES(""), STRING("_string"), UTF8STRING("_utf8string"), BYTESTREAM("_bytestream"), FLAGS("_flags");
+
+        private final String suffix;
+
+        Category(String suffix) {
+            this.suffix = suffix;
+        }
+    }
+
+    /**
+     * Encodes values into a slab buffer.
+     */
+    @FunctionalInterface
+    interface SlabEncoder {
+        /**
+         * Encodes values starting at position 0 of the slab.
+         *
+         * @param slab The cleared slab buffer.
+         * @param srcIndex The index of the first value to encode.
+         * @param count The number of values to encode.
+         * @return The number of bytes encoded.
+         */
+        int encode(ByteBuffer slab, int srcIndex, int count);
+    }
+
+    /** the pools with open files, closed on JVM shutdown */
+    private static final Set<ExtCompFileWriters> OPEN_POOLS = Collections.newSetFromMap(new WeakHashMap<>());
+    /** closes the open pools on JVM shutdown, registered with the first opened file */
+    private static Thread shutdownHook;
+
+    private final OpenAtfxAPIImplementation api;
+    private final Map<Category, SegmentWriter> writers = new EnumMap<>(Category.class);
+    /** the obsolete files which must not be appended to anymore */
+    private final Set<Path> excludedFiles = new HashSet<>();
+
+    ExtCompFileWriters(OpenAtfxAPIImplementation api) {
+        this.api = api;
+    }
+
+    /**
+     * Returns the open file to append values of given category to, the file is opened on first use.
+     *
+     * @param category The category of the component file.
+     * @return The writer of the current segment.
+     * @throws OpenAtfxException Error opening the file.
+     */
+    synchronized SegmentWriter get(Category category) {
+        SegmentWriter writer = writers.get(category);
+        if (writer == null) {
+            writer = new SegmentWriter(category, getBaseName(), false);
+            writers.put(category, writer);
+            register(this);
+        }
+        return writer;
+    }
+
+    /**
+     * Returns a writer of given category appending to new files only, never to a file existing already. The current
+     * file of the category is closed, the returned writer replaces it in the pool.
+     *
+     * @param category The category of the component file.
+     * @return The writer of a new segment.
+     * @throws OpenAtfxException Error opening the file.
+     */
+    synchronized SegmentWriter getFresh(Category category) {
+        SegmentWriter writer = writers.remove(category);
+        if (writer != null) {
+            closeQuietly(writer);
+        }
+        writer = new SegmentWriter(category, getBaseName(), true);
+        writers.put(category, writer);
+        register(this);
+        return writer;
+    }
+
+    /**
+     * Excludes files from being appended to, for example because their values have been moved elsewhere and they are
+     * about to be deleted.
+     *
+     * @param files The files to exclude.
+     */
+    synchronized void exclude(Collection<Path> files) {
+        for (Path file : files) {
+            excludedFiles.add(file.toAbsolutePath().normalize());
+        }
+    }
+
+    /**
+     * @return The segment size from the context.
+     */
+    long getSegmentSize() {
+        return api.getContext().get(OpenAtfxConstants.CONTEXT_EXT_COMP_SEGSIZE).getValue().longlongVal();
+    }
+
+    /**
+     * Returns the maximum size of a single external component, given by the context
+     * {@link OpenAtfxConstants#CONTEXT_EXT_COMP_COMPONENT_SIZE}. Limiting the component size allows readers to fetch the
+     * components of a large column in parallel and in bounded memory.
+     *
+     * @return The component size in bytes, {@link Long#MAX_VALUE} if not limited.
+     * @throws OpenAtfxException if the context value is invalid.
+     */
+    long getComponentSize() {
+        NameValueUnit nvu = api.getContext(OpenAtfxConstants.CONTEXT_EXT_COMP_COMPONENT_SIZE);
+        long componentSize = 0;
+        if (nvu != null && nvu.hasValidValue()) {
+            DataType dt = nvu.getValue().discriminator();
+            if (DataType.DT_STRING == dt) {
+                try {
+                    componentSize = Long.parseLong(nvu.getValue().stringVal().trim());
+                } catch (NumberFormatException e) {
+                    throw new OpenAtfxException(ErrorCode.AO_BAD_PARAMETER, "Invalid value for context '"
+                            + OpenAtfxConstants.CONTEXT_EXT_COMP_COMPONENT_SIZE + "': " + nvu.getValue().stringVal());
+                }
+            } else if (DataType.DT_LONG == dt) {
+                componentSize = nvu.getValue().longVal();
+            } else if (DataType.DT_LONGLONG == dt) {
+                componentSize = nvu.getValue().longlongVal();
+            }
+        }
+        return componentSize > 0 ? componentSize : Long.MAX_VALUE;
+    }
+
+    /**
+     * Forces all written values to the storage device, the files stay open.
+     *
+     * @throws OpenAtfxException Error writing to a file.
+     */
+    synchronized void flush() {
+        for (SegmentWriter writer : writers.values()) {
+            try {
+                writer.channel.force(false);
+            } catch (IOException e) {
+                throw new OpenAtfxException(ErrorCode.AO_UNKNOWN_ERROR, "Error flushing external component file '"
+                        + writer.file + "': " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Forces all written values to the storage device and closes the files. The files are opened again when needed.
+     */
+    synchronized void close() {
+        for (SegmentWriter writer : writers.values()) {
+            closeQuietly(writer);
+        }
+        writers.clear();
+        synchronized (OPEN_POOLS) {
+            OPEN_POOLS.remove(this);
+        }
+    }
+
+    private String getBaseName() {
+        Map<String, NameValueUnit> context = api.getContext();
+        String rootPath = context.get(OpenAtfxConstants.CONTEXT_FILE_ROOT).getValue().stringVal();
+        String atfxPath = context.get(OpenAtfxConstants.CONTEXT_FILENAME).getValue().stringVal();
+        return Paths.get(rootPath, FileUtil.stripExtension(Paths.get(atfxPath).getFileName().toString())).toString();
+    }
+
+    /**
+     * Registers given pool to be closed on JVM shutdown, the shutdown hook is added on first call.
+     *
+     * @param pool The pool with open files.
+     */
+    private static void register(ExtCompFileWriters pool) {
+        synchronized (OPEN_POOLS) {
+            OPEN_POOLS.add(pool);
+            if (shutdownHook == null) {
+                shutdownHook = new Thread(ExtCompFileWriters::closeAll, "openatfx-extcomp-writers");
+                Runtime.getRuntime().addShutdownHook(shutdownHook);
+            }
+        }
+    }
+
+    /**
+     * Closes all pools with open files, called on JVM shutdown.
+     */
+    private static void closeAll() {
+        List<ExtCompFileWriters> pools;
+        synchronized (OPEN_POOLS) {
+            pools = new ArrayList<>(OPEN_POOLS);
+        }
+        for (ExtCompFileWriters pool : pools) {
+            pool.close();
+        }
+    }
+
+    /**
+     * @return Whether given pool is registered to be closed on JVM shutdown.
+     */
+    static boolean isRegistered(ExtCompFileWriters pool) {
+        synchronized (OPEN_POOLS) {
+            return OPEN_POOLS.contains(pool);
+        }
+    }
+
+    private static void closeQuietly(SegmentWriter writer) {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            LOG.error("Error closing external component file '{}': {}", writer.file, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The open file of the current segment of a category.
+     */
+    class SegmentWriter {
+        private final Category category;
+        private final String baseName;
+        /** true if only new files are written, existing files are never appended to */
+        private final boolean freshOnly;
+        private int segment;
+        private Path file;
+        private FileChannel channel;
+        /** the end of the file, where the next values are appended */
+        private long offset;
+
+        private SegmentWriter(Category category, String baseName, boolean freshOnly) {
+            this.category = category;
+            this.baseName = baseName;
+            this.freshOnly = freshOnly;
+            try {
+                if (category == Category.BYTESTREAM && !freshOnly) {
+                    // continue the last existing byte stream file, the size is checked per value
+                    int nextUnused = findSegment(1);
+                    this.segment = Math.max(1, nextUnused - 1);
+                } else {
+                    this.segment = findSegment(1);
+                }
+                open();
+            } catch (IOException e) {
+                throw new OpenAtfxException(ErrorCode.AO_UNKNOWN_ERROR, "Error opening external component file: "
+                        + e.getMessage());
+            }
+        }
+
+        /**
+         * Returns the first segment number starting at given one whose file may be appended to. Byte streams are only
+         * appended to new files, the other categories to files not exceeding the segment size yet. Excluded files are
+         * skipped.
+         */
+        private int findSegment(int startSegment) throws IOException {
+            long segmentSize = getSegmentSize();
+            boolean newOnly = freshOnly || category == Category.BYTESTREAM;
+            int segmentNo = startSegment;
+            Path candidate = getSegmentFile(segmentNo);
+            while (excludedFiles.contains(candidate.toAbsolutePath().normalize())
+                    || (Files.exists(candidate) && (newOnly || Files.size(candidate) > segmentSize))) {
+                candidate = getSegmentFile(++segmentNo);
+            }
+            return segmentNo;
+        }
+
+        private Path getSegmentFile(int segmentNo) {
+            return Paths.get(baseName + "_" + segmentNo + category.suffix + ".btf");
+        }
+
+        private void open() throws IOException {
+            this.file = getSegmentFile(segment);
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            this.offset = channel.size();
+            this.channel.position(offset);
+            LOG.debug("Opened external component file '{}' at offset {}", file, offset);
+        }
+
+        /**
+         * Rolls over to the file of the next segment if the current file exceeds the segment size.
+         *
+         * @throws OpenAtfxException Error opening the next file.
+         */
+        void rollIfExceeded() {
+            synchronized (ExtCompFileWriters.this) {
+                if (offset > getSegmentSize()) {
+                    rollOver();
+                }
+            }
+        }
+
+        /**
+         * Closes the current file and continues with the file of the next segment number.
+         *
+         * @throws OpenAtfxException Error opening the next file.
+         */
+        void rollOver() {
+            synchronized (ExtCompFileWriters.this) {
+                try {
+                    close();
+                    segment = findSegment(segment + 1);
+                    open();
+                } catch (IOException e) {
+                    throw new OpenAtfxException(ErrorCode.AO_UNKNOWN_ERROR, "Error opening external component file: "
+                            + e.getMessage());
+                }
+            }
+        }
+
+        /**
+         * Appends the remaining bytes of given buffer to the file.
+         *
+         * @param bb The buffer.
+         * @return The number of bytes written.
+         * @throws IOException Error writing to the file.
+         */
+        int write(ByteBuffer bb) throws IOException {
+            synchronized (ExtCompFileWriters.this) {
+                int written = 0;
+                while (bb.hasRemaining()) {
+                    written += channel.write(bb);
+                }
+                offset += written;
+                return written;
+            }
+        }
+
+        /**
+         * Encodes values slab by slab through given buffer and appends them to the file.
+         *
+         * @param slab The reusable buffer.
+         * @param srcIndex The index of the first value to append.
+         * @param count The number of values to append.
+         * @param valuesPerSlab The number of values fitting into the buffer.
+         * @param encoder The encoder of the values.
+         * @return The number of bytes written.
+         * @throws IOException Error writing to the file.
+         */
+        long write(ByteBuffer slab, int srcIndex, int count, int valuesPerSlab, SlabEncoder encoder)
+                throws IOException {
+            long written = 0;
+            for (int done = 0; done < count;) {
+                int n = Math.min(count - done, valuesPerSlab);
+                slab.clear();
+                int length = encoder.encode(slab, srcIndex + done, n);
+                slab.limit(length);
+                slab.position(0);
+                written += write(slab);
+                done += n;
+            }
+            return written;
+        }
+
+        /**
+         * Reserves a byte range at the end of the file to be written later with positional writes. The file is
+         * extended to the end of the range right away, so the reservation is reflected by the file size.
+         *
+         * @param length The number of bytes to reserve.
+         * @return The offset of the reserved range.
+         * @throws IOException Error extending the file.
+         */
+        long reserve(long length) throws IOException {
+            synchronized (ExtCompFileWriters.this) {
+                long start = offset;
+                if (length > 0) {
+                    channel.write(ByteBuffer.allocate(1), start + length - 1);
+                    offset += length;
+                    channel.position(offset);
+                }
+                return start;
+            }
+        }
+
+        /**
+         * Appends a byte range of another file to the file, transferred by the file system where possible.
+         *
+         * @param source The file to copy from.
+         * @param position The position of the range in the source file.
+         * @param count The number of bytes to copy.
+         * @throws IOException Error copying the bytes, or the source file ends before the range.
+         */
+        void transferFrom(FileChannel source, long position, long count) throws IOException {
+            synchronized (ExtCompFileWriters.this) {
+                long done = 0;
+                while (done < count) {
+                    long transferred = source.transferTo(position + done, count - done, channel);
+                    if (transferred <= 0) {
+                        throw new IOException("Unexpected end of file at position " + (position + done));
+                    }
+                    done += transferred;
+                }
+                offset += count;
+            }
+        }
+
+        /**
+         * @return The file the next values are appended to.
+         */
+        Path getFile() {
+            synchronized (ExtCompFileWriters.this) {
+                return file;
+            }
+        }
+
+        /**
+         * @return The offset the next values are appended at.
+         */
+        long getOffset() {
+            synchronized (ExtCompFileWriters.this) {
+                return offset;
+            }
+        }
+
+        private void close() throws IOException {
+            if (channel != null && channel.isOpen()) {
+                channel.force(false);
+                channel.close();
+            }
+        }
+    }
+}
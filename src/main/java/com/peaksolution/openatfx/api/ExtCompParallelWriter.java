@@ -0,0 +1,207 @@
+package com.peaksolution.openatfx.api;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import org.asam.ods.ErrorCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Writes the values of several local columns in parallel into byte ranges reserved in the component files beforehand.
+ * <p>
+ * The {@link ExtCompWriter} reserves the range of every external component while creating the components in column
+ * order. Afterwards each column is encoded by a task of its own through its own direct buffer and written with
+ * positional writes, so the tasks never share a file position. The component files are opened once per file for all
+ * tasks and forced to disk before {@link #write()} returns. If columns could not be written, they are available by
+ * {@link #getFailedColumns()}, so that their components can be removed.
+ *
+ * @author Markus Renner
+ */
+class ExtCompParallelWriter {
+    private static final Logger LOG = LoggerFactory.getLogger(ExtCompParallelWriter.class);
+
+    private final Executor executor;
+    private final List<Column> columns = new ArrayList<>();
+    private final List<Long> failedColumns = new ArrayList<>();
+
+    /**
+     * Constructor.
+     *
+     * @param executor The executor the columns are written on.
+     */
+    ExtCompParallelWriter(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Adds a column to write.
+     *
+     * @param iidLc The LocalColumn instance id.
+     * @param values The values of the column.
+     * @return The column to add the reserved ranges to.
+     */
+    Column addColumn(long iidLc, ExtCompWriter.FixedSizeValues values) {
+        Column column = new Column(iidLc, values);
+        columns.add(column);
+        return column;
+    }
+
+    /**
+     * Returns the columns not written completely by {@link #write()}.
+     *
+     * @return The LocalColumn instance ids of the failed columns.
+     */
+    List<Long> getFailedColumns() {
+        return failedColumns;
+    }
+
+    /**
+     * Writes all columns into their reserved ranges and waits until they have been written. A failed column does not
+     * stop the other columns.
+     *
+     * @throws OpenAtfxException Error writing the values of a column, the first error if several columns failed.
+     */
+    void write() {
+        Map<Path, FileChannel> channels = new HashMap<>();
+        try {
+            for (Column column : columns) {
+                for (Region region : column.regions) {
+                    if (!channels.containsKey(region.file)) {
+                        channels.put(region.file, FileChannel.open(region.file, StandardOpenOption.WRITE));
+                    }
+                }
+            }
+
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[columns.size()];
+            for (int i = 0; i < futures.length; i++) {
+                Column column = columns.get(i);
+                futures[i] = CompletableFuture.runAsync(() -> column.write(channels), executor);
+            }
+            LOG.debug("Writing {} local columns in parallel to {} component files", columns.size(), channels.size());
+            OpenAtfxException error = null;
+            for (int i = 0; i < futures.length; i++) {
+                try {
+                    futures[i].join();
+                } catch (CompletionException e) {
+                    failedColumns.add(columns.get(i).iidLc);
+                    if (error == null) {
+                        error = e.getCause() instanceof OpenAtfxException ? (OpenAtfxException) e.getCause()
+                                : new OpenAtfxException(ErrorCode.AO_UNKNOWN_ERROR, "Error writing values in "
+                                        + "parallel: " + e.getCause().getMessage());
+                    }
+                }
+            }
+
+            for (FileChannel channel : channels.values()) {
+                channel.force(false);
+            }
+            if (error != null) {
+                throw error;
+            }
+        } catch (IOException e) {
+            // the values of no column are known to be stored
+            failedColumns.clear();
+            for (Column column : columns) {
+                failedColumns.add(column.iidLc);
+            }
+            throw new OpenAtfxException(ErrorCode.AO_UNKNOWN_ERROR, "Error writing values in parallel: "
+                    + e.getMessage());
+        } finally {
+            for (Map.Entry<Path, FileChannel> entry : channels.entrySet()) {
+                try {
+                    entry.getValue().close();
+                } catch (IOException e) {
+                    LOG.error("Error closing external component file '{}': {}", entry.getKey(), e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * A local column and the reserved ranges of its external components.
+     */
+    static class Column {
+        private final long iidLc;
+        private final ExtCompWriter.FixedSizeValues values;
+        private final List<Region> regions = new ArrayList<>();
+
+        private Column(long iidLc, ExtCompWriter.FixedSizeValues values) {
+            this.iidLc = iidLc;
+            this.values = values;
+        }
+
+        /**
+         * Reserves the range for the values of the next external component at the end of the component file.
+         *
+         * @param writer The writer of the component file.
+         * @param srcIndex The index of the first value of the component.
+         * @param count The number of values of the component.
+         * @throws IOException Error reserving the range.
+         */
+        void addRegion(ExtCompFileWriters.SegmentWriter writer, int srcIndex, int count) throws IOException {
+            long position = writer.reserve(values.getEncodedLength(count));
+            regions.add(new Region(writer.getFile(), position, srcIndex, count));
+        }
+
+        private void write(Map<Path, FileChannel> channels) {
+            long maxLength = 0;
+            for (Region region : regions) {
+                maxLength = Math.max(maxLength, values.getEncodedLength(region.count));
+            }
+            int slabSize = (int) Math.min(ExtCompWriter.SLAB_SIZE, maxLength);
+            ByteBuffer slab = ByteBuffer.allocateDirect(Math.max(slabSize, 1)).order(ByteOrder.LITTLE_ENDIAN);
+            int valuesPerSlab = Math.max(values.getValuesPerSlab(slab.capacity()), 1);
+
+            try {
+                for (Region region : regions) {
+                    FileChannel channel = channels.get(region.file);
+                    long position = region.position;
+                    for (int done = 0; done < region.count;) {
+                        int n = Math.min(region.count - done, valuesPerSlab);
+                        slab.clear();
+                        int length = values.encoder.encode(slab, region.srcIndex + done, n);
+                        slab.limit(length);
+                        slab.position(0);
+                        while (slab.hasRemaining()) {
+                            position += channel.write(slab, position);
+                        }
+                        done += n;
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                throw new CompletionException(new OpenAtfxException(ErrorCode.AO_UNKNOWN_ERROR, "Error writing "
+                        + "values of local column with id " + iidLc + ": " + e.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * The reserved byte range of an external component.
+     */
+    private static class Region {
+        private final Path file;
+        private final long position;
+        private final int srcIndex;
+        private final int count;
+
+        private Region(Path file, long position, int srcIndex, int count) {
+            this.file = file;
+            this.position = position;
+            this.srcIndex = srcIndex;
+            this.count = count;
+        }
+    }
+}
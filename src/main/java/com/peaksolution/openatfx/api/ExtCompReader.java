@@ -1,20 +1,26 @@
 package com.peaksolution.openatfx.api;
 
-import com.peaksolution.openatfx.util.BufferedRandomAccessFile;
+import com.peaksolution.openatfx.IFileHandler;
+import com.peaksolution.openatfx.LocalFileHandler;
 import com.peaksolution.openatfx.util.ODSHelper;
 import org.asam.ods.ErrorCode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
-import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 import static java.nio.charset.StandardCharsets.ISO_8859_1;
@@ -29,29 +35,78 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 public class ExtCompReader {
 
     private static final String FILENAME_URL = "filename_url";
-    private static final String START_OFFSET = "start_offset";
-    private static final String COMPONENT_LENGTH = "component_length";
     private static final String VALUE_TYPE = "value_type";
+    private static final String ORDINAL_NUMBER = "ordinal_number";
     private static final String AOEXTERNALCOMPONENT = "aoexternalcomponent";
     private static final Logger LOG = LoggerFactory.getLogger(ExtCompReader.class);
     private static final int BUFFER_SIZE = 32768;
+    /** minimum number of consecutive values to decode via a view buffer */
+    private static final int BULK_MIN_VALUES = 16;
 
     private final OpenAtfxAPIImplementation api;
+    /** the memory mappings of the component files, shared by all reads of this session */
+    private final ExtCompFileMappings mappings = new ExtCompFileMappings();
+    /** the executor set from outside, null to use the one configured by the context */
+    private Executor executor;
+    /** the pool created for a configured number of threads, owned by this reader */
+    private ExecutorService ownPool;
+    /** opens the component files */
+    private volatile IFileHandler fileHandler = new LocalFileHandler();
+    /** the descriptors of the external components of each local column, ordered by their ordinal number */
+    private final Map<Long, List<ExtCompDescriptor>> descriptors = new ConcurrentHashMap<>();
 
     public ExtCompReader(OpenAtfxAPIImplementation api) {
         this.api = api;
     }
 
+    /**
+     * Sets the executor the components of a local column are decoded on in parallel. If not set, the number of threads
+     * configured by the context variable {@link OpenAtfxConstants#CONTEXT_EXT_COMP_READ_THREADS} is used, by default
+     * the common fork join pool.
+     * 
+     * @param executor The executor, null to use the configured one.
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Sets the file handler the component files are opened with, by default the local file system is used.
+     * 
+     * @param fileHandler The file handler, must not be null.
+     */
+    public void setFileHandler(IFileHandler fileHandler) {
+        this.fileHandler = Objects.requireNonNull(fileHandler);
+        this.mappings.clear();
+    }
+
     public SingleValue readValues(long iidLc, DataType targetDataType) throws OpenAtfxException {
-        // read external component instances
-        Element lcElement = api.getUniqueElementByBaseType("aolocalcolumn");
-        Element ecElement = api.getUniqueElementByBaseType(AOEXTERNALCOMPONENT);
-        Relation relExtComps = api.getRelationByBaseName(lcElement.getId(), "external_component");
-        List<Long> iidExtComps = api.getRelatedInstanceIds(lcElement.getId(), iidLc, relExtComps);
-        if (!iidExtComps.isEmpty()) {
-            Collections.sort(iidExtComps, new ExternalComponentComparator(ecElement.getId()));
+        return readValues(iidLc, targetDataType, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads a window of the values of given local column from its external components. Only the components and blocks
+     * holding the requested values are read and decoded.
+     * 
+     * @param iidLc The instance id of the local column.
+     * @param targetDataType The data type to use if the local column has no raw data type.
+     * @param startIndex The index of the first value to read.
+     * @param count The maximum number of values to read, fewer values are returned if the end of the column is
+     *            reached.
+     * @return The values.
+     * @throws OpenAtfxException Error reading values.
+     */
+    public SingleValue readValues(long iidLc, DataType targetDataType, int startIndex, int count)
+            throws OpenAtfxException {
+        if (startIndex < 0 || count < 0) {
+            throw new OpenAtfxException(ErrorCode.AO_BAD_PARAMETER, "Invalid value range: startIndex=" + startIndex
+                    + ", count=" + count);
         }
 
+        // the external components, ordered by their ordinal number
+        Element lcElement = api.getUniqueElementByBaseType("aolocalcolumn");
+        List<ExtCompDescriptor> extComps = getDescriptors(iidLc);
+
         // get raw data type
         DataType rawDataType = targetDataType;
         Instance lcInstance = api.getInstanceById(lcElement.getId(), iidLc);
@@ -91,308 +146,399 @@ public class ExtCompReader {
             }
         }
 
-        SingleValue tsValue = new SingleValue(rawDataType);
         // DS_STRING, DS_DATE, DS_BYTESTR
         if (rawDataType == DataType.DS_STRING || rawDataType == DataType.DS_DATE || rawDataType == DataType.DS_BYTESTR) {
+            // the length of the strings is unknown, so the components are read until the window is filled
+            SingleValue tsValue = new SingleValue(rawDataType);
             List<String> list = new ArrayList<>();
-            for (long iidExtComp : iidExtComps) {
-                list.addAll(readStringValues(iidExtComp));
-            }
-            tsValue.setValue(list.toArray(new String[0]));
-        }
-        // DS_NUMBER
-        else {
-            List<Number> list = new ArrayList<>();
-            for (long iidExtComp : iidExtComps) {
-                ByteOrder valuesByteOrder = api.getByteOrder(ecElement.getId(), iidExtComp);
-                list.addAll(readNumberValues(iidExtComp, valuesByteOrder));
-            }
-            // DS_BOOLEAN
-            if (rawDataType == DataType.DS_BOOLEAN) {
-                boolean[] ar = new boolean[list.size()];
-                for (int i = 0; i < list.size(); i++) {
-                    ar[i] = list.get(i).byteValue() != 0;
+            int toSkip = startIndex;
+            for (ExtCompDescriptor extComp : extComps) {
+                if (list.size() >= count) {
+                    break;
                 }
-                tsValue.setValue(ar);
-            }
-            // DS_BYTE
-            else if (rawDataType == DataType.DS_BYTE) {
-                byte[] ar = new byte[list.size()];
-                for (int i = 0; i < list.size(); i++) {
-                    ar[i] = list.get(i).byteValue();
+                List<String> values = readStringValues(extComp);
+                if (toSkip >= values.size()) {
+                    toSkip -= values.size();
+                    continue;
                 }
-                tsValue.setValue(ar);
+                list.addAll(values.subList(toSkip, (int) Math.min(values.size(), (long) toSkip + count - list.size())));
+                toSkip = 0;
             }
-            // DS_SHORT
-            else if (rawDataType == DataType.DS_SHORT) {
-                short[] ar = new short[list.size()];
-                for (int i = 0; i < list.size(); i++) {
-                    ar[i] = list.get(i).shortValue();
-                }
-                tsValue.setValue(ar);
+            tsValue.setValue(list.toArray(new String[0]));
+            return tsValue;
+        }
+
+        // DS_NUMBER: complex values consist of two raw values each
+        int rawValuesPerValue = rawDataType == DataType.DS_COMPLEX || rawDataType == DataType.DS_DCOMPLEX ? 2 : 1;
+        // the offset of each component within the column, so all components can be decoded independently
+        int[] componentStarts = new int[extComps.size() + 1];
+        for (int i = 0; i < extComps.size(); i++) {
+            ExtCompDescriptor extComp = extComps.get(i);
+            extComp.checkNumericLayout();
+            componentStarts[i + 1] = componentStarts[i] + extComp.getNumberOfValues();
+        }
+        int overallNrOfValues = componentStarts[extComps.size()];
+        int from = (int) Math.min(overallNrOfValues, (long) startIndex * rawValuesPerValue);
+        int to = (int) Math.min(overallNrOfValues, from + (long) count * rawValuesPerValue);
+
+        // allocate the target array once, the part of each component overlapping the window is decoded directly into
+        // its slice of the array, in parallel if more than one component is involved
+        NumberArray target = NumberArray.create(rawDataType, to - from);
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < extComps.size() && componentStarts[i] < to; i++) {
+            ExtCompDescriptor extComp = extComps.get(i);
+            int componentStart = componentStarts[i];
+            int componentEnd = componentStarts[i + 1];
+            if (componentEnd > from) {
+                int first = Math.max(from, componentStart);
+                int last = Math.min(to, componentEnd);
+                int firstValue = first - componentStart;
+                tasks.add(() -> readNumberValues(extComp, firstValue, last - first, target, first - from));
             }
-            // DS_LONG
-            else if (rawDataType == DataType.DS_LONG) {
-                int[] ar = new int[list.size()];
-                for (int i = 0; i < list.size(); i++) {
-                    ar[i] = list.get(i).intValue();
-                }
-                tsValue.setValue(ar);
+        }
+        runAll(tasks);
+        return target.toSingleValue();
+    }
+
+    /**
+     * Reads the numeric values of given external component.
+     * <p>
+     * Convenience method boxing the decoded values, use {@link #readValues(long, DataType)} for mass data.
+     * 
+     * @param iidExtComp The instance id of the external component.
+     * @param byteOrder The byte order of the values.
+     * @return The values, each boxed in the Java type matching the component's value type.
+     */
+    public List<Number> readNumberValues(long iidExtComp, ByteOrder byteOrder) {
+        Element ecElement = api.getUniqueElementByBaseType(AOEXTERNALCOMPONENT);
+        Instance extCompInstance = api.getInstanceById(ecElement.getId(), iidExtComp);
+        ExtCompDescriptor extComp = new ExtCompDescriptor(extCompInstance, null, getExtCompFile(extCompInstance, false),
+                                                          null, byteOrder);
+        extComp.checkNumericLayout();
+
+        int valueType = extComp.getValueType();
+        DataType naturalDataType = getNaturalDataType(valueType);
+        int nrOfValues = extComp.getNumberOfValues();
+        NumberArray target = NumberArray.create(naturalDataType, nrOfValues);
+        readNumberValues(extComp, 0, nrOfValues, target, 0);
+
+        SingleValue value = target.toSingleValue();
+        List<Number> list = new ArrayList<>(target.length());
+        if (naturalDataType == DataType.DS_BYTE) {
+            for (byte b : value.byteSeq()) {
+                list.add(b);
             }
-            // DS_DOUBLE
-            else if (rawDataType == DataType.DS_DOUBLE) {
-                double[] ar = new double[list.size()];
-                for (int i = 0; i < list.size(); i++) {
-                    ar[i] = list.get(i).doubleValue();
-                }
-                tsValue.setValue(ar);
+        } else if (naturalDataType == DataType.DS_SHORT) {
+            for (short s : value.shortSeq()) {
+                list.add(s);
             }
-            // DS_LONGLONG
-            else if (rawDataType == DataType.DS_LONGLONG) {
-                long[] ar = new long[list.size()];
-                for (int i = 0; i < list.size(); i++) {
-                    ar[i] = list.get(i).longValue();
-                }
-                tsValue.setValue(ar);
+        } else if (naturalDataType == DataType.DS_LONG) {
+            for (int i : value.longSeq()) {
+                list.add(i);
             }
-            // DS_FLOAT
-            else if (rawDataType == DataType.DS_FLOAT) {
-                float[] ar = new float[list.size()];
-                for (int i = 0; i < list.size(); i++) {
-                    ar[i] = list.get(i).floatValue();
-                }
-                tsValue.setValue(ar);
+        } else if (naturalDataType == DataType.DS_FLOAT) {
+            for (float f : value.floatSeq()) {
+                list.add(f);
             }
-            // DS_COMPLEX
-            else if (rawDataType == DataType.DS_COMPLEX) {
-                int size = list.size() / 2;
-                Complex[] ar = new Complex[size];
-                for (int i = 0; i < size; i++) {
-                    ar[i] = new Complex();
-                    ar[i].setR(list.get(i * 2).floatValue());
-                    ar[i].setI(list.get(i * 2 + 1).floatValue());
-                }
-                tsValue.setValue(ar);
+        } else if (naturalDataType == DataType.DS_DOUBLE) {
+            for (double d : value.doubleSeq()) {
+                list.add(d);
             }
-            // DS_DCOMPLEX
-            else if (rawDataType == DataType.DS_DCOMPLEX) {
-                int size = list.size() / 2;
-                DoubleComplex[] ar = new DoubleComplex[size];
-                for (int i = 0; i < size; i++) {
-                    ar[i] = new DoubleComplex();
-                    ar[i].setR(list.get(i * 2).doubleValue());
-                    ar[i].setI(list.get(i * 2 + 1).doubleValue());
+        } else {
+            // bit values with up to 4 bytes are represented as Integer
+            short bitCount = extComp.getBitCount();
+            short bitOffset = extComp.getBitOffset();
+            boolean isBitType = valueType >= 27 && valueType <= 30;
+            boolean isIntRange = isBitType && ((bitCount + bitOffset - 1) / 8) + 1 <= 4;
+            for (long l : value.longlongSeq()) {
+                if (isIntRange && l >= Integer.MIN_VALUE && l <= Integer.MAX_VALUE) {
+                    list.add((int) l);
+                } else {
+                    list.add(l);
                 }
-                tsValue.setValue(ar);
-            }
-            // unsupported
-            else {
-                throw new OpenAtfxException(ErrorCode.AO_NOT_IMPLEMENTED,
-                                            "Reading values from external component not yet supported for datatype: "
-                                                    + targetDataType);
             }
         }
-        return tsValue;
+        return list;
     }
 
-    public List<Number> readNumberValues(long iidExtComp, ByteOrder byteOrder) {
-        long start = System.currentTimeMillis();
-
-        List<Number> list = new ArrayList<>();
-        Element ecElement = api.getUniqueElementByBaseType(AOEXTERNALCOMPONENT);
-        long aidExtComp = ecElement.getId();
-        Instance extCompInstance = api.getInstanceById(aidExtComp, iidExtComp);
-
-        // get filename
-        Path extCompFile = getExtCompFile(extCompInstance, false);
-
-        // get value type
-        extCompInstance.doesAttributeExist(null, VALUE_TYPE, true);
-        NameValueUnit valueTypeNvu = extCompInstance.getValueByBaseName(VALUE_TYPE);
-        int valueType = valueTypeNvu.getValue().enumVal();
-
-        // read length
-        extCompInstance.doesAttributeExist(null, COMPONENT_LENGTH, true);
-        NameValueUnit compLengthNvu = extCompInstance.getValueByBaseName(COMPONENT_LENGTH);
-        int componentLength = compLengthNvu.getValue().longVal();
-
-        // read start offset, may be DT_LONG or DT_LONGLONG
-        extCompInstance.doesAttributeExist(null, START_OFFSET, true);
-        long startOffset = 0;
-        NameValueUnit startOffsetNvu = extCompInstance.getValueByBaseName(START_OFFSET);
-        if (startOffsetNvu.getValue().discriminator() == DataType.DT_LONG) {
-            startOffset = startOffsetNvu.getValue().longVal();
-        } else if (startOffsetNvu.getValue().discriminator() == DataType.DT_LONGLONG) {
-            startOffset = startOffsetNvu.getValue().longlongVal();
-        }
-
-        // read value offset
-        extCompInstance.doesAttributeExist(null, "value_offset", true);
-        NameValueUnit valueOffsetNvu = extCompInstance.getValueByBaseName("value_offset");
-        int valueOffset = valueOffsetNvu.getValue().longVal();
-
-        // read bit count
-        short bitCount = 0;
-        boolean bitCountExists = extCompInstance.doesAttributeExist(null, "ao_bit_count", false);
-        if (bitCountExists) {
-            NameValueUnit bitCountNvu = extCompInstance.getValueByBaseName("ao_bit_count");
-            if (bitCountNvu != null) {
-                bitCount = bitCountNvu.getValue().shortVal();
-            }
+    /**
+     * Returns the data type of the array the values of given value type are decoded to without any loss.
+     * 
+     * @param valueType The ODS value type.
+     * @return The sequence data type.
+     */
+    private static DataType getNaturalDataType(int valueType) {
+        // 19=dt_sbyte
+        if (valueType == 19) {
+            return DataType.DS_BYTE;
         }
-
-        // read bit offset
-        short bitOffset = 0;
-        boolean bitOffsetExists = extCompInstance.doesAttributeExist(null, "ao_bit_offset", false);
-        if (bitOffsetExists) {
-            NameValueUnit bitOffsetNvu = extCompInstance.getValueByBaseName("ao_bit_offset");
-            if (bitOffsetNvu != null) {
-                bitOffset = bitOffsetNvu.getValue().shortVal();
-            }
+        // 2=dt_short, 7=dt_short_beo
+        else if (valueType == 2 || valueType == 7) {
+            return DataType.DS_SHORT;
         }
+        // 1=dt_byte, 3=dt_long, 8=dt_long_beo, 21=dt_ushort, 22=dt_ushort_beo
+        else if (valueType == 1 || valueType == 3 || valueType == 8 || valueType == 21 || valueType == 22) {
+            return DataType.DS_LONG;
+        }
+        // 5=ieeefloat4, 10=ieeefloat4_beo
+        else if (valueType == 5 || valueType == 10) {
+            return DataType.DS_FLOAT;
+        }
+        // 6=ieeefloat8, 11=ieeefloat8_beo
+        else if (valueType == 6 || valueType == 11) {
+            return DataType.DS_DOUBLE;
+        }
+        // 4=dt_longlong, 9=dt_longlong_beo, 23=dt_ulong, 24=dt_ulong_beo, 27-30=dt_bit_(u)int(_beo)
+        return DataType.DS_LONGLONG;
+    }
 
-        // block_size
-        extCompInstance.doesAttributeExist(null, "block_size", true);
-        NameValueUnit blockSizeNvu = extCompInstance.getValueByBaseName("block_size");
-        int blockSize = blockSizeNvu.getValue().longVal();
-
-        // valuesperblock
-        extCompInstance.doesAttributeExist(null, "valuesperblock", true);
-        NameValueUnit valuesPerBlockNvu = extCompInstance.getValueByBaseName("valuesperblock");
-        int valuesperblock = valuesPerBlockNvu.getValue().longVal();
-
-        // read values
-        try (RandomAccessFile raf = new BufferedRandomAccessFile(extCompFile.toFile(), "r", BUFFER_SIZE)) {
-            raf.seek(startOffset);
+    /**
+     * Decodes a range of the numeric values of given external component directly into the target array. Only the
+     * blocks holding the requested values are read.
+     * 
+     * @param extComp The descriptor of the external component.
+     * @param firstValue The index of the first value within the component.
+     * @param valueCount The number of values to read.
+     * @param target The array to write the values to.
+     * @param targetIndex The index in the target array to write the first value to.
+     */
+    private void readNumberValues(ExtCompDescriptor extComp, int firstValue, int valueCount, NumberArray target,
+            int targetIndex) {
+        if (valueCount < 1) {
+            return;
+        }
+        long start = System.currentTimeMillis();
 
-            // initialize buffer
-            ByteBuffer sourceMbb = ByteBuffer.allocate(blockSize);
-            sourceMbb.order(byteOrder);
+        Path extCompFile = extComp.getValuesFile();
+        if (extCompFile == null) {
+            throw new OpenAtfxException(ErrorCode.AO_NOT_FOUND, "No values file found for " + extComp);
+        }
+        int valueType = extComp.getValueType();
+        long startOffset = extComp.getStartOffset();
+        int valueOffset = extComp.getValueOffset();
+        short bitCount = extComp.getBitCount();
+        short bitOffset = extComp.getBitOffset();
+        int blockSize = extComp.getBlockSize();
+        int valuesperblock = extComp.getValuesPerBlock();
+        ByteOrder byteOrder = extComp.getByteOrder();
+
+        int valueSize = getValueSize(valueType, bitCount, bitOffset);
+        // the values of a block are consecutive, if they fill the whole block they can be decoded en bloc
+        boolean contiguous = valueOffset == 0 && !isBitValueType(valueType) && blockSize == valueSize * valuesperblock;
+        int endValue = firstValue + valueCount;
+        int firstBlock = firstValue / valuesperblock;
+        int endBlock = ((endValue - 1) / valuesperblock) + 1;
+
+        // read the blocks holding the requested values in chunks of whole blocks
+        try (ExtCompSource source = openSource(extCompFile)) {
+            int blocksPerChunk = Math.max(1, BUFFER_SIZE / Math.max(1, blockSize));
+            BitFieldDecoder bitDecoder = isBitValueType(valueType) ? new BitFieldDecoder(valueType, bitCount, bitOffset)
+                    : null;
+
+            for (int block = firstBlock; block < endBlock; block += blocksPerChunk) {
+                int blocksToRead = Math.min(blocksPerChunk, endBlock - block);
+                ByteBuffer sourceMbb = source.read(startOffset + (long) block * blockSize, blocksToRead * blockSize);
+                sourceMbb.order(byteOrder);
 
-            // loop over blocks
-            for (int i = 0; i < componentLength; i += valuesperblock) {
+                int chunkFirstValue = block * valuesperblock;
+                if (contiguous) {
+                    int from = Math.max(firstValue, chunkFirstValue);
+                    int to = Math.min(endValue, chunkFirstValue + blocksToRead * valuesperblock);
+                    decodeValues(sourceMbb, (from - chunkFirstValue) * valueSize, to - from, valueType, bitDecoder,
+                                 target, targetIndex + from - firstValue);
+                } else {
+                    for (int b = 0; b < blocksToRead; b++) {
+                        int blockFirstValue = chunkFirstValue + b * valuesperblock;
+                        int from = Math.max(firstValue, blockFirstValue);
+                        int to = Math.min(endValue, blockFirstValue + valuesperblock);
+                        decodeValues(sourceMbb, b * blockSize + valueOffset + (from - blockFirstValue) * valueSize,
+                                     to - from, valueType, bitDecoder, target, targetIndex + from - firstValue);
+                    }
+                }
+            }
 
-                // read whole block into memory
-                byte[] block = new byte[blockSize];
-                raf.read(block, 0, block.length);
+            if (LOG.isInfoEnabled()) {
+                LOG.info("Read {} numeric values from component file '{}' in {}ms [value_type={}]", valueCount,
+                         extComp.getFileNameUrl(), System.currentTimeMillis() - start,
+                         ODSHelper.valueType2String(valueType));
+            }
+        } catch (IOException e) {
+            throw new OpenAtfxException(ErrorCode.AO_NOT_FOUND, e.getMessage());
+        }
+    }
 
-                // make buildable with both java8 and java9
-                Buffer.class.cast(sourceMbb).clear();
-                sourceMbb.put(block);
-                sourceMbb.position(valueOffset);
+    private static boolean isBitValueType(int valueType) {
+        // 27=dt_bit_int, 28=dt_bit_int_beo, 29=dt_bit_uint, 30=dt_bit_uint_beo
+        return valueType >= 27 && valueType <= 30;
+    }
 
-                // sub blocks are consecutive, puhh!
-                for (int j = 0; j < valuesperblock; j++) {
+    /**
+     * Returns the number of bytes a single value of given value type occupies.
+     */
+    private static int getValueSize(int valueType, int bitCount, int bitOffset) {
+        switch (valueType) {
+            case 1: // dt_byte
+            case 19: // dt_sbyte
+                return 1;
+            case 2: // dt_short
+            case 7: // dt_short_beo
+            case 21: // dt_ushort
+            case 22: // dt_ushort_beo
+                return 2;
+            case 3: // dt_long
+            case 8: // dt_long_beo
+            case 5: // ieeefloat4
+            case 10: // ieeefloat4_beo
+            case 23: // dt_ulong
+            case 24: // dt_ulong_beo
+                return 4;
+            case 4: // dt_longlong
+            case 9: // dt_longlong_beo
+            case 6: // ieeefloat8
+            case 11: // ieeefloat8_beo
+                return 8;
+            case 27: // dt_bit_int
+            case 28: // dt_bit_int_beo
+            case 29: // dt_bit_uint
+            case 30: // dt_bit_uint_beo
+                // required number of bytes from the byte position within the file
+                return ((bitCount + bitOffset - 1) / 8) + 1;
+            default:
+                throw new OpenAtfxException(ErrorCode.AO_NOT_IMPLEMENTED, "Unsupported 'value_type': "
+                        + ODSHelper.valueType2String(valueType));
+        }
+    }
 
-                    // 1=dt_byte
-                    if (valueType == 1) {
-                        list.add(sourceMbb.get() & 0xff);
-                    }
-                    // 19=dt_sbyte
-                    else if (valueType == 19) {
-                        list.add(sourceMbb.get());
-                    }
-                    // 2=dt_short, 7=dt_short_beo
-                    else if ((valueType == 2) || (valueType == 7)) {
-                        list.add(sourceMbb.getShort());
-                    }
-                    // 3=dt_long, 8=dt_long_beo
-                    else if ((valueType == 3) || (valueType == 8)) {
-                        list.add(sourceMbb.getInt());
-                    }
-                    // 4=dt_longlong, 9=dt_longlong_beo
-                    else if ((valueType == 4) || (valueType == 9)) {
-                        list.add(sourceMbb.getLong());
-                    }
-                    // 5=ieeefloat4, 10=ieeefloat4_beo
-                    else if ((valueType == 5) || (valueType == 10)) {
-                        list.add(sourceMbb.getFloat());
-                    }
-                    // 6=ieeefloat8, 11=ieeefloat8_beo
-                    else if ((valueType == 6) || (valueType == 11)) {
-                        list.add(sourceMbb.getDouble());
+    /**
+     * Decodes consecutive values from the source buffer into the target array.
+     * 
+     * @param source The buffer holding the raw data, with the byte order of the values.
+     * @param position The position of the first value in the buffer.
+     * @param count The number of values to decode.
+     * @param valueType The ODS value type.
+     * @param bitDecoder The decoder for bit value types, null for other value types.
+     * @param target The target array.
+     * @param targetIndex The index in the target array to write the first value to.
+     */
+    private static void decodeValues(ByteBuffer source, int position, int count, int valueType,
+            BitFieldDecoder bitDecoder, NumberArray target, int targetIndex) {
+        switch (valueType) {
+            case 1: // dt_byte
+                for (int i = 0; i < count; i++) {
+                    target.setLong(targetIndex + i, source.get(position + i) & 0xff);
+                }
+                break;
+            case 19: // dt_sbyte
+                for (int i = 0; i < count; i++) {
+                    target.setLong(targetIndex + i, source.get(position + i));
+                }
+                break;
+            case 2: // dt_short
+            case 7: // dt_short_beo
+                if (count >= BULK_MIN_VALUES) {
+                    source.position(position);
+                    target.setShorts(targetIndex, source.asShortBuffer(), count);
+                } else {
+                    for (int i = 0; i < count; i++) {
+                        target.setLong(targetIndex + i, source.getShort(position + i * 2));
                     }
-                    // 21=dt_ushort, 22=dt_ushort_beo
-                    else if ((valueType == 21) || (valueType == 22)) {
-                        int val = sourceMbb.getShort() & 0xffff;
-                        list.add(val);
+                }
+                break;
+            case 3: // dt_long
+            case 8: // dt_long_beo
+                if (count >= BULK_MIN_VALUES) {
+                    source.position(position);
+                    target.setInts(targetIndex, source.asIntBuffer(), count);
+                } else {
+                    for (int i = 0; i < count; i++) {
+                        target.setLong(targetIndex + i, source.getInt(position + i * 4));
                     }
-                    // 23=dt_ulong, 24=dt_ulong_beo
-                    else if ((valueType == 23) || (valueType == 24)) {
-                        long val = sourceMbb.getInt() & 0xffffffffL;
-                        list.add(val);
+                }
+                break;
+            case 4: // dt_longlong
+            case 9: // dt_longlong_beo
+                if (count >= BULK_MIN_VALUES) {
+                    source.position(position);
+                    target.setLongs(targetIndex, source.asLongBuffer(), count);
+                } else {
+                    for (int i = 0; i < count; i++) {
+                        target.setLong(targetIndex + i, source.getLong(position + i * 8));
                     }
-                    // 27=dt_bit_int, 28=dt_bit_int_beo
-                    // 29=dt_bit_uint, 30=dt_bit_uint_beo
-                    else if ((valueType == 27) || (valueType == 28) || (valueType == 29) || (valueType == 30)) {
-
-                        // Read required number of bytes from the byte position within the file:
-                        int bytesToRead = ((bitCount + bitOffset - 1) / 8) + 1;
-                        byte[] tmp = new byte[bytesToRead];
-                        sourceMbb.get(tmp);
-
-                        list.add(ODSHelper.getBitShiftedIntegerValue(tmp, valueType, bitCount, bitOffset));
+                }
+                break;
+            case 5: // ieeefloat4
+            case 10: // ieeefloat4_beo
+                if (count >= BULK_MIN_VALUES) {
+                    source.position(position);
+                    target.setFloats(targetIndex, source.asFloatBuffer(), count);
+                } else {
+                    for (int i = 0; i < count; i++) {
+                        target.setDouble(targetIndex + i, source.getFloat(position + i * 4));
                     }
-                    // unsupported data type
-                    else {
-                        throw new OpenAtfxException(ErrorCode.AO_NOT_IMPLEMENTED, "Unsupported 'value_type': "
-                                + ODSHelper.valueType2String(valueType));
+                }
+                break;
+            case 6: // ieeefloat8
+            case 11: // ieeefloat8_beo
+                if (count >= BULK_MIN_VALUES) {
+                    source.position(position);
+                    target.setDoubles(targetIndex, source.asDoubleBuffer(), count);
+                } else {
+                    for (int i = 0; i < count; i++) {
+                        target.setDouble(targetIndex + i, source.getDouble(position + i * 8));
                     }
                 }
-            }
-
-            extCompInstance.doesAttributeExist(null, FILENAME_URL, true);
-            NameValueUnit fileNameUrlNvu = extCompInstance.getValueByBaseName(FILENAME_URL);
-            String filenameUrl = fileNameUrlNvu.getValue().stringVal();
-            if (LOG.isInfoEnabled()) {
-                LOG.info("Read {} numeric values from component file '{}' in {}ms [value_type={}]", list.size(),
-                         filenameUrl, System.currentTimeMillis() - start, ODSHelper.valueType2String(valueType));
-            }
-            return list;
-        } catch (IOException e) {
-            throw new OpenAtfxException(ErrorCode.AO_NOT_FOUND, e.getMessage());
+                break;
+            case 21: // dt_ushort
+            case 22: // dt_ushort_beo
+                for (int i = 0; i < count; i++) {
+                    target.setLong(targetIndex + i, source.getShort(position + i * 2) & 0xffff);
+                }
+                break;
+            case 23: // dt_ulong
+            case 24: // dt_ulong_beo
+                for (int i = 0; i < count; i++) {
+                    target.setLong(targetIndex + i, source.getInt(position + i * 4) & 0xffffffffL);
+                }
+                break;
+            case 27: // dt_bit_int
+            case 28: // dt_bit_int_beo
+            case 29: // dt_bit_uint
+            case 30: // dt_bit_uint_beo
+                bitDecoder.decode(source, position, count, target, targetIndex);
+                break;
+            default:
+                throw new OpenAtfxException(ErrorCode.AO_NOT_IMPLEMENTED, "Unsupported 'value_type': "
+                        + ODSHelper.valueType2String(valueType));
         }
     }
 
-    private Collection<String> readStringValues(long iidExtComp) {
+    private List<String> readStringValues(ExtCompDescriptor extComp) {
         long start = System.currentTimeMillis();
-        Element ecElement = api.getUniqueElementByBaseType(AOEXTERNALCOMPONENT);
-        long aidExtComp = ecElement.getId();
-        Instance extComp = api.getInstanceById(aidExtComp, iidExtComp);
-
-        // get values File
-        Path extCompFile = getExtCompFile(extComp, false);
+        Path extCompFile = extComp.getValuesFile();
 
         // get datatype
-        NameValueUnit vtNvu = extComp.getValueByBaseName(VALUE_TYPE);
-        int valueType = vtNvu.getValue().enumVal();
+        int valueType = extComp.getValueType();
         if (valueType != 12 && valueType != 25) {
             throw new OpenAtfxException(ErrorCode.AO_NOT_IMPLEMENTED,
                                         "Unsupported 'value_type' for data type DT_STRING or DT_DATE: " + valueType);
         }
-
-        // read length
-        NameValueUnit clNvu = extComp.getValueByBaseName(COMPONENT_LENGTH);
-        int componentLength = clNvu.getValue().longVal();
-
-        // read start offset, may be DT_LONG or DT_LONGLONG
-        long startOffset = 0;
-        NameValueUnit soNvu = extComp.getValueByBaseName(START_OFFSET);
-        if (soNvu.getValue().discriminator() == DataType.DT_LONG) {
-            startOffset = soNvu.getValue().longVal();
-        } else if (soNvu.getValue().discriminator() == DataType.DT_LONGLONG) {
-            startOffset = soNvu.getValue().longlongVal();
-        }
+        int componentLength = extComp.getComponentLength();
+        long startOffset = extComp.getStartOffset();
 
         // value_offset is irrelevant according ODS Standard 3.42, page 3-51
 
         // read values
-        byte[] backingBuffer = new byte[componentLength];
         List<String> list = new ArrayList<>();
         Charset charset = valueType == 12 ? ISO_8859_1 : UTF_8;
-        try (RandomAccessFile raf = new BufferedRandomAccessFile(extCompFile.toFile(), "r", BUFFER_SIZE)) {
-            raf.seek(startOffset);
-            raf.read(backingBuffer, 0, backingBuffer.length);
+        try (ExtCompSource source = openSource(extCompFile)) {
+            ByteBuffer bb = source.read(startOffset, componentLength);
+            byte[] backingBuffer;
+            if (bb.hasArray() && bb.arrayOffset() == 0) {
+                backingBuffer = bb.array();
+            } else {
+                backingBuffer = new byte[componentLength];
+                bb.get(backingBuffer);
+            }
 
             int startPosition = 0;
             for (int position = 0; position < componentLength; position++) {
@@ -402,11 +548,10 @@ public class ExtCompReader {
                 }
             }
 
-            NameValueUnit furlNvu = extComp.getValueByBaseName(FILENAME_URL);
-            String filenameUrl = furlNvu.getValue().stringVal();
             if (LOG.isInfoEnabled()) {
                 LOG.info("Read {} string values from component file '{}' in {}ms [value_type={}]", list.size(),
-                         filenameUrl, System.currentTimeMillis() - start, ODSHelper.valueType2String(valueType));
+                         extComp.getFileNameUrl(), System.currentTimeMillis() - start,
+                         ODSHelper.valueType2String(valueType));
             }
             return list;
         } catch (IOException e) {
@@ -414,98 +559,280 @@ public class ExtCompReader {
         }
     }
 
+    /**
+     * Reads all flags of given local column from the flags files of its external components.
+     * 
+     * @param iidLc The instance id of the local column.
+     * @return The flags, null if the local column has no external components with flags files.
+     * @throws OpenAtfxException Error reading flags.
+     */
     public SingleValue readFlags(long iidLc) throws OpenAtfxException {
-        long start = System.currentTimeMillis();
-        Element lcElement = api.getUniqueElementByBaseType("aolocalcolumn");
+        return readFlags(iidLc, 0, Integer.MAX_VALUE);
+    }
 
-        // read external component instances
-        long aidLc = lcElement.getId();
-        Relation relExtComps = api.getRelationByBaseName(aidLc, "external_component");
-        Collection<Element> ecElements = api.getElementsByBaseType(AOEXTERNALCOMPONENT);
-        if (ecElements.isEmpty()) {
-            return null;
+    /**
+     * Reads a window of the flags of given local column from the flags files of its external components. Only the
+     * components holding the requested flags are read, each directly into its slice of the returned array.
+     * 
+     * @param iidLc The instance id of the local column.
+     * @param startIndex The index of the first flag to read.
+     * @param count The maximum number of flags to read, fewer flags are returned if the end of the column is reached.
+     * @return The flags, null if the local column has no external components with flags files.
+     * @throws OpenAtfxException Error reading flags.
+     */
+    public SingleValue readFlags(long iidLc, int startIndex, int count) throws OpenAtfxException {
+        if (startIndex < 0 || count < 0) {
+            throw new OpenAtfxException(ErrorCode.AO_BAD_PARAMETER, "Invalid flags range: startIndex=" + startIndex
+                    + ", count=" + count);
         }
-        long aidExtComp = ecElements.iterator().next().getId();
+        long start = System.currentTimeMillis();
 
-        Collection<Long> iidExtComps = api.getRelatedInstanceIds(aidLc, iidLc, relExtComps);
-        if (iidExtComps.isEmpty()) {
+        // the external components, ordered like the values
+        List<ExtCompDescriptor> extComps = getDescriptors(iidLc);
+        if (extComps.isEmpty()) {
             return null;
         }
 
-        Collection<Instance> extComps = api.getInstances(aidExtComp, iidExtComps);
-
-        // count the number of flags in all the external components
-        int overallNrOfFlags = 0;
-        for (Instance currentEc : extComps) {
-            NameValueUnit clNvu = currentEc.getValueByBaseName(COMPONENT_LENGTH);
-            if (clNvu == null) {
+        // the offset of each component within the column
+        int[] componentStarts = new int[extComps.size() + 1];
+        for (int i = 0; i < extComps.size(); i++) {
+            ExtCompDescriptor extComp = extComps.get(i);
+            if (extComp.getComponentLength() < 0 || extComp.getFlagsFile() == null) {
                 return null;
             }
-            overallNrOfFlags += clNvu.getValue().longVal();
+            componentStarts[i + 1] = componentStarts[i] + extComp.getComponentLength();
         }
-        short[] overallFlags = new short[overallNrOfFlags];
+        int overallNrOfFlags = componentStarts[extComps.size()];
+        int from = Math.min(overallNrOfFlags, startIndex);
+        int to = (int) Math.min(overallNrOfFlags, (long) from + count);
+        short[] flags = new short[to - from];
 
-        // collect all flags from all external components
+        // read the flags of all components overlapping the window
         Collection<String> flagsFileNames = new HashSet<>();
-        int flagIndex = 0;
-        for (Instance currentEc : extComps) {
-            long iidExtComp = currentEc.getIid();
-            // get flags file
-            Path flagsFile = getExtCompFile(currentEc, true);
-            if (flagsFile == null) {
-                return null;
+        for (int i = 0; i < extComps.size() && componentStarts[i] < to; i++) {
+            int componentStart = componentStarts[i];
+            if (componentStarts[i + 1] <= from) {
+                continue;
             }
+            ExtCompDescriptor extComp = extComps.get(i);
+            Path flagsFile = extComp.getFlagsFile();
             flagsFileNames.add(flagsFile.getFileName().toString());
-
-            // read start offset, may be DT_LONG or DT_LONGLONG
-            long flagsStartOffset = 0;
-            NameValueUnit fsoNvu = currentEc.getValueByBaseName("flags_start_offset");
-            if (fsoNvu == null) {
+            if (extComp.getFlagsStartOffset() == null) {
                 throw new OpenAtfxException(ErrorCode.AO_NOT_FOUND,
                                             "Attribute derived from base attribute 'flags_start_offset' not found");
             }
-            if (fsoNvu.getValue().discriminator() == DataType.DT_LONG) {
-                flagsStartOffset = fsoNvu.getValue().longVal();
-            } else if (fsoNvu.getValue().discriminator() == DataType.DT_LONGLONG) {
-                flagsStartOffset = fsoNvu.getValue().longlongVal();
-            }
 
-            // read and store flag values of current external component
-            ByteOrder flagsByteOrder = api.getByteOrder(aidExtComp, iidExtComp);
-            NameValueUnit clNvu = currentEc.getValueByBaseName(COMPONENT_LENGTH);
-            int componentLength = clNvu.getValue().longVal();
-            for (Short flag : readFlagsFromFile(flagsFile, flagsStartOffset, componentLength, flagsByteOrder)) {
-                overallFlags[flagIndex++] = flag;
-            }
+            int first = Math.max(from, componentStart);
+            int last = Math.min(to, componentStarts[i + 1]);
+            readFlagsFromFile(flagsFile, extComp.getFlagsStartOffset() + 2L * (first - componentStart),
+                              extComp.getByteOrder(), flags, first - from, last - first);
         }
 
-        // prepare return value
         if (LOG.isInfoEnabled()) {
-            LOG.info("Read {} flags for LocalColumn {} from component file(s) '{}' in {}ms", overallNrOfFlags, iidLc,
+            LOG.info("Read {} flags for LocalColumn {} from component file(s) '{}' in {}ms", flags.length, iidLc,
                      flagsFileNames.stream().collect(Collectors.joining(",")), System.currentTimeMillis() - start);
         }
-        return new SingleValue(DataType.DS_SHORT, overallFlags);
+        return new SingleValue(DataType.DS_SHORT, flags);
     }
 
-    private List<Short> readFlagsFromFile(Path flagsFile, long flagsStartOffset, int componentLength,
-            ByteOrder byteOrder) throws OpenAtfxException {
-        List<Short> flags = new ArrayList<>();
-
-        byte[] backingBuffer = new byte[2];
-        // open source channel and read flag values
-        try (RandomAccessFile raf = new BufferedRandomAccessFile(flagsFile.toFile(), "r", BUFFER_SIZE)) {
-            raf.seek(flagsStartOffset);
-            for (int i = 0; i < componentLength; i++) {
-                raf.read(backingBuffer, 0, backingBuffer.length);
-                ByteBuffer sourceMbb = ByteBuffer.wrap(backingBuffer);
-                sourceMbb.order(byteOrder);
-                flags.add(sourceMbb.getShort());
+    /**
+     * Reads consecutive flags from a flags file in bulk through a short view of the read buffer.
+     * 
+     * @param flagsFile The flags file.
+     * @param offset The byte offset of the first flag to read.
+     * @param byteOrder The byte order of the flags.
+     * @param target The target array.
+     * @param targetIndex The index in the target array to write the first flag to.
+     * @param count The number of flags to read.
+     * @throws OpenAtfxException Error reading the file.
+     */
+    private void readFlagsFromFile(Path flagsFile, long offset, ByteOrder byteOrder, short[] target, int targetIndex,
+            int count) throws OpenAtfxException {
+        try (ExtCompSource source = openSource(flagsFile)) {
+            // read in chunks, so no buffer of the size of the whole column is allocated next to the target array
+            int flagsPerChunk = BUFFER_SIZE / 2;
+            for (int done = 0; done < count; done += flagsPerChunk) {
+                int chunkSize = Math.min(flagsPerChunk, count - done);
+                ByteBuffer bb = source.read(offset + 2L * done, chunkSize * 2);
+                bb.order(byteOrder).asShortBuffer().get(target, targetIndex + done, chunkSize);
             }
         } catch (IOException e) {
             throw new OpenAtfxException(ErrorCode.AO_NOT_FOUND, e.getMessage());
         }
+    }
+
+    /**
+     * Opens the given component file for reading, memory mapped if configured by the context variable
+     * {@link OpenAtfxConstants#CONTEXT_EXT_COMP_MMAP}.
+     * 
+     * @param file The component file.
+     * @return The opened source.
+     * @throws IOException Error opening the file.
+     */
+    private ExtCompSource openSource(Path file) throws IOException {
+        return ExtCompSource.open(file, fileHandler, isMemoryMapped() ? mappings : null);
+    }
 
-        return flags;
+    private boolean isMemoryMapped() {
+        NameValueUnit nvu = api.getContext(OpenAtfxConstants.CONTEXT_EXT_COMP_MMAP);
+        if (nvu != null && nvu.hasValidValue()) {
+            DataType dt = nvu.getValue().discriminator();
+            if (DataType.DT_STRING == dt) {
+                return Boolean.parseBoolean(nvu.getValue().stringVal());
+            } else if (DataType.DT_BOOLEAN == dt) {
+                return nvu.getValue().booleanVal();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs given tasks, in parallel on the configured executor if there is more than one, and waits for all of them.
+     * 
+     * @param tasks The tasks.
+     * @throws OpenAtfxException The first error of any task.
+     */
+    private void runAll(List<Runnable> tasks) {
+        Executor taskExecutor = tasks.size() > 1 ? getExecutor() : null;
+        if (taskExecutor == null) {
+            for (Runnable task : tasks) {
+                task.run();
+            }
+            return;
+        }
+
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[tasks.size()];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = CompletableFuture.runAsync(tasks.get(i), taskExecutor);
+        }
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof OpenAtfxException) {
+                throw (OpenAtfxException) e.getCause();
+            }
+            throw new OpenAtfxException(ErrorCode.AO_UNKNOWN_ERROR, String.valueOf(e.getCause()));
+        }
+    }
+
+    /**
+     * @return The executor for parallel decoding, null if the components should be decoded sequentially.
+     */
+    private synchronized Executor getExecutor() {
+        if (executor != null) {
+            return executor;
+        }
+        int threads = 0;
+        NameValueUnit nvu = api.getContext(OpenAtfxConstants.CONTEXT_EXT_COMP_READ_THREADS);
+        if (nvu != null && nvu.hasValidValue()) {
+            DataType dt = nvu.getValue().discriminator();
+            if (DataType.DT_STRING == dt) {
+                threads = Integer.parseInt(nvu.getValue().stringVal().trim());
+            } else if (DataType.DT_LONG == dt) {
+                threads = nvu.getValue().longVal();
+            }
+        }
+        if (threads == 1) {
+            return null;
+        } else if (threads < 1) {
+            return ForkJoinPool.commonPool();
+        }
+        if (ownPool == null || ((ForkJoinPool) ownPool).getParallelism() != threads) {
+            if (ownPool != null) {
+                ownPool.shutdown();
+            }
+            ownPool = new ForkJoinPool(threads);
+        }
+        return ownPool;
+    }
+
+    /**
+     * Returns the descriptors of the external components of given local column, ordered by their ordinal number. The
+     * descriptors are compiled on first access and kept until invalidated.
+     * 
+     * @param iidLc The instance id of the local column.
+     * @return The unmodifiable list of descriptors, empty if the local column has no external components.
+     */
+    List<ExtCompDescriptor> getDescriptors(long iidLc) {
+        return descriptors.computeIfAbsent(iidLc, this::compileDescriptors);
+    }
+
+    /**
+     * Removes the descriptors of given local column, to be called if the local column or its relation to its external
+     * components changed.
+     * 
+     * @param iidLc The instance id of the local column.
+     */
+    void invalidateDescriptors(long iidLc) {
+        descriptors.remove(iidLc);
+    }
+
+    /**
+     * Removes the descriptors of all local columns, to be called if any external component changed.
+     */
+    void invalidateDescriptors() {
+        descriptors.clear();
+    }
+
+    private List<ExtCompDescriptor> compileDescriptors(long iidLc) {
+        Collection<Element> ecElements = api.getElementsByBaseType(AOEXTERNALCOMPONENT);
+        if (ecElements.isEmpty()) {
+            return Collections.emptyList();
+        }
+        long aidExtComp = ecElements.iterator().next().getId();
+        Element lcElement = api.getUniqueElementByBaseType("aolocalcolumn");
+        Relation relExtComps = api.getRelationByBaseName(lcElement.getId(), "external_component");
+
+        List<ExtCompDescriptor> list = new ArrayList<>();
+        for (long iidExtComp : api.getRelatedInstanceIds(lcElement.getId(), iidLc, relExtComps)) {
+            Instance extComp = api.getInstanceById(aidExtComp, iidExtComp);
+            Integer ordinalNumber = null;
+            if (extComp.doesAttributeExist(null, ORDINAL_NUMBER, false)) {
+                NameValueUnit nvu = extComp.getValueByBaseName(ORDINAL_NUMBER);
+                ordinalNumber = nvu.hasValidValue() ? nvu.getValue().longVal() : null;
+            } else {
+                LOG.warn("Attribute derived from '{}' not found at {}", ORDINAL_NUMBER, extComp);
+            }
+            ByteOrder byteOrder = ByteOrder.LITTLE_ENDIAN;
+            if (extComp.doesAttributeExist(null, VALUE_TYPE, false)
+                    && extComp.getValueByBaseName(VALUE_TYPE).hasValidValue()) {
+                byteOrder = api.getByteOrder(aidExtComp, iidExtComp);
+            }
+            list.add(new ExtCompDescriptor(extComp, ordinalNumber, getExtCompFile(extComp, false),
+                                           getExtCompFile(extComp, true), byteOrder));
+        }
+        list.sort(ExtCompDescriptor.BY_ORDINAL_NUMBER);
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Compiles the descriptor of given external component, with its values and flags files resolved.
+     * 
+     * @param extComp The external component instance.
+     * @return The descriptor, without ordinal number.
+     */
+    ExtCompDescriptor describe(Instance extComp) {
+        ByteOrder byteOrder = ByteOrder.LITTLE_ENDIAN;
+        if (extComp.doesAttributeExist(null, VALUE_TYPE, false)
+                && extComp.getValueByBaseName(VALUE_TYPE).hasValidValue()) {
+            byteOrder = api.getByteOrder(extComp.getAid(), extComp.getIid());
+        }
+        return new ExtCompDescriptor(extComp, null, getExtCompFile(extComp, false), getExtCompFile(extComp, true),
+                                     byteOrder);
+    }
+
+    /**
+     * Releases all memory mappings of component files and the thread pool held by this reader.
+     */
+    public void close() {
+        mappings.clear();
+        descriptors.clear();
+        synchronized (this) {
+            if (ownPool != null) {
+                ownPool.shutdown();
+                ownPool = null;
+            }
+        }
     }
 
     /**
@@ -530,7 +857,8 @@ public class ExtCompReader {
             fileRelBaseName = "ao_values_file";
         }
 
-        NameValueUnit fileNvu = extComp.getValueByBaseName(attrName);
+        NameValueUnit fileNvu = extComp.doesAttributeExist(null, attrName, false)
+                ? extComp.getValueByBaseName(attrName) : null;
         Path extCompFile = null;
         String location = null;
         if (fileNvu == null || !fileNvu.hasValidValue()) {
@@ -559,55 +887,9 @@ public class ExtCompReader {
         }
         
         extCompFile = Paths.get(location);
-        if (!extCompFile.toFile().exists()) {
+        if (!Files.exists(extCompFile)) {
             extCompFile = Paths.get(api.getContext().get(OpenAtfxConstants.CONTEXT_FILE_ROOT).getValue().stringVal(), location);
         }
         return extCompFile;
     }
-
-    /**
-     * Custom comparator so sort multiple instances of 'AoExternalComponent' for the same 'AoLocalColumn' instance by
-     * the value of the base attribute 'ordinal_number'.
-     */
-    private class ExternalComponentComparator implements Comparator<Long> {
-
-        private static final String ORDINAL_NUMBER = "ordinal_number";
-        private final long ecAid;
-
-        public ExternalComponentComparator(long ecAid) {
-            this.ecAid = ecAid;
-        }
-
-        /**
-         * {@inheritDoc}
-         * 
-         * @see java.util.Comparator#compare(java.lang.Object, java.lang.Object)
-         */
-        public int compare(Long iidExtComp1, Long iidExtComp2) {
-            try {
-                Integer ordExtComp1 = 0;
-                Integer ordExtComp2 = 0;
-
-                Instance inst1 = api.getInstanceById(ecAid, iidExtComp1);
-                Instance inst2 = api.getInstanceById(ecAid, iidExtComp2);
-                if (!inst1.doesAttributeExist(null, ORDINAL_NUMBER, false)) {
-                    LOG.warn("Attribute derived from '{}' not found at {}", ORDINAL_NUMBER, inst1);
-                    return 0;
-                } else if (!inst2.doesAttributeExist(null, ORDINAL_NUMBER, false)) {
-                    LOG.warn("Attribute derived from '{}' not found at {}", ORDINAL_NUMBER, inst2);
-                    return 0;
-                }
-
-                NameValueUnit on1 = inst1.getValueByBaseName(ORDINAL_NUMBER);
-                ordExtComp1 = on1.getValue().longVal();
-                NameValueUnit on2 = inst2.getValueByBaseName(ORDINAL_NUMBER);
-                ordExtComp2 = on2.getValue().longVal();
-
-                return ordExtComp1.compareTo(ordExtComp2);
-            } catch (OpenAtfxException e) {
-                LOG.warn(e.getMessage(), e);
-                return 0;
-            }
-        }
-    }
 }
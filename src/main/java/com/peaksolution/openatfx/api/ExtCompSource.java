@@ -0,0 +1,126 @@
+package com.peaksolution.openatfx.api;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+
+import com.peaksolution.openatfx.IFileHandler;
+
+
+/**
+ * Positional read access to an external component file.
+ * <p>
+ * Depending on the configuration the bytes are either read from a channel opened by the session's file handler into a
+ * reused buffer or sliced from the session's shared memory mapping of the file. Files can only be memory mapped if the
+ * file handler provides file channels, otherwise they are read from the channel.
+ *
+ * @author Markus Renner
+ */
+abstract class ExtCompSource implements Closeable {
+
+    /**
+     * Opens a source for given file.
+     *
+     * @param file The component file.
+     * @param fileHandler The file handler to open the file with.
+     * @param mappings The session's file mappings, null if the file should not be memory mapped.
+     * @return The opened source.
+     * @throws IOException Error opening the file.
+     */
+    static ExtCompSource open(Path file, IFileHandler fileHandler, ExtCompFileMappings mappings) throws IOException {
+        if (mappings != null && mappings.contains(file)) {
+            return new MappedSource(file, fileHandler, mappings);
+        }
+        SeekableByteChannel channel = fileHandler.getFileChannel(file);
+        if (mappings != null && channel instanceof FileChannel) {
+            channel.close();
+            return new MappedSource(file, fileHandler, mappings);
+        }
+        return new ChannelSource(channel);
+    }
+
+    /**
+     * Returns the bytes of given file range. The returned buffer has position 0 and a limit of given length, its
+     * content is only valid until the next call of this method. Bytes beyond the end of the file are returned as zero.
+     *
+     * @param position The file position of the first byte.
+     * @param length The number of bytes.
+     * @return The buffer, in big endian byte order.
+     * @throws IOException Error reading the file.
+     */
+    abstract ByteBuffer read(long position, int length) throws IOException;
+
+    /**
+     * Reads from a file channel into a buffer that is reused as long as it is large enough.
+     */
+    private static class ChannelSource extends ExtCompSource {
+        private final SeekableByteChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocate(0);
+
+        private ChannelSource(SeekableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        ByteBuffer read(long position, int length) throws IOException {
+            if (buffer.capacity() < length) {
+                buffer = ByteBuffer.allocate(length);
+            }
+            buffer.clear().limit(length);
+            long pos = position;
+            while (buffer.hasRemaining()) {
+                int n = read(pos);
+                if (n < 0) {
+                    while (buffer.hasRemaining()) {
+                        buffer.put((byte) 0);
+                    }
+                    break;
+                }
+                pos += n;
+            }
+            return buffer.flip().order(ByteOrder.BIG_ENDIAN);
+        }
+
+        private int read(long pos) throws IOException {
+            if (channel instanceof FileChannel) {
+                return ((FileChannel) channel).read(buffer, pos);
+            }
+            channel.position(pos);
+            return channel.read(buffer);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Slices the shared memory mapping of the file, no bytes are copied.
+     */
+    private static class MappedSource extends ExtCompSource {
+        private final Path file;
+        private final IFileHandler fileHandler;
+        private final ExtCompFileMappings mappings;
+
+        private MappedSource(Path file, IFileHandler fileHandler, ExtCompFileMappings mappings) {
+            this.file = file;
+            this.fileHandler = fileHandler;
+            this.mappings = mappings;
+        }
+
+        @Override
+        ByteBuffer read(long position, int length) {
+            return mappings.slice(file, position, length, fileHandler);
+        }
+
+        @Override
+        public void close() {
+            // the mapping is owned by the session
+        }
+    }
+}
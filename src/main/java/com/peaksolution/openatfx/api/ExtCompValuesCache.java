@@ -0,0 +1,317 @@
+package com.peaksolution.openatfx.api;
+
+import java.lang.reflect.Array;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Session scoped cache of the decoded values of local columns read from external component files. It also holds the
+ * inline values parsed on first access, see {@link InlineValuesIndex}.
+ * <p>
+ * The entries are kept in least recently used order and are evicted as soon as the estimated memory of all cached
+ * values exceeds the configured budget. Values larger than the whole budget are not cached at all.
+ * <p>
+ * The cached arrays are never handed out, each caller gets its own copy, so modifying returned values does not
+ * affect later reads. Copying the array is still much cheaper than reading and decoding the values again. On a miss
+ * the caller gets the loaded values and the cache keeps the copy.
+ * <p>
+ * The values are loaded outside the lock. Each invalidation increments a generation counter, values loaded while an
+ * invalidation happened are returned but not cached, since they may have been read before the change.
+ *
+ * @author Markus Renner
+ */
+class ExtCompValuesCache {
+    private static final Logger LOG = LoggerFactory.getLogger(ExtCompValuesCache.class);
+
+    /** the default budget of the cache in bytes */
+    static final long DEF_MAX_BYTES = 1024L * 1024 * 64; // 64MB
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long maxBytes = DEF_MAX_BYTES;
+    private long currentBytes;
+    /** incremented by each invalidation, to detect invalidations while values are loaded */
+    private long generation;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * Returns the cached values of given local column, reading them with given loader if not cached yet.
+     *
+     * @param iidLc The instance id of the local column.
+     * @param dataType The requested data type.
+     * @param loader Reads the values on a cache miss.
+     * @return The values, a copy of the cached values which may be modified by the caller.
+     */
+    SingleValue get(long iidLc, DataType dataType, Supplier<SingleValue> loader) {
+        Key key = new Key(iidLc, dataType);
+        long loadGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hitCount++;
+                return copyOf(entry.value, 0, length(entry.value));
+            }
+            missCount++;
+            loadGeneration = generation;
+        }
+
+        // read outside the lock, concurrent misses for the same column may read twice
+        SingleValue value = loader.get();
+        long size = estimateSize(value);
+        synchronized (this) {
+            if (size > maxBytes || generation != loadGeneration) {
+                return value;
+            }
+        }
+        SingleValue cached = copyOf(value, 0, length(value));
+        synchronized (this) {
+            // invalidated while copying
+            if (generation != loadGeneration) {
+                return value;
+            }
+            Entry previous = entries.put(key, new Entry(cached, size));
+            if (previous != null) {
+                currentBytes -= previous.size;
+            }
+            currentBytes += size;
+            evict();
+        }
+        return value;
+    }
+
+    /**
+     * Returns the cached values of given local column without reading them.
+     *
+     * @param iidLc The instance id of the local column.
+     * @param dataType The requested data type.
+     * @return A copy of the values, null if not cached.
+     */
+    synchronized SingleValue getIfPresent(long iidLc, DataType dataType) {
+        return getIfPresent(iidLc, dataType, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns a window of the cached values of given local column without reading them. Only the window is copied.
+     *
+     * @param iidLc The instance id of the local column.
+     * @param dataType The requested data type.
+     * @param startIndex The index of the first value.
+     * @param count The maximum number of values, fewer values are returned if the end of the values is reached.
+     * @return A copy of the window of the values, null if not cached.
+     */
+    synchronized SingleValue getIfPresent(long iidLc, DataType dataType, int startIndex, int count) {
+        Entry entry = entries.get(new Key(iidLc, dataType));
+        if (entry == null) {
+            return null;
+        }
+        hitCount++;
+        int length = length(entry.value);
+        int from = Math.min(startIndex, length);
+        return copyOf(entry.value, from, Math.min(count, length - from));
+    }
+
+    /**
+     * Removes all cached values of given local column, regardless of the data type.
+     *
+     * @param iidLc The instance id of the local column.
+     */
+    synchronized void invalidate(long iidLc) {
+        generation++;
+        Iterator<Map.Entry<Key, Entry>> iter = entries.entrySet().iterator();
+        while (iter.hasNext()) {
+            Map.Entry<Key, Entry> mapEntry = iter.next();
+            if (mapEntry.getKey().iidLc == iidLc) {
+                currentBytes -= mapEntry.getValue().size;
+                iter.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes all cached values.
+     */
+    synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    /**
+     * Sets the memory budget of the cache, 0 disables caching.
+     *
+     * @param maxBytes The maximum estimated number of bytes of all cached values.
+     */
+    synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = Math.max(0, maxBytes);
+        evict();
+    }
+
+    synchronized long getMaxBytes() {
+        return maxBytes;
+    }
+
+    synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    synchronized long getMissCount() {
+        return missCount;
+    }
+
+    synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ExtCompValuesCache [entries=" + entries.size() + ", bytes=" + currentBytes + "/" + maxBytes
+                + ", hits=" + hitCount + ", misses=" + missCount + ", evictions=" + evictionCount + "]";
+    }
+
+    private void evict() {
+        Iterator<Entry> iter = entries.values().iterator();
+        while (currentBytes > maxBytes && iter.hasNext()) {
+            Entry eldest = iter.next();
+            currentBytes -= eldest.size;
+            iter.remove();
+            evictionCount++;
+        }
+        LOG.trace("{}", this);
+    }
+
+    private static int length(SingleValue value) {
+        Object ar = value.getValue();
+        return ar != null && ar.getClass().isArray() ? Array.getLength(ar) : 0;
+    }
+
+    /**
+     * Copies a range of the value array of given value. Complex values and byte strings are copied deeply, since they
+     * are mutable, too.
+     *
+     * @param value The cached value.
+     * @param startIndex The index of the first value to copy.
+     * @param count The number of values to copy.
+     * @return The copy.
+     */
+    static SingleValue copyOf(SingleValue value, int startIndex, int count) {
+        Object ar = value.getValue();
+        SingleValue copy = new SingleValue(value);
+        if (ar == null || !ar.getClass().isArray()) {
+            return copy;
+        }
+        Object range = Array.newInstance(ar.getClass().getComponentType(), count);
+        System.arraycopy(ar, startIndex, range, 0, count);
+        if (range instanceof Complex[]) {
+            Complex[] complexes = (Complex[]) range;
+            for (int i = 0; i < count; i++) {
+                Complex c = complexes[i];
+                complexes[i] = c == null ? null : new Complex(c.getR(), c.getI());
+            }
+        } else if (range instanceof DoubleComplex[]) {
+            DoubleComplex[] complexes = (DoubleComplex[]) range;
+            for (int i = 0; i < count; i++) {
+                DoubleComplex c = complexes[i];
+                complexes[i] = c == null ? null : new DoubleComplex(c.getR(), c.getI());
+            }
+        } else if (range instanceof byte[][]) {
+            byte[][] bytestrs = (byte[][]) range;
+            for (int i = 0; i < count; i++) {
+                bytestrs[i] = bytestrs[i] == null ? null : bytestrs[i].clone();
+            }
+        }
+        copy.setValue(range);
+        return copy;
+    }
+
+    /**
+     * Estimates the heap memory occupied by the value array of given value.
+     *
+     * @param value The value.
+     * @return The estimated number of bytes.
+     */
+    static long estimateSize(SingleValue value) {
+        Object ar = value.getValue();
+        long size = 64;
+        if (ar instanceof boolean[]) {
+            size += ((boolean[]) ar).length;
+        } else if (ar instanceof byte[]) {
+            size += ((byte[]) ar).length;
+        } else if (ar instanceof short[]) {
+            size += ((short[]) ar).length * 2L;
+        } else if (ar instanceof int[]) {
+            size += ((int[]) ar).length * 4L;
+        } else if (ar instanceof float[]) {
+            size += ((float[]) ar).length * 4L;
+        } else if (ar instanceof long[]) {
+            size += ((long[]) ar).length * 8L;
+        } else if (ar instanceof double[]) {
+            size += ((double[]) ar).length * 8L;
+        } else if (ar instanceof String[]) {
+            for (String s : (String[]) ar) {
+                size += 8 + (s == null ? 0 : 40 + s.length() * 2L);
+            }
+        } else if (ar instanceof byte[][]) {
+            for (byte[] b : (byte[][]) ar) {
+                size += 8 + (b == null ? 0 : 16 + b.length);
+            }
+        } else if (ar instanceof Object[]) {
+            // complex values: reference and object with two float or double members
+            size += ((Object[]) ar).length * 40L;
+        }
+        return size;
+    }
+
+    private static class Entry {
+        private final SingleValue value;
+        private final long size;
+
+        private Entry(SingleValue value, long size) {
+            this.value = value;
+            this.size = size;
+        }
+    }
+
+    private static class Key {
+        private final long iidLc;
+        private final DataType dataType;
+
+        private Key(long iidLc, DataType dataType) {
+            this.iidLc = iidLc;
+            this.dataType = dataType;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(iidLc, dataType);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return iidLc == other.iidLc && dataType == other.dataType;
+        }
+    }
+}
@@ -3,26 +3,30 @@ package com.peaksolution.openatfx.api;
 import static java.nio.charset.StandardCharsets.ISO_8859_1;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.nio.channels.FileChannel;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.asam.ods.ErrorCode;
 import org.asam.ods.SetType;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import com.peaksolution.openatfx.util.FileUtil;
+import com.peaksolution.openatfx.io.AtfxTagConstants;
 import com.peaksolution.openatfx.util.ODSHelper;
 
 
@@ -31,373 +35,719 @@ public class ExtCompWriter {
     private static final String EXTERNAL_COMPONENT = "external_component";
     private static final String AOLOCALCOLUMN = "aolocalcolumn";
     private static final String AOEXTERNALCOMPONENT = "aoexternalcomponent";
-    private static final String EXT_COMP_SEGSIZE = "EXT_COMP_SEGSIZE";
-    private static final String FILE_ROOT = "FILE_ROOT";
-    private static final Logger LOG = LoggerFactory.getLogger(ExtCompWriter.class);
+    private static final String AOSUBMATRIX = "aosubmatrix";
+    /** the size of the slabs values are encoded in, a multiple of all block sizes */
+    static final int SLAB_SIZE = 256 * 1024;
+    /** the number of threads of the default executor values are written on in parallel */
+    static final int WRITE_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
 
     private OpenAtfxAPIImplementation api;
+    private final ExtCompFileWriters fileWriters;
+    /** the buffer numeric values are encoded in, written slab by slab */
+    private final ByteBuffer slab = ByteBuffer.allocateDirect(SLAB_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    /** the executor values are written on in parallel set from outside, null to use the own one */
+    private Executor writeExecutor;
+    /** the bounded executor owned by this writer, created on first use */
+    private ExecutorService ownWriteExecutor;
 
     public ExtCompWriter(OpenAtfxAPIImplementation api) {
         this.api = api;
+        this.fileWriters = new ExtCompFileWriters(api);
     }
 
-    private File getExtCompFile(int cnt) {
-        Map<String, NameValueUnit> context = api.getContext();
-        String rootPath = context.get(FILE_ROOT).getValue().stringVal();
-        File atfxPath = new File(context.get(OpenAtfxConstants.CONTEXT_FILENAME).getValue().stringVal());
-        long extCompSize = context.get(EXT_COMP_SEGSIZE).getValue().longlongVal();
-        File binFile = new File(rootPath, FileUtil.stripExtension(atfxPath.getName()) + "_" + cnt + ".btf");
-        if (binFile.length() > extCompSize) {
-            binFile = getExtCompFile(cnt + 1);
-        }
-        return binFile;
+    /**
+     * Forces the values written so far to the storage device, the component files stay open.
+     * 
+     * @throws OpenAtfxException Error writing to a file.
+     */
+    public void flush() throws OpenAtfxException {
+        fileWriters.flush();
     }
 
-    private File getExtCompFileString(int cnt) {
-        Map<String, NameValueUnit> context = api.getContext();
-        String rootPath = context.get(FILE_ROOT).getValue().stringVal();
-        File atfxPath = new File(context.get(OpenAtfxConstants.CONTEXT_FILENAME).getValue().stringVal());
-        long extCompSize = context.get(EXT_COMP_SEGSIZE).getValue().longlongVal();
-        File binFile = new File(rootPath, FileUtil.stripExtension(atfxPath.getName()) + "_" + cnt + "_string.btf");
-        if (binFile.length() > extCompSize) {
-            binFile = getExtCompFileString(cnt + 1);
+    /**
+     * Forces the values written so far to the storage device and closes the component files. They are opened again
+     * when further values are written. The own executor values are written on in parallel is shut down, it is created
+     * again when needed.
+     */
+    public void close() {
+        fileWriters.close();
+        synchronized (this) {
+            if (ownWriteExecutor != null) {
+                ownWriteExecutor.shutdown();
+                ownWriteExecutor = null;
+            }
         }
-        return binFile;
     }
 
-    private File getExtCompFileUTF8String(int cnt) {
-        Map<String, NameValueUnit> context = api.getContext();
-        String rootPath = context.get(FILE_ROOT).getValue().stringVal();
-        File atfxPath = new File(context.get(OpenAtfxConstants.CONTEXT_FILENAME).getValue().stringVal());
-        long extCompSize = context.get(EXT_COMP_SEGSIZE).getValue().longlongVal();
-        File binFile = new File(rootPath, FileUtil.stripExtension(atfxPath.getName()) + "_" + cnt + "_utf8string.btf");
-        if (binFile.length() > extCompSize) {
-            binFile = getExtCompFileUTF8String(cnt + 1);
-        }
-        return binFile;
+    /**
+     * Sets the executor values are written on in parallel, see {@link OpenAtfxAPI#setWriteExecutor(Executor)}.
+     * 
+     * @param executor The executor, null to use the own one.
+     */
+    synchronized void setWriteExecutor(Executor executor) {
+        this.writeExecutor = executor;
     }
 
-    private File getExtCompFileBytestr(boolean getNextUnused) {
-        Map<String, NameValueUnit> context = api.getContext();
-        String rootPath = context.get(FILE_ROOT).getValue().stringVal();
-        File atfxPath = new File(context.get(OpenAtfxConstants.CONTEXT_FILENAME).getValue().stringVal());
-        String pattern = FileUtil.stripExtension(atfxPath.getName()) + "_%d_bytestream.btf";
-        int nextUnusedNo = 1;
-        while (Files.exists(Paths.get(rootPath, String.format(pattern, nextUnusedNo)))) {
-            nextUnusedNo++;
+    /**
+     * Returns the executor values are written on in parallel. Unless set from outside this is a pool of
+     * {@link #WRITE_THREADS} daemon threads owned by this writer, so the blocking file writes neither occupy the common
+     * fork join pool nor the executor of the asynchronous reads.
+     * 
+     * @return The executor.
+     */
+    synchronized Executor getWriteExecutor() {
+        if (writeExecutor != null) {
+            return writeExecutor;
         }
+        if (ownWriteExecutor == null) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            ownWriteExecutor = Executors.newFixedThreadPool(WRITE_THREADS, r -> {
+                Thread thread = new Thread(r, "openatfx-ext-comp-writer-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return ownWriteExecutor;
+    }
+
+    /**
+     * Compacts the component files, see {@link OpenAtfxAPI#compactExtCompFiles()}.
+     * 
+     * @param extCompReader The reader resolving the component files.
+     * @return The result.
+     * @throws OpenAtfxException Error compacting the files.
+     */
+    public synchronized CompactionResult compact(ExtCompReader extCompReader) throws OpenAtfxException {
+        return new ExtCompCompactor(api, extCompReader, fileWriters).compact();
+    }
 
-        return new File(rootPath,
-                        String.format(pattern, (getNextUnused ? nextUnusedNo : Math.max(1, nextUnusedNo - 1))));
+    /**
+     * Creates an appender writing the values of given local column chunk by chunk to the external component files.
+     * The existing external components of the local column are removed.
+     * 
+     * @param iidLc The LocalColumn instance id.
+     * @return The appender, to be closed after the last values have been appended.
+     * @throws OpenAtfxException The values of the local column cannot be written to external component files.
+     */
+    public ColumnAppender createColumnAppender(long iidLc) throws OpenAtfxException {
+        return new ExtCompColumnAppender(api, this, fileWriters, iidLc);
     }
 
-    private File getExtCompFileFlags(int cnt) {
-        Map<String, NameValueUnit> context = api.getContext();
-        String rootPath = context.get(FILE_ROOT).getValue().stringVal();
-        File atfxPath = new File(context.get(OpenAtfxConstants.CONTEXT_FILENAME).getValue().stringVal());
-        long extCompSize = context.get(EXT_COMP_SEGSIZE).getValue().longlongVal();
-        File binFile = new File(rootPath, FileUtil.stripExtension(atfxPath.getName()) + "_" + cnt + "_flags.btf");
-        if (binFile.length() > extCompSize) {
-            binFile = getExtCompFileFlags(cnt + 1);
+    /**
+     * Removes all 'AoExternalComponent' instances of given local column.
+     * 
+     * @param iidLc The LocalColumn instance id.
+     * @throws OpenAtfxException Error removing the instances.
+     */
+    void removeExternalComponents(long iidLc) throws OpenAtfxException {
+        Element lcElement = api.getUniqueElementByBaseType(AOLOCALCOLUMN);
+        Element extCompElement = api.getUniqueElementByBaseType(AOEXTERNALCOMPONENT);
+        Relation relLcExtComp = api.getRelationByBaseName(lcElement.getId(), EXTERNAL_COMPONENT);
+        if (relLcExtComp == null) {
+            throw new OpenAtfxException(ErrorCode.AO_NOT_FOUND,
+                                        "No application relation of type '" + EXTERNAL_COMPONENT + "' found!");
+        }
+        for (long relExtCompIid : api.getRelatedInstanceIds(lcElement.getId(), iidLc, relLcExtComp)) {
+            api.removeInstance(extCompElement.getId(), relExtCompIid);
         }
-        return binFile;
     }
 
     /**
      * Writes measurement values to a external component file.
+     * <p>
+     * The values are split at value boundaries into several external components with increasing ordinal numbers, so
+     * that no component file exceeds the segment size given by the context 'EXT_COMP_SEGSIZE' and no component
+     * exceeds the size given by the context 'EXT_COMP_COMPONENT_SIZE'. A single value exceeding these sizes is
+     * written to a component of its own. If the application model has no attribute 'ordinal_number' the order of
+     * several components cannot be stored, so all values are written to one component regardless of these sizes.
      * 
      * @param iidLc The LocalColumn instance id.
      * @param value The value to write.
      * @throws OpenAtfxException Error writing value.
      */
-    public void writeValues(long iidLc, SingleValue value) throws OpenAtfxException {
+    public synchronized void writeValues(long iidLc, SingleValue value) throws OpenAtfxException {
         if (!value.isValid()) {
             return;
         }
 
         DataType dt = value.discriminator();
-
-        // open file, strings have to be in the same file
-        File extCompFile = null;
-        if (dt == DataType.DS_STRING) {
-            extCompFile = getExtCompFileUTF8String(1);
-        } else if (dt == DataType.DS_DATE) {
-            extCompFile = getExtCompFileString(1);
-        } else if (dt == DataType.DS_BYTESTR) {
-            extCompFile = getExtCompFileBytestr(false);
-        } else {
-            extCompFile = getExtCompFile(1);
-        }
-
-        FileOutputStream fos = null;
-        FileChannel channel = null;
         try {
             // delete existing 'AoExternalComponent' instances first, because new values have been set
-            Element lcElement = api.getUniqueElementByBaseType(AOLOCALCOLUMN);
-            Element extCompElement = api.getUniqueElementByBaseType(AOEXTERNALCOMPONENT);
-            Relation relLcExtComp = api.getRelationByBaseName(lcElement.getId(), EXTERNAL_COMPONENT);
-            if (relLcExtComp == null) {
-                throw new OpenAtfxException(ErrorCode.AO_NOT_FOUND,
-                                            "No application relation of type '" + EXTERNAL_COMPONENT + "' found!");
+            removeExternalComponents(iidLc);
+
+            // DS_BYTESTR
+            if (dt == DataType.DS_BYTESTR) {
+                writeByteStreams(iidLc, value.bytestrSeq());
             }
-            for (long relExtCompIid : api.getRelatedInstanceIds(lcElement.getId(), iidLc, relLcExtComp)) {
-                api.removeInstance(extCompElement.getId(), relExtCompIid);
+            // DS_STRING, strings have to be in the same file
+            else if (dt == DataType.DS_STRING) {
+                writeStrings(iidLc, ExtCompFileWriters.Category.UTF8STRING, value.stringSeq());
             }
+            // DS_DATE
+            else if (dt == DataType.DS_DATE) {
+                writeStrings(iidLc, ExtCompFileWriters.Category.STRING, value.dateSeq());
+            }
+            // values of fixed size
+            else if (FixedSizeValues.isSupported(dt)) {
+                FixedSizeValues values = FixedSizeValues.of(value);
+                int valuesPerSlab = values.getValuesPerSlab(SLAB_SIZE);
+                writeFixedSizeValues(iidLc, values,
+                                     (writer, i, n) -> writer.write(slab, i, n, valuesPerSlab, values.encoder));
+            }
+            // not supported
+            else {
+                throw new OpenAtfxException(ErrorCode.AO_NOT_IMPLEMENTED, "DataType '" + dt
+                        + "' not yet supported for writing to external component file");
+            }
+        } catch (IOException e) {
+            throw new OpenAtfxException(ErrorCode.AO_UNKNOWN_ERROR, e.getMessage());
+        }
+    }
 
-            // open source channel
-            fos = new FileOutputStream(extCompFile, true);
-            channel = fos.getChannel();
-            long startOffset = channel.size();
-
-            // write values
-            int valueType = 0;
-            int length = 0;
-            int blockSize = 0;
-            int valuesPerBlock = 0;
-
-            int ordinalNumber = 1;
+    /**
+     * Writes the values of given local columns in parallel, see {@link OpenAtfxAPI#writeValuesParallel(Map)}.
+     * <p>
+     * The external components of all columns are created in the iteration order of the map, and the byte range of
+     * each component is reserved in its component file right away. Only then the values of fixed size are encoded and
+     * written into their reserved ranges on the given executor, one task per column. Strings, dates and byte streams
+     * are written sequentially while the components are created.
+     * <p>
+     * The previous components of a column of fixed size values are removed after its values have been written. If a
+     * column fails, the components created for it are removed instead, so it keeps its previous components and
+     * sequence representation. The other columns are completed before the error is thrown.
+     * 
+     * @param values The values by LocalColumn instance id.
+     * @param executor The executor the values are written on.
+     * @return The external components created for the values of fixed size by LocalColumn instance id, in the order
+     *         of their ordinal numbers.
+     * @throws OpenAtfxException Error writing the values.
+     */
+    synchronized Map<Long, List<Instance>> writeValuesParallel(Map<Long, SingleValue> values, Executor executor)
+            throws OpenAtfxException {
+        // check all columns before the first values are written
+        Map<Long, Integer> seqReps = new LinkedHashMap<>();
+        for (Map.Entry<Long, SingleValue> entry : values.entrySet()) {
+            if (entry.getValue() != null && entry.getValue().isValid()) {
+                seqReps.put(entry.getKey(), getExtCompSeqRep(entry.getKey()));
+            }
+        }
 
-            // DS_BYTESTR
-            if (dt == DataType.DS_BYTESTR) {
-                valueType = 33; // dt_bytestr_leo
+        ExtCompParallelWriter parallelWriter = new ExtCompParallelWriter(executor);
+        Map<Long, List<Instance>> extComps = new LinkedHashMap<>();
+        Map<Long, List<Long>> previousExtComps = new LinkedHashMap<>();
+        List<Long> written = new ArrayList<>();
+        Set<Long> failed = new HashSet<>();
+        OpenAtfxException error = null;
+        try {
+            for (long iidLc : seqReps.keySet()) {
+                SingleValue value = values.get(iidLc);
+                if (!FixedSizeValues.isSupported(value.discriminator())) {
+                    writeValues(iidLc, value);
+                    written.add(iidLc);
+                    continue;
+                }
+                previousExtComps.put(iidLc, getExternalComponentIids(iidLc));
+                written.add(iidLc);
+                FixedSizeValues fixedSizeValues = FixedSizeValues.of(value);
+                ExtCompParallelWriter.Column column = parallelWriter.addColumn(iidLc, fixedSizeValues);
+                extComps.put(iidLc, writeFixedSizeValues(iidLc, fixedSizeValues,
+                                                         (writer, i, n) -> column.addRegion(writer, i, n)));
+            }
+        } catch (IOException e) {
+            error = new OpenAtfxException(ErrorCode.AO_UNKNOWN_ERROR, e.getMessage());
+        } catch (OpenAtfxException e) {
+            error = e;
+        }
+        if (error != null) {
+            // no values have been written into the reserved ranges yet
+            failed.addAll(previousExtComps.keySet());
+        } else {
+            try {
+                parallelWriter.write();
+            } catch (OpenAtfxException e) {
+                error = e;
+                failed.addAll(parallelWriter.getFailedColumns());
+            }
+        }
 
-                long extCompSize = api.getContext().get(EXT_COMP_SEGSIZE).getValue().longlongVal();
+        // the components of failed columns point to ranges without values, the previous ones are kept for them
+        long aidExtComp = api.getUniqueElementByBaseType(AOEXTERNALCOMPONENT).getId();
+        for (Map.Entry<Long, List<Long>> entry : previousExtComps.entrySet()) {
+            long iidLc = entry.getKey();
+            List<Long> obsolete = new ArrayList<>(entry.getValue());
+            if (failed.contains(iidLc)) {
+                obsolete = getExternalComponentIids(iidLc);
+                obsolete.removeAll(entry.getValue());
+                extComps.remove(iidLc);
+            }
+            for (long iidExtComp : obsolete) {
+                api.removeInstance(aidExtComp, iidExtComp);
+            }
+        }
+        for (long iidLc : written) {
+            if (!failed.contains(iidLc)) {
+                setValuesExternal(iidLc, values.get(iidLc).discriminator(), seqReps.get(iidLc));
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+        return extComps;
+    }
 
-                for (byte[] currentByteStream : value.bytestrSeq()) {
-                    int lengthOfByteStream = currentByteStream.length;
+    /**
+     * Returns the ids of the 'AoExternalComponent' instances of given local column.
+     * 
+     * @param iidLc The LocalColumn instance id.
+     * @return The instance ids, a modifiable list.
+     */
+    private List<Long> getExternalComponentIids(long iidLc) {
+        Element lcElement = api.getUniqueElementByBaseType(AOLOCALCOLUMN);
+        Relation relLcExtComp = api.getRelationByBaseName(lcElement.getId(), EXTERNAL_COMPONENT);
+        return new ArrayList<>(api.getRelatedInstanceIds(lcElement.getId(), iidLc, relLcExtComp));
+    }
 
-                    int dataLength = 4 + lengthOfByteStream;
-                    if (startOffset + length + dataLength > extCompSize) {
-                        // allowed ext comp size exceeded -> write to new ext comp file:
-                        // finish old ext comp file:
-                        channel.close();
-                        fos.close();
+    /**
+     * Moves the inline values and flags of all local columns to external component files, see
+     * {@link OpenAtfxAPI#externalizeInlineValues()}.
+     * <p>
+     * The local columns are processed in the order of their instance ids and their values are written by
+     * {@link #writeValuesParallel(Map, Executor)}, so the component files do not depend on the executor. The flags are
+     * split along the external components of each local column afterwards.
+     * 
+     * @param executor The executor the values are written on.
+     * @return The number of local columns moved.
+     * @throws OpenAtfxException Error writing the values.
+     */
+    synchronized int externalizeInlineValues(Executor executor) throws OpenAtfxException {
+        Element lcElement = api.getUniqueElementByBaseType(AOLOCALCOLUMN);
+        Attribute flagsAttr = lcElement.getAttributeByBaseName(AtfxTagConstants.LC_FLAGS);
+        Element extCompElement = api.getUniqueElementByBaseType(AOEXTERNALCOMPONENT);
+        boolean flagsAttrsExist = extCompElement.getAttributeByBaseName("flags_filename_url") != null
+                && extCompElement.getAttributeByBaseName("flags_start_offset") != null;
+        List<Instance> lcs = new ArrayList<>(api.getInstances(lcElement.getId()));
+        lcs.sort(Comparator.comparingLong(Instance::getIid));
+
+        Map<Long, SingleValue> values = new LinkedHashMap<>();
+        Map<Long, short[]> flags = new LinkedHashMap<>();
+        for (Instance lc : lcs) {
+            // only explicit and raw values are stored inline and may be moved
+            int seqRep = lc.getValueByBaseName(AtfxTagConstants.LC_SEQ_REP).getValue().enumVal();
+            if (seqRep != 0 && seqRep != 4 && seqRep != 5 && seqRep != 10 && seqRep != 12) {
+                continue;
+            }
+            NameValueUnit valuesNvu = lc.getValueByBaseName(AtfxTagConstants.LC_VALUES);
+            if (valuesNvu == null || !valuesNvu.hasValidValue()) {
+                continue;
+            }
+            DataType dt = valuesNvu.getValue().discriminator();
+            boolean hasFlags = flagsAttr != null && lc.hasValidValue(null, AtfxTagConstants.LC_FLAGS);
+            // flags are stored per number of a component, so they can only be moved along with single numbers
+            boolean flagsMovable = flagsAttrsExist && FixedSizeValues.isSupported(dt) && dt != DataType.DS_COMPLEX
+                    && dt != DataType.DS_DCOMPLEX;
+            boolean valuesMovable = FixedSizeValues.isSupported(dt) || dt == DataType.DS_STRING
+                    || dt == DataType.DS_DATE || dt == DataType.DS_BYTESTR;
+            if (!valuesMovable || (hasFlags && !flagsMovable)) {
+                continue;
+            }
+            values.put(lc.getIid(), valuesNvu.getValue());
+            if (hasFlags) {
+                flags.put(lc.getIid(), lc.getValueByBaseName(AtfxTagConstants.LC_FLAGS).getValue().shortSeq());
+            }
+        }
 
-                        // write external component for old ext comp file:
-                        createAoExternalComponent(iidLc, extCompFile, valueType, length, startOffset, blockSize,
-                                                  valuesPerBlock, ordinalNumber++);
+        Map<Long, List<Instance>> extComps = writeValuesParallel(values, executor);
+        for (Map.Entry<Long, short[]> entry : flags.entrySet()) {
+            writeFlagsToComponents(extComps.get(entry.getKey()), entry.getValue());
+            // the flags are read from the components from now on
+            Instance lc = api.getInstanceById(lcElement.getId(), entry.getKey());
+            lc.setAttributeValue(new NameValueUnit(flagsAttr.getName(), DataType.DS_SHORT, null));
+        }
+        return values.size();
+    }
 
-                        // get new ext comp file:
-                        extCompFile = getExtCompFileBytestr(true);
-                        fos = new FileOutputStream(extCompFile, true);
-                        channel = fos.getChannel();
-                        startOffset = channel.size();
+    /**
+     * Writes the flags of a local column to its external components, each component gets the flags of its values.
+     * 
+     * @param extComps The external components just created for the values, in the order of the values.
+     * @param flags The flags.
+     */
+    private void writeFlagsToComponents(List<Instance> extComps, short[] flags) {
+        int position = 0;
+        for (Instance extComp : extComps) {
+            int length = extComp.getValueByBaseName("component_length").getValue().longVal();
+            int end = Math.min(flags.length, position + length);
+            writeFlags(extComp.getIid(), Arrays.copyOfRange(flags, Math.min(position, end), end));
+            position = end;
+        }
+    }
 
-                        valuesPerBlock = 0;
-                        length = 0;
-                    }
+    /**
+     * Writes the values of local columns of a submatrix as one row-interleaved record stream, see
+     * {@link OpenAtfxAPI#writeSubMatrixInterleaved(long, Map)}.
+     * <p>
+     * A record holds the values of one row of all columns in the iteration order of the map. The records are split
+     * into several external components per column at record boundaries, so that no component file exceeds the segment
+     * size and no component exceeds the component size. Without the attribute 'ordinal_number' all records are written
+     * to one component per column.
+     * 
+     * @param iidSm The SubMatrix instance id.
+     * @param values The values by LocalColumn instance id.
+     * @throws OpenAtfxException Error writing the values.
+     */
+    synchronized void writeSubMatrixInterleaved(long iidSm, Map<Long, SingleValue> values) throws OpenAtfxException {
+        Element smElement = api.getUniqueElementByBaseType(AOSUBMATRIX);
+        Instance sm = api.getInstanceById(smElement.getId(), iidSm);
+        int rows = sm.getValueByBaseName(AtfxTagConstants.MAT_ATTR_NROFROWS).getValue().longVal();
+        Element lcElement = api.getUniqueElementByBaseType(AOLOCALCOLUMN);
+        Relation relLcSm = api.getRelationByBaseName(lcElement.getId(), AtfxTagConstants.SUB_MATRIX);
+        if (api.getUniqueElementByBaseType(AOEXTERNALCOMPONENT).getAttributeByBaseName("value_offset") == null) {
+            throw new OpenAtfxException(ErrorCode.AO_NOT_FOUND, "Interleaved values require the attribute "
+                    + "'value_offset' of '" + AOEXTERNALCOMPONENT + "'");
+        }
 
-                    ByteBuffer bb = ByteBuffer.allocate(dataLength);
-                    // length information must be big endian for dt_bytestr typespec, see recent clarification in ODS
-                    // documentation:
-                    bb.order(ByteOrder.BIG_ENDIAN);
-                    // write 4 byte length block
-                    bb.putInt(lengthOfByteStream);
-
-                    bb.put(currentByteStream, 0, lengthOfByteStream);
-                    Buffer.class.cast(bb).rewind(); // workaround: make buildable with both java8 and java9
-                    length += channel.write(bb);
-                    valuesPerBlock++;
-                }
+        // check all columns and lay out the record before the first values are written
+        List<Long> iidLcs = new ArrayList<>(values.keySet());
+        List<FixedSizeValues> columns = new ArrayList<>();
+        int[] valueOffsets = new int[iidLcs.size()];
+        int[] seqReps = new int[iidLcs.size()];
+        int recordSize = 0;
+        int maxUnitSize = 1;
+        for (int i = 0; i < iidLcs.size(); i++) {
+            long iidLc = iidLcs.get(i);
+            if (!api.getRelatedInstanceIds(lcElement.getId(), iidLc, relLcSm).contains(iidSm)) {
+                throw new OpenAtfxException(ErrorCode.AO_BAD_PARAMETER, "Local column with id " + iidLc
+                        + " does not belong to submatrix with id " + iidSm);
             }
-            // DS_BOOLEAN
-            else if (dt == DataType.DS_BOOLEAN) {
-                valueType = 0; // dt_boolean
-                length = value.booleanSeq().length;
-                blockSize = 1 + (value.booleanSeq().length - 1) / 8;
-                valuesPerBlock = length;
-                byte[] target = new byte[length];
-                for (int i = 0; i < value.booleanSeq().length; i++) {
-                    ODSHelper.setBit(target, i, value.booleanSeq()[i]);
-                }
-                channel.write(ByteBuffer.wrap(target));
+            SingleValue value = values.get(iidLc);
+            DataType dt = value == null ? null : value.discriminator();
+            if (dt == null || !FixedSizeValues.isSupported(dt) || dt == DataType.DS_BOOLEAN) {
+                throw new OpenAtfxException(ErrorCode.AO_INVALID_DATATYPE, "DataType '" + dt + "' of local column "
+                        + "with id " + iidLc + " not supported for interleaved external component files");
             }
-            // DS_STRING
-            else if (dt == DataType.DS_STRING) {
-                valueType = 25; // dt_string_utf8
-                length = 0;
-                valuesPerBlock = value.stringSeq().length;
-                for (String str : value.stringSeq()) {
-                    byte[] b = str.getBytes(UTF_8);
-                    length += b.length;
-                    ByteBuffer bb = ByteBuffer.wrap(b);
-                    channel.write(bb);
-                    bb = ByteBuffer.wrap(new byte[] { (byte) 0 });
-                    length += 1;
-                    channel.write(bb);
-                }
-                blockSize = length;
+            FixedSizeValues column = FixedSizeValues.of(value);
+            if (column.count != rows) {
+                throw new OpenAtfxException(ErrorCode.AO_BAD_PARAMETER, "Local column with id " + iidLc + " has "
+                        + column.count + " values, but submatrix with id " + iidSm + " has " + rows + " rows");
             }
-            // DS_BYTE
-            else if (dt == DataType.DS_BYTE) {
-                valueType = 1; // dt_byte
-                blockSize = 1;
-                valuesPerBlock = 1;
-                length = value.byteSeq().length;
-                ByteBuffer bb = ByteBuffer.allocate(length * blockSize);
-                for (int i = 0; i < length; i++) {
-                    bb.put(value.byteSeq()[i]);
-                }
-                Buffer.class.cast(bb).rewind(); // workaround: make buildable with both java8 and java9
-                channel.write(bb);
+            seqReps[i] = getExtCompSeqRep(iidLc);
+            columns.add(column);
+            valueOffsets[i] = recordSize;
+            recordSize += column.getUnitSize();
+            maxUnitSize = Math.max(maxUnitSize, column.getUnitSize());
+        }
+        if (columns.isEmpty()) {
+            return;
+        }
+
+        // the records are assembled in the slab from the values of each column encoded into the scratch buffer
+        int rowsPerSlab = Math.max(1, SLAB_SIZE / recordSize);
+        ByteBuffer records = recordSize > SLAB_SIZE ? ByteBuffer.allocateDirect(recordSize) : slab;
+        ByteBuffer scratch = ByteBuffer.allocateDirect(rowsPerSlab * maxUnitSize).order(ByteOrder.LITTLE_ENDIAN);
+
+        try {
+            for (long iidLc : iidLcs) {
+                removeExternalComponents(iidLc);
             }
-            // DS_SHORT
-            else if (dt == DataType.DS_SHORT) {
-                valueType = 2; // dt_short
-                blockSize = 2;
-                valuesPerBlock = 1;
-                length = value.shortSeq().length;
-                ByteBuffer bb = ByteBuffer.allocate(length * blockSize);
-                bb.order(ByteOrder.LITTLE_ENDIAN);
-                for (int i = 0; i < length; i++) {
-                    bb.putShort(value.shortSeq()[i]);
+            ExtCompFileWriters.SegmentWriter writer = fileWriters.get(ExtCompFileWriters.Category.VALUES);
+            long maxComponentRows = Math.max(1, fileWriters.getComponentSize() / recordSize);
+            boolean split = canSplitComponents();
+            int ordinalNumber = 1;
+            int done = 0;
+            do {
+                rollIfNoRoom(writer, recordSize);
+                long startOffset = writer.getOffset();
+                long fitting = Math.min((fileWriters.getSegmentSize() - startOffset) / recordSize, maxComponentRows);
+                int n = split ? (int) Math.min(rows - done, Math.max(1, fitting)) : rows;
+                String fileName = writer.getFile().getFileName().toString();
+
+                for (int chunk = 0; chunk < n; chunk += rowsPerSlab) {
+                    int chunkRows = Math.min(n - chunk, rowsPerSlab);
+                    records.clear();
+                    for (int i = 0; i < columns.size(); i++) {
+                        FixedSizeValues column = columns.get(i);
+                        int unitSize = column.getUnitSize();
+                        scratch.clear();
+                        column.encoder.encode(scratch, done + chunk, chunkRows);
+                        for (int r = 0; r < chunkRows; r++) {
+                            records.put(r * recordSize + valueOffsets[i], scratch, r * unitSize, unitSize);
+                        }
+                    }
+                    records.limit(chunkRows * recordSize);
+                    writer.write(records);
                 }
-                Buffer.class.cast(bb).rewind(); // workaround: make buildable with both java8 and java9
-                channel.write(bb);
-            }
-            // DS_LONG
-            else if (dt == DataType.DS_LONG) {
-                valueType = 3; // dt_long
-                blockSize = 4;
-                valuesPerBlock = 1;
-                length = value.longSeq().length;
-                ByteBuffer bb = ByteBuffer.allocate(length * blockSize);
-                bb.order(ByteOrder.LITTLE_ENDIAN);
-                for (int i = 0; i < length; i++) {
-                    bb.putInt(value.longSeq()[i]);
+
+                for (int i = 0; i < columns.size(); i++) {
+                    FixedSizeValues column = columns.get(i);
+                    createAoExternalComponent(iidLcs.get(i), fileName, column.valueType, n * column.numbersPerValue,
+                                              startOffset, recordSize, column.numbersPerValue, valueOffsets[i],
+                                              ordinalNumber);
                 }
-                Buffer.class.cast(bb).rewind(); // workaround: make buildable with both java8 and java9
-                channel.write(bb);
+                ordinalNumber++;
+                done += n;
+            } while (done < rows);
+        } catch (IOException e) {
+            throw new OpenAtfxException(ErrorCode.AO_UNKNOWN_ERROR, e.getMessage());
+        }
+
+        for (int i = 0; i < iidLcs.size(); i++) {
+            setValuesExternal(iidLcs.get(i), values.get(iidLcs.get(i)).discriminator(), seqReps[i]);
+        }
+    }
+
+    /**
+     * Returns whether the values of a local column may be split into several external components. This requires the
+     * optional base attribute 'ordinal_number', otherwise the order of the components would be lost.
+     * 
+     * @return True if the application element of type 'AoExternalComponent' has an attribute 'ordinal_number'.
+     */
+    boolean canSplitComponents() {
+        Element extCompElement = api.getUniqueElementByBaseType(AOEXTERNALCOMPONENT);
+        return extCompElement.getAttributeByBaseName("ordinal_number") != null;
+    }
+
+    /**
+     * Returns the sequence representation of given local column for values stored in external components.
+     * 
+     * @param iidLc The LocalColumn instance id.
+     * @return The sequence representation.
+     * @throws OpenAtfxException if the values of the local column cannot be stored in external components.
+     */
+    int getExtCompSeqRep(long iidLc) throws OpenAtfxException {
+        Element lcElement = api.getUniqueElementByBaseType(AOLOCALCOLUMN);
+        Instance lc = api.getInstanceById(lcElement.getId(), iidLc);
+        int currentSeqRep = lc.getValueByBaseName(AtfxTagConstants.LC_SEQ_REP).getValue().enumVal();
+        int seqRep = ODSHelper.seqRepComp2seqRepExtComp(currentSeqRep);
+        if (seqRep != 7 && seqRep != 8 && seqRep != 9 && seqRep != 11 && seqRep != 13) {
+            throw new OpenAtfxException(ErrorCode.AO_BAD_PARAMETER, "The values of local column with id " + iidLc
+                    + " and sequence representation " + currentSeqRep + " cannot be stored in external components");
+        }
+        return seqRep;
+    }
+
+    /**
+     * Removes the values of given local column from memory and sets its sequence representation, so the values are
+     * read from the external components.
+     * 
+     * @param iidLc The LocalColumn instance id.
+     * @param dataType The data type of the values.
+     * @param seqRep The sequence representation for external components.
+     * @throws OpenAtfxException Error setting the values.
+     */
+    void setValuesExternal(long iidLc, DataType dataType, int seqRep) throws OpenAtfxException {
+        Element lcElement = api.getUniqueElementByBaseType(AOLOCALCOLUMN);
+        Instance lc = api.getInstanceById(lcElement.getId(), iidLc);
+        String valuesAttrName = lcElement.getAttributeByBaseName(AtfxTagConstants.LC_VALUES).getName();
+        lc.setAttributeValue(new NameValueUnit(valuesAttrName, dataType, null));
+        String seqRepAttrName = lcElement.getAttributeByBaseName(AtfxTagConstants.LC_SEQ_REP).getName();
+        api.setAttributeValues(lcElement.getId(), iidLc,
+                               List.of(new NameValueUnit(seqRepAttrName, DataType.DT_ENUM, seqRep)));
+    }
+
+    /**
+     * Writes values of fixed size, split into components at value boundaries if {@link #canSplitComponents()}.
+     * 
+     * @param iidLc The LocalColumn instance id.
+     * @param values The values.
+     * @param regionWriter Writes the values of a component into the component file.
+     * @return The created external components in the order of the values.
+     * @throws IOException Error writing values.
+     */
+    private List<Instance> writeFixedSizeValues(long iidLc, FixedSizeValues values, RegionWriter regionWriter)
+            throws IOException {
+        int unitSize = values.getUnitSize();
+        int valuesPerUnit = values.isPacked() ? 8 : 1;
+
+        ExtCompFileWriters.SegmentWriter writer = fileWriters.get(ExtCompFileWriters.Category.VALUES);
+        long maxComponentUnits = Math.max(1, fileWriters.getComponentSize() / unitSize);
+        boolean split = canSplitComponents();
+        List<Instance> extComps = new ArrayList<>();
+        int ordinalNumber = 1;
+        int done = 0;
+        do {
+            rollIfNoRoom(writer, unitSize);
+            long startOffset = writer.getOffset();
+            long units = Math.min((fileWriters.getSegmentSize() - startOffset) / unitSize, maxComponentUnits);
+            int n = split ? (int) Math.min(values.count - done, Math.max(1, units) * valuesPerUnit) : values.count;
+            String fileName = writer.getFile().getFileName().toString();
+            regionWriter.write(writer, done, n);
+
+            if (values.isPacked()) { // all values in one block
+                extComps.add(createAoExternalComponent(iidLc, fileName, values.valueType, n, startOffset,
+                                                       1 + (n - 1) / 8, n, ordinalNumber++));
+            } else {
+                extComps.add(createAoExternalComponent(iidLc, fileName, values.valueType, n * values.numbersPerValue,
+                                                       startOffset, values.blockSize, 1, ordinalNumber++));
             }
-            // DS_LONGLONG
-            else if (dt == DataType.DS_LONGLONG) {
-                valueType = 4; // dt_longlong
-                blockSize = 8;
-                valuesPerBlock = 1;
-                length = value.longlongSeq().length;
-                ByteBuffer bb = ByteBuffer.allocate(length * blockSize);
-                bb.order(ByteOrder.LITTLE_ENDIAN);
-                for (int i = 0; i < length; i++) {
-                    bb.putLong(value.longlongSeq()[i]);
+            done += n;
+        } while (done < values.count);
+        return extComps;
+    }
+
+    /**
+     * Writes zero terminated strings, split into components at value boundaries if {@link #canSplitComponents()}.
+     * 
+     * @param iidLc The LocalColumn instance id.
+     * @param category The category of the component file, UTF8STRING for dt_string_utf8, STRING for dt_date.
+     * @param seq The strings.
+     * @throws IOException Error writing values.
+     */
+    private void writeStrings(long iidLc, ExtCompFileWriters.Category category, String[] seq) throws IOException {
+        boolean utf8 = category == ExtCompFileWriters.Category.UTF8STRING;
+        ExtCompFileWriters.SegmentWriter writer = fileWriters.get(category);
+        long segmentSize = fileWriters.getSegmentSize();
+        long componentSize = fileWriters.getComponentSize();
+        boolean split = canSplitComponents();
+        int ordinalNumber = 1;
+        int i = 0;
+        byte[] next = seq.length > 0 ? seq[0].getBytes(utf8 ? UTF_8 : ISO_8859_1) : null;
+        do {
+            rollIfNoRoom(writer, next == null ? 0 : next.length + 1);
+            long startOffset = writer.getOffset();
+            int first = i;
+            int length = 0;
+            Buffer.class.cast(slab).clear();
+            while (next != null) {
+                int size = next.length + 1;
+                boolean exceeded = startOffset + length + size > segmentSize || (long) length + size > componentSize;
+                if (split && i > first && exceeded) {
+                    break;
                 }
-                Buffer.class.cast(bb).rewind(); // workaround: make buildable with both java8 and java9
-                channel.write(bb);
-            }
-            // DS_DATE
-            else if (dt == DataType.DS_DATE) {
-                valueType = 12; // dt_date (dt_string)
-                blockSize = 0;
-                length = 0;
-                valuesPerBlock = 1;
-                for (String str : value.dateSeq()) {
-                    byte[] b = str.getBytes(ISO_8859_1);
-                    length += b.length;
-                    ByteBuffer bb = ByteBuffer.wrap(b);
-                    channel.write(bb);
-                    bb = ByteBuffer.wrap(new byte[] { (byte) 0 });
-                    length += 1;
-                    channel.write(bb);
+                if (slab.remaining() < size) {
+                    flushSlab(writer);
                 }
-            }
-            // DS_FLOAT
-            else if (dt == DataType.DS_FLOAT) {
-                valueType = 5; // dt_float
-                blockSize = 4;
-                valuesPerBlock = 1;
-                length = value.floatSeq().length;
-                ByteBuffer bb = ByteBuffer.allocate(length * blockSize);
-                bb.order(ByteOrder.LITTLE_ENDIAN);
-                for (int i = 0; i < length; i++) {
-                    bb.putFloat(value.floatSeq()[i]);
+                if (size > slab.capacity()) {
+                    writer.write(ByteBuffer.wrap(next));
+                    writer.write(ByteBuffer.wrap(new byte[] { (byte) 0 }));
+                } else {
+                    slab.put(next).put((byte) 0);
                 }
-                Buffer.class.cast(bb).rewind(); // workaround: make buildable with both java8 and java9
-                channel.write(bb);
+                length += size;
+                i++;
+                next = i < seq.length ? seq[i].getBytes(utf8 ? UTF_8 : ISO_8859_1) : null;
             }
-            // DS_COMPLEX
-            else if (dt == DataType.DS_COMPLEX) {
-                valueType = 5; // dt_float
-                blockSize = 4;
-                valuesPerBlock = 1;
-                length = value.complexSeq().length * 2;
-                ByteBuffer bb = ByteBuffer.allocate(length * blockSize);
-                bb.order(ByteOrder.LITTLE_ENDIAN);
-                for (int i = 0; i < (length / 2); i++) {
-                    bb.putFloat(value.complexSeq()[i].getR());
-                    bb.putFloat(value.complexSeq()[i].getI());
-                }
-                Buffer.class.cast(bb).rewind(); // workaround: make buildable with both java8 and java9
-                channel.write(bb);
+            flushSlab(writer);
+
+            String fileName = writer.getFile().getFileName().toString();
+            if (utf8) { // dt_string_utf8, all strings in one block
+                createAoExternalComponent(iidLc, fileName, 25, length, startOffset, length, i - first,
+                                          ordinalNumber++);
+            } else { // dt_date (dt_string)
+                createAoExternalComponent(iidLc, fileName, 12, length, startOffset, 0, 1, ordinalNumber++);
             }
-            // DS_DOUBLE
-            else if (dt == DataType.DS_DOUBLE) {
-                valueType = 6; // dt_double
-                blockSize = 8;
-                valuesPerBlock = 1;
-                length = value.doubleSeq().length;
-                ByteBuffer bb = ByteBuffer.allocate(length * blockSize);
-                bb.order(ByteOrder.LITTLE_ENDIAN);
-                for (int i = 0; i < length; i++) {
-                    bb.putDouble(value.doubleSeq()[i]);
-                }
-                Buffer.class.cast(bb).rewind(); // workaround: make buildable with both java8 and java9
-                channel.write(bb);
+        } while (i < seq.length);
+    }
+
+    /**
+     * Writes byte streams, each preceded by its length, split into components at value boundaries if
+     * {@link #canSplitComponents()}.
+     * 
+     * @param iidLc The LocalColumn instance id.
+     * @param seq The byte streams.
+     * @throws IOException Error writing values.
+     */
+    private void writeByteStreams(long iidLc, byte[][] seq) throws IOException {
+        int valueType = 33; // dt_bytestr_leo
+        ExtCompFileWriters.SegmentWriter writer = fileWriters.get(ExtCompFileWriters.Category.BYTESTREAM);
+        long segmentSize = fileWriters.getSegmentSize();
+        long componentSize = fileWriters.getComponentSize();
+        String extCompFileName = writer.getFile().getFileName().toString();
+        long startOffset = writer.getOffset();
+        int length = 0;
+        int valuesPerBlock = 0;
+        boolean split = canSplitComponents();
+        int ordinalNumber = 1;
+
+        for (byte[] currentByteStream : seq) {
+            int lengthOfByteStream = currentByteStream.length;
+
+            int dataLength = 4 + lengthOfByteStream;
+            boolean segmentExceeded = writer.getOffset() + dataLength > segmentSize;
+            if (split && valuesPerBlock > 0 && (segmentExceeded || (long) length + dataLength > componentSize)) {
+                // allowed ext comp size exceeded -> write external component for the values so far
+                createAoExternalComponent(iidLc, extCompFileName, valueType, length, startOffset, 0, valuesPerBlock,
+                                          ordinalNumber++);
+                valuesPerBlock = 0;
+                length = 0;
             }
-            // DS_DCOMPLEX
-            else if (dt == DataType.DS_DCOMPLEX) {
-                valueType = 6; // dt_double
-                blockSize = 8;
-                valuesPerBlock = 1;
-                length = value.dcomplexSeq().length * 2;
-                ByteBuffer bb = ByteBuffer.allocate(length * blockSize);
-                bb.order(ByteOrder.LITTLE_ENDIAN);
-                for (int i = 0; i < length / 2; i++) {
-                    bb.putDouble(value.dcomplexSeq()[i].getR());
-                    bb.putDouble(value.dcomplexSeq()[i].getI());
-                }
-                Buffer.class.cast(bb).rewind(); // workaround: make buildable with both java8 and java9
-                channel.write(bb);
+            if (valuesPerBlock == 0 && writer.getOffset() > 0 && segmentExceeded) {
+                // continue with new ext comp file
+                writer.rollOver();
             }
-            // not supported
-            else {
-                throw new OpenAtfxException(ErrorCode.AO_NOT_IMPLEMENTED, "DataType '" + dt
-                        + "' not yet supported for writing to external component file");
+            if (valuesPerBlock == 0) {
+                extCompFileName = writer.getFile().getFileName().toString();
+                startOffset = writer.getOffset();
             }
 
-            createAoExternalComponent(iidLc, extCompFile, valueType, length, startOffset, blockSize, valuesPerBlock,
-                                      ordinalNumber);
-        } catch (IOException e) {
-            throw new OpenAtfxException(ErrorCode.AO_UNKNOWN_ERROR, e.getMessage());
-        } finally {
-            try {
-                if (channel != null) {
-                    channel.close();
-                }
-                if (fos != null) {
-                    fos.close();
-                }
-                fos = null;
-                channel = null;
-            } catch (Exception e) {
-                LOG.error(e.getMessage(), e);
-            }
+            ByteBuffer bb = ByteBuffer.allocate(dataLength);
+            // length information must be big endian for dt_bytestr typespec, see recent clarification in ODS
+            // documentation:
+            bb.order(ByteOrder.BIG_ENDIAN);
+            // write 4 byte length block
+            bb.putInt(lengthOfByteStream);
+
+            bb.put(currentByteStream, 0, lengthOfByteStream);
+            Buffer.class.cast(bb).rewind(); // workaround: make buildable with both java8 and java9
+            length += writer.write(bb);
+            valuesPerBlock++;
+        }
+        createAoExternalComponent(iidLc, extCompFileName, valueType, length, startOffset, 0, valuesPerBlock,
+                                  ordinalNumber);
+    }
+
+    /**
+     * Rolls over to the next segment file if the next value does not fit into the current one anymore. A value is
+     * always written if the file is empty, even if it exceeds the segment size.
+     */
+    private void rollIfNoRoom(ExtCompFileWriters.SegmentWriter writer, long nextValueSize) {
+        while (writer.getOffset() > 0 && writer.getOffset() + nextValueSize > fileWriters.getSegmentSize()) {
+            writer.rollOver();
         }
     }
 
+    private void flushSlab(ExtCompFileWriters.SegmentWriter writer) throws IOException {
+        Buffer.class.cast(slab).flip();
+        writer.write(slab);
+        Buffer.class.cast(slab).clear();
+    }
+
     /**
      * Creates an AoExternalComponent element based on the given information.
      * 
      * @param iidLc
-     * @param extCompFile
+     * @param extCompFileName
      * @param valueType
      * @param length
      * @param startOffset
      * @param blockSize
      * @param valuesPerBlock
      * @param ordinalNumber
+     * @return The created instance.
      * @throws OpenAtfxException
      */
-    private void createAoExternalComponent(long iidLc, File extCompFile, int valueType, int length, long startOffset,
+    Instance createAoExternalComponent(long iidLc, String extCompFileName, int valueType, int length, long startOffset,
             int blockSize, int valuesPerBlock, int ordinalNumber) throws OpenAtfxException {
+        return createAoExternalComponent(iidLc, extCompFileName, valueType, length, startOffset, blockSize,
+                                         valuesPerBlock, 0, ordinalNumber);
+    }
+
+    /**
+     * Creates an AoExternalComponent element based on the given information.
+     * 
+     * @param iidLc
+     * @param extCompFileName
+     * @param valueType
+     * @param length
+     * @param startOffset
+     * @param blockSize
+     * @param valuesPerBlock
+     * @param valueOffset
+     * @param ordinalNumber
+     * @return The created instance.
+     * @throws OpenAtfxException
+     */
+    Instance createAoExternalComponent(long iidLc, String extCompFileName, int valueType, int length, long startOffset,
+            int blockSize, int valuesPerBlock, int valueOffset, int ordinalNumber) throws OpenAtfxException {
         // create 'AoExternalComponent' instance
         Element lcElement = api.getUniqueElementByBaseType(AOLOCALCOLUMN);
         Element extCompElement = api.getUniqueElementByBaseType(AOEXTERNALCOMPONENT);
@@ -406,28 +756,28 @@ public class ExtCompWriter {
         // collect attribute values
         Collection<NameValueUnit> values = new ArrayList<>();
         // name
-        values.add(new NameValueUnit("name", DataType.DT_STRING, "ExtComp"));
+        addValue(values, extCompElement, "name", DataType.DT_STRING, "ExtComp");
         // filename_url
-        values.add(new NameValueUnit("filename_url", DataType.DT_STRING, extCompFile.getName()));
+        addValue(values, extCompElement, "filename_url", DataType.DT_STRING, extCompFileName);
         // value_type
-        values.add(new NameValueUnit("value_type", DataType.DT_ENUM, valueType));
+        addValue(values, extCompElement, "value_type", DataType.DT_ENUM, valueType);
         // component_length
-        values.add(new NameValueUnit("component_length", DataType.DT_LONG, length));
+        addValue(values, extCompElement, "component_length", DataType.DT_LONG, length);
         // start_offset
         Attribute soAttr = extCompElement.getAttributeByBaseName("start_offset");
         if (DataType.DT_LONG == soAttr.getDataType()) {
             values.add(new NameValueUnit(soAttr.getName(), DataType.DT_LONG, Math.toIntExact(startOffset)));
         } else {
-            values.add(new NameValueUnit(soAttr.getName(), DataType.DT_LONG, startOffset));
+            values.add(new NameValueUnit(soAttr.getName(), DataType.DT_LONGLONG, startOffset));
         }
         // block_size
-        values.add(new NameValueUnit("block_size", DataType.DT_LONG, blockSize));
+        addValue(values, extCompElement, "block_size", DataType.DT_LONG, blockSize);
         // valuesperblock
-        values.add(new NameValueUnit("valuesperblock", DataType.DT_LONG, valuesPerBlock));
+        addValue(values, extCompElement, "valuesperblock", DataType.DT_LONG, valuesPerBlock);
         // value_offset
-        values.add(new NameValueUnit("value_offset", DataType.DT_LONG, 0));
+        addValue(values, extCompElement, "value_offset", DataType.DT_LONG, valueOffset);
         // ordinal_number
-        values.add(new NameValueUnit("ordinal_number", DataType.DT_LONG, ordinalNumber));
+        addValue(values, extCompElement, "ordinal_number", DataType.DT_LONG, ordinalNumber);
 
         // create 'AoExternalComponent' instance
         Instance extComp = api.createInstance(extCompElement.getId(), values);
@@ -435,6 +785,25 @@ public class ExtCompWriter {
         // relation to LocalColumn
         api.setRelatedInstances(lcElement.getId(), iidLc, relLcExtComp.getRelationName(),
                                 Arrays.asList(extComp.getIid()), SetType.INSERT);
+        return extComp;
+    }
+
+    /**
+     * Adds the given value under the name of the application attribute derived from given base attribute. Values of
+     * optional base attributes not present in the application model are skipped.
+     * 
+     * @param values The values to add to.
+     * @param extCompElement The external component element.
+     * @param baseAttrName The base attribute name.
+     * @param dt The data type of the value.
+     * @param value The value.
+     */
+    private static void addValue(Collection<NameValueUnit> values, Element extCompElement, String baseAttrName,
+            DataType dt, Object value) {
+        Attribute attr = extCompElement.getAttributeByBaseName(baseAttrName);
+        if (attr != null) {
+            values.add(new NameValueUnit(attr.getName(), dt, value));
+        }
     }
 
     /**
@@ -450,10 +819,11 @@ public class ExtCompWriter {
         Instance extComp = api.getInstanceById(aidExtComp, iidExtComp);
         ByteOrder flagsByteOrder = api.getByteOrder(aidExtComp, iidExtComp);
 
-        // open file
-        File flagsFile = getExtCompFileFlags(1);
-        try (FileOutputStream fos = new FileOutputStream(flagsFile, true); FileChannel channel = fos.getChannel()) {
-            long startOffset = channel.size();
+        try {
+            ExtCompFileWriters.SegmentWriter writer = fileWriters.get(ExtCompFileWriters.Category.FLAGS);
+            writer.rollIfExceeded();
+            String flagsFileName = writer.getFile().getFileName().toString();
+            long startOffset = writer.getOffset();
 
             // DS_SHORT
             ByteBuffer bb = ByteBuffer.allocate(flags.length * 2);
@@ -462,20 +832,187 @@ public class ExtCompWriter {
                 bb.putShort(flags[i]);
             }
             Buffer.class.cast(bb).rewind(); // workaround: make buildable with both java8 and java9
-            channel.write(bb);
+            writer.write(bb);
 
             // flags_filename_url
-            extComp.setAttributeValue(new NameValueUnit("flags_filename_url", DataType.DT_STRING, flagsFile.getName()));
+            Attribute ffuAttr = extComp.getElement().getAttributeByBaseName("flags_filename_url");
+            extComp.setAttributeValue(new NameValueUnit(ffuAttr.getName(), DataType.DT_STRING, flagsFileName));
             // flags_start_offset
             Attribute fsoAttr = extComp.getElement().getAttributeByBaseName("flags_start_offset");
             if (DataType.DT_LONG == fsoAttr.getDataType()) {
                 extComp.setAttributeValue(new NameValueUnit(fsoAttr.getName(), DataType.DT_LONG,
                                                             Math.toIntExact(startOffset)));
             } else {
-                extComp.setAttributeValue(new NameValueUnit(fsoAttr.getName(), DataType.DT_LONG, startOffset));
+                extComp.setAttributeValue(new NameValueUnit(fsoAttr.getName(), DataType.DT_LONGLONG, startOffset));
             }
         } catch (IOException e) {
             throw new OpenAtfxException(ErrorCode.AO_UNKNOWN_ERROR, e.getMessage());
         }
     }
+
+    /**
+     * Writes the values of a component into the component file.
+     */
+    @FunctionalInterface
+    interface RegionWriter {
+        /**
+         * Writes values at the current offset of the component file.
+         * 
+         * @param writer The writer of the component file.
+         * @param srcIndex The index of the first value.
+         * @param count The number of values.
+         * @throws IOException Error writing the values.
+         */
+        void write(ExtCompFileWriters.SegmentWriter writer, int srcIndex, int count) throws IOException;
+    }
+
+    /**
+     * Values of a data type whose encoded size is known from the number of values.
+     */
+    static class FixedSizeValues {
+        /** the value type, dt_boolean or one of the numeric types */
+        final int valueType;
+        /** the size in bytes of a number, ignored for dt_boolean */
+        final int blockSize;
+        /** the number of numbers forming a value, 2 for complex values, 1 otherwise */
+        final int numbersPerValue;
+        final int count;
+        final ExtCompFileWriters.SlabEncoder encoder;
+
+        private FixedSizeValues(int valueType, int blockSize, int numbersPerValue, int count,
+                ExtCompFileWriters.SlabEncoder encoder) {
+            this.valueType = valueType;
+            this.blockSize = blockSize;
+            this.numbersPerValue = numbersPerValue;
+            this.count = count;
+            this.encoder = encoder;
+        }
+
+        static boolean isSupported(DataType dt) {
+            return dt == DataType.DS_BOOLEAN || dt == DataType.DS_BYTE || dt == DataType.DS_SHORT
+                    || dt == DataType.DS_LONG || dt == DataType.DS_LONGLONG || dt == DataType.DS_FLOAT
+                    || dt == DataType.DS_COMPLEX || dt == DataType.DS_DOUBLE || dt == DataType.DS_DCOMPLEX;
+        }
+
+        /**
+         * @return True if the values are booleans packed into bits, 8 values per byte.
+         */
+        boolean isPacked() {
+            return valueType == 0;
+        }
+
+        /**
+         * @return The number of bytes of the smallest unit values may be split at, a byte of 8 values for packed
+         *         values.
+         */
+        int getUnitSize() {
+            return isPacked() ? 1 : blockSize * numbersPerValue;
+        }
+
+        /**
+         * @param n The number of values.
+         * @return The number of bytes the encoded values occupy.
+         */
+        long getEncodedLength(int n) {
+            return isPacked() ? BooleanBitPacker.getPackedLength(n) : (long) n * getUnitSize();
+        }
+
+        /**
+         * @param slabSize The size of the slab buffer, a multiple of the unit size.
+         * @return The number of values fitting into the slab buffer.
+         */
+        int getValuesPerSlab(int slabSize) {
+            return slabSize / getUnitSize() * (isPacked() ? 8 : 1);
+        }
+
+        /**
+         * Creates the description of given values.
+         * 
+         * @param value The values, the data type has to be supported.
+         * @return The values.
+         */
+        static FixedSizeValues of(SingleValue value) {
+            DataType dt = value.discriminator();
+            // DS_BOOLEAN
+            if (dt == DataType.DS_BOOLEAN) {
+                boolean[] seq = value.booleanSeq();
+                return new FixedSizeValues(0, 0, 1, seq.length, // dt_boolean
+                                           (bb, i, n) -> BooleanBitPacker.pack(seq, i, n, bb));
+            }
+            // DS_BYTE
+            else if (dt == DataType.DS_BYTE) {
+                byte[] seq = value.byteSeq();
+                return new FixedSizeValues(1, 1, 1, seq.length, (bb, i, n) -> { // dt_byte
+                    bb.put(seq, i, n);
+                    return n;
+                });
+            }
+            // DS_SHORT
+            else if (dt == DataType.DS_SHORT) {
+                short[] seq = value.shortSeq();
+                return new FixedSizeValues(2, 2, 1, seq.length, (bb, i, n) -> { // dt_short
+                    bb.asShortBuffer().put(seq, i, n);
+                    return n * 2;
+                });
+            }
+            // DS_LONG
+            else if (dt == DataType.DS_LONG) {
+                int[] seq = value.longSeq();
+                return new FixedSizeValues(3, 4, 1, seq.length, (bb, i, n) -> { // dt_long
+                    bb.asIntBuffer().put(seq, i, n);
+                    return n * 4;
+                });
+            }
+            // DS_LONGLONG
+            else if (dt == DataType.DS_LONGLONG) {
+                long[] seq = value.longlongSeq();
+                return new FixedSizeValues(4, 8, 1, seq.length, (bb, i, n) -> { // dt_longlong
+                    bb.asLongBuffer().put(seq, i, n);
+                    return n * 8;
+                });
+            }
+            // DS_FLOAT
+            else if (dt == DataType.DS_FLOAT) {
+                float[] seq = value.floatSeq();
+                return new FixedSizeValues(5, 4, 1, seq.length, (bb, i, n) -> { // dt_float
+                    bb.asFloatBuffer().put(seq, i, n);
+                    return n * 4;
+                });
+            }
+            // DS_COMPLEX, real and imaginary part are written as two dt_float values
+            else if (dt == DataType.DS_COMPLEX) {
+                Complex[] seq = value.complexSeq();
+                return new FixedSizeValues(5, 4, 2, seq.length, (bb, i, n) -> {
+                    FloatBuffer fb = bb.asFloatBuffer();
+                    for (int k = i; k < i + n; k++) {
+                        fb.put(seq[k].getR());
+                        fb.put(seq[k].getI());
+                    }
+                    return n * 8;
+                });
+            }
+            // DS_DOUBLE
+            else if (dt == DataType.DS_DOUBLE) {
+                double[] seq = value.doubleSeq();
+                return new FixedSizeValues(6, 8, 1, seq.length, (bb, i, n) -> { // dt_double
+                    bb.asDoubleBuffer().put(seq, i, n);
+                    return n * 8;
+                });
+            }
+            // DS_DCOMPLEX, real and imaginary part are written as two dt_double values
+            else if (dt == DataType.DS_DCOMPLEX) {
+                DoubleComplex[] seq = value.dcomplexSeq();
+                return new FixedSizeValues(6, 8, 2, seq.length, (bb, i, n) -> {
+                    DoubleBuffer db = bb.asDoubleBuffer();
+                    for (int k = i; k < i + n; k++) {
+                        db.put(seq[k].getR());
+                        db.put(seq[k].getI());
+                    }
+                    return n * 16;
+                });
+            }
+            throw new OpenAtfxException(ErrorCode.AO_NOT_IMPLEMENTED, "DataType '" + dt
+                    + "' has no fixed size in external component files");
+        }
+    }
 }
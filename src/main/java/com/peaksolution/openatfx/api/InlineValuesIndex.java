@@ -0,0 +1,401 @@
+package com.peaksolution.openatfx.api;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.asam.ods.ErrorCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.peaksolution.openatfx.IFileHandler;
+import com.peaksolution.openatfx.io.AtfxTagConstants;
+
+
+/**
+ * Index of the inline XML values of local columns, which have been skipped while opening the ATFX file and are parsed
+ * from the file on first access.
+ * <p>
+ * The parser only records the ordinal of each skipped 'values' element in the instance data. On first access the byte
+ * offsets of all 'values' elements are located by a single scan over the raw bytes of the file, the character offsets
+ * reported by StAX implementations are not reliable enough for this. Each access then parses only the XML of the one
+ * element. Only numeric sequences in ASCII compatible encodings are deferred, all other values are parsed on opening.
+ *
+ * @author Markus Renner
+ */
+class InlineValuesIndex {
+    private static final Logger LOG = LoggerFactory.getLogger(InlineValuesIndex.class);
+
+    private static final int SCAN_BUFFER_SIZE = 1024 * 64;
+
+    /** the states of the scanner locating the start tags */
+    private static final int TEXT = 0;
+    private static final int TAG_OPEN = 1;
+    private static final int TAG_NAME = 2;
+    private static final int MARKUP_DECLARATION = 3;
+    private static final int COMMENT_OPEN = 4;
+    private static final int COMMENT = 5;
+    private static final int CDATA = 6;
+    private static final int PROCESSING_INSTRUCTION = 7;
+
+    /** the data types of the deferrable value tags */
+    private static final Map<String, DataType> DATATYPES_BY_TAG = Map.of(AtfxTagConstants.VALUES_ATTR_INT8,
+                                                                         DataType.DS_BYTE,
+                                                                         AtfxTagConstants.VALUES_ATTR_INT16,
+                                                                         DataType.DS_SHORT,
+                                                                         AtfxTagConstants.VALUES_ATTR_INT32,
+                                                                         DataType.DS_LONG,
+                                                                         AtfxTagConstants.VALUES_ATTR_INT64,
+                                                                         DataType.DS_LONGLONG,
+                                                                         AtfxTagConstants.VALUES_ATTR_FLOAT32,
+                                                                         DataType.DS_FLOAT,
+                                                                         AtfxTagConstants.VALUES_ATTR_FLOAT64,
+                                                                         DataType.DS_DOUBLE,
+                                                                         AtfxTagConstants.VALUES_ATTR_COMPLEX32,
+                                                                         DataType.DS_COMPLEX,
+                                                                         AtfxTagConstants.VALUES_ATTR_COMPLEX64,
+                                                                         DataType.DS_DCOMPLEX);
+
+    private final IFileHandler fileHandler;
+    private final Path atfxPath;
+    private final Charset charset;
+    private final String lcValuesAttrName;
+    private final boolean isExtendedCompatibilityMode;
+
+    /** local column iid -> skipped values element */
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    /** the number of 'values' elements in the instance data, skipped or not */
+    private int elementCount;
+    /** the byte offsets of all 'values' elements in the instance data by ordinal, located on first access */
+    private long[] elementOffsets;
+
+    /**
+     * Constructor.
+     *
+     * @param fileHandler The file handler to read the ATFX file with.
+     * @param atfxPath The path of the ATFX file.
+     * @param charset The encoding of the ATFX file, see {@link #getSupportedCharset(String)}.
+     * @param lcValuesAttrName The name of the 'values' attribute of the local column element.
+     * @param isExtendedCompatibilityMode Whether unsupported value tags are tolerated.
+     */
+    InlineValuesIndex(IFileHandler fileHandler, Path atfxPath, Charset charset, String lcValuesAttrName,
+            boolean isExtendedCompatibilityMode) {
+        this.fileHandler = fileHandler;
+        this.atfxPath = atfxPath;
+        this.charset = charset;
+        this.lcValuesAttrName = lcValuesAttrName;
+        this.isExtendedCompatibilityMode = isExtendedCompatibilityMode;
+    }
+
+    /**
+     * Returns the charset of given encoding name if the raw bytes of the file can be scanned for tags, which requires
+     * every ASCII character to be encoded as the same single byte.
+     *
+     * @param encoding The encoding name reported by the XML stream reader, null for the default UTF-8.
+     * @return The charset, null if not supported.
+     */
+    static Charset getSupportedCharset(String encoding) {
+        if (encoding == null || encoding.isBlank()) {
+            return StandardCharsets.UTF_8;
+        }
+        try {
+            Charset charset = Charset.forName(encoding.trim());
+            if (StandardCharsets.UTF_8.equals(charset) || StandardCharsets.US_ASCII.equals(charset)
+                    || StandardCharsets.ISO_8859_1.equals(charset)) {
+                return charset;
+            }
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            LOG.debug("Unknown encoding '{}': {}", encoding, e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Returns the data type of the values of given value tag, if the values of this tag may be deferred.
+     *
+     * @param valueTag The local name of the value tag, for example 'A_FLOAT64'.
+     * @return The data type, null if values of this tag are not deferred.
+     */
+    static DataType getDataType(String valueTag) {
+        return DATATYPES_BY_TAG.get(valueTag);
+    }
+
+    /**
+     * Adds a skipped values element.
+     *
+     * @param iidLc The instance id of the local column.
+     * @param ordinal The ordinal of the 'values' element in the instance data.
+     * @param valueTag The local name of the value tag inside the 'values' element.
+     */
+    void add(long iidLc, int ordinal, String valueTag) {
+        entries.put(iidLc, new Entry(ordinal, valueTag, getDataType(valueTag)));
+    }
+
+    /**
+     * Sets the number of 'values' elements found in the instance data, skipped or not.
+     *
+     * @param elementCount The number of elements.
+     */
+    void setElementCount(int elementCount) {
+        this.elementCount = elementCount;
+    }
+
+    /**
+     * @param iidLc The instance id of the local column.
+     * @return Whether the values of given local column have been skipped and not been replaced yet.
+     */
+    boolean contains(long iidLc) {
+        return entries.containsKey(iidLc);
+    }
+
+    /**
+     * Removes the skipped values of a local column, for example because new values have been set.
+     *
+     * @param iidLc The instance id of the local column.
+     */
+    void remove(long iidLc) {
+        entries.remove(iidLc);
+    }
+
+    /**
+     * @return The instance ids of all local columns with skipped values.
+     */
+    Collection<Long> getIids() {
+        return new ArrayList<>(entries.keySet());
+    }
+
+    /**
+     * @param iidLc The instance id of the local column.
+     * @return The data type of the skipped values, null if the values of the local column have not been skipped.
+     */
+    DataType getDataType(long iidLc) {
+        Entry entry = entries.get(iidLc);
+        return entry == null ? null : entry.dataType;
+    }
+
+    /**
+     * Returns whether given file is the ATFX file the values are read from.
+     *
+     * @param file The file.
+     * @return True if it is the same file.
+     */
+    boolean isSourceFile(File file) {
+        Path path = file.toPath();
+        try {
+            return Files.exists(path) && Files.exists(atfxPath) && Files.isSameFile(atfxPath, path);
+        } catch (IOException e) {
+            return atfxPath.toAbsolutePath().normalize().equals(path.toAbsolutePath().normalize());
+        }
+    }
+
+    /**
+     * Parses the skipped values of a local column from the ATFX file.
+     *
+     * @param iidLc The instance id of the local column.
+     * @return The values.
+     * @throws OpenAtfxException Error reading the values.
+     */
+    SingleValue read(long iidLc) {
+        Entry entry = entries.get(iidLc);
+        if (entry == null) {
+            throw new OpenAtfxException(ErrorCode.AO_NOT_FOUND, "No inline values recorded for local column with iid="
+                    + iidLc);
+        }
+        long offset = getElementOffset(entry.ordinal);
+        try (SeekableByteChannel channel = fileHandler.getFileChannel(atfxPath)) {
+            channel.position(offset);
+            Reader in = Channels.newReader(channel, charset.newDecoder(), -1);
+            XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+            inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+            XMLStreamReader rawReader = inputFactory.createXMLStreamReader(in);
+            XMLStreamReader reader = inputFactory.createFilteredReader(rawReader, new StartEndElementFilter());
+            try {
+                if (!reader.isStartElement() || !lcValuesAttrName.equals(reader.getLocalName())) {
+                    throw new OpenAtfxException(ErrorCode.AO_IMPLEMENTATION_PROBLEM, "No '" + lcValuesAttrName
+                            + "' element found at offset " + offset + " of '" + atfxPath + "'");
+                }
+                reader.nextTag();
+                if (!reader.isStartElement() || !entry.valueTag.equals(reader.getLocalName())) {
+                    throw new OpenAtfxException(ErrorCode.AO_IMPLEMENTATION_PROBLEM, "Expected '" + entry.valueTag
+                            + "' values for local column with iid=" + iidLc + " at offset " + offset + " of '"
+                            + atfxPath + "', the file may have been changed");
+                }
+                AtfxParser parser = new AtfxParser(fileHandler, atfxPath, isExtendedCompatibilityMode, null);
+                return parser.parseLocalColumnValues(reader, lcValuesAttrName).getValue();
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            throw new OpenAtfxException(ErrorCode.AO_UNKNOWN_ERROR, "Error reading inline values of local column with iid="
+                    + iidLc + " from '" + atfxPath + "': " + e.getMessage());
+        } catch (XMLStreamException e) {
+            throw new OpenAtfxException(ErrorCode.AO_UNKNOWN_ERROR, "Error parsing inline values of local column with iid="
+                    + iidLc + " from '" + atfxPath + "': " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the byte offset of a 'values' element, locating all elements on first call.
+     *
+     * @param ordinal The ordinal of the element in the instance data.
+     * @return The offset of its start tag.
+     * @throws OpenAtfxException Error reading the file.
+     */
+    private synchronized long getElementOffset(int ordinal) {
+        if (elementOffsets == null) {
+            long start = System.currentTimeMillis();
+            try {
+                elementOffsets = locateElements();
+            } catch (IOException e) {
+                throw new OpenAtfxException(ErrorCode.AO_UNKNOWN_ERROR, "Error locating inline values in '"
+                        + atfxPath + "': " + e.getMessage());
+            }
+            LOG.info("Located {} inline values elements in {} ms", elementOffsets.length,
+                     System.currentTimeMillis() - start);
+        }
+        return elementOffsets[ordinal];
+    }
+
+    /**
+     * Scans the raw bytes of the ATFX file for the start tags of all 'values' elements after the start of the instance
+     * data. Comments, CDATA sections and processing instructions are skipped like by an XML parser, so the n-th start
+     * tag found is the n-th 'values' element the parser has reported.
+     *
+     * @return The byte offsets of the start tags by ordinal.
+     * @throws IOException Error reading the file.
+     * @throws OpenAtfxException If fewer elements than expected have been found.
+     */
+    private long[] locateElements() throws IOException {
+        byte[] instanceDataName = AtfxTagConstants.INSTANCE_DATA.getBytes(charset);
+        byte[] valuesName = lcValuesAttrName.getBytes(charset);
+        long[] offsets = new long[elementCount];
+        int found = 0;
+
+        byte[] name = instanceDataName;
+        int state = TEXT;
+        int matched = 0;
+        boolean mismatch = false;
+        int endMarks = 0;
+        long tagOffset = 0;
+        long position = 0;
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        byte[] bytes = buffer.array();
+        try (SeekableByteChannel channel = fileHandler.getFileChannel(atfxPath)) {
+            int read;
+            while (found < offsets.length && (read = channel.read(buffer)) >= 0) {
+                for (int i = 0; i < read && found < offsets.length; i++, position++) {
+                    byte b = bytes[i];
+                    switch (state) {
+                        case TEXT:
+                            if (b == '<') {
+                                tagOffset = position;
+                                state = TAG_OPEN;
+                            }
+                            break;
+                        case TAG_OPEN:
+                            if (b == '/') {
+                                state = TEXT;
+                            } else if (b == '!') {
+                                state = MARKUP_DECLARATION;
+                            } else if (b == '?') {
+                                endMarks = 0;
+                                state = PROCESSING_INSTRUCTION;
+                            } else {
+                                mismatch = name[0] != b;
+                                matched = mismatch ? 0 : 1;
+                                state = TAG_NAME;
+                            }
+                            break;
+                        case TAG_NAME:
+                            if (b == ':') {
+                                // namespace prefix
+                                matched = 0;
+                                mismatch = false;
+                            } else if (b == '>' || b == '/' || b <= ' ') {
+                                if (!mismatch && matched == name.length) {
+                                    if (name == instanceDataName) {
+                                        name = valuesName;
+                                    } else {
+                                        offsets[found++] = tagOffset;
+                                    }
+                                }
+                                state = TEXT;
+                            } else if (!mismatch && matched < name.length && name[matched] == b) {
+                                matched++;
+                            } else {
+                                mismatch = true;
+                            }
+                            break;
+                        case MARKUP_DECLARATION:
+                            endMarks = 0;
+                            if (b == '-') {
+                                state = COMMENT_OPEN;
+                            } else if (b == '[') {
+                                state = CDATA;
+                            } else {
+                                // document type declaration
+                                state = TEXT;
+                            }
+                            break;
+                        case COMMENT_OPEN:
+                            state = COMMENT;
+                            break;
+                        case COMMENT:
+                            // ends with "-->"
+                            state = b == '>' && endMarks >= 2 ? TEXT : COMMENT;
+                            endMarks = b == '-' ? endMarks + 1 : 0;
+                            break;
+                        case CDATA:
+                            // ends with "]]>"
+                            state = b == '>' && endMarks >= 2 ? TEXT : CDATA;
+                            endMarks = b == ']' ? endMarks + 1 : 0;
+                            break;
+                        case PROCESSING_INSTRUCTION:
+                            // ends with "?>"
+                            state = b == '>' && endMarks >= 1 ? TEXT : PROCESSING_INSTRUCTION;
+                            endMarks = b == '?' ? 1 : 0;
+                            break;
+                        default:
+                            break;
+                    }
+                }
+                buffer.clear();
+            }
+        }
+        if (found < offsets.length) {
+            throw new OpenAtfxException(ErrorCode.AO_IMPLEMENTATION_PROBLEM, "Found only " + found + " of "
+                    + offsets.length + " '" + lcValuesAttrName + "' elements in '" + atfxPath
+                    + "', the file may have been changed");
+        }
+        return offsets;
+    }
+
+    private static class Entry {
+        private final int ordinal;
+        private final String valueTag;
+        private final DataType dataType;
+
+        private Entry(int ordinal, String valueTag, DataType dataType) {
+            this.ordinal = ordinal;
+            this.valueTag = valueTag;
+            this.dataType = dataType;
+        }
+    }
+}
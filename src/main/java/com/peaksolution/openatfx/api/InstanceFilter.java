@@ -0,0 +1,20 @@
+package com.peaksolution.openatfx.api;
+
+/**
+ * Decides which instances are loaded when opening an ATFX file. Rejected instances are skipped while parsing and the
+ * relations of other instances to them are dropped.
+ *
+ * @author Markus Renner
+ */
+@FunctionalInterface
+public interface InstanceFilter {
+
+    /**
+     * Returns whether to load an instance.
+     * 
+     * @param aeName The name of the application element.
+     * @param iid The id of the instance.
+     * @return true to load the instance, false to skip it.
+     */
+    boolean accept(String aeName, long iid);
+}
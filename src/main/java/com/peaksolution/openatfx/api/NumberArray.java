@@ -0,0 +1,401 @@
+package com.peaksolution.openatfx.api;
+
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+
+import org.asam.ods.ErrorCode;
+
+
+/**
+ * Preallocated primitive target array for numeric values decoded from external component files.
+ * <p>
+ * Each implementation stores the values in the primitive array matching the ODS data type, so decoding does not have
+ * to box any value. The conversion rules of the setters are the same as the ones of the respective
+ * <code>java.lang.Number</code> methods (e.g. <code>byteValue()</code>, <code>floatValue()</code>).
+ *
+ * @author Markus Renner
+ */
+abstract class NumberArray {
+
+    /**
+     * Creates the target array for given data type.
+     *
+     * @param dataType The sequence data type of the values to read.
+     * @param length The number of raw values to hold. For complex data types this is the number of real and
+     *            imaginary parts.
+     * @return The target array.
+     * @throws OpenAtfxException if given data type is not numeric.
+     */
+    static NumberArray create(DataType dataType, int length) {
+        if (dataType == DataType.DS_BOOLEAN) {
+            return new BooleanArray(length);
+        } else if (dataType == DataType.DS_BYTE) {
+            return new ByteArray(length);
+        } else if (dataType == DataType.DS_SHORT) {
+            return new ShortArray(length);
+        } else if (dataType == DataType.DS_LONG) {
+            return new IntArray(length);
+        } else if (dataType == DataType.DS_LONGLONG) {
+            return new LongArray(length);
+        } else if (dataType == DataType.DS_FLOAT) {
+            return new FloatArray(length);
+        } else if (dataType == DataType.DS_DOUBLE) {
+            return new DoubleArray(length);
+        } else if (dataType == DataType.DS_COMPLEX) {
+            return new ComplexArray(length);
+        } else if (dataType == DataType.DS_DCOMPLEX) {
+            return new DoubleComplexArray(length);
+        }
+        throw new OpenAtfxException(ErrorCode.AO_NOT_IMPLEMENTED,
+                                    "Reading values from external component not yet supported for datatype: "
+                                            + dataType);
+    }
+
+    /**
+     * @return The number of raw values this array holds.
+     */
+    abstract int length();
+
+    abstract void setLong(int index, long value);
+
+    abstract void setDouble(int index, double value);
+
+    void setShorts(int index, ShortBuffer src, int count) {
+        for (int i = 0; i < count; i++) {
+            setLong(index + i, src.get());
+        }
+    }
+
+    void setInts(int index, IntBuffer src, int count) {
+        for (int i = 0; i < count; i++) {
+            setLong(index + i, src.get());
+        }
+    }
+
+    void setLongs(int index, LongBuffer src, int count) {
+        for (int i = 0; i < count; i++) {
+            setLong(index + i, src.get());
+        }
+    }
+
+    void setFloats(int index, FloatBuffer src, int count) {
+        for (int i = 0; i < count; i++) {
+            setDouble(index + i, src.get());
+        }
+    }
+
+    void setDoubles(int index, DoubleBuffer src, int count) {
+        for (int i = 0; i < count; i++) {
+            setDouble(index + i, src.get());
+        }
+    }
+
+    /**
+     * @return The value holding the decoded array.
+     */
+    abstract SingleValue toSingleValue();
+
+    private static class BooleanArray extends NumberArray {
+        private final boolean[] ar;
+
+        BooleanArray(int length) {
+            this.ar = new boolean[length];
+        }
+
+        @Override
+        int length() {
+            return ar.length;
+        }
+
+        @Override
+        void setLong(int index, long value) {
+            ar[index] = (byte) value != 0;
+        }
+
+        @Override
+        void setDouble(int index, double value) {
+            ar[index] = (byte) value != 0;
+        }
+
+        @Override
+        SingleValue toSingleValue() {
+            return new SingleValue(DataType.DS_BOOLEAN, ar);
+        }
+    }
+
+    private static class ByteArray extends NumberArray {
+        private final byte[] ar;
+
+        ByteArray(int length) {
+            this.ar = new byte[length];
+        }
+
+        @Override
+        int length() {
+            return ar.length;
+        }
+
+        @Override
+        void setLong(int index, long value) {
+            ar[index] = (byte) value;
+        }
+
+        @Override
+        void setDouble(int index, double value) {
+            ar[index] = (byte) value;
+        }
+
+        @Override
+        SingleValue toSingleValue() {
+            return new SingleValue(DataType.DS_BYTE, ar);
+        }
+    }
+
+    private static class ShortArray extends NumberArray {
+        private final short[] ar;
+
+        ShortArray(int length) {
+            this.ar = new short[length];
+        }
+
+        @Override
+        int length() {
+            return ar.length;
+        }
+
+        @Override
+        void setLong(int index, long value) {
+            ar[index] = (short) value;
+        }
+
+        @Override
+        void setDouble(int index, double value) {
+            ar[index] = (short) value;
+        }
+
+        @Override
+        void setShorts(int index, ShortBuffer src, int count) {
+            src.get(ar, index, count);
+        }
+
+        @Override
+        SingleValue toSingleValue() {
+            return new SingleValue(DataType.DS_SHORT, ar);
+        }
+    }
+
+    private static class IntArray extends NumberArray {
+        private final int[] ar;
+
+        IntArray(int length) {
+            this.ar = new int[length];
+        }
+
+        @Override
+        int length() {
+            return ar.length;
+        }
+
+        @Override
+        void setLong(int index, long value) {
+            ar[index] = (int) value;
+        }
+
+        @Override
+        void setDouble(int index, double value) {
+            ar[index] = (int) value;
+        }
+
+        @Override
+        void setInts(int index, IntBuffer src, int count) {
+            src.get(ar, index, count);
+        }
+
+        @Override
+        SingleValue toSingleValue() {
+            return new SingleValue(DataType.DS_LONG, ar);
+        }
+    }
+
+    private static class LongArray extends NumberArray {
+        private final long[] ar;
+
+        LongArray(int length) {
+            this.ar = new long[length];
+        }
+
+        @Override
+        int length() {
+            return ar.length;
+        }
+
+        @Override
+        void setLong(int index, long value) {
+            ar[index] = value;
+        }
+
+        @Override
+        void setDouble(int index, double value) {
+            ar[index] = (long) value;
+        }
+
+        @Override
+        void setLongs(int index, LongBuffer src, int count) {
+            src.get(ar, index, count);
+        }
+
+        @Override
+        SingleValue toSingleValue() {
+            return new SingleValue(DataType.DS_LONGLONG, ar);
+        }
+    }
+
+    private static class FloatArray extends NumberArray {
+        private final float[] ar;
+
+        FloatArray(int length) {
+            this.ar = new float[length];
+        }
+
+        @Override
+        int length() {
+            return ar.length;
+        }
+
+        @Override
+        void setLong(int index, long value) {
+            ar[index] = value;
+        }
+
+        @Override
+        void setDouble(int index, double value) {
+            ar[index] = (float) value;
+        }
+
+        @Override
+        void setFloats(int index, FloatBuffer src, int count) {
+            src.get(ar, index, count);
+        }
+
+        @Override
+        SingleValue toSingleValue() {
+            return new SingleValue(DataType.DS_FLOAT, ar);
+        }
+    }
+
+    private static class DoubleArray extends NumberArray {
+        private final double[] ar;
+
+        DoubleArray(int length) {
+            this.ar = new double[length];
+        }
+
+        @Override
+        int length() {
+            return ar.length;
+        }
+
+        @Override
+        void setLong(int index, long value) {
+            ar[index] = value;
+        }
+
+        @Override
+        void setDouble(int index, double value) {
+            ar[index] = value;
+        }
+
+        @Override
+        void setDoubles(int index, DoubleBuffer src, int count) {
+            src.get(ar, index, count);
+        }
+
+        @Override
+        SingleValue toSingleValue() {
+            return new SingleValue(DataType.DS_DOUBLE, ar);
+        }
+    }
+
+    /**
+     * Holds real and imaginary parts alternating, the complex objects are only created at the end.
+     */
+    private static class ComplexArray extends NumberArray {
+        private final float[] ar;
+
+        ComplexArray(int length) {
+            this.ar = new float[length];
+        }
+
+        @Override
+        int length() {
+            return ar.length;
+        }
+
+        @Override
+        void setLong(int index, long value) {
+            ar[index] = value;
+        }
+
+        @Override
+        void setDouble(int index, double value) {
+            ar[index] = (float) value;
+        }
+
+        @Override
+        void setFloats(int index, FloatBuffer src, int count) {
+            src.get(ar, index, count);
+        }
+
+        @Override
+        SingleValue toSingleValue() {
+            Complex[] complexes = new Complex[ar.length / 2];
+            for (int i = 0; i < complexes.length; i++) {
+                complexes[i] = new Complex(ar[i * 2], ar[i * 2 + 1]);
+            }
+            return new SingleValue(DataType.DS_COMPLEX, complexes);
+        }
+    }
+
+    /**
+     * Holds real and imaginary parts alternating, the complex objects are only created at the end.
+     */
+    private static class DoubleComplexArray extends NumberArray {
+        private final double[] ar;
+
+        DoubleComplexArray(int length) {
+            this.ar = new double[length];
+        }
+
+        @Override
+        int length() {
+            return ar.length;
+        }
+
+        @Override
+        void setLong(int index, long value) {
+            ar[index] = value;
+        }
+
+        @Override
+        void setDouble(int index, double value) {
+            ar[index] = value;
+        }
+
+        @Override
+        void setDoubles(int index, DoubleBuffer src, int count) {
+            src.get(ar, index, count);
+        }
+
+        @Override
+        SingleValue toSingleValue() {
+            DoubleComplex[] complexes = new DoubleComplex[ar.length / 2];
+            for (int i = 0; i < complexes.length; i++) {
+                complexes[i] = new DoubleComplex(ar[i * 2], ar[i * 2 + 1]);
+            }
+            return new SingleValue(DataType.DS_DCOMPLEX, complexes);
+        }
+    }
+}
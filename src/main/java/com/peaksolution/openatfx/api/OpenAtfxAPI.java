@@ -5,6 +5,8 @@ import java.nio.ByteOrder;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import org.asam.ods.SetType;
 
@@ -14,6 +16,12 @@ public interface OpenAtfxAPI {
     
     void writeAtfx(File file);
     
+    /**
+     * Releases the resources held for reading and writing external component files, like cached memory mappings.
+     * The API may still be used afterwards, the resources are acquired again when needed.
+     */
+    void close();
+    
     /***************************************************************************************
      * context
      ***************************************************************************************/
@@ -68,6 +76,140 @@ public interface OpenAtfxAPI {
     
     void setInstanceAttributeValue(long aid, long iid, NameValueUnit nvu);
     
+    /**
+     * Returns a window of the values of a local column. If the values are stored in external component files, only
+     * the blocks holding the requested values are read.
+     * 
+     * @param aid The application element id of the local column.
+     * @param iid The instance id of the local column.
+     * @param startIndex The index of the first value.
+     * @param count The maximum number of values, fewer values are returned if the end of the column is reached.
+     * @return The values.
+     */
+    NameValueUnit getLocalColumnValues(long aid, long iid, int startIndex, int count);
+    
+    /**
+     * Returns a window of the flags of a local column. If the flags are stored in external component flags files, only
+     * the requested flags are read.
+     * 
+     * @param aid The application element id of the local column.
+     * @param iid The instance id of the local column.
+     * @param startIndex The index of the first flag.
+     * @param count The maximum number of flags, fewer flags are returned if the end of the column is reached.
+     * @return The flags, null if the local column element has no flags attribute.
+     */
+    NameValueUnit getLocalColumnFlags(long aid, long iid, int startIndex, int count);
+    
+    /**
+     * Reads the values of a local column asynchronously, with the same result as reading its 'values' attribute. The
+     * instances must not be modified until the returned future is completed.
+     * 
+     * @param iidLc The instance id of the local column.
+     * @return The future values, completed exceptionally with an {@link OpenAtfxException} on errors.
+     */
+    CompletableFuture<SingleValue> readValuesAsync(long iidLc);
+    
+    /**
+     * Reads the values of multiple local columns asynchronously. Local columns stored in the same component file are
+     * read one after the other, ordered by their offset within that file, different files are read in parallel. The instances must not be
+     * modified until the returned future is completed.
+     * 
+     * @param iidLcs The instance ids of the local columns.
+     * @return The future values by local column instance id, in the order of the given ids, completed exceptionally
+     *         with an {@link OpenAtfxException} if the values of any local column could not be read.
+     */
+    CompletableFuture<Map<Long, SingleValue>> readValuesAsync(Collection<Long> iidLcs);
+    
+    /**
+     * Sets the executor the asynchronous reads are scheduled on. By default a virtual thread is started per task on
+     * runtimes supporting virtual threads, the common fork join pool is used otherwise.
+     * 
+     * @param executor The executor, null to use the default one.
+     */
+    void setAsyncExecutor(Executor executor);
+    
+    /**
+     * Sets the executor the parallel writes of {@link #writeValuesParallel(Map)} and {@link #externalizeInlineValues()}
+     * are scheduled on. The writes block on file I/O, so by default they run on a small pool of threads of their own
+     * instead of the common fork join pool.
+     * 
+     * @param executor The executor, null to use the default one.
+     */
+    void setWriteExecutor(Executor executor);
+    
+    /**
+     * Creates an appender writing the values of a local column chunk by chunk to external component files, regardless
+     * of the write mode. The existing values of the local column are replaced, the new values can be read after the
+     * appender has been closed.
+     * 
+     * @param iidLc The instance id of the local column.
+     * @return The appender, to be closed after the last values have been appended.
+     * @throws OpenAtfxException if the data type or sequence representation of the local column does not allow to
+     *             store its values in external components.
+     */
+    ColumnAppender createColumnAppender(long iidLc);
+    
+    /**
+     * Writes the values of several local columns to external component files in parallel, regardless of the write
+     * mode. The existing values of the local columns are replaced.
+     * <p>
+     * The external components are created in the iteration order of the given map, so the component files are
+     * reproducible for the same column order. The values of fixed size are written into byte ranges reserved up front
+     * on the executor set by {@link #setWriteExecutor(Executor)}, strings, dates and byte streams are written
+     * sequentially.
+     * 
+     * @param valuesByLc The values by instance id of the local column, in column order.
+     * @throws OpenAtfxException if the sequence representation of a local column does not allow to store its values in
+     *             external components, or on errors writing the values.
+     */
+    void writeValuesParallel(Map<Long, SingleValue> valuesByLc);
+    
+    /**
+     * Writes the values of local columns of a submatrix to external component files in a row-interleaved layout,
+     * regardless of the write mode. The existing values of the local columns are replaced.
+     * <p>
+     * Each record holds the values of one row of all given columns, in the iteration order of the map. The external
+     * components of each column have the record size as block size and the position of the column within the record
+     * as value offset, so readers of whole rows can scan the records sequentially. Only numeric data types are
+     * supported, and each column needs as many values as the submatrix has rows.
+     * 
+     * @param iidSubMatrix The instance id of the submatrix.
+     * @param valuesByLc The values by instance id of the local column, in column order.
+     * @throws OpenAtfxException if a local column does not belong to the submatrix, its values do not match the number
+     *             of rows or cannot be interleaved, or on errors writing the values.
+     */
+    void writeSubMatrixInterleaved(long iidSubMatrix, Map<Long, SingleValue> valuesByLc);
+    
+    /**
+     * Compacts the external component files. The byte ranges still referenced by the values and flags of external
+     * components are copied into new segment files, and the file names and start offsets of the external components
+     * are rewritten to reference them. Space left behind by replaced values is thereby reclaimed.
+     * <p>
+     * The old files are still referenced by the ATFX file on disk, so they are not deleted. Once the ATFX file has been
+     * written with {@link #writeAtfx(File)}, the files returned by {@link CompactionResult#getObsoleteFiles()} may be
+     * deleted. No values are appended to them anymore.
+     * 
+     * @return The result, reporting the reclaimed space.
+     * @throws OpenAtfxException Error copying the values, the external components are left unchanged.
+     */
+    CompactionResult compactExtCompFiles();
+    
+    /**
+     * Moves the inline values and flags of all local columns with explicit or raw sequence representation to external
+     * component files, regardless of the write mode. The values are written in parallel as described at
+     * {@link #writeValuesParallel(Map)}, the local columns are processed in the order of their instance ids, so the
+     * component files are the same for any executor. Local columns whose values or flags cannot be stored in external
+     * components, like flags of complex values, stay inline. Moved flags are removed from the local columns.
+     * <p>
+     * This changes the session: the moved local columns get the sequence representation 'external_component' and the
+     * component files are written to the 'FILE_ROOT' of the session. Writing the ATFX file does not move any values, to
+     * export a file with external values call this method before writing it.
+     * 
+     * @return The number of local columns whose values have been moved.
+     * @throws OpenAtfxException Error writing the values.
+     */
+    int externalizeInlineValues();
+    
     /**
      * Returns the unit id for given unit name, if found.
      * 
@@ -11,12 +11,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import org.asam.ods.ErrorCode;
 import org.asam.ods.SetType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.peaksolution.openatfx.IFileHandler;
 import com.peaksolution.openatfx.util.PatternUtil;
 
 
@@ -29,6 +32,7 @@ public class OpenAtfxAPIImplementation implements OpenAtfxAPI {
     private final Map<String, NameValueUnit> context;
 
     private AtfxCache atfxCache;
+    private AsyncColumnLoader asyncColumnLoader;
     private final BaseModel baseModel;
 
     public OpenAtfxAPIImplementation(BaseModel baseModel) {
@@ -41,9 +45,23 @@ public class OpenAtfxAPIImplementation implements OpenAtfxAPI {
         ExtCompWriter extCompWriter = new ExtCompWriter(this);
 
         this.atfxCache = new AtfxCache(baseModel, extCompReader, extCompWriter);
+        this.asyncColumnLoader = new AsyncColumnLoader(atfxCache);
         for (NameValueUnit nvu : context) {
             initContext(nvu);
         }
+        NameValueUnit writeMode = getContext(OpenAtfxConstants.CONTEXT_WRITE_MODE);
+        if (writeMode != null) {
+            atfxCache.setWriteMode(writeMode.getValue().stringVal());
+        }
+    }
+    
+    /**
+     * Sets the file handler the external component files are read with.
+     * 
+     * @param fileHandler The file handler.
+     */
+    public void setFileHandler(IFileHandler fileHandler) {
+        atfxCache.getExtCompReader().setFileHandler(fileHandler);
     }
     
     @Override
@@ -51,11 +69,70 @@ public class OpenAtfxAPIImplementation implements OpenAtfxAPI {
         return baseModel;
     }
     
+    /**
+     * Sets the index of the inline values of local columns skipped while opening the file.
+     * 
+     * @param inlineValues The index.
+     */
+    void setInlineValuesIndex(InlineValuesIndex inlineValues) {
+        atfxCache.setInlineValuesIndex(inlineValues);
+    }
+
+    /**
+     * @return The index of the inline values of local columns skipped while opening the file, null if none.
+     */
+    InlineValuesIndex getInlineValuesIndex() {
+        return atfxCache.getInlineValuesIndex();
+    }
+    
     @Override
     public void writeAtfx(File file) {
+        // skipped inline values are read from the file, which is about to be overwritten
+        loadInlineValues(file);
         AtfxWriter.getInstance().writeXML(file, this);
     }
 
+    /**
+     * Reads the inline values skipped while opening the file into memory, if given file is the file they are read
+     * from. This has to be done before that file is overwritten or replaced, their positions in it change.
+     * 
+     * @param file The file about to be overwritten or replaced.
+     * @throws OpenAtfxException Error reading the values.
+     */
+    public void loadInlineValues(File file) {
+        atfxCache.loadInlineValues(file);
+    }
+    
+    /**
+     * Forces the values written to external component files so far to the storage device, the files stay open.
+     */
+    public void flushExtCompFiles() {
+        atfxCache.getExtCompWriter().flush();
+    }
+
+    /**
+     * Forces the values written to external component files so far to the storage device and closes the files.
+     */
+    public void closeExtCompFiles() {
+        atfxCache.getExtCompWriter().close();
+    }
+
+    /**
+     * @return the cache of the values read from external component files.
+     */
+    ExtCompValuesCache getValuesCache() {
+        return atfxCache.getValuesCache();
+    }
+
+    @Override
+    public void close() {
+        atfxCache.getExtCompWriter().close();
+        atfxCache.getExtCompReader().close();
+        asyncColumnLoader.close();
+        LOG.debug("Released {}", atfxCache.getValuesCache());
+        atfxCache.getValuesCache().invalidateAll();
+    }
+
     /***********************************************************************************
      * context
      ***********************************************************************************/
@@ -100,6 +177,36 @@ public class OpenAtfxAPIImplementation implements OpenAtfxAPI {
             }
             atfxCache.setExtendedCompatibilityMode(compatibilityMode);
         }
+
+        // set the size of the cache for values read from external component files
+        else if (OpenAtfxConstants.CONTEXT_EXT_COMP_CACHE_SIZE.equals(valName)) {
+            NameValueUnit nvu = getContext().get(OpenAtfxConstants.CONTEXT_EXT_COMP_CACHE_SIZE);
+            DataType dt = nvu.getValue().discriminator();
+            long cacheSize = ExtCompValuesCache.DEF_MAX_BYTES;
+            if (DataType.DT_STRING == dt) {
+                try {
+                    cacheSize = Long.parseLong(nvu.getValue().stringVal().trim());
+                } catch (NumberFormatException e) {
+                    throw new OpenAtfxException(ErrorCode.AO_BAD_PARAMETER, "Invalid value for context '" + valName
+                            + "': " + nvu.getValue().stringVal());
+                }
+            } else if (DataType.DT_LONG == dt) {
+                cacheSize = nvu.getValue().longVal();
+            } else if (DataType.DT_LONGLONG == dt) {
+                cacheSize = nvu.getValue().longlongVal();
+            }
+            atfxCache.setValuesCacheSize(cacheSize);
+        }
+
+        // write values to the memory or to external component files
+        else if (OpenAtfxConstants.CONTEXT_WRITE_MODE.equals(valName)) {
+            atfxCache.setWriteMode(getContext().get(valName).getValue().stringVal());
+        }
+
+        // the component files are resolved relative to the file root
+        else if (OpenAtfxConstants.CONTEXT_FILE_ROOT.equals(valName)) {
+            atfxCache.getExtCompReader().invalidateDescriptors();
+        }
     }
 
     public void removeContext(String varPattern) {
@@ -607,6 +714,17 @@ public class OpenAtfxAPIImplementation implements OpenAtfxAPI {
         }
     }
     
+    /**
+     * Creates the instance relations of a parsed file in bulk, see
+     * {@link AtfxCache#connectInstances(Relation, Map)}.
+     * 
+     * @param applRel The application relation.
+     * @param otherIidsByIid The target instance ids by the source instance ids.
+     */
+    void connectInstances(Relation applRel, Map<Long, Collection<Long>> otherIidsByIid) {
+        atfxCache.connectInstances(applRel, otherIidsByIid);
+    }
+    
     @Override
     public void removeRelatedInstances(long aid, long iid, String relationName, Collection<Long> otherIids) {
         Instance instance = getInstanceById(aid, iid);
@@ -753,11 +871,87 @@ public class OpenAtfxAPIImplementation implements OpenAtfxAPI {
         Instance instance = getInstanceById(aid, iid);
         instance.setInstanceValue(nvu);
     }
+
+    @Override
+    public NameValueUnit getLocalColumnValues(long aid, long iid, int startIndex, int count) {
+        return atfxCache.getLocalColumnValues(aid, iid, startIndex, count);
+    }
+
+    @Override
+    public NameValueUnit getLocalColumnFlags(long aid, long iid, int startIndex, int count) {
+        return atfxCache.getLocalColumnFlags(aid, iid, startIndex, count);
+    }
+
+    @Override
+    public CompletableFuture<SingleValue> readValuesAsync(long iidLc) {
+        return asyncColumnLoader.readValues(iidLc);
+    }
+
+    @Override
+    public CompletableFuture<Map<Long, SingleValue>> readValuesAsync(Collection<Long> iidLcs) {
+        return asyncColumnLoader.readValues(iidLcs);
+    }
+
+    @Override
+    public void setAsyncExecutor(Executor executor) {
+        asyncColumnLoader.setExecutor(executor);
+    }
+
+    @Override
+    public void setWriteExecutor(Executor executor) {
+        atfxCache.getExtCompWriter().setWriteExecutor(executor);
+    }
+
+    @Override
+    public ColumnAppender createColumnAppender(long iidLc) {
+        return atfxCache.getExtCompWriter().createColumnAppender(iidLc);
+    }
+
+    @Override
+    public void writeValuesParallel(Map<Long, SingleValue> valuesByLc) {
+        ExtCompWriter extCompWriter = atfxCache.getExtCompWriter();
+        extCompWriter.writeValuesParallel(valuesByLc, extCompWriter.getWriteExecutor());
+    }
+
+    @Override
+    public void writeSubMatrixInterleaved(long iidSubMatrix, Map<Long, SingleValue> valuesByLc) {
+        atfxCache.getExtCompWriter().writeSubMatrixInterleaved(iidSubMatrix, valuesByLc);
+    }
+
+    @Override
+    public CompactionResult compactExtCompFiles() {
+        return atfxCache.getExtCompWriter().compact(atfxCache.getExtCompReader());
+    }
+
+    @Override
+    public int externalizeInlineValues() {
+        ExtCompWriter extCompWriter = atfxCache.getExtCompWriter();
+        return extCompWriter.externalizeInlineValues(extCompWriter.getWriteExecutor());
+    }
     
     void addUnitMapping(long id, String name) {
         atfxCache.addUnitMapping(id, name);
     }
 
+    /**
+     * Returns the next generated instance id of given application element, like used on creating an instance without
+     * id.
+     * 
+     * @param aid The application element id.
+     * @return The instance id.
+     */
+    long nextIid(long aid) {
+        return atfxCache.nextIid(aid);
+    }
+
+    Map<Long, Long> getNextIids() {
+        return atfxCache.getNextIids();
+    }
+
+    void setNextIid(long aid, long nextIid) {
+        atfxCache.setNextIid(aid, nextIid);
+    }
+
     /***************************************************************************************
      * methods required for internal usage in CORBA layer
      ***************************************************************************************/
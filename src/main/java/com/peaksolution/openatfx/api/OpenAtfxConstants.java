@@ -45,8 +45,15 @@ public class OpenAtfxConstants {
     public static final String CONTEXT_EXTCOMP_FILENAME_STRIP_STRING = "ETXCOMP_FILENAME_STRIP_STRING";
     public static final String CONTEXT_EXT_COMP_SEGSIZE = "EXT_COMP_SEGSIZE";
     public static final long DEF_EXT_COMP_SEGSIZE = 1024L * 1024 * 500; // 500MB
+    public static final String CONTEXT_EXT_COMP_COMPONENT_SIZE = "EXT_COMP_COMPONENT_SIZE";
+    public static final String CONTEXT_EXT_COMP_MMAP = "EXT_COMP_MMAP";
+    public static final String CONTEXT_EXT_COMP_CACHE_SIZE = "EXT_COMP_CACHE_SIZE";
+    public static final String CONTEXT_EXT_COMP_READ_THREADS = "EXT_COMP_READ_THREADS";
     public static final String CONTEXT_INDENT_XML = "INDENT_XML";
     public static final String CONTEXT_WRITE_EXTERNALCOMPONENTS = "WRITE_EXTERNALCOMPONENTS";
     public static final String CONTEXT_TRIM_STRING_VALUES = "TRIM_STRING_VALUES";
+    public static final String CONTEXT_LAZY_INLINE_VALUES = "LAZY_INLINE_VALUES";
+    public static final String CONTEXT_SNAPSHOT_CACHE = "SNAPSHOT_CACHE";
+    public static final String CONTEXT_SKIP_ELEMENTS = "SKIP_ELEMENTS";
     
 }
@@ -1227,13 +1227,13 @@ public class SingleValue
       throw new OpenAtfxException(ErrorCode.AO_IMPLEMENTATION_PROBLEM, 
           "Cannot get a subset of values for single value datatypes, but was called with " + discriminator);
     }
-    if (startIndex >= getLength())
+    if (startIndex > getLength())
     {
       throw new OpenAtfxException(ErrorCode.AO_IMPLEMENTATION_PROBLEM, 
           "Requested subset beginning at index " + startIndex + " from sequence value of length " + getLength());
     }
 
-    Object valueRange = getRange(startIndex, length);
+    Object valueRange = getRange(startIndex, Math.min(length, getLength() - startIndex));
     SingleValue subset = new SingleValue(this);
     subset.setValue(valueRange);
     return subset;
@@ -1244,33 +1244,33 @@ public class SingleValue
     switch (discriminator)
     {
     case DS_BOOLEAN:
-      return Arrays.copyOfRange((boolean[])value.getValue(), startIndex, length);
+      return Arrays.copyOfRange((boolean[])value.getValue(), startIndex, startIndex + length);
     case DS_BYTE:
-      return Arrays.copyOfRange((byte[])value.getValue(), startIndex, length);
+      return Arrays.copyOfRange((byte[])value.getValue(), startIndex, startIndex + length);
     case DS_BYTESTR:
-      return Arrays.copyOfRange((byte[][])value.getValue(), startIndex, length);
+      return Arrays.copyOfRange((byte[][])value.getValue(), startIndex, startIndex + length);
     case DS_COMPLEX:
-      return Arrays.copyOfRange((Complex[])value.getValue(), startIndex, length);
+      return Arrays.copyOfRange((Complex[])value.getValue(), startIndex, startIndex + length);
     case DS_DATE:
-      return Arrays.copyOfRange((String[])value.getValue(), startIndex, length);
+      return Arrays.copyOfRange((String[])value.getValue(), startIndex, startIndex + length);
     case DS_DCOMPLEX:
-      return Arrays.copyOfRange((DoubleComplex[])value.getValue(), startIndex, length);
+      return Arrays.copyOfRange((DoubleComplex[])value.getValue(), startIndex, startIndex + length);
     case DS_DOUBLE:
-      return Arrays.copyOfRange((double[])value.getValue(), startIndex, length);
+      return Arrays.copyOfRange((double[])value.getValue(), startIndex, startIndex + length);
     case DS_ENUM:
-      return Arrays.copyOfRange((int[])value.getValue(), startIndex, length);
+      return Arrays.copyOfRange((int[])value.getValue(), startIndex, startIndex + length);
     case DS_EXTERNALREFERENCE:
-      return Arrays.copyOfRange((ExternalReference[])value.getValue(), startIndex, length);
+      return Arrays.copyOfRange((ExternalReference[])value.getValue(), startIndex, startIndex + length);
     case DS_FLOAT:
-      return Arrays.copyOfRange((float[])value.getValue(), startIndex, length);
+      return Arrays.copyOfRange((float[])value.getValue(), startIndex, startIndex + length);
     case DS_LONG:
-      return Arrays.copyOfRange((int[])value.getValue(), startIndex, length);
+      return Arrays.copyOfRange((int[])value.getValue(), startIndex, startIndex + length);
     case DS_LONGLONG:
-      return Arrays.copyOfRange((long[])value.getValue(), startIndex, length);
+      return Arrays.copyOfRange((long[])value.getValue(), startIndex, startIndex + length);
     case DS_SHORT:
-      return Arrays.copyOfRange((short[])value.getValue(), startIndex, length);
+      return Arrays.copyOfRange((short[])value.getValue(), startIndex, startIndex + length);
     case DS_STRING:
-      return Arrays.copyOfRange((String[])value.getValue(), startIndex, length);
+      return Arrays.copyOfRange((String[])value.getValue(), startIndex, startIndex + length);
     default:
       throw new OpenAtfxException(ErrorCode.AO_NOT_IMPLEMENTED, "DataType not supported at TSUnion.getValue(): " + discriminator);
     }
@@ -1,16 +1,44 @@
 package com.peaksolution.openatfx.api;
 
+import java.util.Set;
+
 import javax.xml.stream.StreamFilter;
+import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamReader;
 
+import com.peaksolution.openatfx.io.AtfxTagConstants;
+
 /**
  * Custom Stax filter for only collect start and end elements.
+ * <p>
+ * Additionally the text of the numeric sequence elements of local column values is collected, so it can be consumed in
+ * chunks instead of as a whole by <code>getElementText()</code>.
  */
 class StartEndElementFilter implements StreamFilter {
 
+    private static final Set<String> NUMBER_SEQ_ELEMENTS = Set.of(AtfxTagConstants.VALUES_ATTR_INT8,
+                                                                  AtfxTagConstants.VALUES_ATTR_INT16,
+                                                                  AtfxTagConstants.VALUES_ATTR_INT32,
+                                                                  AtfxTagConstants.VALUES_ATTR_INT64,
+                                                                  AtfxTagConstants.VALUES_ATTR_FLOAT32,
+                                                                  AtfxTagConstants.VALUES_ATTR_FLOAT64,
+                                                                  AtfxTagConstants.VALUES_ATTR_COMPLEX32,
+                                                                  AtfxTagConstants.VALUES_ATTR_COMPLEX64);
+
+    private boolean inNumberSeq;
+
     @Override
     public boolean accept(XMLStreamReader myReader) {
-        return myReader.isStartElement() || myReader.isEndElement();
+        if (myReader.isStartElement()) {
+            inNumberSeq = NUMBER_SEQ_ELEMENTS.contains(myReader.getLocalName());
+            return true;
+        } else if (myReader.isEndElement()) {
+            inNumberSeq = false;
+            return true;
+        }
+        int eventType = myReader.getEventType();
+        return inNumberSeq && (eventType == XMLStreamConstants.CHARACTERS || eventType == XMLStreamConstants.CDATA
+                || eventType == XMLStreamConstants.SPACE);
     }
 
 }
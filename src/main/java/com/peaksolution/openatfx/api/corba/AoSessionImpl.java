@@ -488,6 +488,11 @@ class AoSessionImpl extends AoSessionPOA {
         }
 
         try {
+            // complete the external component files the values have been written to
+            this.api.closeExtCompFiles();
+            // skipped inline values are read from the file, which is about to be replaced
+            this.api.loadInlineValues(path.toFile());
+
             // overwrite backup file
             Path transactionFilePath = transactionFile.toPath();
             AtfxWriter.getInstance().writeXML(this.transactionFile, this.api);
@@ -496,6 +501,8 @@ class AoSessionImpl extends AoSessionPOA {
             this.transactionFile = null;
 
             LOG.info("Committed transaction to '{}'", path);
+        } catch (OpenAtfxException e) {
+            throw e.toAoException();
         } catch (IOException e) {
             AoException aoe = new AoException(ErrorCode.AO_UNKNOWN_ERROR, SeverityFlag.ERROR, 0, e.getMessage());
             aoe.initCause(e);
@@ -509,7 +516,11 @@ class AoSessionImpl extends AoSessionPOA {
      * @see org.asam.ods.AoSessionOperations#flush()
      */
     public void flush() throws AoException {
-        // TODO To be implemented
+        try {
+            this.api.flushExtCompFiles();
+        } catch (OpenAtfxException e) {
+            throw e.toAoException();
+        }
     }
 
     /**
@@ -522,6 +533,7 @@ class AoSessionImpl extends AoSessionPOA {
             this.instancePOA.destroy(false, false);
         }
         this.modelPOA.destroy(false, false);
+        this.api.close();
         LOG.info("Closed ATFX AoSession");
     }
 
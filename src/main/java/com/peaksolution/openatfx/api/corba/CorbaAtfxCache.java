@@ -876,6 +876,33 @@ public class CorbaAtfxCache {
         return null;
     }
     
+    /**
+     * Returns a window of the 'values' of a local column.
+     * 
+     * @param aid The application element id of the local column.
+     * @param iid The instance id of the local column.
+     * @param startIndex The index of the first value.
+     * @param count The maximum number of values.
+     * @return The values.
+     */
+    public NameValueUnit getLocalColumnValues(long aid, long iid, int startIndex, int count) {
+        return ODSHelper.mapNvu(api.getLocalColumnValues(aid, iid, startIndex, count));
+    }
+    
+    /**
+     * Returns a window of the 'flags' of a local column.
+     * 
+     * @param aid The application element id of the local column.
+     * @param iid The instance id of the local column.
+     * @param startIndex The index of the first flag.
+     * @param count The maximum number of flags.
+     * @return The flags, null if the local column element has no flags attribute.
+     */
+    public NameValueUnit getLocalColumnFlags(long aid, long iid, int startIndex, int count) {
+        com.peaksolution.openatfx.api.NameValueUnit flags = api.getLocalColumnFlags(aid, iid, startIndex, count);
+        return flags == null ? null : ODSHelper.mapNvu(flags);
+    }
+    
     /**
      * Returns all values of an instance attribute of a given list of instances.
      * 
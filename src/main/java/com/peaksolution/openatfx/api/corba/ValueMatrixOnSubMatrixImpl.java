@@ -308,10 +308,11 @@ class ValueMatrixOnSubMatrixImpl extends ValueMatrixPOA {
             Arrays.fill(valueSeq.flag, globalFlagValue.value.u.shortVal());
         }
         if (valueSeq.flag == null) {
-            NameValueUnit flagsValue = atfxCache.getInstanceValue(aidLc, iidLc, null, "flags");
-            if (flagsValue.value.flag == 15) {
+            // only the returned window of the flags is read
+            NameValueUnit flagsValue = atfxCache.getLocalColumnFlags(aidLc, iidLc, startPoint, count);
+            if (flagsValue != null && flagsValue.value.flag == 15) {
                 valueSeq.flag = new short[count];
-                System.arraycopy(flagsValue.value.u.shortSeq(), startPoint, valueSeq.flag, 0, count);
+                System.arraycopy(flagsValue.value.u.shortSeq(), 0, valueSeq.flag, 0, count);
             }
         }
         
@@ -330,8 +331,8 @@ class ValueMatrixOnSubMatrixImpl extends ValueMatrixPOA {
 
         // explicit (=0), external_component (=7)
         if (seqReq == 0 || seqReq == 7) {
-            NameValueUnit values = ieLc.getValueByBaseName("values");
-            handleValuesExplicit(values, valueSeq, targetDt, startPoint, count);
+            NameValueUnit values = atfxCache.getLocalColumnValues(aidLc, iidLc, startPoint, count);
+            handleValuesExplicit(values, valueSeq, targetDt, 0, count);
         }
 
         // implicit_constant (=1)
@@ -371,13 +372,12 @@ class ValueMatrixOnSubMatrixImpl extends ValueMatrixPOA {
         // raw_linear (=4), raw_linear_external (=8)
         else if (seqReq == 4 || seqReq == 8) {
             if (this.mode == ValueMatrixMode.STORAGE) {
-                NameValueUnit values = ieLc.getValueByBaseName("values");
-                handleRawValuesStorage(values, valueSeq, startPoint, rowCount);
+                NameValueUnit values = atfxCache.getLocalColumnValues(aidLc, iidLc, startPoint, count);
+                handleRawValuesStorage(values, valueSeq, 0, count);
             } else if (this.mode == ValueMatrixMode.CALCULATED) {
-                NameValueUnit values = ieLc.getValueByBaseName("values");
+                NameValueUnit values = atfxCache.getLocalColumnValues(aidLc, iidLc, startPoint, count);
                 NameValueUnit genParams = ieLc.getValueByBaseName("generation_parameters");
-                handleValuesRawLinearCalculated(values, genParams.value.u.doubleSeq(), valueSeq, targetDt, startPoint,
-                                                rowCount);
+                handleValuesRawLinearCalculated(values, genParams.value.u.doubleSeq(), valueSeq, targetDt, 0, count);
             } else {
                 throw new AoException(ErrorCode.AO_BAD_PARAMETER, SeverityFlag.ERROR, 0,
                                       "Unsupported ValueMatrixMode: " + this.mode);
@@ -399,13 +399,13 @@ class ValueMatrixOnSubMatrixImpl extends ValueMatrixPOA {
         // raw_linear_calibrated (=10), raw_linear_calibrated_external (=11)
         else if (seqReq == 10 || seqReq == 11) {
             if (this.mode == ValueMatrixMode.STORAGE) {
-                NameValueUnit values = ieLc.getValueByBaseName("values");
-                handleRawValuesStorage(values, valueSeq, startPoint, rowCount);
+                NameValueUnit values = atfxCache.getLocalColumnValues(aidLc, iidLc, startPoint, count);
+                handleRawValuesStorage(values, valueSeq, 0, count);
             } else if (this.mode == ValueMatrixMode.CALCULATED) {
-                NameValueUnit values = ieLc.getValueByBaseName("values");
+                NameValueUnit values = atfxCache.getLocalColumnValues(aidLc, iidLc, startPoint, count);
                 NameValueUnit genParams = ieLc.getValueByBaseName("generation_parameters");
                 handleValuesRawLinearCalibratedCalculated(values, genParams.value.u.doubleSeq(), valueSeq, targetDt,
-                                                          startPoint, rowCount);
+                                                          0, count);
             } else {
                 throw new AoException(ErrorCode.AO_BAD_PARAMETER, SeverityFlag.ERROR, 0,
                                       "Unsupported ValueMatrixMode: " + this.mode);
@@ -415,13 +415,13 @@ class ValueMatrixOnSubMatrixImpl extends ValueMatrixPOA {
         // raw_rational (=12), raw_rational_external (=13)
         else if (seqReq == 12 || seqReq == 13) {
               if (this.mode == ValueMatrixMode.STORAGE) {
-                NameValueUnit values = ieLc.getValueByBaseName("values");
-                handleRawValuesStorage(values, valueSeq, startPoint, rowCount);
+                NameValueUnit values = atfxCache.getLocalColumnValues(aidLc, iidLc, startPoint, count);
+                handleRawValuesStorage(values, valueSeq, 0, count);
             } else if (this.mode == ValueMatrixMode.CALCULATED) {  
-                NameValueUnit values = ieLc.getValueByBaseName("values");
+                NameValueUnit values = atfxCache.getLocalColumnValues(aidLc, iidLc, startPoint, count);
                 NameValueUnit genParams = ieLc.getValueByBaseName("generation_parameters");
                 handleValuesRawRationalCalculated(values, genParams.value.u.doubleSeq(), valueSeq, targetDt,
-                                                          startPoint, rowCount);              
+                                                          0, count);              
             } else {
                 throw new AoException(ErrorCode.AO_BAD_PARAMETER, SeverityFlag.ERROR, 0,
                                       "Unsupported ValueMatrixMode: " + this.mode);
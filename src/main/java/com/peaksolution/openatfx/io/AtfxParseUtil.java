@@ -97,21 +97,9 @@ public abstract class AtfxParseUtil {
      * @throws OpenAtfxException Error parsing long long array.
      */
     public static long[] parseLongLongSeq(String str) throws OpenAtfxException {
-        String input = str.trim();
-        if (input.length() > 0) {
-            String[] strAr = input.split("\\s+");
-            long[] bAr = new long[strAr.length];
-            for (int i = 0; i < strAr.length; i++) {
-                Long val = parseLongLong(strAr[i]);
-                if (val != null) {
-                    bAr[i] = val;
-                } else {
-                    bAr[i] = 0;
-                }
-            }
-            return bAr;
-        }
-        return new long[0];
+        NumberSeqParser.LongLongSeq parser = new NumberSeqParser.LongLongSeq();
+        parser.append(str);
+        return parser.toArray();
     }
 
     /**
@@ -143,21 +131,9 @@ public abstract class AtfxParseUtil {
      * @throws OpenAtfxException Error parsing long array.
      */
     public static int[] parseLongSeq(String str) throws OpenAtfxException {
-        String input = str.trim();
-        if (input.length() > 0) {
-            String[] strAr = input.split("\\s+");
-            int[] bAr = new int[strAr.length];
-            for (int i = 0; i < strAr.length; i++) {
-                Integer val = parseLong(strAr[i]);
-                if (val != null) {
-                    bAr[i] = val;
-                } else {
-                    bAr[i] = 0;
-                }
-            }
-            return bAr;
-        }
-        return new int[0];
+        NumberSeqParser.LongSeq parser = new NumberSeqParser.LongSeq();
+        parser.append(str);
+        return parser.toArray();
     }
 
     /**
@@ -187,21 +163,9 @@ public abstract class AtfxParseUtil {
      * @throws OpenAtfxException Error parsing float array.
      */
     public static float[] parseFloatSeq(String str) throws OpenAtfxException {
-        String input = str.trim();
-        if (input.length() > 0) {
-            String[] strAr = input.split("\\s+");
-            float[] bAr = new float[strAr.length];
-            for (int i = 0; i < strAr.length; i++) {
-                Float val = parseFloat(strAr[i]);
-                if (val != null) {
-                    bAr[i] = val;
-                } else {
-                    bAr[i] = 0;
-                }
-            }
-            return bAr;
-        }
-        return new float[0];
+        NumberSeqParser.FloatSeq parser = new NumberSeqParser.FloatSeq();
+        parser.append(str);
+        return parser.toArray();
     }
 
     /**
@@ -231,21 +195,9 @@ public abstract class AtfxParseUtil {
      * @throws OpenAtfxException Error parsing double array.
      */
     public static double[] parseDoubleSeq(String str) throws OpenAtfxException {
-        String input = str.trim();
-        if (input.length() > 0) {
-            String[] strAr = input.split("\\s+");
-            double[] bAr = new double[strAr.length];
-            for (int i = 0; i < strAr.length; i++) {
-                Double val = parseDouble(strAr[i]);
-                if (val != null) {
-                    bAr[i] = val;
-                } else {
-                    bAr[i] = 0;
-                }
-            }
-            return bAr;
-        }
-        return new double[0];
+        NumberSeqParser.DoubleSeq parser = new NumberSeqParser.DoubleSeq();
+        parser.append(str);
+        return parser.toArray();
     }
 
     /**
@@ -275,21 +227,9 @@ public abstract class AtfxParseUtil {
      * @throws OpenAtfxException Error parsing short array.
      */
     public static short[] parseShortSeq(String str) throws OpenAtfxException {
-        String input = str.trim();
-        if (input.length() > 0) {
-            String[] strAr = input.split("\\s+");
-            short[] bAr = new short[strAr.length];
-            for (int i = 0; i < strAr.length; i++) {
-                Short val = parseShort(strAr[i]);
-                if (val != null) {
-                    bAr[i] = val;
-                } else {
-                    bAr[i] = 0;
-                }
-            }
-            return bAr;
-        }
-        return new short[0];
+        NumberSeqParser.ShortSeq parser = new NumberSeqParser.ShortSeq();
+        parser.append(str);
+        return parser.toArray();
     }
 
     /**
@@ -319,21 +259,9 @@ public abstract class AtfxParseUtil {
      * @throws OpenAtfxException Error parsing byte array value.
      */
     public static byte[] parseByteSeq(String str) throws OpenAtfxException {
-        String input = str.trim();
-        if (input.length() > 0) {
-            String[] strAr = input.split("\\s+");
-            byte[] bAr = new byte[strAr.length];
-            for (int i = 0; i < strAr.length; i++) {
-                Byte val = parseByte(strAr[i]);
-                if (val != null) {
-                    bAr[i] = val;
-                } else {
-                    bAr[i] = 0;
-                }
-            }
-            return bAr;
-        }
-        return new byte[0];
+        NumberSeqParser.ByteSeq parser = new NumberSeqParser.ByteSeq();
+        parser.append(str);
+        return parser.toArray();
     }
 
     /**
@@ -368,26 +296,26 @@ public abstract class AtfxParseUtil {
      * @throws OpenAtfxException Error parsing complex value.
      */
     public static Complex[] parseComplexSeq(String str) throws OpenAtfxException {
-        String input = str.trim();
-        if (input.length() > 0) {
-            try {
-                String[] strAr = input.split("\\s+");
-                if (strAr.length % 2 != 0) {
-                    throw new OpenAtfxException(ErrorCode.AO_BAD_PARAMETER,
-                                                "Invalid representation of value T_COMPLEX[] '" + str + "'");
-                }
-                Complex[] bAr = new Complex[strAr.length / 2];
-                for (int i = 0; i < strAr.length; i += 2) {
-                    int x = i / 2;
-                    bAr[x] = new Complex(Float.parseFloat(strAr[i]), Float.parseFloat(strAr[i + 1]));
-                }
-                return bAr;
-            } catch (NumberFormatException nfe) {
-                throw new OpenAtfxException(ErrorCode.AO_BAD_PARAMETER,
-                                            "Error parsing value of type DT_COMPLEX '" + str + "'");
-            }
+        return toComplexSeq(parseFloatSeq(str));
+    }
+
+    /**
+     * Returns the complex values of given pairs of real and imaginary parts.
+     * 
+     * @param parts The real and imaginary parts.
+     * @return The complex value sequence.
+     * @throws OpenAtfxException Odd number of parts.
+     */
+    public static Complex[] toComplexSeq(float[] parts) throws OpenAtfxException {
+        if (parts.length % 2 != 0) {
+            throw new OpenAtfxException(ErrorCode.AO_BAD_PARAMETER, "Invalid representation of value T_COMPLEX[], odd "
+                    + "number of real and imaginary parts: " + parts.length);
         }
-        return new Complex[0];
+        Complex[] values = new Complex[parts.length / 2];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = new Complex(parts[2 * i], parts[2 * i + 1]);
+        }
+        return values;
     }
 
     /**
@@ -422,26 +350,26 @@ public abstract class AtfxParseUtil {
      * @throws OpenAtfxException Error parsing complex value.
      */
     public static DoubleComplex[] parseDComplexSeq(String str) throws OpenAtfxException {
-        String input = str.trim();
-        if (input.length() > 0) {
-            try {
-                String[] strAr = input.split("\\s+");
-                if (strAr.length % 2 != 0) {
-                    throw new OpenAtfxException(ErrorCode.AO_BAD_PARAMETER,
-                                                "Invalid representation of value T_DCOMPLEX[] '" + str + "'");
-                }
-                DoubleComplex[] bAr = new DoubleComplex[strAr.length / 2];
-                for (int i = 0; i < strAr.length; i += 2) {
-                    int x = i / 2;
-                    bAr[x] = new DoubleComplex(Double.parseDouble(strAr[i]), Double.parseDouble(strAr[i + 1]));
-                }
-                return bAr;
-            } catch (NumberFormatException nfe) {
-                throw new OpenAtfxException(ErrorCode.AO_BAD_PARAMETER,
-                                            "Error parsing value of type DT_COMPLEX '" + str + "'");
-            }
+        return toDComplexSeq(parseDoubleSeq(str));
+    }
+
+    /**
+     * Returns the dcomplex values of given pairs of real and imaginary parts.
+     * 
+     * @param parts The real and imaginary parts.
+     * @return The dcomplex value sequence.
+     * @throws OpenAtfxException Odd number of parts.
+     */
+    public static DoubleComplex[] toDComplexSeq(double[] parts) throws OpenAtfxException {
+        if (parts.length % 2 != 0) {
+            throw new OpenAtfxException(ErrorCode.AO_BAD_PARAMETER, "Invalid representation of value T_DCOMPLEX[], odd "
+                    + "number of real and imaginary parts: " + parts.length);
+        }
+        DoubleComplex[] values = new DoubleComplex[parts.length / 2];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = new DoubleComplex(parts[2 * i], parts[2 * i + 1]);
         }
-        return new DoubleComplex[0];
+        return values;
     }
 
     /**
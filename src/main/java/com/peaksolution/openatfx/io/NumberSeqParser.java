@@ -0,0 +1,463 @@
+package com.peaksolution.openatfx.io;
+
+import java.util.Arrays;
+
+import org.asam.ods.ErrorCode;
+
+import com.peaksolution.openatfx.api.OpenAtfxException;
+
+
+/**
+ * Incremental parser for whitespace separated number sequences of ATFX content.
+ * <p>
+ * The character data is appended in chunks of any size, for example as delivered by the CHARACTERS events of an XML
+ * stream reader, and each token is parsed in place into a growable primitive array without creating intermediate
+ * strings. Only a token spanning two chunks is copied. Tokens that cannot be parsed exactly this way, like "NaN",
+ * "INF", hexadecimal or very long numbers, fall back to the single value parse methods of {@link AtfxParseUtil}, which
+ * also report invalid tokens.
+ * <p>
+ * Integers are accumulated digit by digit. Decimal numbers are converted by a single multiplication or division by an
+ * exactly representable power of ten, which is correctly rounded as long as the significant digits and the power of
+ * ten are exactly representable in the target type.
+ *
+ * @author Markus Renner
+ */
+public abstract class NumberSeqParser {
+
+    /** the initial capacity of the arrays the values are parsed into */
+    protected static final int INITIAL_CAPACITY = 16;
+    /** the size of the chunks strings are appended in */
+    private static final int CHUNK_SIZE = 8192;
+
+    /** the largest integer all smaller integers are exactly representable as double */
+    private static final long MAX_EXACT_DOUBLE_MANTISSA = 1L << 53;
+    /** the largest integer all smaller integers are exactly representable as float */
+    private static final long MAX_EXACT_FLOAT_MANTISSA = 1L << 24;
+    /** the largest number of digits not overflowing a long */
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private static final double[] DOUBLE_POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+    private static final float[] FLOAT_POWERS_OF_TEN = { 1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f,
+            1e10f };
+
+    /** the beginning of a token at the end of the last chunk */
+    private char[] pending = new char[32];
+    private int pendingLength;
+
+    /** the number of values parsed */
+    protected int count;
+
+    /** the significant digits of the last decimal number parsed by parseDecimal() */
+    private long mantissa;
+    /** the power of ten of the last decimal number parsed by parseDecimal() */
+    private int exponent;
+    private boolean negative;
+
+    /**
+     * Non visible constructor.
+     */
+    private NumberSeqParser() {}
+
+    /**
+     * Parses the next chunk of character data. Any character up to the space character is treated as separator, like
+     * {@link String#trim()} does.
+     *
+     * @param chars The characters.
+     * @param start The index of the first character of the chunk.
+     * @param length The length of the chunk.
+     * @throws OpenAtfxException Error parsing a value.
+     */
+    public final void append(char[] chars, int start, int length) throws OpenAtfxException {
+        int end = start + length;
+        int pos = start;
+
+        // complete the token of the last chunk
+        if (pendingLength > 0) {
+            while (pos < end && chars[pos] > ' ') {
+                pos++;
+            }
+            appendPending(chars, start, pos - start);
+            if (pos == end) {
+                return;
+            }
+            parseToken(pending, 0, pendingLength);
+            pendingLength = 0;
+        }
+
+        while (true) {
+            while (pos < end && chars[pos] <= ' ') {
+                pos++;
+            }
+            if (pos == end) {
+                return;
+            }
+            int tokenStart = pos;
+            while (pos < end && chars[pos] > ' ') {
+                pos++;
+            }
+            if (pos == end) {
+                // the token may continue in the next chunk
+                appendPending(chars, tokenStart, pos - tokenStart);
+                return;
+            }
+            parseToken(chars, tokenStart, pos);
+        }
+    }
+
+    /**
+     * Parses given string in chunks.
+     *
+     * @param str The string.
+     * @throws OpenAtfxException Error parsing a value.
+     */
+    public final void append(String str) throws OpenAtfxException {
+        char[] chunk = new char[Math.min(CHUNK_SIZE, str.length())];
+        for (int start = 0; start < str.length(); start += chunk.length) {
+            int length = Math.min(chunk.length, str.length() - start);
+            str.getChars(start, start + length, chunk, 0);
+            append(chunk, 0, length);
+        }
+    }
+
+    /**
+     * Parses the token at the end of the character data, if any.
+     *
+     * @throws OpenAtfxException Error parsing the value.
+     */
+    protected final void finish() throws OpenAtfxException {
+        if (pendingLength > 0) {
+            parseToken(pending, 0, pendingLength);
+            pendingLength = 0;
+        }
+    }
+
+    private void appendPending(char[] chars, int start, int length) {
+        if (pendingLength + length > pending.length) {
+            pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingLength + length));
+        }
+        System.arraycopy(chars, start, pending, pendingLength, length);
+        pendingLength += length;
+    }
+
+    /**
+     * Parses a single token and adds its value.
+     *
+     * @param chars The characters.
+     * @param start The index of the first character of the token.
+     * @param end The index after the last character of the token.
+     * @throws OpenAtfxException Error parsing the value.
+     */
+    protected abstract void parseToken(char[] chars, int start, int end) throws OpenAtfxException;
+
+    /**
+     * Returns the capacity a value array of given length grows to.
+     *
+     * @param length The current length.
+     * @return The new capacity.
+     */
+    protected static int grow(int length) {
+        int capacity = length + (length >> 1) + 1;
+        if (capacity < 0 || capacity > Integer.MAX_VALUE - 8) {
+            if (length >= Integer.MAX_VALUE - 8) {
+                throw new OpenAtfxException(ErrorCode.AO_BAD_PARAMETER, "Number sequence too long: " + length);
+            }
+            capacity = Integer.MAX_VALUE - 8;
+        }
+        return capacity;
+    }
+
+    /**
+     * Parses given token as decimal integer with optional sign.
+     *
+     * @return The value, {@link Long#MIN_VALUE} if the token is not a decimal integer of at most 18 digits.
+     */
+    private static long parseInteger(char[] chars, int start, int end) {
+        int pos = start;
+        boolean neg = false;
+        if (chars[pos] == '-' || chars[pos] == '+') {
+            neg = chars[pos] == '-';
+            pos++;
+        }
+        int digits = end - pos;
+        if (digits < 1 || digits > MAX_LONG_DIGITS) {
+            return Long.MIN_VALUE;
+        }
+        long value = 0;
+        for (; pos < end; pos++) {
+            int digit = chars[pos] - '0';
+            if (digit < 0 || digit > 9) {
+                return Long.MIN_VALUE;
+            }
+            value = value * 10 + digit;
+        }
+        return neg ? -value : value;
+    }
+
+    /**
+     * Parses given token as DT_FLOAT.
+     */
+    final float parseFloat(char[] chars, int start, int end) {
+        if (parseDecimal(chars, start, end) && mantissa < MAX_EXACT_FLOAT_MANTISSA && exponent >= -10
+                && exponent <= 10) {
+            float value = mantissa;
+            value = exponent >= 0 ? value * FLOAT_POWERS_OF_TEN[exponent] : value / FLOAT_POWERS_OF_TEN[-exponent];
+            return negative ? -value : value;
+        }
+        return AtfxParseUtil.parseFloat(new String(chars, start, end - start));
+    }
+
+    /**
+     * Parses given token as DT_DOUBLE.
+     */
+    final double parseDouble(char[] chars, int start, int end) {
+        if (parseDecimal(chars, start, end) && mantissa < MAX_EXACT_DOUBLE_MANTISSA && exponent >= -22
+                && exponent <= 22) {
+            double value = mantissa;
+            value = exponent >= 0 ? value * DOUBLE_POWERS_OF_TEN[exponent] : value / DOUBLE_POWERS_OF_TEN[-exponent];
+            return negative ? -value : value;
+        }
+        return AtfxParseUtil.parseDouble(new String(chars, start, end - start));
+    }
+
+    /**
+     * Parses given token as decimal number with optional sign, fraction and exponent into the fields mantissa,
+     * exponent and negative.
+     *
+     * @return False if the token is no such number or has more significant digits than a long holds.
+     */
+    private boolean parseDecimal(char[] chars, int start, int end) {
+        int pos = start;
+        negative = false;
+        if (chars[pos] == '-' || chars[pos] == '+') {
+            negative = chars[pos] == '-';
+            pos++;
+        }
+
+        // significant digits of integer part and fraction
+        long value = 0;
+        int significantDigits = 0;
+        int fractionDigits = 0;
+        int digits = 0;
+        boolean fraction = false;
+        for (; pos < end; pos++) {
+            char c = chars[pos];
+            if (c >= '0' && c <= '9') {
+                digits++;
+                if (fraction) {
+                    fractionDigits++;
+                }
+                if (value != 0 || c != '0') {
+                    if (++significantDigits > MAX_LONG_DIGITS) {
+                        return false;
+                    }
+                    value = value * 10 + (c - '0');
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+
+        // exponent
+        int exp = 0;
+        if (pos < end) {
+            if (chars[pos] != 'e' && chars[pos] != 'E') {
+                return false;
+            }
+            pos++;
+            boolean negativeExp = false;
+            if (pos < end && (chars[pos] == '-' || chars[pos] == '+')) {
+                negativeExp = chars[pos] == '-';
+                pos++;
+            }
+            if (pos >= end || end - pos > 4) {
+                return false;
+            }
+            for (; pos < end; pos++) {
+                int digit = chars[pos] - '0';
+                if (digit < 0 || digit > 9) {
+                    return false;
+                }
+                exp = exp * 10 + digit;
+            }
+            if (negativeExp) {
+                exp = -exp;
+            }
+        }
+
+        mantissa = value;
+        exponent = value == 0 ? 0 : exp - fractionDigits;
+        return true;
+    }
+
+    /**
+     * Parses a sequence of DT_BYTE values, values of the integer range are truncated to a byte.
+     */
+    public static final class ByteSeq extends NumberSeqParser {
+        private byte[] values = new byte[INITIAL_CAPACITY];
+
+        @Override
+        protected void parseToken(char[] chars, int start, int end) {
+            long value = parseInteger(chars, start, end);
+            if (count == values.length) {
+                values = Arrays.copyOf(values, grow(count));
+            }
+            if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                values[count++] = AtfxParseUtil.parseByte(new String(chars, start, end - start));
+            } else {
+                values[count++] = (byte) value;
+            }
+        }
+
+        /**
+         * @return The values parsed.
+         * @throws OpenAtfxException Error parsing the last value.
+         */
+        public byte[] toArray() throws OpenAtfxException {
+            finish();
+            return count == values.length ? values : Arrays.copyOf(values, count);
+        }
+    }
+
+    /**
+     * Parses a sequence of DT_SHORT values.
+     */
+    public static final class ShortSeq extends NumberSeqParser {
+        private short[] values = new short[INITIAL_CAPACITY];
+
+        @Override
+        protected void parseToken(char[] chars, int start, int end) {
+            long value = parseInteger(chars, start, end);
+            if (count == values.length) {
+                values = Arrays.copyOf(values, grow(count));
+            }
+            if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) {
+                values[count++] = AtfxParseUtil.parseShort(new String(chars, start, end - start));
+            } else {
+                values[count++] = (short) value;
+            }
+        }
+
+        /**
+         * @return The values parsed.
+         * @throws OpenAtfxException Error parsing the last value.
+         */
+        public short[] toArray() throws OpenAtfxException {
+            finish();
+            return count == values.length ? values : Arrays.copyOf(values, count);
+        }
+    }
+
+    /**
+     * Parses a sequence of DT_LONG values.
+     */
+    public static final class LongSeq extends NumberSeqParser {
+        private int[] values = new int[INITIAL_CAPACITY];
+
+        @Override
+        protected void parseToken(char[] chars, int start, int end) {
+            long value = parseInteger(chars, start, end);
+            if (count == values.length) {
+                values = Arrays.copyOf(values, grow(count));
+            }
+            if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                values[count++] = AtfxParseUtil.parseLong(new String(chars, start, end - start));
+            } else {
+                values[count++] = (int) value;
+            }
+        }
+
+        /**
+         * @return The values parsed.
+         * @throws OpenAtfxException Error parsing the last value.
+         */
+        public int[] toArray() throws OpenAtfxException {
+            finish();
+            return count == values.length ? values : Arrays.copyOf(values, count);
+        }
+    }
+
+    /**
+     * Parses a sequence of DT_LONGLONG values.
+     */
+    public static final class LongLongSeq extends NumberSeqParser {
+        private long[] values = new long[INITIAL_CAPACITY];
+
+        @Override
+        protected void parseToken(char[] chars, int start, int end) {
+            long value = parseInteger(chars, start, end);
+            if (count == values.length) {
+                values = Arrays.copyOf(values, grow(count));
+            }
+            if (value == Long.MIN_VALUE) {
+                values[count++] = AtfxParseUtil.parseLongLong(new String(chars, start, end - start));
+            } else {
+                values[count++] = value;
+            }
+        }
+
+        /**
+         * @return The values parsed.
+         * @throws OpenAtfxException Error parsing the last value.
+         */
+        public long[] toArray() throws OpenAtfxException {
+            finish();
+            return count == values.length ? values : Arrays.copyOf(values, count);
+        }
+    }
+
+    /**
+     * Parses a sequence of DT_FLOAT values.
+     */
+    public static final class FloatSeq extends NumberSeqParser {
+        private float[] values = new float[INITIAL_CAPACITY];
+
+        @Override
+        protected void parseToken(char[] chars, int start, int end) {
+            float value = parseFloat(chars, start, end);
+            if (count == values.length) {
+                values = Arrays.copyOf(values, grow(count));
+            }
+            values[count++] = value;
+        }
+
+        /**
+         * @return The values parsed.
+         * @throws OpenAtfxException Error parsing the last value.
+         */
+        public float[] toArray() throws OpenAtfxException {
+            finish();
+            return count == values.length ? values : Arrays.copyOf(values, count);
+        }
+    }
+
+    /**
+     * Parses a sequence of DT_DOUBLE values.
+     */
+    public static final class DoubleSeq extends NumberSeqParser {
+        private double[] values = new double[INITIAL_CAPACITY];
+
+        @Override
+        protected void parseToken(char[] chars, int start, int end) {
+            double value = parseDouble(chars, start, end);
+            if (count == values.length) {
+                values = Arrays.copyOf(values, grow(count));
+            }
+            values[count++] = value;
+        }
+
+        /**
+         * @return The values parsed.
+         * @throws OpenAtfxException Error parsing the last value.
+         */
+        public double[] toArray() throws OpenAtfxException {
+            finish();
+            return count == values.length ? values : Arrays.copyOf(values, count);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.peaksolution.openatfx.main;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.peaksolution.openatfx.OpenAtfx;
+import com.peaksolution.openatfx.api.CompactionResult;
+import com.peaksolution.openatfx.api.OpenAtfxAPI;
+import com.peaksolution.openatfx.api.OpenAtfxException;
+
+
+/**
+ * Command line entry point compacting the external component files of an ATFX file.
+ * <p>
+ * Usage: <code>java -cp openatfx.jar com.peaksolution.openatfx.main.Compact &lt;file.atfx&gt;</code>
+ * <p>
+ * The live values are copied into new component files and the ATFX file is replaced atomically by a version
+ * referencing them. The old component files are deleted afterwards.
+ *
+ * @author Markus Renner
+ */
+public class Compact {
+    private static final Logger LOG = LoggerFactory.getLogger(Compact.class);
+
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.err.println("Usage: " + Compact.class.getName() + " <file.atfx>");
+            System.exit(1);
+        }
+        try {
+            CompactionResult result = compact(Paths.get(args[0]));
+            System.out.println("Compacted " + result.getObsoleteFiles().size() + " component files into "
+                    + result.getNewFiles().size() + ", reclaimed " + result.getReclaimedBytes() + " of "
+                    + result.getBytesBefore() + " bytes");
+        } catch (OpenAtfxException | IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Compacts the external component files of given ATFX file, replaces the ATFX file and deletes the obsolete
+     * component files.
+     *
+     * @param atfxFile The ATFX file.
+     * @return The result.
+     * @throws IOException Error replacing the ATFX file.
+     * @throws OpenAtfxException Error compacting the component files.
+     */
+    public static CompactionResult compact(Path atfxFile) throws IOException {
+        OpenAtfxAPI api = new OpenAtfx().openFile(atfxFile);
+        CompactionResult result;
+        try {
+            result = api.compactExtCompFiles();
+
+            // the ATFX file referencing the new component files replaces the old one in a single step
+            Path tmpFile = atfxFile.resolveSibling(atfxFile.getFileName() + ".tmp");
+            api.writeAtfx(tmpFile.toFile());
+            try {
+                Files.move(tmpFile, atfxFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.deleteIfExists(tmpFile);
+                throw e;
+            }
+        } finally {
+            api.close();
+        }
+
+        for (Path obsoleteFile : result.getObsoleteFiles()) {
+            try {
+                Files.deleteIfExists(obsoleteFile);
+            } catch (IOException e) {
+                LOG.warn("Could not delete obsolete component file '{}': {}", obsoleteFile, e.getMessage());
+            }
+        }
+        return result;
+    }
+}
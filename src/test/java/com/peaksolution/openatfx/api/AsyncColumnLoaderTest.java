@@ -0,0 +1,98 @@
+package com.peaksolution.openatfx.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.peaksolution.openatfx.IFileHandler;
+import com.peaksolution.openatfx.LocalFileHandler;
+
+/**
+ * Tests reading the values of local columns asynchronously.
+ */
+class AsyncColumnLoaderTest {
+
+    private static OpenAtfxAPIImplementation api;
+    private static long aidLc;
+
+    @BeforeAll
+    static void setUpBeforeClass() throws Exception {
+        URL url = AsyncColumnLoaderTest.class.getResource("/com/peaksolution/openatfx/example.atfx");
+        Path atfxFile = Path.of(url.toURI());
+        IFileHandler fileHandler = new LocalFileHandler();
+        AtfxReader reader = new AtfxReader(fileHandler, atfxFile, false, null);
+        try (InputStream in = fileHandler.getFileStream(atfxFile)) {
+            XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+            XMLStreamReader rawReader = inputFactory.createXMLStreamReader(in);
+            XMLStreamReader xmlReader = inputFactory.createFilteredReader(rawReader, new StartEndElementFilter());
+            api = reader.readFile(xmlReader, Collections.emptyList());
+        }
+        api.setContext(new NameValueUnit("FILE_ROOT", DataType.DT_STRING, atfxFile.getParent().toString()));
+        Element lcElement = api.getUniqueElementByBaseType("aolocalcolumn");
+        aidLc = lcElement.getId();
+    }
+
+    private static SingleValue readValuesBlocking(long iidLc) {
+        return api.getInstanceById(aidLc, iidLc).getValueByBaseName("values").getValue();
+    }
+
+    @AfterAll
+    static void tearDownAfterClass() {
+        api.close();
+    }
+
+    @Test
+    void testReadValuesAsync_batch() {
+        List<Long> iidLcs = new ArrayList<>();
+        for (Instance lc : api.getInstances(aidLc)) {
+            iidLcs.add(lc.getIid());
+        }
+        Collections.reverse(iidLcs);
+
+        AtomicInteger nrOfTasks = new AtomicInteger();
+        api.setAsyncExecutor(command -> {
+            nrOfTasks.incrementAndGet();
+            ForkJoinPool.commonPool().execute(command);
+        });
+        try {
+            Map<Long, SingleValue> values = api.readValuesAsync(iidLcs).join();
+            assertThat(values.keySet()).containsExactlyElementsOf(iidLcs);
+            for (long iidLc : iidLcs) {
+                SingleValue expected = readValuesBlocking(iidLc);
+                assertThat(values.get(iidLc).getValue()).as("values of %s", iidLc).isEqualTo(expected.getValue());
+            }
+            // the columns in the same component file are read in one task
+            assertThat(nrOfTasks.get()).isPositive().isLessThan(iidLcs.size());
+        } finally {
+            api.setAsyncExecutor(null);
+        }
+    }
+
+    @Test
+    void testReadValuesAsync_single() {
+        long iidLc = api.getInstances(aidLc).iterator().next().getIid();
+        SingleValue expected = readValuesBlocking(iidLc);
+        assertThat(api.readValuesAsync(iidLc).join().getValue()).isEqualTo(expected.getValue());
+
+        // errors complete the future exceptionally
+        assertThatThrownBy(() -> api.readValuesAsync(-1).join()).isInstanceOf(CompletionException.class)
+                                                                 .hasCauseInstanceOf(OpenAtfxException.class);
+    }
+}
@@ -1,9 +1,12 @@
 package com.peaksolution.openatfx.api;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -16,9 +19,11 @@ import java.util.List;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamReader;
 
+import org.asam.ods.ErrorCode;
 import org.asam.ods.RelationType;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import com.peaksolution.openatfx.IFileHandler;
 import com.peaksolution.openatfx.LocalFileHandler;
@@ -27,6 +32,9 @@ public class AtfxReaderTest {
     
     private static OpenAtfxAPIImplementation api;
     private static int baseModelVersionNr;
+
+    @TempDir
+    Path tempDir;
     
     @BeforeAll
     public static void setUpBeforeClass() throws Exception {
@@ -451,4 +459,79 @@ public class AtfxReaderTest {
         int[] widenedNumbers = numbers.stream().mapToInt(b -> b.intValue()).toArray();
         assertThat(widenedNumbers).containsExactly(1, 0, 127, 128, 129, 254, 255, 42, 13, 111);
     }
+    
+    @Test
+    void testReadNumberValues_memoryMapped() {
+        ExtCompReader reader = new ExtCompReader(api);
+        api.setContext(new NameValueUnit(OpenAtfxConstants.CONTEXT_EXT_COMP_MMAP, DataType.DT_STRING, "TRUE"));
+        try {
+            assertThat(reader.readNumberValues(116, null)).containsExactly((byte) 1, (byte) 0, (byte) -1, (byte) 126,
+                                                                          (byte) 127, (byte) -127, (byte) -128,
+                                                                          (byte) 42, (byte) -13, (byte) -111);
+            // second component in the same file is served from the same mapping
+            int[] widenedNumbers = reader.readNumberValues(119, null).stream().mapToInt(Number::intValue).toArray();
+            assertThat(widenedNumbers).containsExactly(1, 0, 127, 128, 129, 254, 255, 42, 13, 111);
+        } finally {
+            reader.close();
+            api.setContext(new NameValueUnit(OpenAtfxConstants.CONTEXT_EXT_COMP_MMAP, DataType.DT_STRING, "FALSE"));
+        }
+    }
+    
+    @Test
+    void testReadValues_window() {
+        ExtCompReader reader = new ExtCompReader(api);
+        Element lcElement = api.getUniqueElementByBaseType("aolocalcolumn");
+        Relation relExtComps = api.getRelationByBaseName(lcElement.getId(), "external_component");
+        int nrOfCheckedColumns = 0;
+        for (Instance lc : api.getInstances(lcElement.getId())) {
+            if (api.getRelatedInstanceIds(lcElement.getId(), lc.getIid(), relExtComps).isEmpty()) {
+                continue;
+            }
+            DataType dt = api.getDataTypeForLocalColumnValues(lc.getIid());
+            SingleValue all = reader.readValues(lc.getIid(), dt);
+            int length = all.getLength();
+            assertThat(reader.readValues(lc.getIid(), dt, 0, length).getValue()).isEqualTo(all.getValue());
+            assertThat(reader.readValues(lc.getIid(), dt, 1, 3).getValue())
+                .isEqualTo(all.getSubsetOfSequenceValue(1, 3).getValue());
+            assertThat(reader.readValues(lc.getIid(), dt, length - 1, 100).getLength()).isEqualTo(1);
+            assertThat(reader.readValues(lc.getIid(), dt, length, 10).getLength()).isZero();
+            nrOfCheckedColumns++;
+        }
+        assertThat(nrOfCheckedColumns).isPositive();
+    }
+
+    @Test
+    void testReadRelations_setFromOneSide() throws Exception {
+        // the submatrices of measurement 32 are only given at the submatrices
+        OpenAtfxAPIImplementation modifiedApi = readModifiedExample("<sm_iid>33 113</sm_iid>", "");
+        long aidDts = modifiedApi.getElementByName("dts").getId();
+        long aidSm = modifiedApi.getElementByName("sm").getId();
+        assertThat(modifiedApi.getRelatedInstanceIds(aidDts, 32, "sm_iid")).containsExactlyInAnyOrder(33L, 113L);
+        assertThat(modifiedApi.getRelatedInstanceIds(aidSm, 113, "dts_iid")).containsExactly(32L);
+        assertThat(modifiedApi.getRelatedInstanceIds(aidDts, 32, "meq_iid"))
+                .containsExactlyInAnyOrderElementsOf(api.getRelatedInstanceIds(aidDts, 32, "meq_iid"));
+    }
+
+    @Test
+    void testReadRelations_targetNotFound() {
+        assertThatThrownBy(() -> readModifiedExample("<sm_iid>33 113</sm_iid>", "<sm_iid>33 999</sm_iid>"))
+                .isInstanceOf(OpenAtfxException.class).extracting("error").isEqualTo(ErrorCode.AO_NOT_FOUND);
+    }
+
+    private OpenAtfxAPIImplementation readModifiedExample(String target, String replacement) throws Exception {
+        URL url = AtfxReaderTest.class.getResource("/com/peaksolution/openatfx/example.atfx");
+        String xml = Files.readString(Path.of(url.toURI()), StandardCharsets.UTF_8);
+        assertThat(xml).contains(target);
+        Path atfxFile = tempDir.resolve("example.atfx");
+        Files.writeString(atfxFile, xml.replace(target, replacement), StandardCharsets.UTF_8);
+
+        IFileHandler fileHandler = new LocalFileHandler();
+        AtfxReader reader = new AtfxReader(fileHandler, atfxFile, false, null);
+        try (InputStream in = fileHandler.getFileStream(atfxFile)) {
+            XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+            XMLStreamReader rawReader = inputFactory.createXMLStreamReader(in);
+            XMLStreamReader xmlReader = inputFactory.createFilteredReader(rawReader, new StartEndElementFilter());
+            return reader.readFile(xmlReader, Collections.emptyList());
+        }
+    }
 }
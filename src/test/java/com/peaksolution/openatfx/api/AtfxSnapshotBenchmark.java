@@ -0,0 +1,69 @@
+package com.peaksolution.openatfx.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.peaksolution.openatfx.LocalFileHandler;
+
+
+/**
+ * Compares the time of opening an atfx file by parsing the XML against rebuilding the session from its snapshot.
+ * <p>
+ * Run with <code>mvn test -Dtest=AtfxSnapshotBenchmark -Dbenchmark=true</code>.
+ *
+ * @author Markus Renner
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class AtfxSnapshotBenchmark {
+
+    private static final String OPTIONS = "EXTENDED_COMPATIBILITYMODE=false;ETXCOMP_FILENAME_STRIP_STRING=;"
+            + "TRIM_STRING_VALUES=false;SKIP_ELEMENTS=";
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 20;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void benchmarkOpen() throws Exception {
+        Path atfxFile = tempDir.resolve("example.atfx");
+        Files.copy(Path.of(AtfxSnapshotBenchmark.class.getResource("/com/peaksolution/openatfx/example.atfx").toURI()),
+                   atfxFile);
+        Files.copy(Path.of(AtfxSnapshotBenchmark.class.getResource("/com/peaksolution/openatfx/PAK_Data").toURI()),
+                   tempDir.resolve("PAK_Data"));
+        Properties properties = new Properties();
+        properties.setProperty(OpenAtfxConstants.CONTEXT_SNAPSHOT_CACHE, "TRUE");
+        new ApiFactory().getApiForExistingFile(new LocalFileHandler(), atfxFile, properties);
+        assertThat(AtfxSnapshot.forFile(atfxFile, OPTIONS).read(new LocalFileHandler(), List.of())).isNotNull();
+
+        long xml = measure(() -> new ApiFactory().getApiForExistingFile(new LocalFileHandler(), atfxFile,
+                                                                        new Properties()));
+        long snapshot = measure(() -> AtfxSnapshot.forFile(atfxFile, OPTIONS).read(new LocalFileHandler(), List.of()));
+        System.out.printf("%s (%,d bytes): xml %,.1f ms, snapshot %,.1f ms, speedup %.2fx%n", atfxFile.getFileName(),
+                          Files.size(atfxFile), xml / 1e6, snapshot / 1e6, (double) xml / snapshot);
+    }
+
+    /**
+     * Returns the best time in nanoseconds of given task after warming up.
+     */
+    private static long measure(Runnable task) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            task.run();
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            task.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
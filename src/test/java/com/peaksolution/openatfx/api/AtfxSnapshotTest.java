@@ -0,0 +1,145 @@
+package com.peaksolution.openatfx.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.peaksolution.openatfx.LocalFileHandler;
+import com.peaksolution.openatfx.io.AtfxTagConstants;
+
+
+/**
+ * Test case for <code>com.peaksolution.openatfx.api.AtfxSnapshot</code>.
+ *
+ * @author Markus Renner
+ */
+class AtfxSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path atfxFile;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        atfxFile = tempDir.resolve("example.atfx");
+        Files.copy(Path.of(AtfxSnapshotTest.class.getResource("/com/peaksolution/openatfx/example.atfx").toURI()),
+                   atfxFile);
+        Files.copy(Path.of(AtfxSnapshotTest.class.getResource("/com/peaksolution/openatfx/PAK_Data").toURI()),
+                   tempDir.resolve("PAK_Data"));
+    }
+
+    @Test
+    void testRead_sameAsParsed() throws Exception {
+        OpenAtfxAPIImplementation parsedApi = open(getProperties());
+        Path snapshotFile = tempDir.resolve("example.atfx" + AtfxSnapshot.FILE_SUFFIX);
+        assertThat(snapshotFile).exists();
+
+        OpenAtfxAPIImplementation snapshotApi = AtfxSnapshot.forFile(atfxFile, getOptions())
+                                                            .read(new LocalFileHandler(),
+                                                                  parsedApi.getContext().values());
+        assertThat(snapshotApi).isNotNull();
+        assertSameModel(parsedApi, snapshotApi);
+        assertSameFile(parsedApi, snapshotApi);
+
+        // the second open is served from the snapshot
+        assertSameFile(parsedApi, open(getProperties()));
+    }
+
+    @Test
+    void testRead_lazyInlineValuesNotCached() throws Exception {
+        Properties properties = getProperties();
+        properties.setProperty(OpenAtfxConstants.CONTEXT_LAZY_INLINE_VALUES, "TRUE");
+        OpenAtfxAPIImplementation lazyApi = open(properties);
+        assertThat(lazyApi.getInlineValuesIndex().getIids()).isNotEmpty();
+        assertThat(tempDir.resolve("example.atfx" + AtfxSnapshot.FILE_SUFFIX)).doesNotExist();
+
+        // a snapshot written by an eager session does not load the inline values of a lazy one
+        OpenAtfxAPIImplementation eagerApi = open(getProperties());
+        assertThat(tempDir.resolve("example.atfx" + AtfxSnapshot.FILE_SUFFIX)).exists();
+        lazyApi = open(properties);
+        Collection<Long> iids = lazyApi.getInlineValuesIndex().getIids();
+        assertThat(iids).isNotEmpty();
+        long aid = lazyApi.getUniqueElementByBaseType(AtfxTagConstants.LC).getId();
+        for (long iid : iids) {
+            assertThat(lazyApi.getInstanceById(aid, iid).getValueByBaseName(AtfxTagConstants.LC_VALUES)
+                              .getValue().getValue())
+                    .isEqualTo(eagerApi.getInstanceById(aid, iid).getValueByBaseName(AtfxTagConstants.LC_VALUES)
+                                       .getValue().getValue());
+        }
+    }
+
+    @Test
+    void testRead_outdated() throws Exception {
+        open(getProperties());
+        assertThat(AtfxSnapshot.forFile(atfxFile, getOptions()).read(new LocalFileHandler(), List.of())).isNotNull();
+
+        // other options
+        assertThat(AtfxSnapshot.forFile(atfxFile, "other").read(new LocalFileHandler(), List.of())).isNull();
+
+        // same size and modification time, but changed content
+        byte[] content = Files.readAllBytes(atfxFile);
+        FileTime lastModified = Files.getLastModifiedTime(atfxFile);
+        content[content.length - 2] = (byte) ' ';
+        Files.write(atfxFile, content, StandardOpenOption.TRUNCATE_EXISTING);
+        Files.setLastModifiedTime(atfxFile, lastModified);
+        assertThat(AtfxSnapshot.forFile(atfxFile, getOptions()).read(new LocalFileHandler(), List.of())).isNull();
+    }
+
+    private Properties getProperties() {
+        Properties properties = new Properties();
+        properties.setProperty(OpenAtfxConstants.CONTEXT_SNAPSHOT_CACHE, "TRUE");
+        return properties;
+    }
+
+    private static String getOptions() {
+        return "EXTENDED_COMPATIBILITYMODE=false;ETXCOMP_FILENAME_STRIP_STRING=;TRIM_STRING_VALUES=false;"
+                + "SKIP_ELEMENTS=";
+    }
+
+    private OpenAtfxAPIImplementation open(Properties properties) {
+        return new ApiFactory().getApiForExistingFile(new LocalFileHandler(), atfxFile, properties);
+    }
+
+    private static void assertSameModel(OpenAtfxAPI expected, OpenAtfxAPI actual) {
+        assertThat(actual.listEnumerationNames(false)).isEqualTo(expected.listEnumerationNames(false));
+        assertThat(actual.getElements()).hasSameSizeAs(expected.getElements());
+        for (Element expectedElement : expected.getElements()) {
+            Element actualElement = actual.getElementById(expectedElement.getId());
+            assertThat(actualElement.getName()).isEqualTo(expectedElement.getName());
+            for (Attribute expectedAttr : expectedElement.getAttributes()) {
+                Attribute actualAttr = actualElement.getAttributeByName(expectedAttr.getName());
+                assertThat(actualAttr.getAttrNo()).isEqualTo(expectedAttr.getAttrNo());
+                assertThat(actualAttr.getDataType()).isEqualTo(expectedAttr.getDataType());
+            }
+            for (Relation expectedRel : expectedElement.getRelations()) {
+                Relation actualRel = actualElement.getRelationByName(expectedRel.getRelationName());
+                assertThat(actualRel.getRelNo()).isEqualTo(expectedRel.getRelNo());
+                assertThat(actualRel.getRelationship()).as(expectedRel.toString()).isEqualTo(expectedRel.getRelationship());
+            }
+        }
+    }
+
+    private void assertSameFile(OpenAtfxAPIImplementation expected, OpenAtfxAPIImplementation actual)
+            throws Exception {
+        Path expectedFile = tempDir.resolve("expected.atfx");
+        Path actualFile = tempDir.resolve("actual.atfx");
+        expected.writeAtfx(expectedFile.toFile());
+        actual.writeAtfx(actualFile.toFile());
+        assertThat(withoutExportDate(actualFile)).isEqualTo(withoutExportDate(expectedFile));
+    }
+
+    private static String withoutExportDate(Path atfxFile) throws Exception {
+        return Files.readString(atfxFile).replaceFirst("<export_date_time>\\d*</export_date_time>", "");
+    }
+}
@@ -0,0 +1,179 @@
+package com.peaksolution.openatfx.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.peaksolution.openatfx.LocalFileHandler;
+import com.peaksolution.openatfx.OpenAtfx;
+
+
+/**
+ * Test case for streaming the instances of an ATFX file to an <code>com.peaksolution.openatfx.api.AtfxVisitor</code>.
+ *
+ * @author Markus Renner
+ */
+class AtfxVisitorTest {
+
+    private static Path atfxFile;
+    private static OpenAtfxAPIImplementation fullApi;
+
+    @BeforeAll
+    static void setUpBeforeClass() throws Exception {
+        atfxFile = Path.of(AtfxVisitorTest.class.getResource("/com/peaksolution/openatfx/example.atfx").toURI());
+        fullApi = new ApiFactory().getApiForExistingFile(new LocalFileHandler(), atfxFile, new Properties());
+    }
+
+    @Test
+    void testStream() {
+        RecordingVisitor visitor = new RecordingVisitor();
+        new OpenAtfx().stream(atfxFile, visitor);
+
+        assertThat(visitor.events.get(0)).isEqualTo("model");
+        assertThat(visitor.events.get(visitor.events.size() - 1)).isEqualTo("end");
+        assertThat(visitor.modelApi.getElementByName("lc")).isNotNull();
+        assertThat(visitor.modelApi.getInstances(visitor.modelApi.getElementByName("lc").getId())).isEmpty();
+
+        // no external component instances are created for the components
+        long aidEc = fullApi.getElementByName("ec").getId();
+        assertThat(visitor.iidsByAeName.getOrDefault("ec", List.of()))
+                .hasSize(fullApi.getInstances(aidEc).size() - visitor.componentsByKey.size());
+        for (Element element : fullApi.getElements()) {
+            if (element.getId() == aidEc) {
+                continue;
+            }
+            List<Long> expectedIids = new ArrayList<>();
+            for (Instance instance : fullApi.getInstances(element.getId())) {
+                expectedIids.add(instance.getIid());
+            }
+            assertThat(visitor.iidsByAeName.getOrDefault(element.getName(), List.of()))
+                    .containsExactlyInAnyOrderElementsOf(expectedIids);
+        }
+
+        for (Entry<String, String> entry : visitor.namesByKey.entrySet()) {
+            String[] key = entry.getKey().split(":");
+            Instance instance = fullApi.getInstanceById(fullApi.getElementByName(key[0]).getId(), Long.parseLong(key[1]));
+            assertThat(entry.getValue()).isEqualTo(instance.getName());
+        }
+
+        // the relations are passed as written in the file
+        long aidSm = fullApi.getElementByName("sm").getId();
+        assertThat(Arrays.stream(visitor.relatedIidsByKey.get("sm:33:lc_iid")).boxed().toList())
+                .containsExactlyInAnyOrderElementsOf(fullApi.getRelatedInstanceIds(aidSm, 33, "lc_iid"));
+        for (Entry<String, long[]> entry : visitor.relatedIidsByKey.entrySet()) {
+            String[] key = entry.getKey().split(":");
+            long aid = fullApi.getElementByName(key[0]).getId();
+            List<Long> relatedIids = fullApi.getRelatedInstanceIds(aid, Long.parseLong(key[1]), key[2]);
+            for (long relatedIid : entry.getValue()) {
+                assertThat(relatedIids).contains(relatedIid);
+            }
+        }
+
+        // local column values in component files, compared to the external components created when opening
+        assertThat(visitor.componentsByKey).hasSize(10);
+        Element lcElement = fullApi.getElementByName("lc");
+        String relationName = fullApi.getRelationByBaseName(lcElement.getId(), "external_component").getRelationName();
+        for (Entry<String, AtfxComponent> entry : visitor.componentsByKey.entrySet()) {
+            String[] key = entry.getKey().split(":");
+            assertThat(key[0]).isEqualTo("lc");
+            assertThat(key[2]).isEqualTo("values");
+            List<Long> ecIids = fullApi.getRelatedInstanceIds(lcElement.getId(), Long.parseLong(key[1]), relationName);
+            assertThat(ecIids).hasSize(1);
+            Instance ec = fullApi.getInstanceById(aidEc, ecIids.get(0));
+            AtfxComponent component = entry.getValue();
+            assertThat(component.getFileName()).isEqualTo(ec.getValueByBaseName("filename_url").getValue().stringVal());
+            assertThat(component.getDataType()).isEqualTo("ieeefloat4");
+            assertThat(component.getDescription()).isEqualTo("PAK native file");
+            assertThat(component.getLength())
+                    .isEqualTo(ec.getValueByBaseName("component_length").getValue().longVal());
+            assertThat(component.getStartOffset())
+                    .isEqualTo(ec.getValueByBaseName("start_offset").getValue().getLongValue());
+            assertThat(component.getBlockSize()).isEqualTo(ec.getValueByBaseName("block_size").getValue().longVal());
+            assertThat(component.getValuesPerBlock())
+                    .isEqualTo(ec.getValueByBaseName("valuesperblock").getValue().longVal());
+            assertThat(component.getValueOffset())
+                    .isEqualTo(ec.getValueByBaseName("value_offset").getValue().longVal());
+        }
+    }
+
+    @Test
+    void testStream_flagsComponent() throws Exception {
+        Path file = Path.of(AtfxVisitorTest.class.getResource("/com/peaksolution/openatfx/external_with_flags.atfx")
+                                                 .toURI());
+        RecordingVisitor visitor = new RecordingVisitor();
+        new ApiFactory().streamExistingFile(new LocalFileHandler(), file, new Properties(), null, visitor);
+
+        AtfxComponent flags = visitor.componentsByKey.get("LocalColumn:11:Flags");
+        assertThat(flags).isNotNull();
+        assertThat(flags.getFileName()).isEqualTo("external_with_flags.bda");
+        assertThat(flags.getDataType()).isEqualTo("dt_short");
+        assertThat(flags.getLength()).isEqualTo(300004);
+        assertThat(flags.getValueOffset()).isEqualTo(8);
+        assertThat(visitor.componentsByKey.get("LocalColumn:11:Values").getDataType()).isEqualTo("ieeefloat8");
+    }
+
+    @Test
+    void testStream_filtered() {
+        OpenAtfx openAtfx = new OpenAtfx();
+        openAtfx.addProperty(OpenAtfxConstants.CONTEXT_SKIP_ELEMENTS, "AoLocalColumn");
+        openAtfx.setInstanceFilter((aeName, iid) -> !(aeName.equals("meq") && iid == 38));
+        RecordingVisitor visitor = new RecordingVisitor();
+        openAtfx.stream(atfxFile, visitor);
+
+        assertThat(visitor.iidsByAeName).doesNotContainKey("lc");
+        assertThat(visitor.iidsByAeName.get("meq")).doesNotContain(38L)
+                .hasSize(fullApi.getInstances(fullApi.getElementByName("meq").getId()).size() - 1);
+        assertThat(visitor.componentsByKey).isEmpty();
+    }
+
+    private static class RecordingVisitor implements AtfxVisitor {
+        private final List<String> events = new ArrayList<>();
+        private final Map<String, List<Long>> iidsByAeName = new HashMap<>();
+        private final Map<String, String> namesByKey = new HashMap<>();
+        private final Map<String, long[]> relatedIidsByKey = new HashMap<>();
+        private final Map<String, AtfxComponent> componentsByKey = new HashMap<>();
+        private OpenAtfxAPI modelApi;
+
+        @Override
+        public void visitModel(OpenAtfxAPI api) {
+            events.add("model");
+            modelApi = api;
+        }
+
+        @Override
+        public void visitInstance(Element element, long iid, List<NameValueUnit> values,
+                List<NameValueUnit> instanceAttributes, Map<Relation, long[]> relatedIids,
+                Map<String, AtfxComponent> components) {
+            events.add("instance");
+            iidsByAeName.computeIfAbsent(element.getName(), v -> new ArrayList<>()).add(iid);
+            String key = element.getName() + ":" + iid;
+            String nameAttr = element.getAttributeByBaseName("name").getName();
+            for (NameValueUnit value : values) {
+                if (value.getValName().equals(nameAttr)) {
+                    namesByKey.put(key, value.getValue().stringVal());
+                }
+            }
+            for (Entry<Relation, long[]> entry : relatedIids.entrySet()) {
+                relatedIidsByKey.put(key + ":" + entry.getKey().getRelationName(), entry.getValue());
+            }
+            for (Entry<String, AtfxComponent> entry : components.entrySet()) {
+                componentsByKey.put(key + ":" + entry.getKey(), entry.getValue());
+            }
+        }
+
+        @Override
+        public void visitEnd() {
+            events.add("end");
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.peaksolution.openatfx.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.peaksolution.openatfx.util.ODSHelper;
+
+/**
+ * Compares the {@link BitFieldDecoder} with {@link ODSHelper#getBitShiftedIntegerValue(byte[], int, int, int)}.
+ */
+class BitFieldDecoderTest {
+
+    private static final int NR_OF_VALUES = 50;
+
+    @Test
+    void testDecode_allBitCounts() {
+        Random random = new Random(4711);
+        for (int valueType = 27; valueType <= 30; valueType++) {
+            for (int bitCount = 1; bitCount <= 64; bitCount++) {
+                for (int bitOffset = 0; bitOffset < 8; bitOffset++) {
+                    BitFieldDecoder decoder = new BitFieldDecoder(valueType, bitCount, bitOffset);
+                    int valueSize = decoder.getValueSize();
+                    byte[] data = new byte[NR_OF_VALUES * valueSize];
+                    random.nextBytes(data);
+                    // include the extreme values
+                    Arrays.fill(data, 0, valueSize, (byte) 0xff);
+                    Arrays.fill(data, valueSize, 2 * valueSize, (byte) 0);
+
+                    long[] expected = new long[NR_OF_VALUES];
+                    for (int i = 0; i < NR_OF_VALUES; i++) {
+                        byte[] valueBytes = Arrays.copyOfRange(data, i * valueSize, (i + 1) * valueSize);
+                        expected[i] = ODSHelper.getBitShiftedIntegerValue(valueBytes, valueType, bitCount, bitOffset)
+                                               .longValue();
+                    }
+
+                    // the byte order of the buffer must not matter, the last values are decoded byte by byte
+                    for (ByteOrder order : new ByteOrder[] { ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN }) {
+                        ByteBuffer source = ByteBuffer.wrap(data).order(order);
+                        NumberArray target = NumberArray.create(DataType.DS_LONGLONG, NR_OF_VALUES);
+                        decoder.decode(source, 0, NR_OF_VALUES, target, 0);
+                        assertThat(target.toSingleValue().longlongSeq()).as("%s, %s", decoder, order)
+                                                                         .containsExactly(expected);
+                        assertThat(source.order()).isEqualTo(order);
+                        assertThat(source.position()).isZero();
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void testDecode_offsetInBuffer() {
+        // 12 bit signed values behind a 3 byte header, big endian
+        byte[] data = new byte[] { 9, 9, 9, (byte) 0x80, 0x01, 0x7f, (byte) 0xf0, 0x00, 0x05 };
+        BitFieldDecoder decoder = new BitFieldDecoder(28, 12, 0);
+        NumberArray target = NumberArray.create(DataType.DS_LONG, 3);
+        decoder.decode(ByteBuffer.wrap(data), 3, 3, target, 0);
+        assertThat(target.toSingleValue().longSeq()).containsExactly(1, -16, 5);
+    }
+
+    @Test
+    void testUnsupported() {
+        assertThatThrownBy(() -> new BitFieldDecoder(3, 8, 0)).isInstanceOf(OpenAtfxException.class);
+        assertThatThrownBy(() -> new BitFieldDecoder(27, 65, 0)).isInstanceOf(OpenAtfxException.class);
+    }
+}
@@ -0,0 +1,46 @@
+package com.peaksolution.openatfx.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.peaksolution.openatfx.util.ODSHelper;
+
+/**
+ * Compares the {@link BooleanBitPacker} with {@link ODSHelper#setBit(byte[], int, boolean)}.
+ */
+class BooleanBitPackerTest {
+
+    @Test
+    void testPack_allLengths() {
+        Random random = new Random(4711);
+        for (ByteOrder byteOrder : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN }) {
+            for (int count = 0; count <= 200; count++) {
+                boolean[] values = new boolean[count + 16];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = random.nextBoolean();
+                }
+                // packing starts at the beginning of a byte, so the source index is a multiple of 8
+                int srcIndex = count % 2 == 0 ? 0 : 16;
+                byte[] expected = new byte[BooleanBitPacker.getPackedLength(count)];
+                for (int i = 0; i < count; i++) {
+                    ODSHelper.setBit(expected, i, values[srcIndex + i]);
+                }
+
+                ByteBuffer target = ByteBuffer.allocate(expected.length + 3).order(byteOrder);
+                target.put((byte) 1);
+                int length = BooleanBitPacker.pack(values, srcIndex, count, target);
+                assertThat(length).isEqualTo(expected.length);
+                assertThat(target.position()).isEqualTo(1 + expected.length);
+                assertThat(target.order()).isEqualTo(byteOrder);
+                byte[] packed = Arrays.copyOfRange(target.array(), 1, 1 + length);
+                assertThat(packed).as("%s values in %s", count, byteOrder).isEqualTo(expected);
+            }
+        }
+    }
+}
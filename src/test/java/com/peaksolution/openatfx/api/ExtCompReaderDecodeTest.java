@@ -0,0 +1,379 @@
+package com.peaksolution.openatfx.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+
+import org.asam.ods.SetType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.peaksolution.openatfx.IFileHandler;
+import com.peaksolution.openatfx.LocalFileHandler;
+
+/**
+ * Tests decoding the values of each value type from external component files into the primitive target arrays.
+ */
+class ExtCompReaderDecodeTest {
+
+    // raw data types
+    private static final int DT_SHORT = 2;
+    private static final int DT_FLOAT = 3;
+    private static final int DT_BYTE = 5;
+    private static final int DT_LONG = 6;
+    private static final int DT_DOUBLE = 7;
+    private static final int DT_LONGLONG = 8;
+    private static final int DT_COMPLEX = 13;
+    private static final int DT_DCOMPLEX = 14;
+
+    /** more values than decoded one by one, so the bulk path is used for the whole column */
+    private static final int COUNT = 20;
+
+    @TempDir
+    Path fileRoot;
+
+    private OpenAtfxAPIImplementation api;
+    private Element lcElement;
+    private Element ecElement;
+    private ExtCompReader reader;
+    private int fileNo;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        URL url = ExtCompReaderDecodeTest.class.getResource("/com/peaksolution/openatfx/example.atfx");
+        Path atfxFile = Path.of(url.toURI());
+        IFileHandler fileHandler = new LocalFileHandler();
+        AtfxReader atfxReader = new AtfxReader(fileHandler, atfxFile, false, null);
+        try (InputStream in = fileHandler.getFileStream(atfxFile)) {
+            XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+            XMLStreamReader rawReader = inputFactory.createXMLStreamReader(in);
+            XMLStreamReader xmlReader = inputFactory.createFilteredReader(rawReader, new StartEndElementFilter());
+            api = atfxReader.readFile(xmlReader, Collections.emptyList());
+        }
+        api.setContext(new NameValueUnit("FILE_ROOT", DataType.DT_STRING, fileRoot.toString()));
+        lcElement = api.getUniqueElementByBaseType("aolocalcolumn");
+        ecElement = api.getUniqueElementByBaseType("aoexternalcomponent");
+        for (String baseName : List.of("ao_bit_count", "ao_bit_offset")) {
+            if (ecElement.getAttributeByBaseName(baseName) == null) {
+                api.createAttributeFromBaseAttribute(ecElement.getId(), baseName, baseName);
+            }
+        }
+        reader = new ExtCompReader(api);
+        reader.setExecutor(Runnable::run);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reader.close();
+        api.close();
+    }
+
+    static Stream<ByteOrder> byteOrders() {
+        return Stream.of(ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN);
+    }
+
+    private static int valueType(ByteOrder byteOrder, int littleEndian, int bigEndian) {
+        return byteOrder == ByteOrder.LITTLE_ENDIAN ? littleEndian : bigEndian;
+    }
+
+    private static ByteBuffer allocate(int size, ByteOrder byteOrder) {
+        return ByteBuffer.allocate(size).order(byteOrder);
+    }
+
+    /**
+     * Creates a local column with one external component of given layout, holding the given data.
+     */
+    private long createColumn(int rawDataType, int valueType, ByteBuffer data, int componentLength, int startOffset,
+            int blockSize, int valuesPerBlock, int valueOffset, short bitCount, short bitOffset) throws Exception {
+        Path file = fileRoot.resolve("decode_" + (++fileNo) + ".bin");
+        byte[] bytes = new byte[startOffset + data.capacity()];
+        System.arraycopy(data.array(), 0, bytes, startOffset, data.capacity());
+        Files.write(file, bytes);
+
+        Collection<NameValueUnit> lcValues = new ArrayList<>();
+        lcValues.add(new NameValueUnit(lcElement.getAttributeByBaseName("name").getName(), DataType.DT_STRING,
+                                       "lc" + fileNo));
+        lcValues.add(new NameValueUnit(lcElement.getAttributeByBaseName("raw_datatype").getName(), DataType.DT_ENUM,
+                                       rawDataType));
+        long iidLc = api.createInstance(lcElement.getId(), lcValues).getIid();
+
+        Collection<NameValueUnit> ecValues = new ArrayList<>();
+        ecValues.add(attr("name", DataType.DT_STRING, "ec" + fileNo));
+        ecValues.add(attr("filename_url", DataType.DT_STRING, file.toString()));
+        ecValues.add(attr("value_type", DataType.DT_ENUM, valueType));
+        ecValues.add(attr("component_length", DataType.DT_LONG, componentLength));
+        ecValues.add(attr("start_offset", DataType.DT_LONG, startOffset));
+        ecValues.add(attr("block_size", DataType.DT_LONG, blockSize));
+        ecValues.add(attr("valuesperblock", DataType.DT_LONG, valuesPerBlock));
+        ecValues.add(attr("value_offset", DataType.DT_LONG, valueOffset));
+        ecValues.add(attr("ordinal_number", DataType.DT_LONG, 1));
+        ecValues.add(attr("ao_bit_count", DataType.DT_SHORT, bitCount));
+        ecValues.add(attr("ao_bit_offset", DataType.DT_SHORT, bitOffset));
+        long iidExtComp = api.createInstance(ecElement.getId(), ecValues).getIid();
+
+        Relation relExtComps = api.getRelationByBaseName(lcElement.getId(), "external_component");
+        api.setRelatedInstances(lcElement.getId(), iidLc, relExtComps.getRelationName(), List.of(iidExtComp),
+                                SetType.INSERT);
+        return iidLc;
+    }
+
+    /**
+     * Creates a local column with one external component holding the given values consecutively.
+     */
+    private long createColumn(int rawDataType, int valueType, ByteBuffer data, int valueSize) throws Exception {
+        int length = data.capacity() / valueSize;
+        return createColumn(rawDataType, valueType, data, length, 0, valueSize, 1, 0, (short) 0, (short) 0);
+    }
+
+    private NameValueUnit attr(String baseAttrName, DataType dataType, Object value) {
+        return new NameValueUnit(ecElement.getAttributeByBaseName(baseAttrName).getName(), dataType, value);
+    }
+
+    private SingleValue read(long iidLc) {
+        return reader.readValues(iidLc, DataType.DS_DOUBLE);
+    }
+
+    /**
+     * Reads a window of 3 values, which are decoded one by one.
+     */
+    private SingleValue readWindow(long iidLc) {
+        return reader.readValues(iidLc, DataType.DS_DOUBLE, 1, 3);
+    }
+
+    @ParameterizedTest
+    @MethodSource("byteOrders")
+    void testDecode_short(ByteOrder byteOrder) throws Exception {
+        short[] expected = new short[COUNT];
+        ByteBuffer data = allocate(COUNT * 2, byteOrder);
+        for (int i = 0; i < COUNT; i++) {
+            expected[i] = (short) (i * 1000 - 9000);
+            data.putShort(expected[i]);
+        }
+        long iidLc = createColumn(DT_SHORT, valueType(byteOrder, 2, 7), data, 2);
+        assertThat(read(iidLc).shortSeq()).containsExactly(expected);
+        assertThat(readWindow(iidLc).shortSeq()).containsExactly(expected[1], expected[2], expected[3]);
+    }
+
+    @ParameterizedTest
+    @MethodSource("byteOrders")
+    void testDecode_long(ByteOrder byteOrder) throws Exception {
+        int[] expected = new int[COUNT];
+        ByteBuffer data = allocate(COUNT * 4, byteOrder);
+        for (int i = 0; i < COUNT; i++) {
+            expected[i] = i * 100_000_000 - 1_000_000_007;
+            data.putInt(expected[i]);
+        }
+        long iidLc = createColumn(DT_LONG, valueType(byteOrder, 3, 8), data, 4);
+        assertThat(read(iidLc).longSeq()).containsExactly(expected);
+        assertThat(readWindow(iidLc).longSeq()).containsExactly(expected[1], expected[2], expected[3]);
+    }
+
+    @ParameterizedTest
+    @MethodSource("byteOrders")
+    void testDecode_longlong(ByteOrder byteOrder) throws Exception {
+        long[] expected = new long[COUNT];
+        ByteBuffer data = allocate(COUNT * 8, byteOrder);
+        for (int i = 0; i < COUNT; i++) {
+            expected[i] = (i - 10) * 1_000_000_000_007L;
+            data.putLong(expected[i]);
+        }
+        long iidLc = createColumn(DT_LONGLONG, valueType(byteOrder, 4, 9), data, 8);
+        assertThat(read(iidLc).longlongSeq()).containsExactly(expected);
+        assertThat(readWindow(iidLc).longlongSeq()).containsExactly(expected[1], expected[2], expected[3]);
+    }
+
+    @ParameterizedTest
+    @MethodSource("byteOrders")
+    void testDecode_unsignedShort(ByteOrder byteOrder) throws Exception {
+        int[] expected = new int[COUNT];
+        ByteBuffer data = allocate(COUNT * 2, byteOrder);
+        for (int i = 0; i < COUNT; i++) {
+            expected[i] = 65535 - i * 3000;
+            data.putShort((short) expected[i]);
+        }
+        long iidLc = createColumn(DT_LONG, valueType(byteOrder, 21, 22), data, 2);
+        assertThat(read(iidLc).longSeq()).containsExactly(expected);
+        assertThat(readWindow(iidLc).longSeq()).containsExactly(expected[1], expected[2], expected[3]);
+    }
+
+    @ParameterizedTest
+    @MethodSource("byteOrders")
+    void testDecode_unsignedLong(ByteOrder byteOrder) throws Exception {
+        long[] expected = new long[COUNT];
+        ByteBuffer data = allocate(COUNT * 4, byteOrder);
+        for (int i = 0; i < COUNT; i++) {
+            expected[i] = 0xffffffffL - i * 200_000_000L;
+            data.putInt((int) expected[i]);
+        }
+        long iidLc = createColumn(DT_LONGLONG, valueType(byteOrder, 23, 24), data, 4);
+        assertThat(read(iidLc).longlongSeq()).containsExactly(expected);
+        assertThat(readWindow(iidLc).longlongSeq()).containsExactly(expected[1], expected[2], expected[3]);
+    }
+
+    @ParameterizedTest
+    @MethodSource("byteOrders")
+    void testDecode_float(ByteOrder byteOrder) throws Exception {
+        float[] expected = new float[COUNT];
+        ByteBuffer data = allocate(COUNT * 4, byteOrder);
+        for (int i = 0; i < COUNT; i++) {
+            expected[i] = i * -1.25f + 0.1f;
+            data.putFloat(expected[i]);
+        }
+        long iidLc = createColumn(DT_FLOAT, valueType(byteOrder, 5, 10), data, 4);
+        assertThat(read(iidLc).floatSeq()).containsExactly(expected);
+        assertThat(readWindow(iidLc).floatSeq()).containsExactly(expected[1], expected[2], expected[3]);
+    }
+
+    @ParameterizedTest
+    @MethodSource("byteOrders")
+    void testDecode_double(ByteOrder byteOrder) throws Exception {
+        double[] expected = new double[COUNT];
+        ByteBuffer data = allocate(COUNT * 8, byteOrder);
+        for (int i = 0; i < COUNT; i++) {
+            expected[i] = i * 1e300 / 7 - Math.PI;
+            data.putDouble(expected[i]);
+        }
+        long iidLc = createColumn(DT_DOUBLE, valueType(byteOrder, 6, 11), data, 8);
+        assertThat(read(iidLc).doubleSeq()).containsExactly(expected);
+        assertThat(readWindow(iidLc).doubleSeq()).containsExactly(expected[1], expected[2], expected[3]);
+    }
+
+    @Test
+    void testDecode_bytes() throws Exception {
+        ByteBuffer data = allocate(COUNT, ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < COUNT; i++) {
+            data.put((byte) (i * 13 - 100));
+        }
+
+        // dt_byte is unsigned
+        int[] unsigned = new int[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            unsigned[i] = data.get(i) & 0xff;
+        }
+        long iidLc = createColumn(DT_LONG, 1, data, 1);
+        assertThat(read(iidLc).longSeq()).containsExactly(unsigned);
+
+        // dt_sbyte is signed
+        byte[] signed = data.array().clone();
+        iidLc = createColumn(DT_BYTE, 19, data, 1);
+        assertThat(read(iidLc).byteSeq()).containsExactly(signed);
+        assertThat(readWindow(iidLc).byteSeq()).containsExactly(signed[1], signed[2], signed[3]);
+    }
+
+    @ParameterizedTest
+    @MethodSource("byteOrders")
+    void testDecode_complexInterleaved(ByteOrder byteOrder) throws Exception {
+        // real and imaginary parts alternate, the component length counts both
+        Complex[] expected = new Complex[COUNT];
+        ByteBuffer data = allocate(COUNT * 8, byteOrder);
+        for (int i = 0; i < COUNT; i++) {
+            expected[i] = new Complex(i * 0.5f, -i - 0.25f);
+            data.putFloat(expected[i].getR()).putFloat(expected[i].getI());
+        }
+        long iidLc = createColumn(DT_COMPLEX, valueType(byteOrder, 5, 10), data, 4);
+        assertThat(read(iidLc).complexSeq()).containsExactly(expected);
+        assertThat(readWindow(iidLc).complexSeq()).containsExactly(expected[1], expected[2], expected[3]);
+    }
+
+    @ParameterizedTest
+    @MethodSource("byteOrders")
+    void testDecode_dcomplexInterleaved(ByteOrder byteOrder) throws Exception {
+        DoubleComplex[] expected = new DoubleComplex[COUNT];
+        ByteBuffer data = allocate(COUNT * 16, byteOrder);
+        for (int i = 0; i < COUNT; i++) {
+            expected[i] = new DoubleComplex(i / 3d, -i * 1e-200);
+            data.putDouble(expected[i].getR()).putDouble(expected[i].getI());
+        }
+        long iidLc = createColumn(DT_DCOMPLEX, valueType(byteOrder, 6, 11), data, 8);
+        assertThat(read(iidLc).dcomplexSeq()).containsExactly(expected);
+        assertThat(readWindow(iidLc).dcomplexSeq()).containsExactly(expected[1], expected[2], expected[3]);
+    }
+
+    @Test
+    void testDecode_valueOffsetInRecords() throws Exception {
+        // each record of 16 bytes holds an int, the float value at offset 4 and a double
+        ByteOrder byteOrder = ByteOrder.BIG_ENDIAN;
+        float[] expected = new float[COUNT];
+        ByteBuffer data = allocate(COUNT * 16, byteOrder);
+        for (int i = 0; i < COUNT; i++) {
+            expected[i] = i + 0.5f;
+            data.putInt(-1).putFloat(expected[i]).putDouble(Double.NaN);
+        }
+        long iidLc = createColumn(DT_FLOAT, 10, data, COUNT, 6, 16, 1, 4, (short) 0, (short) 0);
+        assertThat(read(iidLc).floatSeq()).containsExactly(expected);
+        assertThat(readWindow(iidLc).floatSeq()).containsExactly(expected[1], expected[2], expected[3]);
+    }
+
+    @Test
+    void testDecode_blocksWithPadding() throws Exception {
+        // blocks of 4 doubles, preceded by a header of 2 bytes and followed by 6 bytes of padding
+        int valuesPerBlock = 4;
+        int blockSize = 2 + valuesPerBlock * 8 + 6;
+        int nrOfBlocks = COUNT / valuesPerBlock;
+        ByteOrder byteOrder = ByteOrder.LITTLE_ENDIAN;
+        double[] expected = new double[COUNT];
+        ByteBuffer data = allocate(nrOfBlocks * blockSize, byteOrder);
+        for (int block = 0; block < nrOfBlocks; block++) {
+            data.position(block * blockSize + 2);
+            for (int i = 0; i < valuesPerBlock; i++) {
+                int index = block * valuesPerBlock + i;
+                expected[index] = index * -2.5;
+                data.putDouble(expected[index]);
+            }
+        }
+        long iidLc = createColumn(DT_DOUBLE, 6, data, COUNT, 0, blockSize, valuesPerBlock, 2, (short) 0,
+                                  (short) 0);
+        assertThat(read(iidLc).doubleSeq()).containsExactly(expected);
+
+        // a window spanning the border of two blocks
+        assertThat(reader.readValues(iidLc, DataType.DS_DOUBLE, 3, 3).doubleSeq())
+            .containsExactly(expected[3], expected[4], expected[5]);
+    }
+
+    @Test
+    void testDecode_bitFieldsUnsigned() throws Exception {
+        // 12 bits shifted by 2 bits, 2 bytes per value in little endian order
+        ByteOrder byteOrder = ByteOrder.LITTLE_ENDIAN;
+        int[] expected = new int[COUNT];
+        ByteBuffer data = allocate(COUNT * 2, byteOrder);
+        for (int i = 0; i < COUNT; i++) {
+            expected[i] = (i * 211) & 0xfff;
+            data.putShort((short) ((expected[i] << 2) | 0x3));
+        }
+        long iidLc = createColumn(DT_LONG, 29, data, COUNT, 0, 2, 1, 0, (short) 12, (short) 2);
+        assertThat(read(iidLc).longSeq()).containsExactly(expected);
+        assertThat(readWindow(iidLc).longSeq()).containsExactly(expected[1], expected[2], expected[3]);
+    }
+
+    @Test
+    void testDecode_bitFieldsSignedBigEndian() throws Exception {
+        // 12 bits shifted by 2 bits, 2 bytes per value in big endian order, sign extended
+        ByteOrder byteOrder = ByteOrder.BIG_ENDIAN;
+        int[] expected = new int[COUNT];
+        ByteBuffer data = allocate(COUNT * 2, byteOrder);
+        for (int i = 0; i < COUNT; i++) {
+            expected[i] = i * 200 - 2048;
+            data.putShort((short) (((expected[i] & 0xfff) << 2) | 0x1));
+        }
+        long iidLc = createColumn(DT_LONG, 28, data, COUNT, 0, 2, 1, 0, (short) 12, (short) 2);
+        assertThat(read(iidLc).longSeq()).containsExactly(expected);
+        assertThat(readWindow(iidLc).longSeq()).containsExactly(expected[1], expected[2], expected[3]);
+    }
+}
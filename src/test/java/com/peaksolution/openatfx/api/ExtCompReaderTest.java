@@ -0,0 +1,300 @@
+package com.peaksolution.openatfx.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+
+import org.asam.ods.SetType;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import com.peaksolution.openatfx.IFileHandler;
+import com.peaksolution.openatfx.LocalFileHandler;
+
+/**
+ * Tests reading local columns consisting of multiple external components.
+ */
+class ExtCompReaderTest {
+
+    private static OpenAtfxAPIImplementation api;
+    private static long iidLc;
+    private static DataType dataType;
+
+    @BeforeAll
+    static void setUpBeforeClass() throws Exception {
+        URL url = ExtCompReaderTest.class.getResource("/com/peaksolution/openatfx/example.atfx");
+        Path atfxFile = Path.of(url.toURI());
+        IFileHandler fileHandler = new LocalFileHandler();
+        AtfxReader reader = new AtfxReader(fileHandler, atfxFile, false, null);
+        try (InputStream in = fileHandler.getFileStream(atfxFile)) {
+            XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+            XMLStreamReader rawReader = inputFactory.createXMLStreamReader(in);
+            XMLStreamReader xmlReader = inputFactory.createFilteredReader(rawReader, new StartEndElementFilter());
+            api = reader.readFile(xmlReader, Collections.emptyList());
+        }
+        api.setContext(new NameValueUnit("FILE_ROOT", DataType.DT_STRING, atfxFile.getParent().toString()));
+
+        // let the first numeric local column with an external component consist of three copies of that component
+        Element lcElement = api.getUniqueElementByBaseType("aolocalcolumn");
+        Element ecElement = api.getUniqueElementByBaseType("aoexternalcomponent");
+        Relation relExtComps = api.getRelationByBaseName(lcElement.getId(), "external_component");
+        String idAttrName = ecElement.getAttributeByBaseName("id").getName();
+        String ordinalAttrName = ecElement.getAttributeByBaseName("ordinal_number").getName();
+        for (Instance lc : api.getInstances(lcElement.getId())) {
+            List<Long> iidExtComps = api.getRelatedInstanceIds(lcElement.getId(), lc.getIid(), relExtComps);
+            DataType dt = api.getDataTypeForLocalColumnValues(lc.getIid());
+            if (iidExtComps.size() != 1 || dt == DataType.DS_STRING || dt == DataType.DS_DATE
+                    || dt == DataType.DS_BYTESTR) {
+                continue;
+            }
+            Instance extComp = api.getInstanceById(ecElement.getId(), iidExtComps.get(0));
+            List<Long> copies = new ArrayList<>();
+            for (int ordinal = 2; ordinal <= 3; ordinal++) {
+                Collection<NameValueUnit> values = new ArrayList<>();
+                for (NameValueUnit nvu : extComp.getValues(false)) {
+                    if (nvu.getValName().equals(ordinalAttrName)) {
+                        values.add(new NameValueUnit(ordinalAttrName, DataType.DT_LONG, ordinal));
+                    } else if (!nvu.getValName().equals(idAttrName)) {
+                        values.add(nvu);
+                    }
+                }
+                copies.add(api.createInstance(ecElement.getId(), values).getIid());
+            }
+            api.setRelatedInstances(lcElement.getId(), lc.getIid(), relExtComps.getRelationName(), copies,
+                                    SetType.APPEND);
+            iidLc = lc.getIid();
+            dataType = dt;
+            return;
+        }
+    }
+
+    @Test
+    void testReadValues_multipleComponentsInParallel() {
+        ExtCompReader reader = new ExtCompReader(api);
+        reader.setExecutor(command -> command.run());
+        SingleValue sequential = reader.readValues(iidLc, dataType);
+
+        AtomicInteger nrOfTasks = new AtomicInteger();
+        reader.setExecutor(command -> {
+            nrOfTasks.incrementAndGet();
+            ForkJoinPool.commonPool().execute(command);
+        });
+        SingleValue parallel = reader.readValues(iidLc, dataType);
+        assertThat(nrOfTasks).hasValue(3);
+        assertThat(parallel.getValue()).isEqualTo(sequential.getValue());
+
+        // the column consists of three equal components
+        int componentLength = sequential.getLength() / 3;
+        assertThat(sequential.getSubsetOfSequenceValue(componentLength, componentLength).getValue())
+            .isEqualTo(sequential.getSubsetOfSequenceValue(0, componentLength).getValue());
+
+        // a window spanning the border of two components only reads these two
+        nrOfTasks.set(0);
+        SingleValue window = reader.readValues(iidLc, dataType, componentLength - 1, 2);
+        assertThat(nrOfTasks).hasValue(2);
+        assertThat(window.getValue()).isEqualTo(sequential.getSubsetOfSequenceValue(componentLength - 1, 2)
+                                                          .getValue());
+    }
+
+    @Test
+    void testReadValues_sequentialByContext() {
+        ExtCompReader reader = new ExtCompReader(api);
+        api.setContext(new NameValueUnit(OpenAtfxConstants.CONTEXT_EXT_COMP_READ_THREADS, DataType.DT_STRING, "1"));
+        try {
+            SingleValue sequential = reader.readValues(iidLc, dataType);
+            api.setContext(new NameValueUnit(OpenAtfxConstants.CONTEXT_EXT_COMP_READ_THREADS, DataType.DT_LONG, 2));
+            assertThat(reader.readValues(iidLc, dataType).getValue()).isEqualTo(sequential.getValue());
+        } finally {
+            reader.close();
+            api.setContext(new NameValueUnit(OpenAtfxConstants.CONTEXT_EXT_COMP_READ_THREADS, DataType.DT_STRING, "0"));
+        }
+    }
+
+    @Test
+    void testReadFlags_window(@TempDir Path tempDir) throws Exception {
+        // write the flags of all components into one file, each component behind the previous one
+        Element lcElement = api.getUniqueElementByBaseType("aolocalcolumn");
+        Element ecElement = api.getUniqueElementByBaseType("aoexternalcomponent");
+        Relation relExtComps = api.getRelationByBaseName(lcElement.getId(), "external_component");
+        List<Long> iidExtComps = api.getRelatedInstanceIds(lcElement.getId(), iidLc, relExtComps);
+        if (ecElement.getAttributeByBaseName("flags_filename_url") == null) {
+            api.createAttributeFromBaseAttribute(ecElement.getId(), "flags_filename_url", "flags_filename_url");
+            api.createAttributeFromBaseAttribute(ecElement.getId(), "flags_start_offset", "flags_start_offset");
+        }
+        ByteOrder byteOrder = api.getByteOrder(ecElement.getId(), iidExtComps.get(0));
+        int componentLength = api.getInstanceById(ecElement.getId(), iidExtComps.get(0))
+                                 .getValueByBaseName("component_length").getValue().longVal();
+        int headerSize = 6;
+        Path flagsFile = tempDir.resolve("flags.bin");
+        ByteBuffer bb = ByteBuffer.allocate(headerSize + iidExtComps.size() * componentLength * 2).order(byteOrder);
+        bb.position(headerSize);
+        short[] expected = new short[iidExtComps.size() * componentLength];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = (short) (i % 16);
+            bb.putShort(expected[i]);
+        }
+        Files.write(flagsFile, bb.array());
+        for (int i = 0; i < iidExtComps.size(); i++) {
+            // the components are related in the order of their ordinal numbers
+            long offset = headerSize + 2L * i * componentLength;
+            api.setAttributeValues(ecElement.getId(), iidExtComps.get(i),
+                                   List.of(new NameValueUnit("flags_filename_url", DataType.DT_STRING,
+                                                             flagsFile.toString()),
+                                           new NameValueUnit("flags_start_offset", DataType.DT_LONGLONG, offset)));
+        }
+
+        try {
+            ExtCompReader reader = new ExtCompReader(api);
+            assertThat(reader.readFlags(iidLc).shortSeq()).containsExactly(expected);
+            // a window spanning the border of two components
+            assertThat(reader.readFlags(iidLc, componentLength - 1, 3).shortSeq())
+                .containsExactly(expected[componentLength - 1], expected[componentLength],
+                                 expected[componentLength + 1]);
+            // a window beyond the end is truncated
+            assertThat(reader.readFlags(iidLc, expected.length - 2, 10).shortSeq())
+                .containsExactly(expected[expected.length - 2], expected[expected.length - 1]);
+
+            long aidLc = lcElement.getId();
+            assertThat(api.getLocalColumnFlags(aidLc, iidLc, 2, 4).getValue().shortSeq())
+                .containsExactly(expected[2], expected[3], expected[4], expected[5]);
+        } finally {
+            for (long iidExtComp : iidExtComps) {
+                api.setAttributeValues(ecElement.getId(), iidExtComp,
+                                       List.of(new NameValueUnit("flags_filename_url", DataType.DT_STRING, "")));
+            }
+        }
+    }
+
+    @Test
+    void testDescriptors_cachedUntilInvalidated() {
+        ExtCompReader reader = new ExtCompReader(api);
+        List<ExtCompDescriptor> descriptors = reader.getDescriptors(iidLc);
+        assertThat(descriptors).hasSize(3);
+        assertThat(reader.getDescriptors(iidLc)).isSameAs(descriptors);
+
+        // ordered by ordinal number, the copies were created after the original component
+        assertThat(descriptors.get(1).getIid()).isLessThan(descriptors.get(2).getIid());
+        assertThat(descriptors).allSatisfy(d -> {
+            assertThat(d.getNumberOfValues()).isEqualTo(descriptors.get(0).getNumberOfValues());
+            assertThat(d.getValuesFile()).isEqualTo(descriptors.get(0).getValuesFile());
+        });
+
+        reader.invalidateDescriptors(iidLc);
+        List<ExtCompDescriptor> recompiled = reader.getDescriptors(iidLc);
+        assertThat(recompiled).isNotSameAs(descriptors).hasSize(3);
+        reader.invalidateDescriptors();
+        assertThat(reader.getDescriptors(iidLc)).isNotSameAs(recompiled);
+    }
+
+    @Test
+    void testDescriptors_orderWithoutOrdinalNumbers() {
+        // components without ordinal number are sorted behind the others, keeping their relative order
+        Integer[] ordinalNumbers = { null, 3, null, 1, 2, null, 1 };
+        List<ExtCompDescriptor> descriptors = new ArrayList<>();
+        for (int i = 0; i < ordinalNumbers.length; i++) {
+            Instance extComp = Mockito.mock(Instance.class);
+            Mockito.when(extComp.getIid()).thenReturn((long) i);
+            descriptors.add(new ExtCompDescriptor(extComp, ordinalNumbers[i], null, null, ByteOrder.LITTLE_ENDIAN));
+        }
+        descriptors.sort(ExtCompDescriptor.BY_ORDINAL_NUMBER);
+        assertThat(descriptors).extracting(ExtCompDescriptor::getIid).containsExactly(3L, 6L, 4L, 1L, 0L, 2L, 5L);
+    }
+
+    @Test
+    void testReadValues_customFileHandler() {
+        ExtCompReader reader = new ExtCompReader(api);
+        reader.setExecutor(Runnable::run);
+        SingleValue expected = reader.readValues(iidLc, dataType);
+
+        AtomicInteger nrOfChannels = new AtomicInteger();
+        reader.setFileHandler(new LocalFileHandler() {
+            @Override
+            public SeekableByteChannel getFileChannel(Path path) throws IOException {
+                nrOfChannels.incrementAndGet();
+                return new NonFileChannel(super.getFileChannel(path));
+            }
+        });
+        assertThat(reader.readValues(iidLc, dataType).getValue()).isEqualTo(expected.getValue());
+        assertThat(nrOfChannels).hasValue(3);
+
+        // channels which are no file channels cannot be memory mapped, so they are read instead
+        api.setContext(new NameValueUnit(OpenAtfxConstants.CONTEXT_EXT_COMP_MMAP, DataType.DT_STRING, "TRUE"));
+        try {
+            assertThat(reader.readValues(iidLc, dataType, 1, 5).getValue())
+                .isEqualTo(expected.getSubsetOfSequenceValue(1, 5).getValue());
+        } finally {
+            api.setContext(new NameValueUnit(OpenAtfxConstants.CONTEXT_EXT_COMP_MMAP, DataType.DT_STRING, "FALSE"));
+        }
+    }
+
+    /**
+     * Hides the file channel of the local file handler, like handlers of other storages do.
+     */
+    private static class NonFileChannel implements SeekableByteChannel {
+        private final SeekableByteChannel delegate;
+
+        private NonFileChannel(SeekableByteChannel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return delegate.read(dst);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return delegate.write(src);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public SeekableByteChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public SeekableByteChannel truncate(long size) throws IOException {
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return delegate.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
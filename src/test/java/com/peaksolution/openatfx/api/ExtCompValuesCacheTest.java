@@ -0,0 +1,135 @@
+package com.peaksolution.openatfx.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class ExtCompValuesCacheTest {
+
+    private static final long DOUBLES_SIZE = ExtCompValuesCache.estimateSize(doubles(100));
+
+    private static SingleValue doubles(int length) {
+        return new SingleValue(DataType.DS_DOUBLE, new double[length]);
+    }
+
+    @Test
+    void testHitAndMiss() {
+        ExtCompValuesCache cache = new ExtCompValuesCache();
+        AtomicInteger loads = new AtomicInteger();
+
+        SingleValue first = cache.get(1, DataType.DS_DOUBLE, () -> {
+            loads.incrementAndGet();
+            return doubles(100);
+        });
+        SingleValue second = cache.get(1, DataType.DS_DOUBLE, () -> {
+            loads.incrementAndGet();
+            return doubles(100);
+        });
+
+        assertThat(loads).hasValue(1);
+        assertThat(second.getValue()).isNotSameAs(first.getValue()).isEqualTo(first.getValue());
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getCurrentBytes()).isEqualTo(DOUBLES_SIZE);
+
+        // other data type is another entry
+        cache.get(1, DataType.DS_FLOAT, () -> new SingleValue(DataType.DS_FLOAT, new float[10]));
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getIfPresent(1, DataType.DS_FLOAT)).isNotNull();
+        assertThat(cache.getIfPresent(2, DataType.DS_FLOAT)).isNull();
+    }
+
+    @Test
+    void testReturnedValuesAreCopies() {
+        ExtCompValuesCache cache = new ExtCompValuesCache();
+        double[] loaded = new double[] { 1, 2, 3 };
+        double[] first = cache.get(1, DataType.DS_DOUBLE, () -> new SingleValue(DataType.DS_DOUBLE, loaded))
+                              .doubleSeq();
+        // a miss returns the loaded values and caches a copy
+        assertThat(first).isSameAs(loaded);
+        first[0] = 100;
+        cache.get(1, DataType.DS_DOUBLE, () -> doubles(3)).doubleSeq()[1] = 200;
+        cache.getIfPresent(1, DataType.DS_DOUBLE).doubleSeq()[2] = 300;
+        assertThat(cache.get(1, DataType.DS_DOUBLE, () -> doubles(3)).doubleSeq()).containsExactly(1, 2, 3);
+
+        // windows are copied, too
+        assertThat(cache.getIfPresent(1, DataType.DS_DOUBLE, 1, 5).doubleSeq()).containsExactly(2, 3);
+        assertThat(cache.getIfPresent(1, DataType.DS_DOUBLE, 5, 1).doubleSeq()).isEmpty();
+
+        // complex values are mutable, so they are copied deeply
+        Complex[] complexes = cache.get(2, DataType.DS_COMPLEX,
+                                        () -> new SingleValue(DataType.DS_COMPLEX,
+                                                              new Complex[] { new Complex(1, 2) }))
+                                   .complexSeq();
+        complexes[0].setR(100);
+        assertThat(cache.getIfPresent(2, DataType.DS_COMPLEX).complexSeq()).containsExactly(new Complex(1, 2));
+    }
+
+    @Test
+    void testEvictLeastRecentlyUsed() {
+        ExtCompValuesCache cache = new ExtCompValuesCache();
+        cache.setMaxBytes(DOUBLES_SIZE * 2);
+        cache.get(1, DataType.DS_DOUBLE, () -> doubles(100));
+        cache.get(2, DataType.DS_DOUBLE, () -> doubles(100));
+        // access 1, so 2 is the least recently used entry
+        cache.get(1, DataType.DS_DOUBLE, () -> doubles(100));
+        cache.get(3, DataType.DS_DOUBLE, () -> doubles(100));
+
+        assertThat(cache.getIfPresent(1, DataType.DS_DOUBLE)).isNotNull();
+        assertThat(cache.getIfPresent(2, DataType.DS_DOUBLE)).isNull();
+        assertThat(cache.getIfPresent(3, DataType.DS_DOUBLE)).isNotNull();
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+        assertThat(cache.getCurrentBytes()).isEqualTo(DOUBLES_SIZE * 2);
+
+        // values exceeding the budget are returned, but not cached
+        SingleValue large = cache.get(4, DataType.DS_DOUBLE, () -> doubles(1000));
+        assertThat(large.getLength()).isEqualTo(1000);
+        assertThat(cache.getIfPresent(4, DataType.DS_DOUBLE)).isNull();
+        assertThat(cache.size()).isEqualTo(2);
+
+        cache.setMaxBytes(0);
+        assertThat(cache.size()).isZero();
+        assertThat(cache.getCurrentBytes()).isZero();
+    }
+
+    @Test
+    void testInvalidate() {
+        ExtCompValuesCache cache = new ExtCompValuesCache();
+        cache.get(1, DataType.DS_DOUBLE, () -> doubles(100));
+        cache.get(1, DataType.DS_LONG, () -> new SingleValue(DataType.DS_LONG, new int[100]));
+        cache.get(2, DataType.DS_DOUBLE, () -> doubles(100));
+
+        cache.invalidate(1);
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.getIfPresent(2, DataType.DS_DOUBLE)).isNotNull();
+        assertThat(cache.getCurrentBytes()).isEqualTo(DOUBLES_SIZE);
+
+        cache.invalidateAll();
+        assertThat(cache.size()).isZero();
+        assertThat(cache.getCurrentBytes()).isZero();
+    }
+
+    @Test
+    void testInvalidateWhileLoading() {
+        ExtCompValuesCache cache = new ExtCompValuesCache();
+        SingleValue loaded = cache.get(1, DataType.DS_DOUBLE, () -> {
+            cache.invalidate(1);
+            return doubles(100);
+        });
+        assertThat(loaded.getLength()).isEqualTo(100);
+        assertThat(cache.getIfPresent(1, DataType.DS_DOUBLE)).isNull();
+
+        cache.get(2, DataType.DS_DOUBLE, () -> {
+            cache.invalidateAll();
+            return doubles(100);
+        });
+        assertThat(cache.size()).isZero();
+        assertThat(cache.getCurrentBytes()).isZero();
+
+        // loaded again after the invalidation
+        cache.get(1, DataType.DS_DOUBLE, () -> doubles(100));
+        assertThat(cache.getIfPresent(1, DataType.DS_DOUBLE)).isNotNull();
+    }
+}
@@ -0,0 +1,812 @@
+package com.peaksolution.openatfx.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+
+import org.asam.ods.ErrorCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.peaksolution.openatfx.IFileHandler;
+import com.peaksolution.openatfx.LocalFileHandler;
+import com.peaksolution.openatfx.OpenAtfx;
+
+/**
+ * Tests writing local column values to external component files.
+ */
+class ExtCompWriterTest {
+
+    @TempDir
+    Path fileRoot;
+
+    private OpenAtfxAPIImplementation api;
+    private long aidLc;
+    private long aidExtComp;
+    private List<Long> iidLcs;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        URL url = ExtCompWriterTest.class.getResource("/com/peaksolution/openatfx/example.atfx");
+        Path atfxFile = Path.of(url.toURI());
+        IFileHandler fileHandler = new LocalFileHandler();
+        AtfxReader reader = new AtfxReader(fileHandler, atfxFile, false, null);
+        try (InputStream in = fileHandler.getFileStream(atfxFile)) {
+            XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+            XMLStreamReader rawReader = inputFactory.createXMLStreamReader(in);
+            XMLStreamReader xmlReader = inputFactory.createFilteredReader(rawReader, new StartEndElementFilter());
+            api = reader.readFile(xmlReader, Collections.emptyList());
+        }
+        api.setContext(new NameValueUnit("FILE_ROOT", DataType.DT_STRING, fileRoot.toString()));
+        api.setContext(new NameValueUnit("FILENAME", DataType.DT_STRING, "example.atfx"));
+        api.setContext(new NameValueUnit("write_mode", DataType.DT_STRING, "file"));
+        api.setContext(new NameValueUnit("EXT_COMP_SEGSIZE", DataType.DT_LONGLONG, 64L));
+
+        aidLc = api.getUniqueElementByBaseType("aolocalcolumn").getId();
+        aidExtComp = api.getUniqueElementByBaseType("aoexternalcomponent").getId();
+        iidLcs = new ArrayList<>();
+        for (Instance lc : api.getInstances(aidLc)) {
+            iidLcs.add(lc.getIid());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        api.close();
+    }
+
+    private void writeFloats(long iidLc, float[] values) {
+        String valuesAttrName = api.getUniqueElementByBaseType("aolocalcolumn").getAttributeByBaseName("values")
+                                   .getName();
+        api.setAttributeValues(aidLc, iidLc, List.of(new NameValueUnit(valuesAttrName, DataType.DS_FLOAT, values)));
+    }
+
+    private String getFileName(long iidLc) {
+        return getExtComp(iidLc).getValueByBaseName("filename_url").getValue().stringVal();
+    }
+
+    private long getStartOffset(long iidLc) {
+        SingleValue value = getExtComp(iidLc).getValueByBaseName("start_offset").getValue();
+        return value.discriminator() == DataType.DT_LONG ? value.longVal() : value.longlongVal();
+    }
+
+    private float[] readFloats(long iidLc) {
+        return api.getInstanceById(aidLc, iidLc).getValueByBaseName("values").getValue().floatSeq();
+    }
+
+    private Instance getExtComp(long iidLc) {
+        Relation relExtComps = api.getRelationByBaseName(aidLc, "external_component");
+        List<Long> iidExtComps = api.getRelatedInstanceIds(aidLc, iidLc, relExtComps);
+        assertThat(iidExtComps).hasSize(1);
+        return api.getInstanceById(aidExtComp, iidExtComps.get(0));
+    }
+
+    private static float[] floats(int count, float start) {
+        float[] values = new float[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = start + i;
+        }
+        return values;
+    }
+
+    @Test
+    void testWriteValues_segmentsTrackedInMemory() throws Exception {
+        // 40 bytes per column, the third column exceeds the segment size of 80 bytes
+        api.setContext(new NameValueUnit("EXT_COMP_SEGSIZE", DataType.DT_LONGLONG, 80L));
+        for (int i = 0; i < 3; i++) {
+            writeFloats(iidLcs.get(i), floats(10, i * 10f));
+        }
+
+        assertThat(getFileName(iidLcs.get(0))).isEqualTo("example_1.btf");
+        assertThat(getStartOffset(iidLcs.get(0))).isZero();
+        assertThat(getFileName(iidLcs.get(1))).isEqualTo("example_1.btf");
+        assertThat(getStartOffset(iidLcs.get(1))).isEqualTo(40);
+        assertThat(getFileName(iidLcs.get(2))).isEqualTo("example_2.btf");
+        assertThat(getStartOffset(iidLcs.get(2))).isZero();
+        for (int i = 0; i < 3; i++) {
+            assertThat(readFloats(iidLcs.get(i))).containsExactly(floats(10, i * 10f));
+        }
+
+        // after closing, writing continues in the first file not exceeding the segment size
+        api.closeExtCompFiles();
+        assertThat(Files.size(fileRoot.resolve("example_1.btf"))).isEqualTo(80);
+        writeFloats(iidLcs.get(0), floats(4, 100f));
+        assertThat(getFileName(iidLcs.get(0))).isEqualTo("example_2.btf");
+        assertThat(getStartOffset(iidLcs.get(0))).isEqualTo(40);
+        assertThat(readFloats(iidLcs.get(0))).containsExactly(floats(4, 100f));
+        api.flushExtCompFiles();
+        assertThat(Files.size(fileRoot.resolve("example_2.btf"))).isEqualTo(56);
+    }
+
+    @Test
+    void testFileWriters_registeredForShutdownWhileOpen() throws Exception {
+        ExtCompFileWriters fileWriters = new ExtCompFileWriters(api);
+        assertThat(ExtCompFileWriters.isRegistered(fileWriters)).isFalse();
+        ExtCompFileWriters.SegmentWriter writer = fileWriters.get(ExtCompFileWriters.Category.VALUES);
+        writer.write(ByteBuffer.wrap(new byte[] { 1, 2, 3 }));
+        assertThat(ExtCompFileWriters.isRegistered(fileWriters)).isTrue();
+
+        fileWriters.close();
+        assertThat(ExtCompFileWriters.isRegistered(fileWriters)).isFalse();
+        assertThat(Files.size(writer.getFile())).isEqualTo(3);
+    }
+
+    private long findLc(DataType dataType) {
+        for (long iidLc : iidLcs) {
+            if (api.getDataTypeForLocalColumnValues(iidLc) == dataType) {
+                return iidLc;
+            }
+        }
+        throw new IllegalStateException("No local column of type " + dataType);
+    }
+
+    private List<Instance> getExtComps(long iidLc) {
+        Relation relExtComps = api.getRelationByBaseName(aidLc, "external_component");
+        List<Instance> extComps = new ArrayList<>();
+        for (long iidExtComp : api.getRelatedInstanceIds(aidLc, iidLc, relExtComps)) {
+            extComps.add(api.getInstanceById(aidExtComp, iidExtComp));
+        }
+        extComps.sort(Comparator.comparingInt(ec -> ec.getValueByBaseName("ordinal_number").getValue().longVal()));
+        return extComps;
+    }
+
+    private static double[] doubles(int count, double start) {
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = start + i;
+        }
+        return values;
+    }
+
+    @Test
+    void testWriteValues_multipleSlabs() {
+        api.setContext(new NameValueUnit("EXT_COMP_SEGSIZE", DataType.DT_LONGLONG, 1024L * 1024));
+        long iidLc = findLc(DataType.DS_DOUBLE);
+        String valuesAttrName = api.getUniqueElementByBaseType("aolocalcolumn").getAttributeByBaseName("values")
+                                   .getName();
+        double[] values = doubles(ExtCompWriter.SLAB_SIZE / 8 * 2 + 5, -3.25);
+        api.setAttributeValues(aidLc, iidLc, List.of(new NameValueUnit(valuesAttrName, DataType.DS_DOUBLE, values)));
+
+        int length = getExtComp(iidLc).getValueByBaseName("component_length").getValue().longVal();
+        assertThat(length).isEqualTo(values.length);
+        Instance lc = api.getInstanceById(aidLc, iidLc);
+        assertThat(lc.getValueByBaseName("values").getValue().doubleSeq()).containsExactly(values);
+    }
+
+    @Test
+    void testWriteValues_splitAtSegmentSize() {
+        // 8 values of 8 bytes fit into a segment of 64 bytes
+        long iidLc = findLc(DataType.DS_DOUBLE);
+        double[] values = doubles(20, 1.5);
+        String valuesAttrName = api.getUniqueElementByBaseType("aolocalcolumn").getAttributeByBaseName("values")
+                                   .getName();
+        api.setAttributeValues(aidLc, iidLc, List.of(new NameValueUnit(valuesAttrName, DataType.DS_DOUBLE, values)));
+
+        List<Instance> extComps = getExtComps(iidLc);
+        assertThat(extComps).hasSize(3);
+        int[] expectedLengths = { 8, 8, 4 };
+        for (int i = 0; i < 3; i++) {
+            Instance extComp = extComps.get(i);
+            String fileName = extComp.getValueByBaseName("filename_url").getValue().stringVal();
+            assertThat(fileName).isEqualTo("example_" + (i + 1) + ".btf");
+            int length = extComp.getValueByBaseName("component_length").getValue().longVal();
+            assertThat(length).isEqualTo(expectedLengths[i]);
+        }
+        Instance lc = api.getInstanceById(aidLc, iidLc);
+        assertThat(lc.getValueByBaseName("values").getValue().doubleSeq()).containsExactly(values);
+    }
+
+    @Test
+    void testWriteValues_splitAtComponentSize() {
+        api.setContext(new NameValueUnit("EXT_COMP_SEGSIZE", DataType.DT_LONGLONG, 1024L * 1024));
+        api.setContext(new NameValueUnit("EXT_COMP_COMPONENT_SIZE", DataType.DT_LONGLONG, 24L));
+        String valuesAttrName = api.getUniqueElementByBaseType("aolocalcolumn").getAttributeByBaseName("values")
+                                   .getName();
+
+        // 3 doubles per component
+        long iidLc = findLc(DataType.DS_DOUBLE);
+        double[] values = doubles(20, 1.5);
+        api.setAttributeValues(aidLc, iidLc, List.of(new NameValueUnit(valuesAttrName, DataType.DS_DOUBLE, values)));
+        List<Instance> extComps = getExtComps(iidLc);
+        assertThat(extComps).hasSize(7);
+        for (int i = 0; i < extComps.size(); i++) {
+            Instance extComp = extComps.get(i);
+            assertThat(extComp.getValueByBaseName("ordinal_number").getValue().longVal()).isEqualTo(i + 1);
+            assertThat(extComp.getValueByBaseName("component_length").getValue().longVal()).isEqualTo(i < 6 ? 3 : 2);
+        }
+        Instance lc = api.getInstanceById(aidLc, iidLc);
+        assertThat(lc.getValueByBaseName("values").getValue().doubleSeq()).containsExactly(values);
+
+        // strings are split at string boundaries, 4 strings of 6 bytes per component
+        String[] strings = { "aaaaa", "bbbbb", "ccccc", "ddddd", "eeeee" };
+        api.setAttributeValues(aidLc, iidLc, List.of(new NameValueUnit(valuesAttrName, DataType.DS_STRING, strings)));
+        extComps = getExtComps(iidLc);
+        assertThat(extComps).hasSize(2);
+        assertThat(extComps.get(0).getValueByBaseName("valuesperblock").getValue().longVal()).isEqualTo(4);
+        assertThat(extComps.get(0).getValueByBaseName("component_length").getValue().longVal()).isEqualTo(24);
+        assertThat(extComps.get(1).getValueByBaseName("valuesperblock").getValue().longVal()).isEqualTo(1);
+        assertThat(extComps.get(1).getValueByBaseName("component_length").getValue().longVal()).isEqualTo(6);
+        SingleValue secondStart = extComps.get(1).getValueByBaseName("start_offset").getValue();
+        long secondStartOffset = secondStart.discriminator() == DataType.DT_LONG ? secondStart.longVal()
+                : secondStart.longlongVal();
+        assertThat(secondStartOffset).isEqualTo(24);
+    }
+
+    @Test
+    void testWriteValuesParallel() throws Exception {
+        List<Long> doubleLcs = new ArrayList<>();
+        for (long iidLc : iidLcs) {
+            if (api.getDataTypeForLocalColumnValues(iidLc) == DataType.DS_DOUBLE) {
+                doubleLcs.add(iidLc);
+            }
+        }
+        long iidLc1 = doubleLcs.get(0);
+        long iidLc2 = doubleLcs.get(1);
+        long iidLc3 = findLc(DataType.DS_FLOAT);
+        double[] values1 = doubles(12, 0.5);
+        double[] values2 = doubles(3, 100);
+        float[] values3 = floats(2, -2f);
+
+        Map<Long, SingleValue> valuesByLc = new LinkedHashMap<>();
+        valuesByLc.put(iidLc1, new SingleValue(DataType.DS_DOUBLE, values1));
+        valuesByLc.put(iidLc2, new SingleValue(DataType.DS_DOUBLE, values2));
+        valuesByLc.put(iidLc3, new SingleValue(DataType.DS_FLOAT, values3));
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            api.setWriteExecutor(executor);
+            api.writeValuesParallel(valuesByLc);
+        } finally {
+            executor.shutdown();
+        }
+
+        // the ranges are reserved in column order, 8 doubles fill a segment of 64 bytes
+        List<Instance> extComps1 = getExtComps(iidLc1);
+        assertThat(extComps1).hasSize(2);
+        assertThat(extComps1.get(0).getValueByBaseName("filename_url").getValue().stringVal())
+                .isEqualTo("example_1.btf");
+        assertThat(extComps1.get(0).getValueByBaseName("component_length").getValue().longVal()).isEqualTo(8);
+        assertThat(extComps1.get(1).getValueByBaseName("filename_url").getValue().stringVal())
+                .isEqualTo("example_2.btf");
+        assertThat(extComps1.get(1).getValueByBaseName("component_length").getValue().longVal()).isEqualTo(4);
+        assertThat(getFileName(iidLc2)).isEqualTo("example_2.btf");
+        assertThat(getStartOffset(iidLc2)).isEqualTo(32);
+        assertThat(getFileName(iidLc3)).isEqualTo("example_2.btf");
+        assertThat(getStartOffset(iidLc3)).isEqualTo(56);
+        assertThat(Files.size(fileRoot.resolve("example_2.btf"))).isEqualTo(64);
+
+        Instance lc1 = api.getInstanceById(aidLc, iidLc1);
+        assertThat(lc1.getValueByBaseName("values").getValue().doubleSeq()).containsExactly(values1);
+        Instance lc2 = api.getInstanceById(aidLc, iidLc2);
+        assertThat(lc2.getValueByBaseName("values").getValue().doubleSeq()).containsExactly(values2);
+        assertThat(readFloats(iidLc3)).containsExactly(values3);
+    }
+
+    @Test
+    void testWriteValuesParallel_failedColumnKeepsPreviousComponents() {
+        long iidLcDouble = findLc(DataType.DS_DOUBLE);
+        long iidLcFloat = findLc(DataType.DS_FLOAT);
+        String valuesAttrName = api.getUniqueElementByBaseType("aolocalcolumn").getAttributeByBaseName("values")
+                                   .getName();
+        double[] previousValues = doubles(4, 1);
+        api.setAttributeValues(aidLc, iidLcDouble,
+                               List.of(new NameValueUnit(valuesAttrName, DataType.DS_DOUBLE, previousValues)));
+        long previousExtComp = getExtComp(iidLcDouble).getIid();
+
+        // the missing complex value fails the encoding of the first column, the second column is written anyway
+        Map<Long, SingleValue> valuesByLc = new LinkedHashMap<>();
+        valuesByLc.put(iidLcDouble, new SingleValue(DataType.DS_COMPLEX, new Complex[] { new Complex(1, 2), null }));
+        float[] floatValues = floats(3, 5f);
+        valuesByLc.put(iidLcFloat, new SingleValue(DataType.DS_FLOAT, floatValues));
+        api.setWriteExecutor(Runnable::run);
+        assertThatThrownBy(() -> api.writeValuesParallel(valuesByLc)).isInstanceOf(OpenAtfxException.class);
+
+        assertThat(getExtComp(iidLcDouble).getIid()).isEqualTo(previousExtComp);
+        assertThat(getSeqRep(iidLcDouble)).isEqualTo(7);
+        Instance lc = api.getInstanceById(aidLc, iidLcDouble);
+        assertThat(lc.getValueByBaseName("values").getValue().doubleSeq()).containsExactly(previousValues);
+        assertThat(getSeqRep(iidLcFloat)).isEqualTo(7);
+        assertThat(readFloats(iidLcFloat)).containsExactly(floatValues);
+    }
+
+    @Test
+    void testWriteExecutor_ownThreads() throws Exception {
+        ExtCompWriter writer = new ExtCompWriter(api);
+        try {
+            // the blocking writes do not run on the common pool by default
+            Thread thread = CompletableFuture.supplyAsync(Thread::currentThread, writer.getWriteExecutor()).get();
+            assertThat(thread.getName()).startsWith("openatfx-ext-comp-writer-");
+            assertThat(thread.isDaemon()).isTrue();
+
+            Executor executor = Runnable::run;
+            writer.setWriteExecutor(executor);
+            assertThat(writer.getWriteExecutor()).isSameAs(executor);
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Test
+    void testWriteValuesParallel_sameFilesAsSequential() throws Exception {
+        long iidLcDouble = findLc(DataType.DS_DOUBLE);
+        long iidLcFloat = findLc(DataType.DS_FLOAT);
+        double[] doubleValues = doubles(20, 7);
+        float[] floatValues = floats(9, 3f);
+
+        Map<Long, SingleValue> valuesByLc = new LinkedHashMap<>();
+        valuesByLc.put(iidLcDouble, new SingleValue(DataType.DS_DOUBLE, doubleValues));
+        valuesByLc.put(iidLcFloat, new SingleValue(DataType.DS_FLOAT, floatValues));
+        api.writeValuesParallel(valuesByLc);
+        api.closeExtCompFiles();
+        List<byte[]> parallelFiles = readAndDeleteComponentFiles();
+
+        String valuesAttrName = api.getUniqueElementByBaseType("aolocalcolumn").getAttributeByBaseName("values")
+                                   .getName();
+        api.setAttributeValues(aidLc, iidLcDouble,
+                               List.of(new NameValueUnit(valuesAttrName, DataType.DS_DOUBLE, doubleValues)));
+        writeFloats(iidLcFloat, floatValues);
+        api.closeExtCompFiles();
+        List<byte[]> sequentialFiles = readAndDeleteComponentFiles();
+
+        assertThat(parallelFiles).hasSize(sequentialFiles.size());
+        for (int i = 0; i < parallelFiles.size(); i++) {
+            assertThat(parallelFiles.get(i)).isEqualTo(sequentialFiles.get(i));
+        }
+    }
+
+    private List<byte[]> readAndDeleteComponentFiles() throws Exception {
+        List<byte[]> contents = new ArrayList<>();
+        for (int segment = 1; Files.exists(fileRoot.resolve("example_" + segment + ".btf")); segment++) {
+            Path file = fileRoot.resolve("example_" + segment + ".btf");
+            contents.add(Files.readAllBytes(file));
+            Files.delete(file);
+        }
+        return contents;
+    }
+
+    /**
+     * Returns the local columns of a submatrix of data types DT_FLOAT and DT_DOUBLE, the submatrix id as first element.
+     */
+    private List<Long> findSubMatrixColumns() {
+        long aidSm = api.getUniqueElementByBaseType("aosubmatrix").getId();
+        Relation relLcs = api.getRelationByBaseName(aidSm, "local_columns");
+        for (Instance sm : api.getInstances(aidSm)) {
+            List<Long> columns = new ArrayList<>();
+            columns.add(sm.getIid());
+            for (long iidLc : api.getRelatedInstanceIds(aidSm, sm.getIid(), relLcs)) {
+                DataType dt = api.getDataTypeForLocalColumnValues(iidLc);
+                if (dt == DataType.DS_FLOAT || dt == DataType.DS_DOUBLE) {
+                    columns.add(iidLc);
+                }
+            }
+            if (columns.size() > 2) {
+                return columns;
+            }
+        }
+        throw new IllegalStateException("No submatrix with float and double columns");
+    }
+
+    private Map<Long, SingleValue> createColumnValues(List<Long> iidLcs, int rows) {
+        Map<Long, SingleValue> valuesByLc = new LinkedHashMap<>();
+        for (int i = 0; i < iidLcs.size(); i++) {
+            long iidLc = iidLcs.get(i);
+            if (api.getDataTypeForLocalColumnValues(iidLc) == DataType.DS_FLOAT) {
+                valuesByLc.put(iidLc, new SingleValue(DataType.DS_FLOAT, floats(rows, i * 1000f)));
+            } else {
+                valuesByLc.put(iidLc, new SingleValue(DataType.DS_DOUBLE, doubles(rows, i * -1000d)));
+            }
+        }
+        return valuesByLc;
+    }
+
+    @Test
+    void testWriteSubMatrixInterleaved() {
+        api.setContext(new NameValueUnit("EXT_COMP_SEGSIZE", DataType.DT_LONGLONG, 1024L * 1024));
+        List<Long> columns = findSubMatrixColumns();
+        long iidSm = columns.remove(0);
+        long aidSm = api.getUniqueElementByBaseType("aosubmatrix").getId();
+        int rows = api.getInstanceById(aidSm, iidSm).getValueByBaseName("number_of_rows").getValue().longVal();
+        Map<Long, SingleValue> valuesByLc = createColumnValues(columns, rows);
+        api.writeSubMatrixInterleaved(iidSm, valuesByLc);
+
+        int recordSize = 0;
+        for (SingleValue value : valuesByLc.values()) {
+            recordSize += value.discriminator() == DataType.DS_FLOAT ? 4 : 8;
+        }
+        int valueOffset = 0;
+        for (Map.Entry<Long, SingleValue> entry : valuesByLc.entrySet()) {
+            Instance extComp = getExtComp(entry.getKey());
+            assertThat(extComp.getValueByBaseName("filename_url").getValue().stringVal()).isEqualTo("example_1.btf");
+            assertThat(getStartOffset(entry.getKey())).isZero();
+            assertThat(extComp.getValueByBaseName("block_size").getValue().longVal()).isEqualTo(recordSize);
+            assertThat(extComp.getValueByBaseName("valuesperblock").getValue().longVal()).isEqualTo(1);
+            assertThat(extComp.getValueByBaseName("value_offset").getValue().longVal()).isEqualTo(valueOffset);
+            assertThat(extComp.getValueByBaseName("component_length").getValue().longVal()).isEqualTo(rows);
+            valueOffset += entry.getValue().discriminator() == DataType.DS_FLOAT ? 4 : 8;
+
+            Instance lc = api.getInstanceById(aidLc, entry.getKey());
+            SingleValue read = lc.getValueByBaseName("values").getValue();
+            if (entry.getValue().discriminator() == DataType.DS_FLOAT) {
+                assertThat(read.floatSeq()).containsExactly(entry.getValue().floatSeq());
+            } else {
+                assertThat(read.doubleSeq()).containsExactly(entry.getValue().doubleSeq());
+            }
+        }
+    }
+
+    @Test
+    void testWriteSubMatrixInterleaved_splitAtRecords() {
+        List<Long> columns = findSubMatrixColumns();
+        long iidSm = columns.remove(0);
+        long aidSm = api.getUniqueElementByBaseType("aosubmatrix").getId();
+        int rows = api.getInstanceById(aidSm, iidSm).getValueByBaseName("number_of_rows").getValue().longVal();
+        Map<Long, SingleValue> valuesByLc = createColumnValues(columns.subList(0, 2), rows);
+        int recordSize = 0;
+        for (SingleValue value : valuesByLc.values()) {
+            recordSize += value.discriminator() == DataType.DS_FLOAT ? 4 : 8;
+        }
+        // 3 records per component
+        api.setContext(new NameValueUnit("EXT_COMP_SEGSIZE", DataType.DT_LONGLONG, 1024L * 1024));
+        api.setContext(new NameValueUnit("EXT_COMP_COMPONENT_SIZE", DataType.DT_LONGLONG, 3L * recordSize + 1));
+        api.writeSubMatrixInterleaved(iidSm, valuesByLc);
+
+        for (Map.Entry<Long, SingleValue> entry : valuesByLc.entrySet()) {
+            List<Instance> extComps = getExtComps(entry.getKey());
+            assertThat(extComps).hasSize((rows + 2) / 3);
+            for (int i = 0; i < extComps.size(); i++) {
+                SingleValue startOffset = extComps.get(i).getValueByBaseName("start_offset").getValue();
+                long offset = startOffset.discriminator() == DataType.DT_LONG ? startOffset.longVal()
+                        : startOffset.longlongVal();
+                assertThat(offset).isEqualTo(3L * recordSize * i);
+            }
+            Instance lc = api.getInstanceById(aidLc, entry.getKey());
+            SingleValue read = lc.getValueByBaseName("values").getValue();
+            if (entry.getValue().discriminator() == DataType.DS_FLOAT) {
+                assertThat(read.floatSeq()).containsExactly(entry.getValue().floatSeq());
+            } else {
+                assertThat(read.doubleSeq()).containsExactly(entry.getValue().doubleSeq());
+            }
+        }
+    }
+
+    @Test
+    void testWriteSubMatrixInterleaved_invalidColumns() {
+        List<Long> columns = findSubMatrixColumns();
+        long iidSm = columns.remove(0);
+        Map<Long, SingleValue> valuesByLc = createColumnValues(columns, 1_000_000);
+        assertThatThrownBy(() -> api.writeSubMatrixInterleaved(iidSm, valuesByLc))
+                .isInstanceOf(OpenAtfxException.class).extracting("error").isEqualTo(ErrorCode.AO_BAD_PARAMETER);
+
+        Map<Long, SingleValue> stringValues = Map.of(columns.get(0),
+                                                     new SingleValue(DataType.DS_STRING, new String[] { "a" }));
+        assertThatThrownBy(() -> api.writeSubMatrixInterleaved(iidSm, stringValues))
+                .isInstanceOf(OpenAtfxException.class).extracting("error").isEqualTo(ErrorCode.AO_INVALID_DATATYPE);
+    }
+
+    @Test
+    void testCompactExtCompFiles() throws Exception {
+        api.setContext(new NameValueUnit("EXT_COMP_SEGSIZE", DataType.DT_LONGLONG, 1024L * 1024));
+        Element lcElement = api.getUniqueElementByBaseType("aolocalcolumn");
+        String flagsAttrName = lcElement.getAttributeByBaseName("flags").getName();
+        long iidLcFloat = findLc(DataType.DS_FLOAT);
+        long iidLcDouble = findLc(DataType.DS_DOUBLE);
+
+        // the first values and flags of the float column are replaced and become dead space
+        writeFloats(iidLcFloat, floats(10, 0f));
+        api.setAttributeValues(aidLc, iidLcFloat,
+                               List.of(new NameValueUnit(flagsAttrName, DataType.DS_SHORT, new short[10])));
+        float[] floatValues = floats(10, 50f);
+        short[] flags = new short[] { 15, 15, 0, 15, 15, 15, 15, 0, 15, 15 };
+        writeFloats(iidLcFloat, floatValues);
+        api.setAttributeValues(aidLc, iidLcFloat, List.of(new NameValueUnit(flagsAttrName, DataType.DS_SHORT, flags)));
+        double[] doubleValues = doubles(5, 1.25);
+        api.setAttributeValues(aidLc, iidLcDouble,
+                               List.of(new NameValueUnit(lcElement.getAttributeByBaseName("values").getName(),
+                                                         DataType.DS_DOUBLE, doubleValues)));
+
+        CompactionResult result = api.compactExtCompFiles();
+        assertThat(result.getObsoleteFiles()).containsExactly(fileRoot.resolve("example_1.btf"),
+                                                              fileRoot.resolve("example_1_flags.btf"));
+        assertThat(result.getNewFiles()).containsExactly(fileRoot.resolve("example_2.btf"),
+                                                         fileRoot.resolve("example_2_flags.btf"));
+        assertThat(result.getBytesBefore()).isEqualTo(120 + 40);
+        assertThat(result.getBytesAfter()).isEqualTo(80 + 20);
+        assertThat(result.getReclaimedBytes()).isEqualTo(60);
+        assertThat(Files.size(fileRoot.resolve("example_2.btf"))).isEqualTo(80);
+        assertThat(Files.size(fileRoot.resolve("example_2_flags.btf"))).isEqualTo(20);
+
+        assertThat(getFileName(iidLcFloat)).isEqualTo("example_2.btf");
+        assertThat(getStartOffset(iidLcFloat)).isZero();
+        assertThat(getFileName(iidLcDouble)).isEqualTo("example_2.btf");
+        assertThat(getStartOffset(iidLcDouble)).isEqualTo(40);
+        assertThat(getExtComp(iidLcFloat).getValueByBaseName("flags_filename_url").getValue().stringVal())
+                .isEqualTo("example_2_flags.btf");
+        assertThat(readFloats(iidLcFloat)).containsExactly(floatValues);
+        Instance lc = api.getInstanceById(aidLc, iidLcFloat);
+        assertThat(lc.getValueByBaseName("flags").getValue().shortSeq()).containsExactly(flags);
+        lc = api.getInstanceById(aidLc, iidLcDouble);
+        assertThat(lc.getValueByBaseName("values").getValue().doubleSeq()).containsExactly(doubleValues);
+
+        // the obsolete files are not appended to anymore
+        writeFloats(iidLcFloat, floats(2, 0f));
+        assertThat(getFileName(iidLcFloat)).isEqualTo("example_2.btf");
+        assertThat(getStartOffset(iidLcFloat)).isEqualTo(80);
+    }
+
+    @Test
+    void testCompactExtCompFiles_interleaved() {
+        api.setContext(new NameValueUnit("EXT_COMP_SEGSIZE", DataType.DT_LONGLONG, 1024L * 1024));
+        List<Long> columns = findSubMatrixColumns();
+        long iidSm = columns.remove(0);
+        long aidSm = api.getUniqueElementByBaseType("aosubmatrix").getId();
+        int rows = api.getInstanceById(aidSm, iidSm).getValueByBaseName("number_of_rows").getValue().longVal();
+        writeFloats(findLc(DataType.DS_FLOAT), floats(25, 0f));
+        Map<Long, SingleValue> valuesByLc = createColumnValues(columns, rows);
+        api.writeSubMatrixInterleaved(iidSm, valuesByLc);
+        api.writeSubMatrixInterleaved(iidSm, valuesByLc);
+
+        CompactionResult result = api.compactExtCompFiles();
+        assertThat(result.getReclaimedBytes()).isPositive();
+        for (Map.Entry<Long, SingleValue> entry : valuesByLc.entrySet()) {
+            Instance lc = api.getInstanceById(aidLc, entry.getKey());
+            SingleValue read = lc.getValueByBaseName("values").getValue();
+            if (entry.getValue().discriminator() == DataType.DS_FLOAT) {
+                assertThat(read.floatSeq()).containsExactly(entry.getValue().floatSeq());
+            } else {
+                assertThat(read.doubleSeq()).containsExactly(entry.getValue().doubleSeq());
+            }
+        }
+    }
+
+    @Test
+    void testExternalizeInlineValues() throws Exception {
+        // the component files of the other local columns are needed to reopen the written file
+        for (String fileName : List.of("PAK_Data", "byte_sbyte_test.btf")) {
+            URL url = ExtCompWriterTest.class.getResource("/com/peaksolution/openatfx/" + fileName);
+            Files.copy(Path.of(url.toURI()), fileRoot.resolve(fileName));
+        }
+        api.setContext(new NameValueUnit("write_mode", DataType.DT_STRING, "database"));
+        Element lcElement = api.getUniqueElementByBaseType("aolocalcolumn");
+        String valuesAttrName = lcElement.getAttributeByBaseName("values").getName();
+        String flagsAttrName = lcElement.getAttributeByBaseName("flags").getName();
+        long iidLcFloat = findLc(DataType.DS_FLOAT);
+        long iidLcDouble = findLc(DataType.DS_DOUBLE);
+        float[] floatValues = floats(10, 0.5f);
+        short[] flags = new short[] { 15, 15, 0, 15, 15, 15, 15, 0, 15, 15 };
+        double[] doubleValues = doubles(5, -2);
+        writeFloats(iidLcFloat, floatValues);
+        api.setAttributeValues(aidLc, iidLcFloat, List.of(new NameValueUnit(flagsAttrName, DataType.DS_SHORT, flags)));
+        api.setAttributeValues(aidLc, iidLcDouble,
+                               List.of(new NameValueUnit(valuesAttrName, DataType.DS_DOUBLE, doubleValues)));
+        assertThat(getSeqRep(iidLcFloat)).isZero();
+
+        // writing the file does not move any values
+        api.setContext(new NameValueUnit("EXT_COMP_SEGSIZE", DataType.DT_LONGLONG, 1024L * 1024));
+        api.setContext(new NameValueUnit("INDENT_XML", DataType.DT_STRING, "TRUE"));
+        api.setContext(new NameValueUnit("WRITE_EXTERNALCOMPONENTS", DataType.DT_STRING, "FALSE"));
+        Path atfxFile = fileRoot.resolve("example.atfx");
+        api.writeAtfx(fileRoot.resolve("copy.atfx").toFile());
+        assertThat(getSeqRep(iidLcFloat)).isZero();
+        assertThat(getSeqRep(iidLcDouble)).isZero();
+
+        // each local column is moved into a single component
+        assertThat(api.externalizeInlineValues()).isPositive();
+        assertThat(getSeqRep(iidLcFloat)).isEqualTo(7);
+        assertThat(getSeqRep(iidLcDouble)).isEqualTo(7);
+        assertThat(getFileName(iidLcFloat)).isEqualTo("example_1.btf");
+        assertThat(getExtComp(iidLcFloat).getValueByBaseName("flags_filename_url").getValue().stringVal())
+                .isEqualTo("example_1_flags.btf");
+        // the moved flags are removed from the local column and read from the component
+        int flagsAttrNo = lcElement.getAttributeByBaseName("flags").getAttrNo();
+        assertThat(api.getInstanceById(aidLc, iidLcFloat).getValueInternal(flagsAttrNo)).isNull();
+        assertThat(api.getInstanceById(aidLc, iidLcFloat).getValueByBaseName("flags").getValue().shortSeq())
+                .containsExactly(flags);
+        api.writeAtfx(atfxFile.toFile());
+
+        OpenAtfxAPI reopened = new OpenAtfx().openFile(atfxFile);
+        try {
+            Instance lc = reopened.getInstanceById(aidLc, iidLcFloat);
+            assertThat(lc.getValueByBaseName("sequence_representation").getValue().enumVal()).isEqualTo(7);
+            assertThat(lc.getValueByBaseName("values").getValue().floatSeq()).containsExactly(floatValues);
+            assertThat(lc.getValueByBaseName("flags").getValue().shortSeq()).containsExactly(flags);
+            lc = reopened.getInstanceById(aidLc, iidLcDouble);
+            assertThat(lc.getValueByBaseName("values").getValue().doubleSeq()).containsExactly(doubleValues);
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void testExternalizeInlineValues_flagsWithoutOrdinalNumber() {
+        api.removeAttribute(aidExtComp, "ordinal_number");
+        api.setContext(new NameValueUnit("write_mode", DataType.DT_STRING, "database"));
+        String flagsAttrName = api.getUniqueElementByBaseType("aolocalcolumn").getAttributeByBaseName("flags")
+                                  .getName();
+        long iidLcFloat = findLc(DataType.DS_FLOAT);
+        float[] floatValues = floats(30, 0.5f);
+        short[] flags = new short[30];
+        Arrays.fill(flags, (short) 15);
+        flags[7] = 0;
+        writeFloats(iidLcFloat, floatValues);
+        api.setAttributeValues(aidLc, iidLcFloat, List.of(new NameValueUnit(flagsAttrName, DataType.DS_SHORT, flags)));
+
+        // the flags are assigned to the components just created, not looked up by their ordinal numbers
+        assertThat(api.externalizeInlineValues()).isPositive();
+        assertThat(getSeqRep(iidLcFloat)).isEqualTo(7);
+        Instance lc = api.getInstanceById(aidLc, iidLcFloat);
+        assertThat(lc.getValueByBaseName("values").getValue().floatSeq()).containsExactly(floatValues);
+        assertThat(lc.getValueByBaseName("flags").getValue().shortSeq()).containsExactly(flags);
+    }
+
+    @Test
+    void testExternalizeInlineValues_independentOfThreadCount() throws Exception {
+        api.setContext(new NameValueUnit("write_mode", DataType.DT_STRING, "database"));
+        writeFloats(findLc(DataType.DS_FLOAT), floats(30, 1f));
+        String valuesAttrName = api.getUniqueElementByBaseType("aolocalcolumn").getAttributeByBaseName("values")
+                                   .getName();
+        api.setAttributeValues(aidLc, findLc(DataType.DS_DOUBLE),
+                               List.of(new NameValueUnit(valuesAttrName, DataType.DS_DOUBLE, doubles(17, 3))));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            api.setWriteExecutor(executor);
+            assertThat(api.externalizeInlineValues()).isPositive();
+        } finally {
+            executor.shutdown();
+        }
+        api.closeExtCompFiles();
+        List<byte[]> parallelFiles = readAndDeleteComponentFiles();
+        assertThat(parallelFiles).isNotEmpty();
+
+        // the same values moved on a single thread result in the same files
+        tearDown();
+        setUp();
+        api.setContext(new NameValueUnit("write_mode", DataType.DT_STRING, "database"));
+        writeFloats(findLc(DataType.DS_FLOAT), floats(30, 1f));
+        api.setAttributeValues(aidLc, findLc(DataType.DS_DOUBLE),
+                               List.of(new NameValueUnit(valuesAttrName, DataType.DS_DOUBLE, doubles(17, 3))));
+        api.setWriteExecutor(Runnable::run);
+        api.externalizeInlineValues();
+        api.closeExtCompFiles();
+        List<byte[]> sequentialFiles = readAndDeleteComponentFiles();
+
+        assertThat(parallelFiles).hasSize(sequentialFiles.size());
+        for (int i = 0; i < parallelFiles.size(); i++) {
+            assertThat(parallelFiles.get(i)).isEqualTo(sequentialFiles.get(i));
+        }
+    }
+
+    @Test
+    void testWriteValues_noSplitWithoutOrdinalNumber() {
+        api.removeAttribute(aidExtComp, "ordinal_number");
+        String valuesAttrName = api.getUniqueElementByBaseType("aolocalcolumn").getAttributeByBaseName("values")
+                                   .getName();
+
+        // 20 doubles exceed the segment size of 64 bytes, but the order of several components could not be stored
+        long iidLc = findLc(DataType.DS_DOUBLE);
+        double[] values = doubles(20, 1.5);
+        api.setAttributeValues(aidLc, iidLc, List.of(new NameValueUnit(valuesAttrName, DataType.DS_DOUBLE, values)));
+        assertThat(getExtComp(iidLc).getValueByBaseName("component_length").getValue().longVal()).isEqualTo(20);
+        Instance lc = api.getInstanceById(aidLc, iidLc);
+        assertThat(lc.getValueByBaseName("values").getValue().doubleSeq()).containsExactly(values);
+
+        String[] strings = { "aaaaa", "bbbbb", "ccccc", "ddddd", "eeeee", "fffff", "ggggg", "hhhhh", "iiiii", "jjjjj",
+                "kkkkk", "lllll" };
+        api.setAttributeValues(aidLc, iidLc, List.of(new NameValueUnit(valuesAttrName, DataType.DS_STRING, strings)));
+        assertThat(getExtComp(iidLc).getValueByBaseName("component_length").getValue().longVal()).isEqualTo(72);
+        lc = api.getInstanceById(aidLc, iidLc);
+        assertThat(lc.getValueByBaseName("values").getValue().stringSeq()).containsExactly(strings);
+    }
+
+    private int getSeqRep(long iidLc) {
+        return api.getInstanceById(aidLc, iidLc).getValueByBaseName("sequence_representation").getValue().enumVal();
+    }
+
+    @Test
+    void testColumnAppender_rollsOverSegments() {
+        // 8 values of 8 bytes fit into a segment of 64 bytes
+        long iidLc = findLc(DataType.DS_DOUBLE);
+        double[] values = doubles(20, 0.5);
+        try (ColumnAppender appender = api.createColumnAppender(iidLc)) {
+            appender.append(values, 0, 3);
+            appender.append(values, 3, 0);
+            appender.append(values, 3, 17);
+            assertThat(appender.getValueCount()).isEqualTo(20);
+        }
+
+        List<Instance> extComps = getExtComps(iidLc);
+        assertThat(extComps).hasSize(3);
+        int[] expectedLengths = { 8, 8, 4 };
+        for (int i = 0; i < 3; i++) {
+            Instance extComp = extComps.get(i);
+            String fileName = extComp.getValueByBaseName("filename_url").getValue().stringVal();
+            assertThat(fileName).isEqualTo("example_" + (i + 1) + ".btf");
+            int length = extComp.getValueByBaseName("component_length").getValue().longVal();
+            assertThat(length).isEqualTo(expectedLengths[i]);
+        }
+        Instance lc = api.getInstanceById(aidLc, iidLc);
+        assertThat(lc.getValueByBaseName("sequence_representation").getValue().enumVal()).isEqualTo(7);
+        assertThat(lc.getValueByBaseName("values").getValue().doubleSeq()).containsExactly(values);
+    }
+
+    @Test
+    void testColumnAppender_interleavedWrites() {
+        long iidLc = findLc(DataType.DS_FLOAT);
+        long otherIidLc = iidLcs.stream().filter(iid -> iid != iidLc).findFirst().orElseThrow();
+        float[] values = floats(6, 1f);
+        try (ColumnAppender appender = api.createColumnAppender(iidLc)) {
+            appender.append(values, 0, 2);
+            // values of another column are written to the same file in between
+            writeFloats(otherIidLc, floats(3, 100f));
+            appender.append(values, 2, 4);
+        }
+
+        List<Instance> extComps = getExtComps(iidLc);
+        assertThat(extComps).hasSize(2);
+        assertThat(getStartOffset(otherIidLc)).isEqualTo(8);
+        SingleValue secondStart = extComps.get(1).getValueByBaseName("start_offset").getValue();
+        long secondStartOffset = secondStart.discriminator() == DataType.DT_LONG ? secondStart.longVal()
+                : secondStart.longlongVal();
+        assertThat(secondStartOffset).isEqualTo(20);
+        assertThat(readFloats(iidLc)).containsExactly(values);
+        assertThat(readFloats(otherIidLc)).containsExactly(floats(3, 100f));
+    }
+
+    @Test
+    void testColumnAppender_noSplitWithoutOrdinalNumber() {
+        api.removeAttribute(aidExtComp, "ordinal_number");
+        long iidLc = findLc(DataType.DS_DOUBLE);
+        double[] values = doubles(20, 0.5);
+        try (ColumnAppender appender = api.createColumnAppender(iidLc)) {
+            appender.append(values, 0, 20);
+        }
+        assertThat(getExtComp(iidLc).getValueByBaseName("component_length").getValue().longVal()).isEqualTo(20);
+        Instance lc = api.getInstanceById(aidLc, iidLc);
+        assertThat(lc.getValueByBaseName("values").getValue().doubleSeq()).containsExactly(values);
+
+        // values of another column written in between cannot be skipped by a second component
+        long otherIidLc = iidLcs.stream().filter(iid -> iid != iidLc).findFirst().orElseThrow();
+        ColumnAppender appender = api.createColumnAppender(iidLc);
+        appender.append(values, 0, 2);
+        writeFloats(otherIidLc, floats(3, 100f));
+        assertThatThrownBy(() -> appender.append(values, 2, 4)).isInstanceOf(OpenAtfxException.class)
+                                                                .extracting("error")
+                                                                .isEqualTo(ErrorCode.AO_BAD_OPERATION);
+    }
+
+    @Test
+    void testColumnAppender_invalidAppend() {
+        long iidLc = findLc(DataType.DS_FLOAT);
+        ColumnAppender appender = api.createColumnAppender(iidLc);
+        assertThatThrownBy(() -> appender.append(new double[1], 0, 1)).isInstanceOf(OpenAtfxException.class)
+                                                                      .extracting("error")
+                                                                      .isEqualTo(ErrorCode.AO_INVALID_DATATYPE);
+        assertThatThrownBy(() -> appender.append(new float[2], 1, 2)).isInstanceOf(OpenAtfxException.class)
+                                                                     .extracting("error")
+                                                                     .isEqualTo(ErrorCode.AO_BAD_PARAMETER);
+        appender.close();
+        assertThat(getExtComps(iidLc)).hasSize(1);
+        assertThat(readFloats(iidLc)).isEmpty();
+        assertThatThrownBy(() -> appender.append(new float[1], 0, 1)).isInstanceOf(OpenAtfxException.class);
+    }
+}
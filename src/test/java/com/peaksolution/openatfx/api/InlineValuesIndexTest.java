@@ -0,0 +1,155 @@
+package com.peaksolution.openatfx.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.peaksolution.openatfx.IFileHandler;
+import com.peaksolution.openatfx.LocalFileHandler;
+import com.peaksolution.openatfx.io.AtfxTagConstants;
+
+
+/**
+ * Test case for <code>com.peaksolution.openatfx.api.InlineValuesIndex</code>.
+ *
+ * @author Markus Renner
+ */
+class InlineValuesIndexTest {
+
+    private static final NameValueUnit LAZY = new NameValueUnit(OpenAtfxConstants.CONTEXT_LAZY_INLINE_VALUES,
+                                                                DataType.DT_STRING, "TRUE");
+    private static final NameValueUnit WRITE_MODE = new NameValueUnit(OpenAtfxConstants.CONTEXT_WRITE_MODE,
+                                                                      DataType.DT_STRING,
+                                                                      OpenAtfxConstants.DEF_WRITE_MODE);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testReadValues_sameAsEager() throws Exception {
+        Path atfxFile = Path.of(getExampleUrl().toURI());
+        OpenAtfxAPIImplementation eagerApi = open(atfxFile, Collections.emptyList());
+        OpenAtfxAPIImplementation lazyApi = open(atfxFile, List.of(LAZY, WRITE_MODE));
+
+        Collection<Long> lcIids = getLcIids(lazyApi);
+        assertThat(lcIids).isNotEmpty();
+        int deferred = 0;
+        for (long iid : lcIids) {
+            if (lazyApi.getInlineValuesIndex().contains(iid)) {
+                deferred++;
+            }
+            NameValueUnit expected = getValues(eagerApi, iid);
+            NameValueUnit actual = getValues(lazyApi, iid);
+            assertThat(actual.getValue().discriminator()).isEqualTo(expected.getValue().discriminator());
+            assertThat(actual.getValue().getValue()).isEqualTo(expected.getValue().getValue());
+            // served from the values cache on the second access
+            assertThat(getValues(lazyApi, iid).getValue().getValue()).isEqualTo(expected.getValue().getValue());
+        }
+        assertThat(deferred).isPositive();
+    }
+
+    @Test
+    void testReadValues_commentsAndCrLf() throws Exception {
+        String xml = new String(Files.readAllBytes(Path.of(getExampleUrl().toURI())), StandardCharsets.UTF_8);
+        int instanceData = xml.indexOf("<" + AtfxTagConstants.INSTANCE_DATA);
+        // comments and CDATA containing tags of the values name must not be counted
+        xml = xml.substring(0, instanceData) + "<!-- <values> -->\r\n<?pi <values>?>" + xml.substring(instanceData);
+        xml = xml.replaceFirst(">\\s*<" + AtfxTagConstants.INSTANCE_DATA + ">",
+                               "><instance_data><!-- <values></values> --><![CDATA[<values>]]>\r\n");
+        xml = xml.replace("\n", "\r\n");
+        Path atfxFile = tempDir.resolve("example.atfx");
+        Files.write(atfxFile, xml.getBytes(StandardCharsets.UTF_8));
+
+        OpenAtfxAPIImplementation eagerApi = open(atfxFile, Collections.emptyList());
+        OpenAtfxAPIImplementation lazyApi = open(atfxFile, List.of(LAZY, WRITE_MODE));
+        Collection<Long> iids = lazyApi.getInlineValuesIndex().getIids();
+        assertThat(iids).isNotEmpty();
+        for (long iid : iids) {
+            assertThat(getValues(lazyApi, iid).getValue().getValue())
+                    .isEqualTo(getValues(eagerApi, iid).getValue().getValue());
+        }
+    }
+
+    @Test
+    void testWriteAtfx_sameFile() throws Exception {
+        Path atfxFile = tempDir.resolve("example.atfx");
+        Files.copy(Path.of(getExampleUrl().toURI()), atfxFile);
+        OpenAtfxAPIImplementation eagerApi = open(atfxFile, Collections.emptyList());
+        OpenAtfxAPIImplementation lazyApi = open(atfxFile, List.of(LAZY, WRITE_MODE));
+        Collection<Long> iids = lazyApi.getInlineValuesIndex().getIids();
+        assertThat(iids).isNotEmpty();
+
+        lazyApi.setContext(new NameValueUnit(OpenAtfxConstants.CONTEXT_WRITE_EXTERNALCOMPONENTS, DataType.DT_STRING,
+                                             "FALSE"));
+        lazyApi.setContext(new NameValueUnit(OpenAtfxConstants.CONTEXT_INDENT_XML, DataType.DT_STRING, "FALSE"));
+        lazyApi.writeAtfx(atfxFile.toFile());
+        assertThat(lazyApi.getInlineValuesIndex().getIids()).isEmpty();
+
+        OpenAtfxAPIImplementation rereadApi = open(atfxFile, Collections.emptyList());
+        for (long iid : iids) {
+            assertThat(getValues(rereadApi, iid).getValue().getValue())
+                    .isEqualTo(getValues(eagerApi, iid).getValue().getValue());
+        }
+    }
+
+    @Test
+    void testSetInstanceValue_replacesSkippedValues() throws Exception {
+        OpenAtfxAPIImplementation lazyApi = open(Path.of(getExampleUrl().toURI()), List.of(LAZY, WRITE_MODE));
+        InlineValuesIndex inlineValues = lazyApi.getInlineValuesIndex();
+        long iid = inlineValues.getIids().iterator().next();
+        long aid = lazyApi.getUniqueElementByBaseType(AtfxTagConstants.LC).getId();
+        String valuesAttrName = lazyApi.getElementById(aid).getAttributeByBaseName(AtfxTagConstants.LC_VALUES)
+                                       .getName();
+
+        lazyApi.setAttributeValues(aid, iid, List.of(new NameValueUnit(valuesAttrName, DataType.DS_DOUBLE,
+                                                                       new double[] { 1, 2 })));
+        assertThat(inlineValues.contains(iid)).isFalse();
+        assertThat(getValues(lazyApi, iid).getValue().getValue()).isEqualTo(new double[] { 1, 2 });
+    }
+
+    private static URL getExampleUrl() {
+        return InlineValuesIndexTest.class.getResource("/com/peaksolution/openatfx/example.atfx");
+    }
+
+    private static OpenAtfxAPIImplementation open(Path atfxFile, Collection<NameValueUnit> context)
+            throws Exception {
+        IFileHandler fileHandler = new LocalFileHandler();
+        AtfxReader reader = new AtfxReader(fileHandler, atfxFile, false, null);
+        try (InputStream in = fileHandler.getFileStream(atfxFile)) {
+            XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+            XMLStreamReader rawReader = inputFactory.createXMLStreamReader(in);
+            XMLStreamReader xmlReader = inputFactory.createFilteredReader(rawReader, new StartEndElementFilter());
+            OpenAtfxAPIImplementation api = reader.readFile(xmlReader, context);
+            api.setContext(new NameValueUnit("FILE_ROOT", DataType.DT_STRING, atfxFile.getParent().toString()));
+            return api;
+        }
+    }
+
+    private static Collection<Long> getLcIids(OpenAtfxAPI api) {
+        long aid = api.getUniqueElementByBaseType(AtfxTagConstants.LC).getId();
+        Collection<Long> iids = new ArrayList<>();
+        for (Instance instance : api.getInstances(aid)) {
+            iids.add(instance.getIid());
+        }
+        return iids;
+    }
+
+    private static NameValueUnit getValues(OpenAtfxAPI api, long iid) {
+        long aid = api.getUniqueElementByBaseType(AtfxTagConstants.LC).getId();
+        return api.getInstanceById(aid, iid).getValueByBaseName(AtfxTagConstants.LC_VALUES);
+    }
+}
@@ -0,0 +1,96 @@
+package com.peaksolution.openatfx.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.peaksolution.openatfx.LocalFileHandler;
+import com.peaksolution.openatfx.io.AtfxTagConstants;
+
+
+/**
+ * Test case for opening an ATFX file with <code>com.peaksolution.openatfx.api.InstanceFilter</code> and the context
+ * 'SKIP_ELEMENTS'.
+ *
+ * @author Markus Renner
+ */
+class InstanceFilterTest {
+
+    private static Path atfxFile;
+    private static OpenAtfxAPIImplementation fullApi;
+
+    @BeforeAll
+    static void setUpBeforeClass() throws Exception {
+        atfxFile = Path.of(InstanceFilterTest.class.getResource("/com/peaksolution/openatfx/example.atfx").toURI());
+        fullApi = open(new Properties(), null);
+    }
+
+    @Test
+    void testSkipElements_namesAndBaseTypes() {
+        Properties properties = new Properties();
+        properties.setProperty(OpenAtfxConstants.CONTEXT_SKIP_ELEMENTS, "AoLocalColumn, ec");
+        OpenAtfxAPIImplementation api = open(properties, null);
+
+        assertThat(api.getInstances(api.getElementByName("lc").getId())).isEmpty();
+        assertThat(api.getInstances(api.getElementByName("ec").getId())).isEmpty();
+        long aidSm = api.getElementByName("sm").getId();
+        assertThat(api.getInstances(aidSm)).hasSameSizeAs(fullApi.getInstances(aidSm));
+        for (Instance sm : api.getInstances(aidSm)) {
+            assertThat(api.getRelatedInstanceIds(aidSm, sm.getIid(), "lc_iid")).isEmpty();
+            assertThat(api.getRelatedInstanceIds(aidSm, sm.getIid(), "dts_iid"))
+                    .isEqualTo(fullApi.getRelatedInstanceIds(aidSm, sm.getIid(), "dts_iid"));
+        }
+    }
+
+    @Test
+    void testInstanceFilter_relationsToRejectedDropped() {
+        OpenAtfxAPIImplementation api = open(new Properties(),
+                                             (aeName, iid) -> !(aeName.equals("meq") && iid == 38)
+                                                     && !(aeName.equals("lc") && iid == 39));
+        long aidMeq = api.getElementByName("meq").getId();
+        long aidDts = api.getElementByName("dts").getId();
+        assertThat(getIids(api, aidMeq)).doesNotContain(38L).hasSize(getIids(fullApi, aidMeq).size() - 1);
+        assertThat(getIids(api, api.getElementByName("lc").getId())).doesNotContain(39L);
+
+        List<Long> expectedMeqIids = new ArrayList<>(fullApi.getRelatedInstanceIds(aidDts, 32, "meq_iid"));
+        expectedMeqIids.remove(38L);
+        assertThat(api.getRelatedInstanceIds(aidDts, 32, "meq_iid")).containsExactlyInAnyOrderElementsOf(expectedMeqIids);
+        assertThat(api.getRelatedInstanceIds(api.getElementByName("sm").getId(), 33, "lc_iid"))
+                .containsExactlyInAnyOrder(45L, 47L);
+    }
+
+    @Test
+    void testInstanceFilter_lazyInlineValues() {
+        Properties properties = new Properties();
+        properties.setProperty(OpenAtfxConstants.CONTEXT_LAZY_INLINE_VALUES, "TRUE");
+        OpenAtfxAPIImplementation api = open(properties, (aeName, iid) -> !aeName.equals("lc") || iid % 2 == 1);
+        long aidLc = api.getElementByName("lc").getId();
+        Collection<Instance> lcs = api.getInstances(aidLc);
+        assertThat(lcs).isNotEmpty().hasSizeLessThan(fullApi.getInstances(aidLc).size());
+        for (Instance lc : lcs) {
+            assertThat(lc.getIid() % 2).isEqualTo(1);
+            assertThat(lc.getValueByBaseName(AtfxTagConstants.LC_VALUES).getValue().getValue())
+                    .isEqualTo(fullApi.getInstanceById(aidLc, lc.getIid()).getValueByBaseName(AtfxTagConstants.LC_VALUES)
+                                      .getValue().getValue());
+        }
+    }
+
+    private static OpenAtfxAPIImplementation open(Properties properties, InstanceFilter instanceFilter) {
+        return new ApiFactory().getApiForExistingFile(new LocalFileHandler(), atfxFile, properties, instanceFilter);
+    }
+
+    private static Collection<Long> getIids(OpenAtfxAPI api, long aid) {
+        Collection<Long> iids = new ArrayList<>();
+        for (Instance instance : api.getInstances(aid)) {
+            iids.add(instance.getIid());
+        }
+        return iids;
+    }
+}
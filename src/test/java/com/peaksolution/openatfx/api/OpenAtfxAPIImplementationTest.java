@@ -6,7 +6,9 @@ import java.io.InputStream;
 import java.net.URL;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamReader;
@@ -54,4 +56,34 @@ public class OpenAtfxAPIImplementationTest {
         }
         assertThat(thrown).isNotNull();
     }
+
+    @Test
+    void testSetExtCompValue_invalidatesRelatedColumnOnly() {
+        Element lcElement = api.getUniqueElementByBaseType("aolocalcolumn");
+        Element ecElement = api.getUniqueElementByBaseType("aoexternalcomponent");
+        Relation relExtComps = api.getRelationByBaseName(lcElement.getId(), "external_component");
+        List<Long> iidLcs = new ArrayList<>();
+        List<Long> iidExtComps = new ArrayList<>();
+        for (Instance lc : api.getInstances(lcElement.getId())) {
+            List<Long> related = api.getRelatedInstanceIds(lcElement.getId(), lc.getIid(), relExtComps);
+            if (related.size() == 1 && iidLcs.size() < 2) {
+                iidLcs.add(lc.getIid());
+                iidExtComps.add(related.get(0));
+            }
+        }
+        assertThat(iidLcs).hasSize(2);
+        for (long iidLc : iidLcs) {
+            api.getInstanceById(lcElement.getId(), iidLc).getValueByBaseName("values");
+        }
+        ExtCompValuesCache cache = api.getValuesCache();
+        DataType dt0 = api.getDataTypeForLocalColumnValues(iidLcs.get(0));
+        DataType dt1 = api.getDataTypeForLocalColumnValues(iidLcs.get(1));
+        assertThat(cache.getIfPresent(iidLcs.get(0), dt0)).isNotNull();
+        assertThat(cache.getIfPresent(iidLcs.get(1), dt1)).isNotNull();
+
+        Instance extComp = api.getInstanceById(ecElement.getId(), iidExtComps.get(0));
+        api.setAttributeValues(ecElement.getId(), extComp.getIid(), List.of(extComp.getValueByBaseName("name")));
+        assertThat(cache.getIfPresent(iidLcs.get(0), dt0)).isNull();
+        assertThat(cache.getIfPresent(iidLcs.get(1), dt1)).isNotNull();
+    }
 }
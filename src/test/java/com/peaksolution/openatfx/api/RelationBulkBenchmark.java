@@ -0,0 +1,112 @@
+package com.peaksolution.openatfx.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.function.Consumer;
+
+import org.asam.ods.SetType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.peaksolution.openatfx.LocalFileHandler;
+
+
+/**
+ * Compares setting the instance relations of a parsed file in bulk against the previous implementation, which set the
+ * relations of each instance and each side separately with <code>setRelatedInstances(..., SetType.APPEND)</code>.
+ * <p>
+ * Run with <code>mvn test -Dtest=RelationBulkBenchmark -Dbenchmark=true</code>.
+ *
+ * @author Markus Renner
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class RelationBulkBenchmark {
+
+    private static final int MEASUREMENTS = 100;
+    private static final int QUANTITIES = 500_000;
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int ROUNDS = 5;
+
+    @Test
+    void benchmarkConnectInstances() throws Exception {
+        long previous = measure(this::connectPrevious);
+        long bulk = measure(this::connectBulk);
+        System.out.printf("%,d relation edges: previous %,.1f ms, bulk %,.1f ms, speedup %.2fx%n", QUANTITIES,
+                          previous / 1e6, bulk / 1e6, (double) previous / bulk);
+    }
+
+    private void connectPrevious(TestData data) {
+        // the previous relation map contained both sides
+        Map<Long, Collection<Long>> meqIidsByDtsIid = new HashMap<>();
+        for (Entry<Long, Collection<Long>> entry : data.dtsIidByMeqIid.entrySet()) {
+            data.api.setRelatedInstances(data.aidMeq, entry.getKey(), "dts_iid", entry.getValue(), SetType.APPEND);
+            for (Long dtsIid : entry.getValue()) {
+                meqIidsByDtsIid.computeIfAbsent(dtsIid, v -> new HashSet<>()).add(entry.getKey());
+            }
+        }
+        for (Entry<Long, Collection<Long>> entry : meqIidsByDtsIid.entrySet()) {
+            data.api.setRelatedInstances(data.aidDts, entry.getKey(), "meq_iid", entry.getValue(), SetType.APPEND);
+        }
+    }
+
+    private void connectBulk(TestData data) {
+        data.api.connectInstances(data.relation, data.dtsIidByMeqIid);
+    }
+
+    /**
+     * Returns the best time in nanoseconds of given task after warming up, each run gets a new session.
+     */
+    private static long measure(Consumer<TestData> task) throws Exception {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < WARMUP_ROUNDS + ROUNDS; i++) {
+            TestData data = new TestData();
+            long start = System.nanoTime();
+            task.accept(data);
+            long time = System.nanoTime() - start;
+            data.verify();
+            if (i >= WARMUP_ROUNDS) {
+                best = Math.min(best, time);
+            }
+        }
+        return best;
+    }
+
+    private static class TestData {
+        private final OpenAtfxAPIImplementation api;
+        private final long aidDts;
+        private final long aidMeq;
+        private final Relation relation;
+        private final List<Long> dtsIids = new ArrayList<>();
+        private final Map<Long, Collection<Long>> dtsIidByMeqIid = new HashMap<>();
+
+        private TestData() throws Exception {
+            Path atfxFile = Path.of(RelationBulkBenchmark.class.getResource("/com/peaksolution/openatfx/example.atfx")
+                                                              .toURI());
+            api = new ApiFactory().getApiForExistingFile(new LocalFileHandler(), atfxFile, new Properties());
+            aidDts = api.getElementByName("dts").getId();
+            aidMeq = api.getElementByName("meq").getId();
+            relation = api.getElementByName("meq").getRelationByName("dts_iid");
+            for (int i = 0; i < MEASUREMENTS; i++) {
+                dtsIids.add(api.createInstance(aidDts, List.of()).getIid());
+            }
+            for (int i = 0; i < QUANTITIES; i++) {
+                long meqIid = api.createInstance(aidMeq, List.of()).getIid();
+                dtsIidByMeqIid.put(meqIid, List.of(dtsIids.get(i % MEASUREMENTS)));
+            }
+        }
+
+        private void verify() {
+            assertThat(api.getRelatedInstanceIds(aidDts, dtsIids.get(0), "meq_iid"))
+                    .hasSize(QUANTITIES / MEASUREMENTS);
+        }
+    }
+}
@@ -6,6 +6,7 @@ import static org.junit.Assert.fail;
 
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -40,6 +41,7 @@ import org.assertj.core.util.Arrays;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.omg.CORBA.ORB;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,8 +49,12 @@ import org.slf4j.LoggerFactory;
 import com.peaksolution.openatfx.GlassfishCorbaExtension;
 import com.peaksolution.openatfx.IFileHandler;
 import com.peaksolution.openatfx.LocalFileHandler;
+import com.peaksolution.openatfx.OpenAtfx;
 import com.peaksolution.openatfx.UnitTestFileHandler;
+import com.peaksolution.openatfx.api.OpenAtfxAPI;
+import com.peaksolution.openatfx.api.OpenAtfxAPIImplementation;
 import com.peaksolution.openatfx.api.OpenAtfxConstants;
+import com.peaksolution.openatfx.api.SingleValue;
 import com.peaksolution.openatfx.util.ODSHelper;
 
 
@@ -84,6 +90,35 @@ public class CorbaAtfxReaderTest {
         }
     }
 
+    @Test
+    void testCommitTransaction_lazyInlineValues(@TempDir Path tempDir) throws Exception {
+        URL url = CorbaAtfxReaderTest.class.getResource("/com/peaksolution/openatfx/example.atfx");
+        Path path = tempDir.resolve("example.atfx");
+        Files.copy(Paths.get(url.toURI()), path);
+        CorbaAtfxReader reader = new CorbaAtfxReader();
+        reader.init(orb, new LocalFileHandler(), path.toAbsolutePath(),
+                    ODSHelper.createStringNV(OpenAtfxConstants.CONTEXT_LAZY_INLINE_VALUES, "TRUE"));
+        AoSession aoSession = reader.getSession();
+        OpenAtfxAPIImplementation api = reader.getApi();
+        OpenAtfxAPI eagerApi = new OpenAtfx().openFile(Paths.get(url.toURI()));
+        try {
+            // removing a local column moves the inline values of the following local columns in the committed file
+            long aidLc = api.getUniqueElementByBaseType("aolocalcolumn").getId();
+            aoSession.startTransaction();
+            api.removeInstance(aidLc, 45);
+            aoSession.commitTransaction();
+
+            for (long iidLc : List.of(67L, 70L)) {
+                SingleValue expected = eagerApi.getInstanceById(aidLc, iidLc).getValueByBaseName("values").getValue();
+                SingleValue actual = api.getInstanceById(aidLc, iidLc).getValueByBaseName("values").getValue();
+                assertThat(actual.doubleSeq()).containsExactly(expected.doubleSeq());
+            }
+        } finally {
+            eagerApi.close();
+            aoSession.close();
+        }
+    }
+
     @Test
     void testReadInstanceAttributesWithUnits() throws URISyntaxException {
         try {
@@ -0,0 +1,146 @@
+package com.peaksolution.openatfx.io;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+
+/**
+ * Compares the throughput of parsing number sequences with {@link NumberSeqParser} against the previous implementation
+ * based on <code>String.split()</code> and boxed single value parsing.
+ * <p>
+ * Run with <code>mvn test -Dtest=AtfxParseUtilBenchmark -Dbenchmark=true</code>.
+ *
+ * @author Markus Renner
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class AtfxParseUtilBenchmark {
+
+    private static final int VALUES = 1_000_000;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+
+    @Test
+    void benchmarkParseDoubleSeq() {
+        Random random = new Random(1);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < VALUES; i++) {
+            sb.append(Math.round(random.nextGaussian() * 1e6) / 1e3).append(' ');
+        }
+        String input = sb.toString();
+
+        double[] expected = parseDoubleSeqSplit(input);
+        assertThat(Arrays.equals(AtfxParseUtil.parseDoubleSeq(input), expected)).isTrue();
+        long split = measure(() -> parseDoubleSeqSplit(input));
+        long parser = measure(() -> AtfxParseUtil.parseDoubleSeq(input));
+        report("DT_DOUBLE", input.length(), split, parser);
+    }
+
+    @Test
+    void benchmarkParseFloatSeq() {
+        Random random = new Random(2);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < VALUES; i++) {
+            sb.append(random.nextFloat() * 100f).append('\n');
+        }
+        String input = sb.toString();
+
+        float[] expected = parseFloatSeqSplit(input);
+        assertThat(Arrays.equals(AtfxParseUtil.parseFloatSeq(input), expected)).isTrue();
+        long split = measure(() -> parseFloatSeqSplit(input));
+        long parser = measure(() -> AtfxParseUtil.parseFloatSeq(input));
+        report("DT_FLOAT", input.length(), split, parser);
+    }
+
+    @Test
+    void benchmarkParseLongSeq() {
+        Random random = new Random(3);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < VALUES; i++) {
+            sb.append(random.nextInt()).append(' ');
+        }
+        String input = sb.toString();
+
+        int[] expected = parseLongSeqSplit(input);
+        assertThat(Arrays.equals(AtfxParseUtil.parseLongSeq(input), expected)).isTrue();
+        long split = measure(() -> parseLongSeqSplit(input));
+        long parser = measure(() -> AtfxParseUtil.parseLongSeq(input));
+        report("DT_LONG", input.length(), split, parser);
+    }
+
+    /**
+     * Returns the best time in nanoseconds of given task after warming up.
+     */
+    private static long measure(Runnable task) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            task.run();
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            task.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    private static void report(String dataType, int chars, long splitNanos, long parserNanos) {
+        System.out.printf("%-9s %,d values (%,d chars): split %,.1f MB/s, parser %,.1f MB/s, speedup %.2fx%n",
+                          dataType, VALUES, chars, throughput(chars, splitNanos), throughput(chars, parserNanos),
+                          (double) splitNanos / parserNanos);
+    }
+
+    private static double throughput(int chars, long nanos) {
+        return chars / (nanos / 1e9) / (1024 * 1024);
+    }
+
+    /*
+     * The previous implementations
+     */
+
+    private static double[] parseDoubleSeqSplit(String str) {
+        String input = str.trim();
+        if (input.length() > 0) {
+            String[] strAr = input.split("\\s+");
+            double[] bAr = new double[strAr.length];
+            for (int i = 0; i < strAr.length; i++) {
+                Double val = AtfxParseUtil.parseDouble(strAr[i]);
+                bAr[i] = val != null ? val : 0;
+            }
+            return bAr;
+        }
+        return new double[0];
+    }
+
+    private static float[] parseFloatSeqSplit(String str) {
+        String input = str.trim();
+        if (input.length() > 0) {
+            String[] strAr = input.split("\\s+");
+            float[] bAr = new float[strAr.length];
+            for (int i = 0; i < strAr.length; i++) {
+                Float val = AtfxParseUtil.parseFloat(strAr[i]);
+                bAr[i] = val != null ? val : 0;
+            }
+            return bAr;
+        }
+        return new float[0];
+    }
+
+    private static int[] parseLongSeqSplit(String str) {
+        String input = str.trim();
+        if (input.length() > 0) {
+            String[] strAr = input.split("\\s+");
+            int[] bAr = new int[strAr.length];
+            for (int i = 0; i < strAr.length; i++) {
+                Integer val = AtfxParseUtil.parseLong(strAr[i]);
+                bAr[i] = val != null ? val : 0;
+            }
+            return bAr;
+        }
+        return new int[0];
+    }
+}
@@ -3,6 +3,10 @@ package com.peaksolution.openatfx.io;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.fail;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
 import org.junit.jupiter.api.Test;
 
 import com.peaksolution.openatfx.api.OpenAtfxException;
@@ -52,6 +56,13 @@ class AtfxParseUtilTest {
     void testParseLongLongSeq() {
         assertThat(AtfxParseUtil.parseLongLongSeq("  1 2 3  4 5")).containsExactly(new long[] { 1, 2, 3, 4, 5 });
         assertThat(AtfxParseUtil.parseLongLongSeq(" ")).containsExactly(new long[0]);
+        assertThat(AtfxParseUtil.parseLongLongSeq("-9223372036854775808 9223372036854775807 123456789012345678"))
+                .containsExactly(Long.MIN_VALUE, Long.MAX_VALUE, 123456789012345678L);
+        try {
+            AtfxParseUtil.parseLongLongSeq("9223372036854775808");
+            fail("Exception expected");
+        } catch (OpenAtfxException e) {
+        }
     }
 
     @Test
@@ -71,6 +82,18 @@ class AtfxParseUtilTest {
     void testParseLongSeq() {
         assertThat(AtfxParseUtil.parseLongSeq("  1 2 3  4 5")).containsExactly(new int[] { 1, 2, 3, 4, 5 });
         assertThat(AtfxParseUtil.parseLongSeq(" ")).containsExactly(new int[0]);
+        assertThat(AtfxParseUtil.parseLongSeq("+7\t-2147483648\n2147483647 007")).containsExactly(7, -2147483648,
+                                                                                                  2147483647, 7);
+        try {
+            AtfxParseUtil.parseLongSeq("1 2147483648");
+            fail("Exception expected");
+        } catch (OpenAtfxException e) {
+        }
+        try {
+            AtfxParseUtil.parseLongSeq("1 2.0");
+            fail("Exception expected");
+        } catch (OpenAtfxException e) {
+        }
     }
 
     @Test
@@ -90,6 +113,32 @@ class AtfxParseUtilTest {
     void testParseFloatSeq() {
         assertThat(AtfxParseUtil.parseFloatSeq("  1.1 2.2 3.3")).containsExactly(new float[] { 1.1f, 2.2f, 3.3f });
         assertThat(AtfxParseUtil.parseFloatSeq(" ")).containsExactly(new float[0]);
+        assertThat(AtfxParseUtil.parseFloatSeq("NaN nan\tINF\n-inf Infinity 1e3 -2.5E-2 .5 7. 0x1p3 1.5f -0"))
+                .containsExactly(Float.NaN, Float.NaN, Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY,
+                                 Float.POSITIVE_INFINITY, 1000f, -0.025f, 0.5f, 7f, 8f, 1.5f, -0f);
+        try {
+            AtfxParseUtil.parseFloatSeq("1.1 1.2.3");
+            fail("Exception expected");
+        } catch (OpenAtfxException e) {
+        }
+    }
+
+    @Test
+    void testParseFloatSeq_sameAsParseFloat() {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder();
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            String token = randomDecimal(random);
+            tokens.add(token);
+            sb.append(token).append(i % 10 == 9 ? '\n' : ' ');
+        }
+        float[] values = AtfxParseUtil.parseFloatSeq(sb.toString());
+        assertThat(values).hasSize(tokens.size());
+        for (int i = 0; i < values.length; i++) {
+            int expected = Float.floatToIntBits(Float.parseFloat(tokens.get(i)));
+            assertThat(Float.floatToIntBits(values[i])).as(tokens.get(i)).isEqualTo(expected);
+        }
     }
 
     @Test
@@ -109,6 +158,49 @@ class AtfxParseUtilTest {
     void testParseDoubleSeq() {
         assertThat(AtfxParseUtil.parseDoubleSeq("  1.1 2.2 3.3")).containsExactly(new double[] { 1.1, 2.2, 3.3 });
         assertThat(AtfxParseUtil.parseDoubleSeq(" ")).containsExactly(new double[0]);
+        assertThat(AtfxParseUtil.parseDoubleSeq("NaN NAN INF -INF -Infinity 1e300 1.7976931348623157E308 4.9e-324"))
+                .containsExactly(Double.NaN, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                                 Double.NEGATIVE_INFINITY, 1e300, Double.MAX_VALUE, Double.MIN_VALUE);
+        assertThat(AtfxParseUtil.parseDoubleSeq("0.1000000000000000055511151231257827 123456789012345678901"))
+                .containsExactly(0.1, 123456789012345678901d);
+        try {
+            AtfxParseUtil.parseDoubleSeq("1.1 - 2");
+            fail("Exception expected");
+        } catch (OpenAtfxException e) {
+        }
+    }
+
+    @Test
+    void testParseDoubleSeq_sameAsParseDouble() {
+        Random random = new Random(4711);
+        StringBuilder sb = new StringBuilder();
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            String token = i % 2 == 0 ? randomDecimal(random) : Double.toString(random.nextGaussian() * 1e6);
+            tokens.add(token);
+            sb.append(token).append("\r\n\t ");
+        }
+        double[] values = AtfxParseUtil.parseDoubleSeq(sb.toString());
+        assertThat(values).hasSize(tokens.size());
+        for (int i = 0; i < values.length; i++) {
+            long expected = Double.doubleToLongBits(Double.parseDouble(tokens.get(i)));
+            assertThat(Double.doubleToLongBits(values[i])).as(tokens.get(i)).isEqualTo(expected);
+        }
+    }
+
+    private static String randomDecimal(Random random) {
+        StringBuilder sb = new StringBuilder();
+        if (random.nextBoolean()) {
+            sb.append('-');
+        }
+        sb.append(random.nextInt(100000));
+        if (random.nextBoolean()) {
+            sb.append('.').append(random.nextInt(10000000));
+        }
+        if (random.nextInt(4) == 0) {
+            sb.append('e').append(random.nextInt(60) - 30);
+        }
+        return sb.toString();
     }
 
     @Test
@@ -128,6 +220,11 @@ class AtfxParseUtilTest {
     void testParseShortSeq() {
         assertThat(AtfxParseUtil.parseShortSeq("  1 2 3  4 5")).containsExactly(new short[] { 1, 2, 3, 4, 5 });
         assertThat(AtfxParseUtil.parseShortSeq(" ")).containsExactly(new short[0]);
+        try {
+            AtfxParseUtil.parseShortSeq("1 32768");
+            fail("Exception expected");
+        } catch (OpenAtfxException e) {
+        }
     }
 
     @Test
@@ -142,6 +239,7 @@ class AtfxParseUtilTest {
     void testParseByteSeq() {
         assertThat(AtfxParseUtil.parseByteSeq("  1 2 3  4 222")).containsExactly(new byte[] { 1, 2, 3, 4, (byte) 222 });
         assertThat(AtfxParseUtil.parseByteSeq(" ")).containsExactly(new byte[0]);
+        assertThat(AtfxParseUtil.parseByteSeq("-1 255 256")).containsExactly(new byte[] { -1, -1, 0 });
     }
 
     @Test
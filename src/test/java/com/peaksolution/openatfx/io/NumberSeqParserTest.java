@@ -0,0 +1,56 @@
+package com.peaksolution.openatfx.io;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import org.junit.jupiter.api.Test;
+
+import com.peaksolution.openatfx.api.OpenAtfxException;
+
+
+/**
+ * Test case for <code>com.peaksolution.openatfx.io.NumberSeqParser</code>.
+ *
+ * @author Markus Renner
+ */
+class NumberSeqParserTest {
+
+    private static final String DOUBLE_SEQ = " 1.5  -22.25\n333 NaN\t4e-3 -INF 123456789012345678901 ";
+
+    @Test
+    void testAppend_tokensSpanningChunks() {
+        double[] expected = AtfxParseUtil.parseDoubleSeq(DOUBLE_SEQ);
+        assertThat(expected).hasSize(7);
+        char[] chars = DOUBLE_SEQ.toCharArray();
+        for (int chunkSize = 1; chunkSize <= chars.length; chunkSize++) {
+            NumberSeqParser.DoubleSeq parser = new NumberSeqParser.DoubleSeq();
+            for (int start = 0; start < chars.length; start += chunkSize) {
+                parser.append(chars, start, Math.min(chunkSize, chars.length - start));
+            }
+            assertThat(parser.toArray()).as("chunk size " + chunkSize).containsExactly(expected);
+        }
+    }
+
+    @Test
+    void testAppend_emptyChunks() {
+        NumberSeqParser.LongSeq parser = new NumberSeqParser.LongSeq();
+        char[] chars = "12 34".toCharArray();
+        parser.append(chars, 0, 0);
+        parser.append(chars, 0, 1);
+        parser.append(chars, 1, 0);
+        parser.append(chars, 1, 4);
+        assertThat(parser.toArray()).containsExactly(12, 34);
+        assertThat(new NumberSeqParser.LongSeq().toArray()).isEmpty();
+    }
+
+    @Test
+    void testToArray_invalidLastToken() {
+        NumberSeqParser.ShortSeq parser = new NumberSeqParser.ShortSeq();
+        parser.append("1 2 x");
+        try {
+            parser.toArray();
+            fail("Exception expected");
+        } catch (OpenAtfxException e) {
+        }
+    }
+}
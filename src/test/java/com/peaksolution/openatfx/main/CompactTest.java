@@ -0,0 +1,60 @@
+package com.peaksolution.openatfx.main;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.peaksolution.openatfx.OpenAtfx;
+import com.peaksolution.openatfx.api.CompactionResult;
+import com.peaksolution.openatfx.api.DataType;
+import com.peaksolution.openatfx.api.Instance;
+import com.peaksolution.openatfx.api.NameValueUnit;
+import com.peaksolution.openatfx.api.OpenAtfxAPI;
+
+/**
+ * Tests compacting the external component files of an ATFX file from the command line entry point.
+ */
+class CompactTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testCompact() throws Exception {
+        URL url = CompactTest.class.getResource("/com/peaksolution/openatfx/example.atfx");
+        Path atfxFile = dir.resolve("example.atfx");
+        Files.copy(Path.of(url.toURI()), atfxFile);
+
+        // values written twice leave dead space in the component file
+        float[] values = new float[] { 1f, 2f, 3f, 4f };
+        OpenAtfxAPI api = new OpenAtfx().openFile(atfxFile);
+        api.setContext(new NameValueUnit("write_mode", DataType.DT_STRING, "file"));
+        long aidLc = api.getUniqueElementByBaseType("aolocalcolumn").getId();
+        String valuesAttrName = api.getUniqueElementByBaseType("aolocalcolumn").getAttributeByBaseName("values")
+                                   .getName();
+        long iidLc = 47; // a local column of data type DT_FLOAT
+        api.setAttributeValues(aidLc, iidLc, List.of(new NameValueUnit(valuesAttrName, DataType.DS_FLOAT,
+                                                                       new float[100])));
+        api.setAttributeValues(aidLc, iidLc, List.of(new NameValueUnit(valuesAttrName, DataType.DS_FLOAT, values)));
+        api.writeAtfx(atfxFile.toFile());
+        api.close();
+        assertThat(Files.size(dir.resolve("example_1.btf"))).isEqualTo(416);
+
+        CompactionResult result = Compact.compact(atfxFile);
+        assertThat(result.getReclaimedBytes()).isEqualTo(400);
+        assertThat(dir.resolve("example_1.btf")).doesNotExist();
+        assertThat(Files.size(dir.resolve("example_2.btf"))).isEqualTo(16);
+        assertThat(dir.resolve("example.atfx.tmp")).doesNotExist();
+
+        api = new OpenAtfx().openFile(atfxFile);
+        Instance lc = api.getInstanceById(aidLc, iidLc);
+        assertThat(lc.getValueByBaseName("values").getValue().floatSeq()).containsExactly(values);
+        api.close();
+    }
+}